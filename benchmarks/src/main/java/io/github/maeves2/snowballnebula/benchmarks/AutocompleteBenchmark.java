@@ -0,0 +1,70 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteEvent;
+import io.github.maeves2.snowballnebula.autocomplete.PrefixIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching a {@link PrefixIndex} the size of a large guild's item list for
+ * the top {@value AutocompleteEvent#MAX_CHOICES} matches, as every keystroke
+ * of an autocompleted option does. Prefixes get longer like a user typing,
+ * the empty prefix matches every value.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutocompleteBenchmark {
+    @Param({"1000", "100000"})
+    public int entries;
+
+    @Param({"false", "true"})
+    public boolean weighted;
+
+    private PrefixIndex index;
+    private String[] prefixes;
+    private final String[] results = new String[AutocompleteEvent.MAX_CHOICES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        var values = new HashMap<String, Long>();
+        while (values.size() < entries) {
+            var value = new StringBuilder();
+            for (int i = 0, length = 4 + random.nextInt(12); i < length; i++)
+                value.append((char) ('a' + random.nextInt(26)));
+            values.put(value.toString(), weighted ? (long) random.nextInt(1000) : 0L);
+        }
+        index = new PrefixIndex();
+        index.putAll(values);
+        var typed = values.keySet().iterator().next();
+        prefixes = new String[Math.min(typed.length(), 5) + 1];
+        for (int i = 0; i < prefixes.length; i++) prefixes[i] = typed.substring(0, i);
+    }
+
+    @Benchmark
+    public int search() {
+        var prefix = prefixes[next];
+        next = next + 1 == prefixes.length ? 0 : next + 1;
+        return index.search(prefix, results);
+    }
+}
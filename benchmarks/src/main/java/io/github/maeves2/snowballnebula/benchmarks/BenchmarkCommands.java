@@ -0,0 +1,20 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.commands.SlashCommand;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
+/**
+ * Commands dispatched by {@link DispatchBenchmark}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class BenchmarkCommands {
+    @SlashCommand(name = "ping", desc = "Does nothing", options = {})
+    public static void ping(SlashCommandEvent event) {
+    }
+
+    @SlashCommand(name = "admin", desc = "Needs administrator", perm = Permission.ADMINISTRATOR, options = {})
+    public static void admin(SlashCommandEvent event) {
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.testing.StubSlashCommandEvent;
+import io.github.maeves2.snowballnebula.testing.Stubs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of a command through {@link SnowballNebula#onSlashCommand}, for a
+ * member with and without the needed permission. The denied path includes
+ * building the failure embed.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private SnowballNebula snowball;
+    private StubSlashCommandEvent allowed;
+    private StubSlashCommandEvent denied;
+
+    @Setup
+    public void setup() {
+        snowball = new SnowballNebula(Stubs.jda()).register(BenchmarkCommands.class);
+        if (metrics) snowball.enableMetrics(false);
+        var user = Stubs.user();
+        allowed = new StubSlashCommandEvent("ping", user, Stubs.member(true));
+        denied = new StubSlashCommandEvent("admin", user, Stubs.member(false));
+    }
+
+    @Benchmark
+    public void dispatch() {
+        snowball.onSlashCommand(allowed);
+    }
+
+    @Benchmark
+    public void permissionDenied() {
+        snowball.onSlashCommand(denied);
+    }
+}
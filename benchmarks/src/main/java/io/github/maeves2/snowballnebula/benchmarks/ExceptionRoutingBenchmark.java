@@ -0,0 +1,100 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.GeneratedRegistry;
+import io.github.maeves2.snowballnebula.commands.RegisteredCommand;
+import io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler;
+import io.github.maeves2.snowballnebula.testing.StubSlashCommandEvent;
+import io.github.maeves2.snowballnebula.testing.Stubs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of a command which always throws, with 1, 10 or 100 registered
+ * exception handlers. The handlers are spread over several commands and
+ * exception types, only the last one matches the thrown exception.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionRoutingBenchmark {
+    /**
+     * Exception types of the handlers which do not match.
+     */
+    private static final List<Class<? extends Exception>> OTHER_TYPES = List.of(
+            IllegalArgumentException.class, IllegalStateException.class, UnsupportedOperationException.class,
+            ArithmeticException.class, IndexOutOfBoundsException.class, ClassCastException.class);
+    /**
+     * Thrown by the command, preallocated and without stack trace so only
+     * the routing is measured.
+     */
+    private static final RuntimeException FAILURE = new BenchmarkException();
+
+    @Param({"1", "10", "100"})
+    public int handlers;
+
+    private SnowballNebula snowball;
+    private StubSlashCommandEvent event;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        var handlerList = new ArrayList<RegisteredExceptionHandler>();
+        for (int i = 0; i < handlers - 1; i++) {
+            var command = i % 2 == 0 ? "fail" : "other" + i;
+            handlerList.add(new RegisteredExceptionHandler(new String[]{command}, this, null,
+                    (instance, e, event) -> this.blackhole.consume(e), OTHER_TYPES.get(i % OTHER_TYPES.size())));
+        }
+        handlerList.add(new RegisteredExceptionHandler(new String[]{"*"}, this, null,
+                (instance, e, event) -> this.blackhole.consume(e), RuntimeException.class));
+        var command = RegisteredCommand.builder("fail")
+                .setDescription("Always fails")
+                .setInvoker((instance, event) -> {
+                    throw FAILURE;
+                })
+                .build();
+        snowball = new SnowballNebula(Stubs.jda()).register(new GeneratedRegistry() {
+            @Override
+            public List<RegisteredCommand> commands() {
+                return List.of(command);
+            }
+
+            @Override
+            public List<RegisteredExceptionHandler> handlers() {
+                return handlerList;
+            }
+        });
+        event = new StubSlashCommandEvent("fail", Stubs.user(), Stubs.member(true));
+    }
+
+    @Benchmark
+    public void route() {
+        snowball.onSlashCommand(event);
+    }
+
+    private static class BenchmarkException extends RuntimeException {
+        BenchmarkException() {
+            super("benchmark", null, false, false);
+        }
+    }
+}
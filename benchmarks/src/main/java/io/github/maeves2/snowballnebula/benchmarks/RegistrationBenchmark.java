@@ -0,0 +1,77 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.GeneratedRegistry;
+import io.github.maeves2.snowballnebula.testing.Stubs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration of generated classes holding hundreds of commands, either
+ * passed to {@link SnowballNebula#register(Class[])} directly, found using
+ * {@link SnowballNebula#enableAutoRegistering(String)} or loaded from the
+ * registry the annotation processor generated for them, see
+ * {@link SnowballNebula#register(GeneratedRegistry)}. Every invocation
+ * registers into a fresh {@link SnowballNebula}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationBenchmark {
+    @Param({"100", "500"})
+    public int commandsPerClass;
+
+    private SyntheticCommands synthetic;
+    private SnowballNebula snowball;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        synthetic = new SyntheticCommands(4, commandsPerClass);
+    }
+
+    @Setup(Level.Invocation)
+    public void createInstance() {
+        // auto-registering uses the context class loader, which is per thread
+        Thread.currentThread().setContextClassLoader(synthetic.getLoader());
+        snowball = new SnowballNebula(Stubs.jda());
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        synthetic.close();
+    }
+
+    @Benchmark
+    public SnowballNebula register() {
+        return snowball.register(synthetic.getClasses());
+    }
+
+    @Benchmark
+    public SnowballNebula autoRegister() {
+        return snowball.enableAutoRegistering(SyntheticCommands.PACKAGE);
+    }
+
+    @Benchmark
+    public SnowballNebula registerGenerated() {
+        return snowball.register(synthetic.loadRegistry());
+    }
+}
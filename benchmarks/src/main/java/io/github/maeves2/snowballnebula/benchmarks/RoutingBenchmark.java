@@ -0,0 +1,72 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.commands.CommandRegistry;
+import io.github.maeves2.snowballnebula.commands.RegisteredCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the command of an event in registries of top-level commands,
+ * subcommands and subcommand groups of different sizes. Every route has an
+ * alias, so half of the lookups go through one.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    private CommandRegistry registry;
+    private String[][] lookups;
+    private int next;
+
+    @Setup
+    public void setup() {
+        var commands = new ArrayList<RegisteredCommand>();
+        var paths = new ArrayList<String[]>();
+        for (int i = 0; i < routes; i++) {
+            var builder = RegisteredCommand.builder("command" + i % 10)
+                    .setDescription("Route " + i)
+                    .setAliases(List.of("alias" + i % 10))
+                    .setInvoker((instance, event) -> null);
+            String group = null;
+            String subcommand = null;
+            if (routes > 10) {
+                subcommand = "sub" + i / 10 % 10;
+                if (routes > 100) group = "group" + i / 100;
+                builder.setGroup(group).setSubcommand(subcommand);
+            }
+            commands.add(builder.build());
+            paths.add(new String[] {"command" + i % 10, group, subcommand});
+            paths.add(new String[] {"alias" + i % 10, group, subcommand});
+        }
+        registry = CommandRegistry.EMPTY.with(commands, List.of(), false);
+        lookups = paths.toArray(String[][]::new);
+    }
+
+    @Benchmark
+    public RegisteredCommand resolve() {
+        var path = lookups[next];
+        next = next + 1 == lookups.length ? 0 : next + 1;
+        return registry.resolve(path[0], path[1], path[2]);
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.maeves2.snowballnebula.benchmarks;
+
+import io.github.maeves2.snowballnebula.commands.GeneratedRegistry;
+import io.github.maeves2.snowballnebula.processor.RegistryProcessor;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Generates and compiles classes annotated with {@code AutoRegister}, each
+ * holding a number of commands, for the registration benchmarks. The classes
+ * are compiled into a temporary directory and loaded by their own class
+ * loader. The {@link RegistryProcessor} runs while compiling them, so the
+ * same commands can also be loaded from their {@link GeneratedRegistry}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class SyntheticCommands implements AutoCloseable {
+    /**
+     * Package of all generated classes.
+     */
+    public static final String PACKAGE = "io.github.maeves2.snowballnebula.synthetic";
+
+    private final Path directory;
+    private final URLClassLoader loader;
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    /**
+     * @param classCount The number of classes
+     * @param commandsPerClass The number of commands in every class
+     */
+    public SyntheticCommands(int classCount, int commandsPerClass) {
+        try {
+            directory = Files.createTempDirectory("snowballnebula-synthetic");
+            var sources = new ArrayList<String>();
+            var packageDir = directory.resolve(PACKAGE.replace('.', '/'));
+            Files.createDirectories(packageDir);
+            for (int i = 0; i < classCount; i++) {
+                var file = packageDir.resolve("Commands" + i + ".java");
+                Files.writeString(file, source(i, commandsPerClass));
+                sources.add(file.toString());
+            }
+            var compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) throw new IllegalStateException("Generating commands needs a JDK");
+            var classpath = System.getProperty("java.class.path");
+            var arguments = new ArrayList<>(List.of("-processor", RegistryProcessor.class.getName(),
+                    "-processorpath", classpath, "-classpath", classpath, "-d", directory.toString()));
+            arguments.addAll(sources);
+            if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0)
+                throw new IllegalStateException("Could not compile the generated commands");
+            loader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+                    SyntheticCommands.class.getClassLoader());
+            for (int i = 0; i < classCount; i++)
+                classes.add(Class.forName(PACKAGE + ".Commands" + i, false, loader));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String source(int index, int commands) {
+        var source = new StringBuilder()
+                .append("package ").append(PACKAGE).append(";\n\n")
+                .append("import io.github.maeves2.snowballnebula.commands.*;\n")
+                .append("import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;\n")
+                .append("import net.dv8tion.jda.api.interactions.commands.OptionType;\n\n")
+                .append("@AutoRegister\n")
+                .append("public class Commands").append(index).append(" {\n");
+        for (int i = 0; i < commands; i++) {
+            var name = "c" + index + "-" + i;
+            source.append("    @SlashCommand(name = \"").append(name).append("\", desc = \"Synthetic command\", options = {\n")
+                    .append("            @SlashCommand.Option(type = OptionType.STRING, name = \"text\", desc = \"Text\", required = true),\n")
+                    .append("            @SlashCommand.Option(type = OptionType.INTEGER, name = \"count\", desc = \"Count\")})\n")
+                    .append("    public static void command").append(i)
+                    .append("(SlashCommandEvent event, String text, long count) {\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    public ClassLoader getLoader() {
+        return loader;
+    }
+
+    public Class<?>[] getClasses() {
+        return classes.toArray(Class<?>[]::new);
+    }
+
+    /**
+     * Loads the registry generated for these classes the same way
+     * {@link io.github.maeves2.snowballnebula.SnowballNebula#enableGeneratedRegistry()}
+     * does, but from their own class loader.
+     * @return A new instance of the generated registry
+     */
+    public GeneratedRegistry loadRegistry() {
+        return ServiceLoader.load(GeneratedRegistry.class, loader).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No registry was generated"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        loader.close();
+        try (var files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(file);
+        }
+    }
+}
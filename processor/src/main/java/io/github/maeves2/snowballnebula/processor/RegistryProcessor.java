@@ -0,0 +1,522 @@
+package io.github.maeves2.snowballnebula.processor;
+
+import io.github.maeves2.snowballnebula.admission.Priority;
+import io.github.maeves2.snowballnebula.autocomplete.Autocomplete;
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteEvent;
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteOptionData;
+import io.github.maeves2.snowballnebula.autocomplete.RegisteredAutocomplete;
+import io.github.maeves2.snowballnebula.cache.CachePolicy;
+import io.github.maeves2.snowballnebula.cache.CacheScope;
+import io.github.maeves2.snowballnebula.cache.Cached;
+import io.github.maeves2.snowballnebula.commands.AutoRegister;
+import io.github.maeves2.snowballnebula.commands.OptionBinders;
+import io.github.maeves2.snowballnebula.commands.SlashCommand;
+import io.github.maeves2.snowballnebula.exception.ExceptionHandler;
+import io.github.maeves2.snowballnebula.ratelimit.RateLimitRule;
+import io.github.maeves2.snowballnebula.ratelimit.RateLimitScope;
+import net.dv8tion.jda.api.entities.GuildChannel;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor generating a
+ * {@link io.github.maeves2.snowballnebula.commands.GeneratedRegistry} for
+ * every compilation containing classes annotated with {@link AutoRegister}.
+ * The generated registry calls the command methods, exception handlers and
+ * autocomplete handlers directly, reads typed command parameters using the getters of
+ * {@link OptionBinders} and contains the prebuilt option data of every command. It is
+ * listed in {@code META-INF/services}, so it is picked up by
+ * {@code SnowballNebula#enableGeneratedRegistry()}. Non-static handlers are
+ * called on instances of their class, provided according to its
+ * {@code @Scoped} annotation.
+ * <p>
+ * The registry is generated in the package of the first {@link AutoRegister}
+ * class (ordered by name) and called {@code SnowballNebulaRegistry}. This can
+ * be changed using the {@code -Asnowballnebula.registry=com.example.Registry}
+ * compiler option.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@SupportedAnnotationTypes({
+        "io.github.maeves2.snowballnebula.autocomplete.Autocomplete",
+        "io.github.maeves2.snowballnebula.commands.AutoRegister",
+        "io.github.maeves2.snowballnebula.commands.SlashCommand",
+        "io.github.maeves2.snowballnebula.exception.ExceptionHandler"
+})
+@SupportedOptions(RegistryProcessor.REGISTRY_OPTION)
+public class RegistryProcessor extends AbstractProcessor {
+    /**
+     * Compiler option overriding the fully qualified name of the generated registry.
+     */
+    public static final String REGISTRY_OPTION = "snowballnebula.registry";
+    private static final String EVENT = "net.dv8tion.jda.api.events.interaction.SlashCommandEvent";
+    private static final String REGISTRY_INTERFACE = "io.github.maeves2.snowballnebula.commands.GeneratedRegistry";
+    private static final String BINDERS = OptionBinders.class.getName();
+    private static final List<String> CACHEABLE = List.of("net.dv8tion.jda.api.entities.MessageEmbed",
+            "net.dv8tion.jda.api.entities.Message", "java.lang.CharSequence");
+    private static final String RATE_LIMIT_RULE = RateLimitRule.class.getName();
+    private static final String AUTOCOMPLETE_EVENT = AutocompleteEvent.class.getName();
+    private static final String INSTANCE_PROVIDER = "io.github.maeves2.snowballnebula.scope.InstanceProvider";
+
+    /**
+     * Whether the registry was already written in a previous round.
+     */
+    private boolean generated = false;
+
+    /**
+     * Field names of the instance providers of classes with non-static
+     * handlers, by qualified class name.
+     */
+    private final Map<String, String> providers = new LinkedHashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        if (round.processingOver()) return false;
+        var types = new ArrayList<TypeElement>();
+        for (var element : round.getElementsAnnotatedWith(AutoRegister.class)) {
+            if (element instanceof TypeElement type) types.add(type);
+        }
+        if (types.isEmpty()) return false;
+        if (generated) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Classes annotated with @AutoRegister were generated in a later round and are not "
+                            + "part of the generated registry", types.get(0));
+            return false;
+        }
+        types.sort(Comparator.comparing(e -> e.getQualifiedName().toString()));
+
+        var commands = new ArrayList<String>();
+        var handlers = new ArrayList<String>();
+        var completers = new ArrayList<String>();
+        var originating = new ArrayList<Element>();
+        for (var type : types) {
+            if (!isAccessible(type)) {
+                error(type, "Classes annotated with @AutoRegister must be public and top-level or static");
+                continue;
+            }
+            originating.add(type);
+            for (var member : processingEnv.getElementUtils().getAllMembers(type)) {
+                if (member.getKind() != ElementKind.METHOD) continue;
+                var method = (ExecutableElement) member;
+                var command = method.getAnnotation(SlashCommand.class);
+                if (command != null) {
+                    var code = command(type, method, command);
+                    if (code != null) commands.add(code);
+                    continue;
+                }
+                var handler = method.getAnnotation(ExceptionHandler.class);
+                if (handler != null) {
+                    var code = handler(type, method, handler);
+                    if (code != null) handlers.add(code);
+                }
+                var completer = method.getAnnotation(Autocomplete.class);
+                if (completer != null) {
+                    var code = completer(type, method, completer);
+                    if (code != null) completers.add(code);
+                }
+            }
+        }
+        write(registryName(types.get(0)), commands, handlers, completers, originating.toArray(Element[]::new));
+        generated = true;
+        return false;
+    }
+
+    /**
+     * Generates the builder expression of a command.
+     */
+    private String command(TypeElement owner, ExecutableElement method, SlashCommand command) {
+        if (!checkMethod(method)) return null;
+        var arguments = arguments(method, command.options());
+        if (arguments == null) return null;
+        var provider = provider(owner, method);
+        if (provider == null) return null;
+        var code = new StringBuilder();
+        code.append("io.github.maeves2.snowballnebula.commands.RegisteredCommand.builder(")
+                .append(literal(command.name())).append(")")
+                .append("\n                        .setInstance(").append(owner.getQualifiedName()).append(".class)");
+        if (!provider.equals("null")) code.append("\n                        .setProvider(").append(provider).append(")");
+        code.append("\n                        .setDescription(").append(literal(command.desc())).append(")")
+                .append("\n                        .setPerm(net.dv8tion.jda.api.Permission.").append(command.perm().name()).append(")")
+                .append("\n                        .setPermissionMessage(").append(literal(command.permissionMessage())).append(")")
+                .append("\n                        .setMaxConcurrency(").append(command.maxConcurrency()).append(")")
+                .append("\n                        .setBusyMessage(").append(literal(command.busyMessage())).append(")")
+                .append("\n                        .setPriority(").append(Priority.class.getName()).append(".")
+                .append(command.priority().name()).append(")");
+        if (command.asyncReply()) code.append("\n                        .setAsyncReply(true)");
+        if (!command.subcommand().isBlank()) {
+            code.append("\n                        .setSubcommand(").append(literal(command.subcommand())).append(")");
+            if (!command.group().isBlank())
+                code.append("\n                        .setGroup(").append(literal(command.group())).append(")")
+                        .append("\n                        .setGroupDescription(").append(literal(command.groupDesc())).append(")");
+            code.append("\n                        .setCommandDescription(").append(literal(command.commandDesc())).append(")");
+        } else if (!command.group().isBlank()) {
+            error(method, "Subcommand groups need a subcommand");
+            return null;
+        }
+        if (command.aliases().length > 0) {
+            code.append("\n                        .setAliases(java.util.List.of(");
+            for (int i = 0; i < command.aliases().length; i++)
+                code.append(i == 0 ? "" : ", ").append(literal(command.aliases()[i]));
+            code.append("))");
+        }
+        var rateLimits = command.rateLimits();
+        if (rateLimits.length > 0) {
+            code.append("\n                        .setRateLimits(java.util.List.of(");
+            for (int i = 0; i < rateLimits.length; i++) {
+                var rateLimit = rateLimits[i];
+                if (rateLimit.uses() <= 0 || rateLimit.per() <= 0) {
+                    error(method, "Rate limits need positive uses and periods");
+                    return null;
+                }
+                code.append(i == 0 ? "" : ",").append("\n                                new ").append(RATE_LIMIT_RULE).append("(")
+                        .append(RateLimitScope.class.getName()).append(".").append(rateLimit.scope().name())
+                        .append(", ").append(rateLimit.uses())
+                        .append(", ").append(rateLimit.per()).append("L")
+                        .append(", java.util.concurrent.TimeUnit.").append(rateLimit.unit().name()).append(")");
+            }
+            code.append("))");
+        }
+        var cached = method.getAnnotation(Cached.class);
+        if (cached != null) {
+            if (cached.ttl() <= 0 || cached.maxSize() <= 0) {
+                error(method, "Caches need a positive ttl and maxSize");
+                return null;
+            }
+            if (!isCacheable(method.getReturnType())) {
+                error(method, "Cached commands must return a MessageEmbed, a Message or a String");
+                return null;
+            }
+            code.append("\n                        .setCache(new ").append(CachePolicy.class.getName()).append("(")
+                    .append(CacheScope.class.getName()).append(".").append(cached.scope().name())
+                    .append(", ").append(cached.ttl()).append("L")
+                    .append(", java.util.concurrent.TimeUnit.").append(cached.unit().name())
+                    .append(", ").append(cached.maxSize()).append("))");
+        }
+        code.append("\n                        .setRateLimitMessage(").append(literal(command.rateLimitMessage())).append(")")
+                .append("\n                        .setOptions(java.util.List.of(");
+        var options = command.options();
+        for (int i = 0; i < options.length; i++) {
+            var option = options[i];
+            var optionClass = option.autocomplete() ? AutocompleteOptionData.class.getName()
+                    : "net.dv8tion.jda.api.interactions.commands.build.OptionData";
+            code.append(i == 0 ? "" : ",").append("\n                                new ").append(optionClass).append("(")
+                    .append("net.dv8tion.jda.api.interactions.commands.OptionType.").append(option.type().name())
+                    .append(", ").append(literal(option.name()))
+                    .append(", ").append(literal(option.desc()))
+                    .append(", ").append(option.required()).append(")");
+        }
+        var call = target(owner, method) + "(" + arguments + ")";
+        code.append("))\n                        .setInvoker((instance, event) -> ");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            code.append("{\n                            ").append(call).append(";\n                            return null;\n                        })");
+        } else {
+            code.append(call).append(")");
+        }
+        return code.append("\n                        .build()").toString();
+    }
+
+    /**
+     * Generates the arguments of a call to a command method, binding every
+     * parameter to the event or to an option the same way
+     * {@link OptionBinders#match} does at runtime.
+     * @return The arguments, or {@code null} if a parameter cannot be bound
+     */
+    private String arguments(ExecutableElement method, SlashCommand.Option[] options) {
+        var parameters = method.getParameters();
+        var names = Arrays.stream(options).map(SlashCommand.Option::name).toList();
+        var arguments = new StringBuilder();
+        var position = 0;
+        for (var parameter : parameters) {
+            if (arguments.length() > 0) arguments.append(", ");
+            if (isEvent(parameter.asType())) {
+                arguments.append("event");
+                continue;
+            }
+            if (position == options.length) {
+                error(parameter, "Parameter " + parameter.getSimpleName() + " does not match any option");
+                return null;
+            }
+            var option = options[position++];
+            var misplaced = OptionBinders.misplacedName(parameter.getSimpleName().toString(), option.name(), names);
+            if (misplaced != null) {
+                error(parameter, "Parameter " + parameter.getSimpleName() + ": " + misplaced);
+                return null;
+            }
+            var getter = getter(parameter, option);
+            if (getter == null) return null;
+            arguments.append(getter);
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * @return The expression reading the option for the parameter, or {@code null}
+     */
+    private String getter(VariableElement parameter, SlashCommand.Option option) {
+        var types = processingEnv.getTypeUtils();
+        var type = types.erasure(parameter.asType());
+        var name = type.toString();
+        Class<?> runtimeType;
+        try {
+            if (type.getKind().isPrimitive()) {
+                runtimeType = switch (type.getKind()) {
+                    case LONG -> long.class;
+                    case INT -> int.class;
+                    case DOUBLE -> double.class;
+                    case BOOLEAN -> boolean.class;
+                    default -> throw new IllegalArgumentException("Parameters of type " + name + " are not supported");
+                };
+            } else if (type.getKind() != TypeKind.DECLARED) {
+                throw new IllegalArgumentException("Parameters of type " + name + " are not supported");
+            } else if (types.asElement(type).getKind() == ElementKind.ENUM) {
+                return BINDERS + ".getEnum(event, " + literal(option.name()) + ", " + name + ".class)";
+            } else {
+                runtimeType = Class.forName(binaryName(type), false, getClass().getClassLoader());
+            }
+            var getter = BINDERS + "." + OptionBinders.getterName(runtimeType, option.type())
+                    + "(event, " + literal(option.name()) + ")";
+            return runtimeType.isPrimitive() || runtimeType == GuildChannel.class
+                    || !GuildChannel.class.isAssignableFrom(runtimeType) ? getter : "(" + name + ") " + getter;
+        } catch (ClassNotFoundException e) {
+            error(parameter, "Parameters of type " + name + " are not supported");
+        } catch (IllegalArgumentException e) {
+            error(parameter, "Parameter " + parameter.getSimpleName() + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private String binaryName(TypeMirror type) {
+        return processingEnv.getElementUtils().getBinaryName((TypeElement) processingEnv.getTypeUtils().asElement(type))
+                .toString();
+    }
+
+    /**
+     * Generates the constructor expression of an exception handler.
+     */
+    private String handler(TypeElement owner, ExecutableElement method, ExceptionHandler handler) {
+        if (!checkMethod(method)) return null;
+        var parameters = method.getParameters();
+        if (parameters.size() != 2 || !isEvent(parameters.get(1).asType())) {
+            error(method, "Methods annotated with @ExceptionHandler must take the exception and a " + EVENT);
+            return null;
+        }
+        var provider = provider(owner, method);
+        if (provider == null) return null;
+        var exception = handledException(handler);
+        var parameter = processingEnv.getTypeUtils().erasure(parameters.get(0).asType()).toString();
+        var commands = new StringBuilder();
+        for (var name : handler.commands())
+            commands.append(commands.length() == 0 ? "" : ", ").append(literal(name));
+        return "new io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler(new String[]{" + commands + "}, "
+                + owner.getQualifiedName() + ".class, " + provider + ", null,\n                        (instance, e, event) -> "
+                + target(owner, method) + "((" + parameter + ") e, event), " + exception + ".class)";
+    }
+
+    /**
+     * Generates the constructor expression of an autocomplete handler.
+     */
+    private String completer(TypeElement owner, ExecutableElement method, Autocomplete completer) {
+        if (!checkMethod(method)) return null;
+        var parameters = method.getParameters();
+        var event = processingEnv.getElementUtils().getTypeElement(AUTOCOMPLETE_EVENT);
+        if (parameters.size() != 1 || event == null
+                || !processingEnv.getTypeUtils().isAssignable(event.asType(), parameters.get(0).asType())) {
+            error(method, "Methods annotated with @Autocomplete must take a " + AUTOCOMPLETE_EVENT);
+            return null;
+        }
+        var provider = provider(owner, method);
+        if (provider == null) return null;
+        var call = target(owner, method) + "(event)";
+        var body = method.getReturnType().getKind() == TypeKind.VOID ? "{\n                            " + call
+                + ";\n                            return null;\n                        }" : call;
+        return "new " + RegisteredAutocomplete.class.getName() + "(" + literal(completer.command()) + ", "
+                + literal(completer.option()) + ", " + owner.getQualifiedName() + ".class, " + provider
+                + ", null,\n                        (instance, event) -> "
+                + body + ")";
+    }
+
+    private String handledException(ExceptionHandler handler) {
+        try {
+            return handler.exception().getCanonicalName();
+        } catch (MirroredTypeException e) {
+            return processingEnv.getTypeUtils().erasure(e.getTypeMirror()).toString();
+        }
+    }
+
+    /**
+     * @return The expression a call to the method is appended to
+     */
+    private String target(TypeElement owner, ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            var declaring = (TypeElement) method.getEnclosingElement();
+            return declaring.getQualifiedName() + "." + method.getSimpleName();
+        }
+        return "((" + owner.getQualifiedName() + ") instance)." + method.getSimpleName();
+    }
+
+    /**
+     * Returns the field holding the instance provider of the class of a
+     * non-static method, declaring it on first use.
+     * @return The field name, {@code "null"} for static methods, or
+     *         {@code null} if the class cannot be constructed
+     */
+    private String provider(TypeElement owner, ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.STATIC)) return "null";
+        var name = owner.getQualifiedName().toString();
+        var field = providers.get(name);
+        if (field != null) return field;
+        var constructible = !owner.getModifiers().contains(Modifier.ABSTRACT) && ElementFilter
+                .constructorsIn(owner.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC));
+        if (!constructible) {
+            error(method, "Classes with non-static handlers must not be abstract and need a public "
+                    + "no-argument constructor");
+            return null;
+        }
+        field = "provider" + providers.size();
+        providers.put(name, field);
+        return field;
+    }
+
+    private boolean checkMethod(ExecutableElement method) {
+        if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+            error(method, "Annotated methods must be public");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isEvent(TypeMirror type) {
+        var event = processingEnv.getElementUtils().getTypeElement(EVENT);
+        return event != null && processingEnv.getTypeUtils().isAssignable(event.asType(), type);
+    }
+
+    /**
+     * Mirrors {@link io.github.maeves2.snowballnebula.cache.ResultCache#isCacheable(Class)}.
+     */
+    private boolean isCacheable(TypeMirror type) {
+        for (var name : CACHEABLE) {
+            var element = processingEnv.getElementUtils().getTypeElement(name);
+            if (element != null && processingEnv.getTypeUtils().isAssignable(type, element.asType())) return true;
+        }
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        for (Element current = type; current instanceof TypeElement element; current = current.getEnclosingElement()) {
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) return false;
+            if (element.getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(Modifier.STATIC))
+                return false;
+            if (element.getNestingKind() == NestingKind.LOCAL || element.getNestingKind() == NestingKind.ANONYMOUS)
+                return false;
+        }
+        return true;
+    }
+
+    private String registryName(TypeElement first) {
+        var option = processingEnv.getOptions().get(REGISTRY_OPTION);
+        if (option != null && !option.isBlank()) return option;
+        var pkg = processingEnv.getElementUtils().getPackageOf(first).getQualifiedName().toString();
+        return pkg.isEmpty() ? "SnowballNebulaRegistry" : pkg + ".SnowballNebulaRegistry";
+    }
+
+    private void write(String name, List<String> commands, List<String> handlers, List<String> completers,
+                       Element[] originating) {
+        var dot = name.lastIndexOf('.');
+        var pkg = dot < 0 ? "" : name.substring(0, dot);
+        var simple = name.substring(dot + 1);
+        var filer = processingEnv.getFiler();
+        try {
+            try (var out = new PrintWriter(filer.createSourceFile(name, originating).openWriter())) {
+                if (!pkg.isEmpty()) out.println("package " + pkg + ";\n");
+                out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+                out.println("public final class " + simple + " implements " + REGISTRY_INTERFACE + " {");
+                for (var provider : providers.entrySet())
+                    out.println("    private final " + INSTANCE_PROVIDER + " " + provider.getValue() + " = "
+                            + INSTANCE_PROVIDER + ".of(" + provider.getKey() + ".class);\n");
+                out.println("    @Override");
+                out.println("    public java.util.List<io.github.maeves2.snowballnebula.commands.RegisteredCommand> commands() {");
+                out.println("        return java.util.List.of(" + join(commands) + ");");
+                out.println("    }\n");
+                out.println("    @Override");
+                out.println("    public java.util.List<io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler> handlers() {");
+                out.println("        return java.util.List.of(" + join(handlers) + ");");
+                out.println("    }\n");
+                out.println("    @Override");
+                out.println("    public java.util.List<" + RegisteredAutocomplete.class.getName() + "> completers() {");
+                out.println("        return java.util.List.of(" + join(completers) + ");");
+                out.println("    }");
+                out.println("}");
+            }
+            var services = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + REGISTRY_INTERFACE, originating);
+            try (var out = new PrintWriter(services.openWriter())) {
+                out.println(name);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static String join(List<String> expressions) {
+        if (expressions.isEmpty()) return "";
+        return "\n                " + String.join(",\n                ", expressions);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Turns a string into a Java string literal.
+     */
+    private static String literal(String value) {
+        var out = new StringBuilder("\"");
+        for (var c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7E) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
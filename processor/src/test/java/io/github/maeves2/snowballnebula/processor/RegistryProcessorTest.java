@@ -0,0 +1,159 @@
+package io.github.maeves2.snowballnebula.processor;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.CommandScanner;
+import io.github.maeves2.snowballnebula.commands.GeneratedRegistry;
+import io.github.maeves2.snowballnebula.commands.RegisteredCommand;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles the same command class with and without the processor, and checks
+ * that the generated registry binds options like the reflective path.
+ */
+class RegistryProcessorTest {
+    private static final String SOURCE = """
+            package pairs;
+
+            import io.github.maeves2.snowballnebula.commands.AutoRegister;
+            import io.github.maeves2.snowballnebula.commands.SlashCommand;
+            import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+            import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+            @AutoRegister
+            public class Commands {
+                @SlashCommand(name = "pair", desc = "Pair", options = {
+                        @SlashCommand.Option(type = OptionType.STRING, name = "a", desc = "A"),
+                        @SlashCommand.Option(type = OptionType.STRING, name = "b", desc = "B")})
+                public static String pair(%s) {
+                    return %s;
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bothPathsBindByPosition() throws Throwable {
+        assertSameBinding("SlashCommandEvent event, String a, String b", "a + \",\" + b", "x,y");
+        assertSameBinding("String first, SlashCommandEvent event, String second", "first + \",\" + second", "x,y");
+        assertSameBinding("SlashCommandEvent event, String value", "value", "x");
+    }
+
+    @Test
+    void parametersNamedAfterAnotherOptionAreRejected() throws Exception {
+        var parameters = "SlashCommandEvent event, String b, String a";
+        var generated = compile("generated", parameters, "a + \",\" + b", true);
+        assertTrue(generated.errors.contains("named after option b but bound to option a"), generated.errors);
+
+        var reflective = compile("reflective", parameters, "a + \",\" + b", false, "-parameters");
+        assertTrue(reflective.errors.isEmpty(), reflective.errors);
+        try (var loader = reflective.loader()) {
+            var error = assertThrows(IllegalArgumentException.class,
+                    () -> CommandScanner.scan(loader.loadClass("pairs.Commands")));
+            assertTrue(error.getMessage().contains("named after option b but bound to option a"), error.getMessage());
+        }
+    }
+
+    /**
+     * Compiles the command with the processor, and without it with and
+     * without {@code -parameters}, and invokes all three commands.
+     */
+    private void assertSameBinding(String parameters, String body, String expected) throws Throwable {
+        var name = "case" + Math.abs(parameters.hashCode());
+        var generated = compile(name + "-generated", parameters, body, true);
+        assertTrue(generated.errors.isEmpty(), generated.errors);
+        try (var loader = generated.loader()) {
+            var registry = ServiceLoader.load(GeneratedRegistry.class, loader).findFirst().orElseThrow();
+            assertEquals(expected, invoke(registry.commands().get(0)), parameters);
+        }
+        for (var flags : List.of(new String[0], new String[] {"-parameters"})) {
+            var reflective = compile(name + "-reflective" + flags.length, parameters, body, false, flags);
+            assertTrue(reflective.errors.isEmpty(), reflective.errors);
+            try (var loader = reflective.loader()) {
+                var command = CommandScanner.scan(loader.loadClass("pairs.Commands")).getCommands().get(0);
+                assertEquals(expected, invoke(command), parameters + " " + String.join(" ", flags));
+            }
+        }
+    }
+
+    private static Object invoke(RegisteredCommand command) throws Throwable {
+        var options = List.of(option("a", "x"), option("b", "y"));
+        var event = new SlashCommandEvent(null, 0, null) {
+            @Override
+            public List<OptionMapping> getOptions() {
+                return options;
+            }
+        };
+        return command.getInvoker().invoke(command.getInstance(), event);
+    }
+
+    private static OptionMapping option(String name, String value) {
+        var data = DataObject.empty().put("name", name).put("type", OptionType.STRING.getKey()).put("value", value);
+        return new OptionMapping(data, new TLongObjectHashMap<>());
+    }
+
+    private Compilation compile(String name, String parameters, String body, boolean process, String... flags)
+            throws IOException {
+        var root = Files.createDirectories(directory.resolve(name));
+        var source = Files.createDirectories(root.resolve("src/pairs")).resolve("Commands.java");
+        Files.writeString(source, SOURCE.formatted(parameters, body));
+        var classes = Files.createDirectories(root.resolve("classes"));
+        var generated = Files.createDirectories(root.resolve("generated"));
+
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (var files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            var options = new ArrayList<>(List.of("-classpath", classpath(), "-d", classes.toString(),
+                    "-s", generated.toString()));
+            if (!process) options.add("-proc:none");
+            options.addAll(List.of(flags));
+            var task = compiler.getTask(null, files, diagnostics, options, null, files.getJavaFileObjects(source));
+            if (process) task.setProcessors(List.of(new RegistryProcessor()));
+            task.call();
+        }
+        var errors = diagnostics.getDiagnostics().stream()
+                .filter(e -> e.getKind() == Diagnostic.Kind.ERROR)
+                .map(e -> e.getMessage(null))
+                .collect(Collectors.joining("\n"));
+        return new Compilation(classes, errors);
+    }
+
+    private static String classpath() {
+        return List.of(SnowballNebula.class, SlashCommandEvent.class).stream()
+                .map(type -> type.getProtectionDomain().getCodeSource().getLocation())
+                .map(location -> Path.of(java.net.URI.create(location.toString())).toString())
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private record Compilation(Path classes, String errors) {
+        URLClassLoader loader() throws IOException {
+            return new URLClassLoader(new java.net.URL[] {classes.toUri().toURL()},
+                    RegistryProcessorTest.class.getClassLoader());
+        }
+    }
+}
@@ -1,29 +1,75 @@
 package io.github.maeves2.snowballnebula;
 
+import io.github.maeves2.snowballnebula.admission.AdmissionQueue;
+import io.github.maeves2.snowballnebula.admission.AdmissionStats;
+import io.github.maeves2.snowballnebula.autocomplete.Autocomplete;
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteEvent;
+import io.github.maeves2.snowballnebula.autocomplete.RegisteredAutocomplete;
+import io.github.maeves2.snowballnebula.cache.CacheStats;
+import io.github.maeves2.snowballnebula.cache.Cached;
 import io.github.maeves2.snowballnebula.commands.AutoRegister;
+import io.github.maeves2.snowballnebula.commands.CommandRegistry;
+import io.github.maeves2.snowballnebula.commands.CommandScanner;
+import io.github.maeves2.snowballnebula.commands.GeneratedRegistry;
 import io.github.maeves2.snowballnebula.commands.RegisteredCommand;
 import io.github.maeves2.snowballnebula.commands.SlashCommand;
-import io.github.maeves2.snowballnebula.exception.ExceptionHandler;
-import io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler;
-import io.github.maeves2.snowballnebula.util.Utilities;
+import io.github.maeves2.snowballnebula.commands.StartupReport;
+import io.github.maeves2.snowballnebula.logging.EventLog;
+import io.github.maeves2.snowballnebula.metrics.CommandMetrics;
+import io.github.maeves2.snowballnebula.metrics.Metrics;
+import io.github.maeves2.snowballnebula.metrics.MetricsSnapshot;
+import io.github.maeves2.snowballnebula.reply.ReplyTemplate;
+import io.github.maeves2.snowballnebula.reply.ReplyValues;
+import io.github.maeves2.snowballnebula.scope.InstanceProvider;
+import io.github.maeves2.snowballnebula.scope.ScopeStats;
+import io.github.maeves2.snowballnebula.scope.Scoped;
+import io.github.maeves2.snowballnebula.sync.CommandChanges;
+import io.github.maeves2.snowballnebula.sync.CommandFingerprints;
+import io.github.maeves2.snowballnebula.sync.GuildCommandTable;
+import io.github.maeves2.snowballnebula.sync.GuildRegistrationScheduler;
+import io.github.maeves2.snowballnebula.sync.RegistrationReport;
+import io.github.maeves2.snowballnebula.sync.SyncReport;
+import io.github.maeves2.snowballnebula.tracing.Phase;
+import io.github.maeves2.snowballnebula.tracing.Trace;
+import io.github.maeves2.snowballnebula.tracing.TracedSlashCommandEvent;
+import io.github.maeves2.snowballnebula.tracing.Tracer;
+import io.github.maeves2.snowballnebula.util.ClassScanner;
+import io.github.maeves2.snowballnebula.util.DispatchExecutors;
+import io.github.maeves2.snowballnebula.watchdog.ReplyWatchdog;
+import io.github.maeves2.snowballnebula.watchdog.TimerWheel;
+import io.github.maeves2.snowballnebula.watchdog.WatchedSlashCommandEvent;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.RawGatewayEvent;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.Command;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
 /**
  * Main class of the SnowballNebula framework. Used to register commands,
  * enable auto registering and get registered commands as {@link RegisteredCommand}.
  * <h2>Roadmap</h2>
- * <li>Command aliases (SoonTM)</li>
  * <li>Automatically registering commands in guilds, global commands (SoonTM)</li>
  * <li>Databases (NeverTM)</li>
  *
@@ -35,46 +81,118 @@ import java.util.stream.Collectors;
  * var commands = snowball.getCommands();
  * jda.getGuilds().forEach(e -> e.updateCommands().addCommands(commands).queue());
  * }</pre>
+ * Sharded bots pass their {@link ShardManager} instead, one instance then
+ * serves every shard:
+ * <pre>{@code
+ * new SnowballNebula(shardManager)
+ *         .enableGeneratedRegistry()
+ *         .registerCommandsInGuilds();
+ * }</pre>
  *
  * @since 1.0.0
  * @author MaeveS2
  */
 public class SnowballNebula extends ListenerAdapter {
     /**
-     * Your JDA instance
+     * Your JDA instance, {@code null} if created from a {@link ShardManager}
      */
     private JDA jda;
     /**
-     * Map containing all commands that were registred using {@link SnowballNebula#register(Class[])}
-     * or auto-registering. Can be retrieved using {@link SnowballNebula#getCommand(String)}
-     * or {@link SnowballNebula#getCommands()}
+     * Your shard manager, {@code null} if created from a single {@link JDA}
+     */
+    private ShardManager shardManager;
+    /**
+     * The bot user, known once the first shard is ready
+     */
+    private volatile User selfUser;
+    /**
+     * Time spent registering commands, see {@link SnowballNebula#getStartupReport()}.
+     */
+    private volatile StartupReport startupReport = StartupReport.EMPTY;
+    /**
+     * Snapshot of all commands and exception handlers that were registered using
+     * {@link SnowballNebula#register(Class[])} or auto-registering. Commands can be
+     * retrieved using {@link SnowballNebula#getCommand(String)} or
+     * {@link SnowballNebula#getCommands()}. Replaced as a whole on every change,
+     * see {@link SnowballNebula#publish(UnaryOperator)}.
      */
-    private Map<String, RegisteredCommand> registry;
+    private volatile CommandRegistry registry = CommandRegistry.EMPTY;
     /**
-     * List of all registered exception handlers.
+     * Whether commands are registered in guilds, set by
+     * {@link SnowballNebula#registerCommandsInGuilds()}. Shards which become
+     * ready later and newly joined guilds are registered as well then.
      */
-    private List<RegisteredExceptionHandler> handlerRegistry;
+    private volatile boolean guildRegistration;
     /**
-     * List of all guilds the connected bot is in
+     * Whether commands are registered globally, set by
+     * {@link SnowballNebula#upsertCommands()}.
      */
-    private List<Guild> guilds;
+    private volatile boolean globalRegistration;
     /**
-     * Should certain events events be logged? Connection to a bot is aways logged.
+     * Event log certain events are written to, {@code null} if logging is
+     * disabled. Connection to a bot is always logged.
      */
-    private boolean log = false;
+    private volatile EventLog eventLog;
+    /**
+     * Executor commands are run on, {@code null} if commands are run directly
+     * on the JDA event thread.
+     */
+    private volatile Executor executor;
+    /**
+     * Fingerprints of the command sets pushed to Discord, {@code null} if
+     * every sync should push all commands.
+     */
+    private CommandFingerprints fingerprints;
+    /**
+     * The commands turned on or off per guild and the reply to disabled
+     * commands, {@code null} if disabled
+     */
+    private volatile Toggles toggles;
+    /**
+     * Reply templates registered by name
+     */
+    private final Map<String, ReplyTemplate> replyTemplates = new ConcurrentHashMap<>();
+    /**
+     * Report of the last call to {@link SnowballNebula#addCommandsToGuilds()}
+     * or {@link SnowballNebula#upsertCommands()}.
+     */
+    private volatile SyncReport lastSyncReport = new SyncReport(0, 0);
+    /**
+     * Scheduler used to push commands to guilds, created on first use.
+     */
+    private GuildRegistrationScheduler registrationScheduler;
+    /**
+     * Per-command metrics, {@code null} if metrics are disabled.
+     */
+    private volatile Metrics metrics;
+    /**
+     * Reply watchdog, {@code null} if disabled.
+     */
+    private volatile ReplyWatchdog watchdog;
+    /**
+     * Admission queue in front of command execution, {@code null} if disabled.
+     */
+    private volatile Admission admission;
+    /**
+     * Tracer interactions are traced with, {@code null} if tracing is disabled.
+     */
+    private volatile Tracer tracer;
     /**
      * Logger for this class
      */
     private final Logger logger = LoggerFactory.getLogger(SnowballNebula.class);
 
     /**
-     * Log a message at the INFO level using slf4j
+     * Log a message at the INFO level using slf4j, through the event log.
+     * Only used for rare events, frequent ones are recorded using the
+     * structured methods of {@link EventLog}.
      * @param message The message to log
      * @author Lulonaut
      */
     private void log(String message) {
-        if (log) {
-            logger.info(Utilities.now() + message);
+        var eventLog = this.eventLog;
+        if (eventLog != null) {
+            eventLog.message(message);
         }
     }
 
@@ -88,9 +206,27 @@ public class SnowballNebula extends ListenerAdapter {
         jda.addEventListener(this);
         this.jda = jda;
         logger.info("Successfully connected to bot " + jda.getSelfUser().getName());
-        this.registry = new HashMap<>();
-        this.handlerRegistry = new ArrayList<>();
-        this.guilds = jda.getGuilds();
+        this.selfUser = jda.getSelfUser();
+    }
+
+    /**
+     * Creates an instance listening to every shard of a shard manager. All
+     * shards share the registered commands, shards which are not ready yet
+     * get their commands once they are, see
+     * {@link SnowballNebula#registerCommandsInGuilds()}.
+     * @param shardManager Your shard manager
+     * @since 1.3.0
+     */
+    public SnowballNebula(ShardManager shardManager) {
+        shardManager.addEventListener(this);
+        this.shardManager = shardManager;
+        for (var shard : shardManager.getShards()) {
+            if (shard.getStatus() == JDA.Status.CONNECTED) {
+                this.selfUser = shard.getSelfUser();
+                break;
+            }
+        }
+        logger.info("Attached to " + shardManager.getShardsTotal() + " shards");
     }
 
     /**
@@ -98,69 +234,782 @@ public class SnowballNebula extends ListenerAdapter {
      * will be logged:
      * <li>Registering of commands</li>
      * <li>Execution of commands</li>
+     * <li>Permission denials, busy commands and exceptions</li>
      * <li>Enabling of auto-registering</li>
      * @return {@link SnowballNebula} for chaining convenience
      */
     public SnowballNebula enableLogging() {
-        this.log = true;
+        return enableLogging(1);
+    }
+
+    /**
+     * Enable logging for the framework, logging only a fraction of all
+     * command executions. Events are written into a preallocated ring buffer
+     * and logged by a background thread, so logging does not slow down
+     * command dispatch.
+     * @param sampleRate Fraction of command executions which are logged,
+     *                   between {@code 0} and {@code 1}
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see EventLog
+     */
+    public synchronized SnowballNebula enableLogging(double sampleRate) {
+        var eventLog = this.eventLog;
+        if (eventLog == null) {
+            eventLog = new EventLog(EventLog.DEFAULT_CAPACITY);
+            this.eventLog = eventLog;
+        }
+        eventLog.setSampleRate(sampleRate);
         log("Logging is now enabled.");
         return this;
     }
 
+    /**
+     * Disable logging and close the event log after it logged the recorded
+     * events, which stops its drainer thread. Connection to a bot is still
+     * logged.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula disableLogging() {
+        var previous = this.eventLog;
+        if (previous == null) return this;
+        previous.message("Logging is now disabled.");
+        this.eventLog = null;
+        previous.close();
+        return this;
+    }
+
+    /**
+     * Enable asynchronous dispatch using the default executor. Commands are no
+     * longer run on the JDA event thread, so a slow command does not delay
+     * other interactions. On JDK 21 and newer every command runs on its own
+     * virtual thread, older JDKs use a bounded thread pool with
+     * {@value DispatchExecutors#THREADS_PER_CORE} threads per core. Once that
+     * pool is saturated, commands run on the JDA event thread again, see
+     * {@link DispatchExecutors#newBoundedPool(int)}.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see DispatchExecutors#newDefaultExecutor()
+     */
+    public SnowballNebula enableAsyncDispatch() {
+        return enableAsyncDispatch(DispatchExecutors.newDefaultExecutor());
+    }
+
+    /**
+     * Enable asynchronous dispatch using the default executor, with a custom
+     * number of threads for the bounded pool used before JDK 21.
+     * @param fallbackThreads The number of threads of the pool used before
+     *                        JDK 21, ignored on newer JDKs
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see DispatchExecutors#newDefaultExecutor(int)
+     * @since 1.3.0
+     */
+    public SnowballNebula enableAsyncDispatch(int fallbackThreads) {
+        return enableAsyncDispatch(DispatchExecutors.newDefaultExecutor(fallbackThreads));
+    }
+
+    /**
+     * Enable asynchronous dispatch using a custom executor. Exception handlers
+     * are invoked on the same thread as the failed command.
+     * @param executor The executor commands should be run on
+     * @return {@link SnowballNebula} for chaining convenience
+     */
+    public SnowballNebula enableAsyncDispatch(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+        log("Asynchronous dispatch is now enabled.");
+        return this;
+    }
+
+    /**
+     * @return Whether commands are dispatched asynchronously, otherwise
+     * {@link #onSlashCommand(SlashCommandEvent)} returns once the command did
+     * @see SnowballNebula#enableAsyncDispatch()
+     * @since 1.3.0
+     */
+    public boolean isAsyncDispatch() {
+        return executor != null;
+    }
+
+    /**
+     * Enable the reply watchdog with a threshold of
+     * {@value ReplyWatchdog#DEFAULT_THRESHOLD_MILLIS} milliseconds.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableReplyWatchdog(long, TimeUnit)
+     * @since 1.3.0
+     */
+    public SnowballNebula enableReplyWatchdog() {
+        return enableReplyWatchdog(ReplyWatchdog.DEFAULT_THRESHOLD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Enable the reply watchdog. Commands which neither replied nor deferred
+     * their reply within the threshold, counted from the reception of the
+     * command, get their reply deferred so that the interaction does not
+     * fail. The command method receives a wrapper of the event whose replies
+     * then edit the deferred response, so it can reply as usual. Deferrals
+     * are counted per command in the metrics. All executions share one
+     * timer thread.
+     * @param threshold Time after which the reply is deferred
+     * @param unit Unit of {@code threshold}
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see ReplyWatchdog
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula enableReplyWatchdog(long threshold, TimeUnit unit) {
+        var previous = this.watchdog;
+        this.watchdog = new ReplyWatchdog(new TimerWheel(), threshold, unit);
+        if (previous != null) previous.close();
+        log("The reply watchdog is now enabled, threshold " + unit.toMillis(threshold) + "ms.");
+        return this;
+    }
+
+    /**
+     * Disable the reply watchdog. Executions which are already watched may
+     * still get their reply deferred.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula disableReplyWatchdog() {
+        var previous = this.watchdog;
+        this.watchdog = null;
+        if (previous != null) previous.close();
+        log("The reply watchdog is now disabled.");
+        return this;
+    }
+
+    /**
+     * Enable admission control with a concurrency of twice the number of
+     * cores and a queue of {@value AdmissionQueue#DEFAULT_CAPACITY} executions.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableAdmissionControl(int, int, String)
+     * @since 1.3.0
+     */
+    public SnowballNebula enableAdmissionControl() {
+        return enableAdmissionControl(2 * Runtime.getRuntime().availableProcessors(), AdmissionQueue.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Enable admission control, shed executions are answered with
+     * {@link AdmissionQueue#DEFAULT_SHED_MESSAGE}.
+     * @param concurrency Maximum number of commands running at once
+     * @param capacity Maximum number of commands waiting to run
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableAdmissionControl(int, int, String)
+     * @since 1.3.0
+     */
+    public SnowballNebula enableAdmissionControl(int concurrency, int capacity) {
+        return enableAdmissionControl(concurrency, capacity, AdmissionQueue.DEFAULT_SHED_MESSAGE);
+    }
+
+    /**
+     * Enable admission control. At most {@code concurrency} commands run at
+     * once on the dispatch executor, further commands wait in a bounded
+     * queue and run by their {@link SlashCommand#priority()}. When the queue
+     * is full, commands of the lowest priority are shed and answered with an
+     * ephemeral reply, which is compiled once. Enables asynchronous dispatch
+     * with the default executor if it is not enabled yet. Queue depth, wait
+     * times and shed executions are available through
+     * {@link SnowballNebula#getAdmissionStats()}, an MXBean and the metrics.
+     * @param concurrency Maximum number of commands running at once
+     * @param capacity Maximum number of commands waiting to run
+     * @param shedMessage The message shed commands are answered with, may
+     *                    contain {@code $USER$} and {@code $COMMAND$}
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see AdmissionQueue
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula enableAdmissionControl(int concurrency, int capacity, String shedMessage) {
+        if (executor == null) enableAsyncDispatch();
+        var queue = new AdmissionQueue(executor, concurrency, capacity);
+        queue.registerMBean();
+        this.admission = new Admission(queue, ReplyTemplate.compile(shedMessage, false));
+        log("Admission control is now enabled, concurrency " + concurrency + ", capacity " + capacity + ".");
+        return this;
+    }
+
+    /**
+     * Disable admission control. Commands which are already queued still run.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula disableAdmissionControl() {
+        var previous = this.admission;
+        this.admission = null;
+        if (previous != null) previous.queue().unregisterMBean();
+        log("Admission control is now disabled.");
+        return this;
+    }
+
+    /**
+     * Returns the statistics of the admission queue.
+     * @return {@link AdmissionStats}, {@code null} if admission control is disabled
+     * @see SnowballNebula#enableAdmissionControl(int, int, String)
+     * @since 1.3.0
+     */
+    public AdmissionStats getAdmissionStats() {
+        var admission = this.admission;
+        return admission == null ? null : admission.queue().stats();
+    }
+
+    /**
+     * Enable tracing with the default sampling, exporting to a span file
+     * which is rotated at {@value Tracer#DEFAULT_MAX_FILE_SIZE} bytes.
+     * @param file The span file, appended to if it exists
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableTracing(Tracer)
+     * @since 1.3.0
+     */
+    public SnowballNebula enableTracing(Path file) {
+        return enableTracing(new Tracer(file));
+    }
+
+    /**
+     * Enable tracing. Every interaction whose command was resolved is
+     * traced, with a child span for the lookup, the permission check, the
+     * wait for the executor, the execution, the exception routing and the
+     * first reply. Sampled and slow traces are exported to the span file of
+     * the tracer by a background thread. Command methods and exception
+     * handlers get the trace of their interaction using {@link Trace#current()}.
+     * A previous tracer is closed.
+     * @param tracer The tracer, configured with its sampling
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see Tracer
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula enableTracing(Tracer tracer) {
+        var previous = this.tracer;
+        this.tracer = Objects.requireNonNull(tracer);
+        if (previous != null && previous != tracer) previous.close();
+        log("Tracing is now enabled, exporting to " + tracer.getFile() + ".");
+        return this;
+    }
+
+    /**
+     * Disable tracing and close the tracer after it exported the finished
+     * traces. Traces which did not finish yet are discarded.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula disableTracing() {
+        var previous = this.tracer;
+        this.tracer = null;
+        if (previous != null) previous.close();
+        log("Tracing is now disabled.");
+        return this;
+    }
+
+    /**
+     * Enable metrics and register them with JMX.
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableMetrics(boolean)
+     */
+    public SnowballNebula enableMetrics() {
+        return enableMetrics(true);
+    }
+
+    /**
+     * Enable per-command metrics: invocations, permission denials, busy
+     * rejections, rate limits, reply watchdog deferrals, shed executions,
+     * exceptions by type, exception handler hits and latency histograms of
+     * the lookup, the permission check, the wait in the admission queue, the
+     * execution and the exception routing. Metrics are recorded without locks and can be read
+     * using {@link SnowballNebula#metrics()}.
+     * @param jmx Whether the metrics of every command should also be
+     *            registered as MXBean
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see Metrics
+     */
+    public SnowballNebula enableMetrics(boolean jmx) {
+        var previous = this.metrics;
+        if (previous != null) previous.close();
+        this.metrics = new Metrics(jmx);
+        log("Metrics are now enabled" + (jmx ? ", exposed through JMX." : "."));
+        return this;
+    }
+
+    /**
+     * Disable metrics and unregister their MXBeans. While metrics are
+     * disabled, dispatching a command does not measure anything.
+     * @return {@link SnowballNebula} for chaining convenience
+     */
+    public SnowballNebula disableMetrics() {
+        var previous = this.metrics;
+        this.metrics = null;
+        if (previous != null) previous.close();
+        log("Metrics are now disabled.");
+        return this;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of every command.
+     * @return {@link MetricsSnapshot}, empty if metrics are disabled
+     * @see SnowballNebula#enableMetrics(boolean)
+     */
+    public MetricsSnapshot metrics() {
+        var metrics = this.metrics;
+        return metrics == null ? MetricsSnapshot.EMPTY : metrics.snapshot();
+    }
+
+    /**
+     * Enable fingerprint based command syncing. The fingerprints of the command
+     * sets pushed by {@link SnowballNebula#addCommandsToGuilds()} and
+     * {@link SnowballNebula#upsertCommands()} are stored in a file, and guilds
+     * (or the global commands) whose command set did not change since the
+     * last push are skipped, even across restarts.
+     * @param file The file the fingerprints are stored in
+     * @return {@link SnowballNebula} for chaining convenience
+     */
+    public SnowballNebula enableCommandSync(Path file) {
+        this.fingerprints = CommandFingerprints.load(file);
+        log("Fingerprint based command syncing is now enabled, using " + file);
+        return this;
+    }
+
+    /**
+     * Enable turning commands on and off per guild, executions of disabled
+     * commands are answered with {@link GuildCommandTable#DEFAULT_DISABLED_MESSAGE}.
+     * @param file The file the table is stored in
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableCommandToggles(Path, String)
+     * @since 1.3.0
+     */
+    public SnowballNebula enableCommandToggles(Path file) {
+        return enableCommandToggles(file, GuildCommandTable.DEFAULT_DISABLED_MESSAGE);
+    }
+
+    /**
+     * Enable turning commands on and off per guild using
+     * {@link SnowballNebula#setCommandEnabled(long, String, boolean)}, for
+     * example for premium features or commands disabled by moderators. The
+     * table is stored in a memory-mapped file, so it survives restarts and
+     * is loaded without reading it. Guilds only get their enabled commands
+     * pushed, executions of disabled commands are answered with an
+     * ephemeral reply, which is compiled once.
+     * @param file The file the table is stored in
+     * @param disabledMessage The message executions of disabled commands are
+     *                        answered with, may contain {@code $USER$} and {@code $COMMAND$}
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see GuildCommandTable
+     * @since 1.3.0
+     */
+    public synchronized SnowballNebula enableCommandToggles(Path file, String disabledMessage) {
+        var previous = this.toggles;
+        this.toggles = new Toggles(GuildCommandTable.open(file), ReplyTemplate.compile(disabledMessage, false));
+        if (previous != null) previous.table().close();
+        log("Command toggles are now enabled, using " + file);
+        return this;
+    }
+
+    /**
+     * Returns the table of the commands turned on or off per guild, for
+     * example to {@link GuildCommandTable#setEnabledByDefault(String, boolean)
+     * disable premium commands by default}.
+     * @return {@link GuildCommandTable}, {@code null} if command toggles are disabled
+     * @since 1.3.0
+     */
+    public GuildCommandTable getCommandTable() {
+        var toggles = this.toggles;
+        return toggles == null ? null : toggles.table();
+    }
+
+    /**
+     * Turns a command on or off in a guild. If commands are registered in
+     * guilds, the commands of this guild are pushed again when this changed
+     * whether the command is enabled. Global commands cannot be turned off
+     * per guild in Discord, their executions are still refused.
+     * @param guildId ID of the guild
+     * @param name Top-level name of the command, an alias toggles the command
+     *             it belongs to together with all its aliases
+     * @param enabled Whether the command is enabled
+     * @return {@link SnowballNebula} for chaining convenience
+     * @throws IllegalStateException If command toggles are disabled
+     * @since 1.3.0
+     */
+    public SnowballNebula setCommandEnabled(long guildId, String name, boolean enabled) {
+        if (commandTable().setEnabled(guildId, registry.primaryName(name), enabled)) toggled(guildId);
+        return this;
+    }
+
+    /**
+     * Makes a command use its default in a guild again, see
+     * {@link GuildCommandTable#setEnabledByDefault(String, boolean)}.
+     * @param guildId ID of the guild
+     * @param name Top-level name of the command
+     * @return {@link SnowballNebula} for chaining convenience
+     * @throws IllegalStateException If command toggles are disabled
+     * @since 1.3.0
+     */
+    public SnowballNebula resetCommandEnabled(long guildId, String name) {
+        if (commandTable().reset(guildId, registry.primaryName(name))) toggled(guildId);
+        return this;
+    }
+
+    /**
+     * @param guildId ID of the guild, {@code 0} for direct messages
+     * @param name Top-level name of the command
+     * @return Whether the command is enabled in the guild, always
+     *         {@code true} if command toggles are disabled
+     * @since 1.3.0
+     */
+    public boolean isCommandEnabled(long guildId, String name) {
+        var toggles = this.toggles;
+        return toggles == null || toggles.table().isEnabled(guildId, registry.primaryName(name));
+    }
+
+    private GuildCommandTable commandTable() {
+        var toggles = this.toggles;
+        if (toggles == null) throw new IllegalStateException("Command toggles are not enabled");
+        return toggles.table();
+    }
+
+    /**
+     * Pushes the commands of a guild after a command was turned on or off.
+     */
+    private void toggled(long guildId) {
+        if (!guildRegistration) return;
+        var guild = shardManager != null ? shardManager.getGuildById(guildId) : jda.getGuildById(guildId);
+        if (guild != null) registerCommandsIn(List.of(guild));
+    }
+
+    /**
+     * Registers a reply template with a timestamp under a name.
+     * @param name Name of the template
+     * @param message The message, may contain placeholders
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#registerReplyTemplate(String, String, boolean)
+     * @since 1.3.0
+     */
+    public SnowballNebula registerReplyTemplate(String name, String message) {
+        return registerReplyTemplate(name, message, true);
+    }
+
+    /**
+     * Registers a reply template under a name, so handlers can share common
+     * replies. The message is compiled once, handlers render it with
+     * {@link ReplyTemplate#toEmbed(ReplyValues)}. A template registered
+     * under the same name before is replaced.
+     * <pre>{@code
+     * nebula.registerReplyTemplate("error", "Something went wrong in $COMMAND$: $EXCEPTION$");
+     *
+     * var reply = nebula.getReplyTemplate("error").toEmbed(ReplyValues.of(event).setException(e));
+     * }</pre>
+     * @param name Name of the template
+     * @param message The message, may contain placeholders
+     * @param timestamp Whether the embed has a timestamp
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see io.github.maeves2.snowballnebula.reply.Placeholder
+     * @since 1.3.0
+     */
+    public SnowballNebula registerReplyTemplate(String name, String message, boolean timestamp) {
+        replyTemplates.put(Objects.requireNonNull(name, "name"), ReplyTemplate.compile(message, timestamp));
+        return this;
+    }
+
+    /**
+     * Returns a reply template registered using
+     * {@link SnowballNebula#registerReplyTemplate(String, String, boolean)}.
+     * @param name Name of the template
+     * @return {@link ReplyTemplate}
+     * @throws IllegalArgumentException If no template is registered under the name
+     * @since 1.3.0
+     */
+    public ReplyTemplate getReplyTemplate(String name) {
+        var template = replyTemplates.get(name);
+        if (template == null) throw new IllegalArgumentException("No reply template named " + name);
+        return template;
+    }
+
+    /**
+     * Sets the scheduler used by {@link SnowballNebula#registerCommandsInGuilds()},
+     * for example to change the number of requests in flight or the order
+     * guilds are registered in.
+     * @param scheduler The scheduler
+     * @return {@link SnowballNebula} for chaining convenience
+     */
+    public synchronized SnowballNebula setRegistrationScheduler(GuildRegistrationScheduler scheduler) {
+        this.registrationScheduler = Objects.requireNonNull(scheduler);
+        return this;
+    }
+
     /**
      * Returns the specified JDA instance, destined for internal use.
-     * @return {@link JDA}
+     * @return {@link JDA}, {@code null} if created from a {@link ShardManager}
+     * @see SnowballNebula#getShards()
      */
     public JDA getJda() {
         return jda;
     }
 
+    /**
+     * Returns the specified shard manager, destined for internal use.
+     * @return {@link ShardManager}, {@code null} if created from a single {@link JDA}
+     */
+    public ShardManager getShardManager() {
+        return shardManager;
+    }
+
+    /**
+     * Returns every shard, or the specified JDA instance if not sharded.
+     * @return {@link List} of {@link JDA}
+     */
+    public List<JDA> getShards() {
+        return shardManager != null ? shardManager.getShards() : List.of(jda);
+    }
+
     /**
      * Scans one or more classes for methods annotated with {@link SlashCommand}
-     * and registers them.
+     * and registers them. Besides the event, command methods may take typed
+     * parameters which are bound to the options of the command, see
+     * {@link io.github.maeves2.snowballnebula.commands.OptionBinders}. The
+     * classes are scanned in parallel and their commands are published at
+     * once. Can be called while the bot is running, if commands were already
+     * registered in guilds or globally the new commands are pushed as well.
+     * The time spent is added to the {@link SnowballNebula#getStartupReport()}.
      * @param classes The class or classes that should be checked for commands
      * @return {@link SnowballNebula} for chaining convenience
+     * @throws IllegalArgumentException If a command name is already registered
+     *         or declared twice, nothing is registered then
+     * @see CommandScanner
      */
     public SnowballNebula register(Class<?>... classes) {
-        Arrays.stream(classes).forEach(clazz -> {
-            for (var method : clazz.getMethods()) {
-                var command = method.getAnnotation(SlashCommand.class);
-                if (command != null) {
-                    var options = Utilities.asOptionData(command.options());
-                    var data = new CommandData(command.name(), command.desc()).addOptions(options);
-                    registry.putIfAbsent(command.name(), new RegisteredCommand(
-                            clazz, command.name(), command.perm(), command.permissionMessage(),
-                            method, data, options
-                    ));
-                    log("Registered new command (/" + command.name() + ") from " + clazz.getName());
-                } else {
-                    var handler = method.getAnnotation(ExceptionHandler.class);
-                    if (handler != null) {
-                        this.handlerRegistry.add(new RegisteredExceptionHandler(
-                                handler.commands(), clazz, method, handler.exception()
-                        ));
-                        log("New exception handler mapped from " + clazz.getName());
-                    }
+        return register(classes, 0);
+    }
+
+    /**
+     * Registers classes found by a scan which took {@code scanNanos}.
+     */
+    private SnowballNebula register(Class<?>[] classes, long scanNanos) {
+        var result = CommandScanner.scan(classes);
+        var start = System.nanoTime();
+        publish(registry -> registry.with(result.getCommands(), result.getHandlers(), result.getCompleters(), false));
+        registered(result, Duration.ofNanos(scanNanos), Duration.ofNanos(System.nanoTime() - start));
+        return this;
+    }
+
+    /**
+     * Replaces the commands and exception handlers of one or more classes,
+     * for example after reloading a feature module. Everything registered from
+     * classes with the same names is removed, then the classes are scanned
+     * again and their commands replace registered commands with the same name.
+     * The new registry is published at once, so every execution sees either
+     * the old or the new commands. Only commands which changed are pushed to
+     * Discord.
+     * @param classes The class or classes that should be checked for commands
+     * @return {@link SnowballNebula} for chaining convenience
+     * @throws IllegalArgumentException If the classes declare a command name twice
+     * @since 1.3.0
+     */
+    public SnowballNebula replace(Class<?>... classes) {
+        var result = CommandScanner.scan(classes);
+        var names = new HashSet<String>();
+        for (var clazz : classes) names.add(clazz.getName());
+        var start = System.nanoTime();
+        publish(registry -> registry.withoutClasses(names)
+                .with(result.getCommands(), result.getHandlers(), result.getCompleters(), true));
+        registered(result, Duration.ZERO, Duration.ofNanos(System.nanoTime() - start));
+        return this;
+    }
+
+    /**
+     * Removes one or more commands. The name of a top-level command removes
+     * all its subcommands, paths like {@code admin ban} remove a single
+     * subcommand. If commands were already registered in guilds or globally,
+     * they are deleted or updated there as well.
+     * @param paths The names or paths of the commands
+     * @return {@link SnowballNebula} for chaining convenience
+     * @since 1.3.0
+     */
+    public SnowballNebula unregister(String... paths) {
+        var removed = new HashSet<>(Arrays.asList(paths));
+        publish(registry -> registry.withoutCommands(removed));
+        log("Unregistered commands " + removed);
+        return this;
+    }
+
+    /**
+     * Logs what a scan registered and adds it to the startup report.
+     * @param scan Time spent finding the classes before they were scanned
+     * @param build Time spent publishing the registry
+     */
+    private void registered(CommandScanner.Result result, Duration scan, Duration build) {
+        var report = new StartupReport(result.getClasses(), result.getCommands().size(), result.getHandlers().size(),
+                result.getCompleters().size(), scan.plus(result.getScan()), result.getReflect(), build, Duration.ZERO);
+        synchronized (this) {
+            this.startupReport = startupReport.plus(report);
+        }
+        var eventLog = this.eventLog;
+        if (eventLog != null) {
+            for (var command : result.getCommands())
+                eventLog.registration(command.getPath(), command.getMethod().getDeclaringClass().getName());
+            for (var handler : result.getHandlers())
+                eventLog.handlerRegistration(handler.getMethod().getDeclaringClass().getName());
+        }
+        log("Registered " + report.getCommands() + " commands, " + report.getHandlers() + " exception handlers and "
+                + report.getCompleters() + " autocomplete handlers from " + report.getClasses() + " classes (scan "
+                + report.getScan().toMillis() + "ms, reflect " + report.getReflect().toMillis() + "ms, build "
+                + build.toMillis() + "ms)");
+    }
+
+    /**
+     * Records the time of a full sync in the startup report.
+     * @param start {@link System#nanoTime()} when the sync started
+     */
+    private synchronized void synced(long start) {
+        this.startupReport = startupReport.withSync(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Returns the time spent registering commands since startup, split into
+     * scanning, reflection, building the registry and the last full sync.
+     * @return {@link StartupReport}
+     * @since 1.3.0
+     */
+    public StartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    /**
+     * Registers the commands and exception handlers of a registry generated at
+     * compile time.
+     * @param generated The generated registry
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see GeneratedRegistry
+     */
+    public SnowballNebula register(GeneratedRegistry generated) {
+        var start = System.nanoTime();
+        var commands = generated.commands();
+        var handlers = generated.handlers();
+        var completers = generated.completers();
+        var created = System.nanoTime();
+        publish(registry -> registry.with(commands, handlers, completers, false));
+        var report = new StartupReport(0, commands.size(), handlers.size(), completers.size(), Duration.ZERO,
+                Duration.ofNanos(created - start), Duration.ofNanos(System.nanoTime() - created), Duration.ZERO);
+        synchronized (this) {
+            this.startupReport = startupReport.plus(report);
+        }
+        log("Registered " + commands.size() + " commands and " + handlers.size()
+                + " exception handlers from " + generated.getClass().getName());
+        return this;
+    }
+
+    /**
+     * Applies a change to the registry and publishes the new snapshot. Writers
+     * are serialized, readers never wait. If commands were already registered
+     * in guilds or globally, the commands which changed are pushed.
+     * @param update Computes the new snapshot from the current one
+     */
+    private synchronized void publish(UnaryOperator<CommandRegistry> update) {
+        var before = this.registry;
+        var after = update.apply(before);
+        if (after == before) return;
+        this.registry = after;
+        if (guildRegistration || globalRegistration) {
+            var changes = CommandChanges.between(data(before), data(after));
+            if (!changes.isEmpty()) pushChanges(changes, data(before), after);
+        }
+    }
+
+    private static List<CommandData> data(CommandRegistry registry) {
+        return registry.getData();
+    }
+
+    /**
+     * Pushes changed commands to every guild and globally, depending on where
+     * commands were registered. Guilds which were up to date before the change
+     * are up to date afterwards, the fingerprints of the others are dropped so
+     * the next full registration pushes them again. Guilds with disabled
+     * commands get their enabled commands pushed as a whole.
+     */
+    private void pushChanges(CommandChanges changes, List<CommandData> before, CommandRegistry registry) {
+        var after = data(registry);
+        var previous = fingerprints == null ? null : CommandFingerprints.of(before);
+        var current = fingerprints == null ? null : CommandFingerprints.of(after);
+        var toggles = this.toggles;
+        if (guildRegistration) {
+            var guilds = shardManager != null ? shardManager.getGuilds() : jda.getGuilds();
+            registrationScheduler().schedule(guilds, guild -> {
+                var enabled = toggles == null ? after
+                        : toggles.table().filter(guild.getIdLong(), after, registry::primaryName);
+                if (enabled != after) {
+                    var push = guild.updateCommands().addCommands(enabled).submit();
+                    if (previous == null) return push;
+                    var fingerprint = CommandFingerprints.of(enabled);
+                    return push.thenRun(() -> fingerprints.update(guild.getId(), fingerprint));
+                }
+                var push = changes.pushTo(guild);
+                if (previous == null) return push;
+                var upToDate = fingerprints.isUpToDate(guild.getId(), previous);
+                return push.thenRun(() -> {
+                    if (upToDate) fingerprints.update(guild.getId(), current);
+                    else fingerprints.invalidate(guild.getId());
+                });
+            }).whenComplete((report, error) -> {
+                if (report != null) {
+                    this.lastSyncReport = report.toSyncReport();
+                    log("Pushed " + changes + " to guilds, " + report);
                 }
+                if (previous != null) saveFingerprints();
+            });
+        }
+        if (globalRegistration) {
+            var push = changes.pushTo(shardManager != null ? shardManager.getShards().get(0) : jda);
+            if (previous != null) {
+                var upToDate = fingerprints.isUpToDate(CommandFingerprints.GLOBAL, previous);
+                push.thenRun(() -> {
+                    if (upToDate) fingerprints.update(CommandFingerprints.GLOBAL, current);
+                    else fingerprints.invalidate(CommandFingerprints.GLOBAL);
+                }).whenComplete((result, error) -> saveFingerprints());
             }
-        });
+            log("Pushing " + changes + " globally");
+        }
+    }
+
+    /**
+     * Registers all registries generated at compile time by the
+     * {@code SnowballNebula-processor} annotation processor. This replaces
+     * {@link SnowballNebula#enableAutoRegistering(String)}: the generated
+     * registries are found using {@link ServiceLoader}, so no classpath
+     * scanning or reflection is needed.
+     * @return {@link SnowballNebula} for chaining convenience
+     */
+    public SnowballNebula enableGeneratedRegistry() {
+        var start = System.nanoTime();
+        ServiceLoader.load(GeneratedRegistry.class, SnowballNebula.class.getClassLoader())
+                .forEach(this::register);
+        log("Loaded generated registries in " + (System.nanoTime() - start) / 1_000_000 + "ms");
         return this;
     }
 
     /**
      * Enables auto-registering for a specified package. Classes that should
      * automatically be registered are marked with the marker annotation
-     * {@link AutoRegister}.
+     * {@link AutoRegister}. Subpackages are searched as well, in directories
+     * and in jar files.
      * @param targetPackage The package in which auto-registering will be
      *        enabled. Can be obtained using {@link Class#getPackageName()}.
      * @return {@link SnowballNebula} for chaining convenience
      */
     public SnowballNebula enableAutoRegistering(String targetPackage) {
-        Utilities.getAllClassesFromPackage(targetPackage).stream()
-                .filter(e -> e.isAnnotationPresent(AutoRegister.class))
-                .collect(Collectors.toSet())
-                .forEach(e -> register(e));
-        log("Enabled automatic registering...");
+        return enableAutoRegistering(targetPackage, null);
+    }
+
+    /**
+     * Enables auto-registering for a specified package, using an index file.
+     * The annotated classes found in every jar are stored in the index, keyed
+     * by the checksum of the jar, so the next startup does not have to scan
+     * jars which did not change.
+     * @param targetPackage The package in which auto-registering will be
+     *        enabled. Can be obtained using {@link Class#getPackageName()}.
+     * @param indexFile The index file, or {@code null} to always scan
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see ClassScanner
+     */
+    public SnowballNebula enableAutoRegistering(String targetPackage, Path indexFile) {
+        var start = System.nanoTime();
+        var loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) loader = SnowballNebula.class.getClassLoader();
+        var classes = new ClassScanner(loader, indexFile).findAnnotated(targetPackage).toArray(Class<?>[]::new);
+        register(classes, System.nanoTime() - start);
+        log("Enabled automatic registering in " + (System.nanoTime() - start) / 1_000_000 + "ms");
         return this;
     }
 
@@ -171,63 +1020,616 @@ public class SnowballNebula extends ListenerAdapter {
      */
     @Override
     public void onSlashCommand(@NotNull SlashCommandEvent event) {
-        if (event.getUser().equals(jda.getSelfUser())) return;
-        var command = getRegisteredCommand(event.getName());
-        Objects.requireNonNull(command);
+        if (event.getUser().equals(selfUser)) return;
+        var metrics = this.metrics;
+        var watchdog = this.watchdog;
+        var tracer = this.tracer;
+        var start = metrics == null && watchdog == null && tracer == null ? 0L : System.nanoTime();
+        var received = start;
+        var command = registry.resolve(event.getName(), event.getSubcommandGroup(), event.getSubcommandName());
+        if (command == null) {
+            if (metrics != null) metrics.recordUnknownCommand();
+            log("Received unknown command /" + event.getCommandPath().replace('/', ' '));
+            return;
+        }
+        var trace = tracer == null ? null
+                : tracer.start(command.getPath(), event.getUser().getIdLong(), guildId(event), received);
+        CommandMetrics commandMetrics = null;
+        if (metrics != null) {
+            var now = System.nanoTime();
+            commandMetrics = metrics.forCommand(command.getPath());
+            commandMetrics.recordInvocation(now - start);
+            start = now;
+        }
+        var toggles = this.toggles;
+        if (toggles != null && !toggles.table().isEnabled(guildId(event), command.getName())) {
+            traced(event, trace).replyEmbeds(toggles.disabledReply().toEmbed(values(event, command)))
+                    .setEphemeral(true).queue();
+            complete(trace, "disabled");
+            return;
+        }
 
         var perm = command.getPerm();
-        if (!event.getMember().hasPermission(perm)) {
-            var message = command.getPermissionMessage().replace("$PERMISSION$",
-                    "`" + perm.getName() + "`");
-            event.replyEmbeds(Utilities.failEmbed(message)).queue();
+        if (trace != null) trace.begin(Phase.PERMISSION_CHECK);
+        var denied = !event.getMember().hasPermission(perm);
+        if (trace != null) trace.end(Phase.PERMISSION_CHECK);
+        if (commandMetrics != null) commandMetrics.recordPermissionCheck(System.nanoTime() - start, denied);
+        if (denied) {
+            var eventLog = this.eventLog;
+            if (eventLog != null)
+                eventLog.denial(command.getPath(), event.getUser().getIdLong(), guildId(event), perm.getName());
+            var reply = command.getPermissionTemplate().toEmbed(values(event, command).setPermission(perm));
+            traced(event, trace).replyEmbeds(reply).queue();
+            complete(trace, "denied");
+            return;
+        }
+        var retry = command.checkRateLimits(event.getUser().getIdLong(), guildId(event));
+        if (retry > 0) {
+            if (commandMetrics != null) commandMetrics.recordRateLimited();
+            var eventLog = this.eventLog;
+            if (eventLog != null)
+                eventLog.rateLimited(command.getPath(), event.getUser().getIdLong(), guildId(event), retry);
+            var seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retry + TimeUnit.SECONDS.toNanos(1) - 1));
+            var reply = command.getRateLimitTemplate().toEmbed(values(event, command).setRetry(seconds));
+            traced(event, trace).replyEmbeds(reply).queue();
+            complete(trace, "rate_limited");
+            return;
+        }
+        var cache = command.getCache();
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = cache.key(event);
+            var cached = cache.getIfPresent(cacheKey);
+            if (cached != null) {
+                reply(traced(event, trace), cached);
+                complete(trace, "cached");
+                return;
+            }
+        }
+        if (!command.tryAcquire()) {
+            if (commandMetrics != null) commandMetrics.recordBusyRejection();
+            var eventLog = this.eventLog;
+            if (eventLog != null) eventLog.busy(command.getPath(), event.getUser().getIdLong());
+            traced(event, trace).replyEmbeds(command.getBusyTemplate().toEmbed(values(event, command))).queue();
+            complete(trace, "busy");
+            return;
+        }
+        var finalMetrics = commandMetrics;
+        var target = traced(watchdog == null ? event
+                : watchdog.watch(event, received, () -> deferred(command, event, finalMetrics, received)), trace);
+        var finalKey = cacheKey;
+        var admission = this.admission;
+        if (admission != null) {
+            if (trace != null) trace.begin(Phase.QUEUE);
+            admission.queue().submit(command.getPriority(), wait -> {
+                if (finalMetrics != null) finalMetrics.recordQueueWait(wait);
+                execute(command, target, finalMetrics, finalKey, trace);
+            }, () -> shed(command, target, finalMetrics, admission.shedReply(), trace));
+            return;
+        }
+        var executor = this.executor;
+        if (executor == null) {
+            execute(command, target, commandMetrics, cacheKey, trace);
             return;
         }
         try {
-            command.getMethod().invoke(command.getInstance(), event);
-            log(event.getUser().getAsTag() + " executed command /" +
-                    event.getName() + " in " + event.getGuild());
-        } catch (Exception e) {
-            for (var handler : handlerRegistry) {
-                if (handler.canHandle(command.getName()) && handler.getHandledException().
-                        isAssignableFrom(e.getCause().getClass())) {
-                    try {
-                        handler.getMethod().invoke(handler.getInstance(), e.getCause(), event);
-                    } catch (IllegalAccessException | InvocationTargetException ex) {
-                        ex.printStackTrace();
-                    }
-                }
+            if (trace != null) trace.begin(Phase.QUEUE);
+            executor.execute(() -> execute(command, target, finalMetrics, finalKey, trace));
+        } catch (RejectedExecutionException e) {
+            command.release();
+            if (commandMetrics != null) commandMetrics.recordBusyRejection();
+            var eventLog = this.eventLog;
+            if (eventLog != null) eventLog.busy(command.getPath(), event.getUser().getIdLong());
+            if (trace != null) trace.end(Phase.QUEUE);
+            target.replyEmbeds(command.getBusyTemplate().toEmbed(values(event, command))).queue();
+            complete(trace, "busy");
+        }
+    }
+
+    /**
+     * Invokes a command and routes exceptions to the matching exception
+     * handlers. Runs on the JDA event thread or on the dispatch executor.
+     * Cached commands are executed through their cache, so identical
+     * executions running at the same time share one result. Non-static
+     * command methods are invoked on an instance of their scope.
+     * @param command The command to execute
+     * @param event The event which triggered the command
+     * @param metrics The metrics of the command, {@code null} if disabled
+     * @param cacheKey Key of the execution, {@code null} if results are not cached
+     * @param trace The trace of the interaction, {@code null} if not traced
+     */
+    private void execute(RegisteredCommand command, SlashCommandEvent event, CommandMetrics metrics, String cacheKey,
+                         Trace trace) {
+        var eventLog = this.eventLog;
+        var start = metrics == null && eventLog == null ? 0L : System.nanoTime();
+        Trace previous = null;
+        if (trace != null) {
+            trace.end(Phase.QUEUE);
+            trace.begin(Phase.EXECUTION);
+            previous = Trace.enter(trace);
+        }
+        var provider = command.getProvider();
+        Object instance = null;
+        try {
+            instance = provider == null ? command.getInstance() : provider.acquire(guildId(event));
+            if (cacheKey == null) {
+                command.getInvoker().invoke(instance, event);
+                executed(command, event, metrics, eventLog, start, trace);
+            } else {
+                // a coalesced execution may still run the method later if the
+                // result it waits for is null, its instance and permit are
+                // released once it completed
+                var target = instance;
+                instance = null;
+                command.getCache()
+                        .compute(cacheKey, () -> invoke(command, target, event, trace))
+                        .whenComplete((value, e) -> {
+                            try {
+                                if (e != null) {
+                                    failed(command, event, metrics, eventLog, start, e, trace);
+                                    return;
+                                }
+                                if (value != null) reply(event, value);
+                                executed(command, event, metrics, eventLog, start, trace);
+                            } finally {
+                                if (provider != null && target != null) provider.release(target);
+                                command.release();
+                            }
+                        });
+                return;
+            }
+        } catch (Throwable e) {
+            failed(command, event, metrics, eventLog, start, e, trace);
+        } finally {
+            if (trace != null) Trace.exit(previous);
+        }
+        if (provider != null && instance != null) provider.release(instance);
+        command.release();
+    }
+
+    /**
+     * Invokes a cached command, which may happen on the thread of another
+     * execution it was coalesced with.
+     */
+    private static Object invoke(RegisteredCommand command, Object instance, SlashCommandEvent event, Trace trace)
+            throws Throwable {
+        var previous = trace == null ? null : Trace.enter(trace);
+        try {
+            return command.getInvoker().invoke(instance, event);
+        } finally {
+            if (trace != null) Trace.exit(previous);
+        }
+    }
+
+    /**
+     * Answers an execution shed by the admission queue.
+     */
+    private void shed(RegisteredCommand command, SlashCommandEvent event, CommandMetrics metrics, ReplyTemplate reply,
+                      Trace trace) {
+        command.release();
+        if (metrics != null) metrics.recordShed();
+        var eventLog = this.eventLog;
+        if (eventLog != null) eventLog.shed(command.getPath(), event.getUser().getIdLong(), command.getPriority().name());
+        if (trace != null) trace.end(Phase.QUEUE);
+        event.replyEmbeds(reply.toEmbed(values(event, command))).setEphemeral(true).queue();
+        complete(trace, "shed");
+    }
+
+    /**
+     * Records a reply deferred by the watchdog, called on the timer thread.
+     */
+    private void deferred(RegisteredCommand command, SlashCommandEvent event, CommandMetrics metrics, long received) {
+        if (metrics != null) metrics.recordWatchdogDeferral();
+        var eventLog = this.eventLog;
+        if (eventLog != null) eventLog.watchdog(command.getPath(), event.getUser().getIdLong(), System.nanoTime() - received);
+    }
+
+    private void executed(RegisteredCommand command, SlashCommandEvent event, CommandMetrics metrics,
+                          EventLog eventLog, long start, Trace trace) {
+        disarm(command, event);
+        if (trace != null) {
+            trace.end(Phase.EXECUTION);
+            trace.complete("executed");
+        }
+        if (metrics == null && eventLog == null) return;
+        var elapsed = System.nanoTime() - start;
+        if (metrics != null) metrics.recordExecution(elapsed);
+        if (eventLog != null)
+            eventLog.execution(command.getPath(), event.getUser().getIdLong(), guildId(event), elapsed);
+    }
+
+    private void failed(RegisteredCommand command, SlashCommandEvent event, CommandMetrics metrics,
+                        EventLog eventLog, long start, Throwable e, Trace trace) {
+        var routingStart = 0L;
+        if (metrics != null) {
+            routingStart = System.nanoTime();
+            metrics.recordExecution(routingStart - start);
+        }
+        if (trace != null) {
+            trace.end(Phase.EXECUTION);
+            trace.fail(e);
+            trace.begin(Phase.EXCEPTION_ROUTING);
+        }
+        var handler = registry.getRouter().resolve(command.getName(), e);
+        if (metrics != null) metrics.recordException(e, System.nanoTime() - routingStart, handler != null);
+        if (eventLog != null) eventLog.exception(command.getPath(), event.getUser().getIdLong(), e, handler != null);
+        if (handler != null) {
+            var previous = trace == null ? null : Trace.enter(trace);
+            var provider = handler.getProvider();
+            Object instance = null;
+            try {
+                instance = provider == null ? handler.getInstance() : provider.acquire(guildId(event));
+                handler.getInvoker().invoke(instance, e, event);
+            } catch (Throwable ex) {
+                ex.printStackTrace();
+            } finally {
+                if (provider != null && instance != null) provider.release(instance);
+                if (trace != null) Trace.exit(previous);
             }
         }
+        disarm(command, event);
+        if (trace != null) {
+            trace.end(Phase.EXCEPTION_ROUTING);
+            trace.complete("failed");
+        }
     }
 
     /**
-     * Registers all commands in all guilds the bot is in.
+     * Stops the reply watchdog from deferring the reply of an execution whose
+     * method returned, unless the command replies asynchronously. A command
+     * which did not reply by now never will, deferring its reply would only
+     * leave the interaction "thinking" forever.
+     */
+    private static void disarm(RegisteredCommand command, SlashCommandEvent event) {
+        if (command.isAsyncReply()) return;
+        if (event instanceof TracedSlashCommandEvent traced) event = traced.getEvent();
+        if (event instanceof WatchedSlashCommandEvent watched) watched.disarm();
+    }
+
+    /**
+     * Wraps the event of a traced interaction, so that its reply is traced.
+     */
+    private static SlashCommandEvent traced(SlashCommandEvent event, Trace trace) {
+        return trace == null ? event : trace.wrap(event);
+    }
+
+    /**
+     * Ends the dispatch of a traced interaction.
+     */
+    private static void complete(Trace trace, String outcome) {
+        if (trace != null) trace.complete(outcome);
+    }
+
+    /**
+     * Replies with the result of a cached command.
+     */
+    private static void reply(SlashCommandEvent event, Object value) {
+        if (value instanceof MessageEmbed embed) event.replyEmbeds(embed).queue();
+        else if (value instanceof Message message) event.reply(message).queue();
+        else event.reply(value.toString()).queue();
+    }
+
+    /**
+     * Reads autocomplete requests from the raw gateway events, which have to
+     * be enabled using {@code JDABuilder#setRawEventsEnabled(true)}.
+     * Overridden from the {@link ListenerAdapter} class.
+     * <h2>Do not use this method!!</h2>
+     */
+    @Override
+    public void onRawGateway(@NotNull RawGatewayEvent event) {
+        if (!"INTERACTION_CREATE".equals(event.getType())) return;
+        var request = AutocompleteEvent.parse(event.getJDA(), event.getPayload());
+        if (request != null) onAutocomplete(request);
+    }
+
+    /**
+     * Answers an autocomplete request using the {@link Autocomplete} handler
+     * of the focused option. Called for every request read from the gateway,
+     * can also be called with synthetic requests. Runs on the dispatch
+     * executor if asynchronous dispatch is enabled. Requests without handler
+     * are not answered, exceptions thrown by handlers are logged.
+     * @param event The autocomplete request
+     * @since 1.3.0
+     */
+    public void onAutocomplete(AutocompleteEvent event) {
+        var registry = this.registry;
+        var command = registry.resolve(event.getName(), event.getSubcommandGroup(), event.getSubcommandName());
+        var completer = command == null ? null : registry.completer(command, event.getOption());
+        if (completer == null) return;
+        var executor = this.executor;
+        if (executor == null) {
+            complete(completer, event);
+            return;
+        }
+        try {
+            executor.execute(() -> complete(completer, event));
+        } catch (RejectedExecutionException e) {
+            // the user keeps typing, the next request will be answered
+        }
+    }
+
+    private void complete(RegisteredAutocomplete completer, AutocompleteEvent event) {
+        var provider = completer.getProvider();
+        Object instance = null;
+        try {
+            instance = provider == null ? completer.getInstance() : provider.acquire(event.getGuildIdLong());
+            var result = completer.getInvoker().invoke(instance, event);
+            if (result instanceof Collection<?> values) event.replyChoices(choices(values)).queue();
+        } catch (Throwable e) {
+            logger.error("Autocomplete handler of /" + completer.getCommand() + " failed", e);
+        } finally {
+            if (provider != null && instance != null) provider.release(instance);
+        }
+    }
+
+    /**
+     * Turns the values returned by an autocomplete handler into choices,
+     * taking at most {@link AutocompleteEvent#MAX_CHOICES}.
+     */
+    private static List<Command.Choice> choices(Collection<?> values) {
+        var choices = new ArrayList<Command.Choice>(Math.min(values.size(), AutocompleteEvent.MAX_CHOICES));
+        for (var value : values) {
+            if (choices.size() == AutocompleteEvent.MAX_CHOICES) break;
+            if (value instanceof Command.Choice choice) choices.add(choice);
+            else if (value instanceof Long || value instanceof Integer)
+                choices.add(new Command.Choice(value.toString(), ((Number) value).longValue()));
+            else if (value instanceof Number number) choices.add(new Command.Choice(value.toString(), number.doubleValue()));
+            else choices.add(new Command.Choice(value.toString(), value.toString()));
+        }
+        return choices;
+    }
+
+    /**
+     * @return The ID of the guild the event happened in, {@code 0} in direct messages
+     */
+    private static long guildId(SlashCommandEvent event) {
+        var guild = event.getGuild();
+        return guild == null ? 0 : guild.getIdLong();
+    }
+
+    /**
+     * Returns the values of the placeholders every reply to an execution can use.
+     */
+    private static ReplyValues values(SlashCommandEvent event, RegisteredCommand command) {
+        return new ReplyValues().setUser(event.getUser()).setCommand(command.getPath());
+    }
+
+    /**
+     * Registers all commands in all guilds the bot is in. If command syncing is
+     * enabled, guilds whose command set did not change are skipped. Returns
+     * immediately, use {@link SnowballNebula#registerCommandsInGuilds()} to
+     * know when registration finished.
      * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableCommandSync(Path)
      */
     public SnowballNebula addCommandsToGuilds() {
-        jda.getGuilds().forEach(e -> e.updateCommands().addCommands(this.getCommands()).queue());
-        var guildNames = jda.getGuilds().stream().parallel().map(Guild::getName).collect(Collectors.toSet());
-        log("Registered all commands in guilds: " + guildNames);
+        registerCommandsInGuilds();
         return this;
     }
 
     /**
-     * Registers all commands globally, this might take up to one hour.
+     * Registers all commands in all guilds the bot is in using the registration
+     * scheduler, which keeps a bounded number of requests in flight and retries
+     * failed requests. If command syncing is enabled, guilds whose command set
+     * did not change are skipped.
+     * <p>
+     * The shards of a {@link ShardManager} are registered in parallel. Shards
+     * which are not ready yet are registered as soon as they are, and from now
+     * on guilds the bot joins get their commands right away.
+     * @return Future completing with the result of every guild of the ready shards
+     * @see SnowballNebula#setRegistrationScheduler(GuildRegistrationScheduler)
+     */
+    public CompletableFuture<RegistrationReport> registerCommandsInGuilds() {
+        this.guildRegistration = true;
+        var start = System.nanoTime();
+        if (shardManager == null)
+            return registerCommandsIn(jda.getGuilds()).whenComplete((report, error) -> synced(start));
+        var runs = new ArrayList<CompletableFuture<RegistrationReport>>();
+        for (var shard : shardManager.getShards())
+            if (shard.getStatus() == JDA.Status.CONNECTED) runs.add(registerCommandsIn(shard.getGuilds()));
+        return CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    var report = RegistrationReport.merge(runs.stream().map(CompletableFuture::join).toList());
+                    this.lastSyncReport = report.toSyncReport();
+                    synced(start);
+                    return report;
+                });
+    }
+
+    /**
+     * Registers all commands in some guilds using the registration scheduler.
+     * @param guilds The guilds
+     * @return Future completing with the result of every guild
+     */
+    private CompletableFuture<RegistrationReport> registerCommandsIn(Collection<Guild> guilds) {
+        var registry = this.registry;
+        var commands = data(registry);
+        var fingerprint = fingerprints == null ? null : CommandFingerprints.of(commands);
+        var toggles = this.toggles;
+        return registrationScheduler().schedule(guilds, guild -> {
+            var enabled = toggles == null ? commands
+                    : toggles.table().filter(guild.getIdLong(), commands, registry::primaryName);
+            var guildFingerprint = fingerprint == null || enabled == commands ? fingerprint
+                    : CommandFingerprints.of(enabled);
+            if (guildFingerprint != null && fingerprints.isUpToDate(guild.getId(), guildFingerprint))
+                return null;
+            var push = guild.updateCommands().addCommands(enabled).submit();
+            return guildFingerprint == null ? push
+                    : push.thenRun(() -> fingerprints.update(guild.getId(), guildFingerprint));
+        }).whenComplete((report, error) -> {
+            if (report != null) {
+                this.lastSyncReport = report.toSyncReport();
+                log("Registered all commands in " + guilds.size()
+                        + (guilds.size() == 1 ? " guild, " : " guilds, ") + report);
+            }
+            if (fingerprint != null) saveFingerprints();
+        });
+    }
+
+    /**
+     * Saves the command fingerprints. A failure is logged and rethrown, so
+     * the future of the push it belongs to fails with it.
+     * @throws UncheckedIOException If the fingerprints could not be written
+     */
+    private void saveFingerprints() {
+        try {
+            fingerprints.save();
+        } catch (UncheckedIOException e) {
+            logger.error("Could not save the command fingerprints to " + fingerprints.getFile(), e);
+            throw e;
+        }
+    }
+
+    private synchronized GuildRegistrationScheduler registrationScheduler() {
+        if (registrationScheduler == null)
+            registrationScheduler = new GuildRegistrationScheduler();
+        return registrationScheduler;
+    }
+
+    /**
+     * Registers the commands of a shard which became ready. Overridden from
+     * the {@link ListenerAdapter} class.
+     * <h2>Do not use this method!!</h2>
+     */
+    @Override
+    public void onReady(@NotNull ReadyEvent event) {
+        if (shardManager == null) return;
+        if (selfUser == null) selfUser = event.getJDA().getSelfUser();
+        log("Shard " + event.getJDA().getShardInfo().getShardString() + " is ready");
+        if (guildRegistration) registerCommandsIn(event.getJDA().getGuilds());
+    }
+
+    /**
+     * Registers the commands in a guild the bot joined. Overridden from the
+     * {@link ListenerAdapter} class.
+     * <h2>Do not use this method!!</h2>
+     */
+    @Override
+    public void onGuildJoin(@NotNull GuildJoinEvent event) {
+        if (guildRegistration) registerCommandsIn(List.of(event.getGuild()));
+    }
+
+    /**
+     * Registers all commands globally, this might take up to one hour. All
+     * commands are sent in a single bulk update, which also removes global
+     * commands that are no longer registered. If command syncing is enabled,
+     * the update is skipped when the command set did not change.
      * @return {@link SnowballNebula} for chaining convenience
+     * @see SnowballNebula#enableCommandSync(Path)
      */
     public SnowballNebula upsertCommands() {
-        this.getCommands().forEach(e -> jda.upsertCommand(e).queue());
+        this.globalRegistration = true;
+        var start = System.nanoTime();
+        var commands = this.getCommands();
+        var jda = shardManager != null ? shardManager.getShards().get(0) : this.jda;
+        if (fingerprints != null) {
+            var fingerprint = CommandFingerprints.of(commands);
+            if (fingerprints.isUpToDate(CommandFingerprints.GLOBAL, fingerprint)) {
+                this.lastSyncReport = new SyncReport(0, 1);
+                log("Global commands did not change, skipping the update");
+                return this;
+            }
+            jda.updateCommands().addCommands(commands).submit()
+                    .thenRun(() -> fingerprints.update(CommandFingerprints.GLOBAL, fingerprint))
+                    .whenComplete((result, error) -> {
+                        synced(start);
+                        saveFingerprints();
+                    });
+        } else {
+            jda.updateCommands().addCommands(commands).queue(done -> synced(start));
+        }
+        this.lastSyncReport = new SyncReport(1, 0);
         log("Registering all commands globally, this might take up to one hour...");
         return this;
     }
 
+    /**
+     * Returns the report of the last call to {@link SnowballNebula#addCommandsToGuilds()}
+     * or {@link SnowballNebula#upsertCommands()}, containing the number of
+     * REST calls that were sent and skipped.
+     * @return {@link SyncReport}
+     */
+    public SyncReport getLastSyncReport() {
+        return lastSyncReport;
+    }
+
+    /**
+     * Removes all cached results of a command, the next execution runs the
+     * command again.
+     * @param path Path of the command, for example {@code ping} or {@code admin ban}
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see Cached
+     */
+    public SnowballNebula invalidateCache(String path) {
+        var command = registry.get(path);
+        if (command != null && command.getCache() != null) command.getCache().invalidateAll();
+        return this;
+    }
+
+    /**
+     * Removes the cached results of a command for one user or guild,
+     * depending on the scope of its cache.
+     * @param path Path of the command, for example {@code ping} or {@code admin ban}
+     * @param id ID of the user or guild, ignored if results are shared by everyone
+     * @return {@link SnowballNebula} for chaining convenience
+     * @see Cached#scope()
+     */
+    public SnowballNebula invalidateCache(String path, long id) {
+        var command = registry.get(path);
+        if (command != null && command.getCache() != null) command.getCache().invalidate(id);
+        return this;
+    }
+
+    /**
+     * Removes all cached results of all commands.
+     * @return {@link SnowballNebula} for chaining convenience
+     */
+    public SnowballNebula invalidateCaches() {
+        for (var command : registry.getCommands())
+            if (command.getCache() != null) command.getCache().invalidateAll();
+        return this;
+    }
+
+    /**
+     * Returns the hits, misses, size and estimated memory use of the caches
+     * of all commands whose results are cached.
+     * @return {@link Map} of command names to {@link CacheStats}
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        var stats = new TreeMap<String, CacheStats>();
+        for (var command : registry.getCommands())
+            if (command.getCache() != null) stats.put(command.getPath(), command.getCache().stats());
+        return stats;
+    }
+
+    /**
+     * Returns the number of kept instances and their estimated memory use for
+     * every registered class declaring non-static handlers.
+     * @return {@link Map} of class names to {@link ScopeStats}
+     * @see Scoped
+     * @since 1.3.0
+     */
+    public Map<String, ScopeStats> getScopeStats() {
+        var registry = this.registry;
+        var providers = Collections.newSetFromMap(new IdentityHashMap<InstanceProvider, Boolean>());
+        for (var command : registry.getCommands())
+            if (command.getProvider() != null) providers.add(command.getProvider());
+        for (var handler : registry.getHandlers())
+            if (handler.getProvider() != null) providers.add(handler.getProvider());
+        for (var completer : registry.getCompleters())
+            if (completer.getProvider() != null) providers.add(completer.getProvider());
+        var stats = new TreeMap<String, ScopeStats>();
+        for (var provider : providers) stats.put(provider.getType().getName(), provider.stats());
+        return stats;
+    }
+
     /**
      * Returns a registered command, destined for internal use.
-     * @param name Name of the command
+     * @param path Path of the command, for example {@code ping} or {@code admin ban}
      * @return {@link RegisteredCommand}
      */
-    public RegisteredCommand getRegisteredCommand(String name) {
-        return registry.get(name);
+    public RegisteredCommand getRegisteredCommand(String path) {
+        return registry.get(path);
     }
 
     /**
@@ -236,7 +1638,9 @@ public class SnowballNebula extends ListenerAdapter {
      * @return {@link CommandData}
      */
     public CommandData getCommand(String name) {
-        return registry.get(name).getData();
+        for (var data : registry.getData())
+            if (data.getName().equals(name)) return data;
+        return null;
     }
 
     /**
@@ -244,6 +1648,19 @@ public class SnowballNebula extends ListenerAdapter {
      * @return {@link List}
      */
     public List<CommandData> getCommands() {
-        return registry.values().stream().map(RegisteredCommand::getData).toList();
+        return data(registry);
+    }
+
+    /**
+     * The admission queue and the reply to shed executions, published together.
+     */
+    private record Admission(AdmissionQueue queue, ReplyTemplate shedReply) {
+    }
+
+    /**
+     * The table of commands turned on or off per guild and the reply to
+     * disabled commands, published together.
+     */
+    private record Toggles(GuildCommandTable table, ReplyTemplate disabledReply) {
     }
 }
@@ -0,0 +1,353 @@
+package io.github.maeves2.snowballnebula.admission;
+
+import io.github.maeves2.snowballnebula.metrics.LatencyHistogram;
+import io.github.maeves2.snowballnebula.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Admission stage in front of command execution. At most {@code concurrency}
+ * executions run at once on the dispatch executor, further executions wait
+ * in a bounded queue with one lane per {@link Priority}, and higher lanes are
+ * always drained first.
+ * <p>
+ * When the queue is full, a new execution takes the place of the oldest
+ * queued execution of the lowest priority below its own, which is shed. If
+ * there is none, the new execution itself is shed. The oldest execution is
+ * shed because it is the closest to Discord's reply deadline. Shed
+ * executions never run, their shed callback is called on the submitting
+ * thread instead.
+ * <p>
+ * The lanes are guarded by one lock, which is only held to move an entry in
+ * or out of a lane. A worker which finished an execution directly runs the
+ * next queued one, so a burst does not submit a task to the executor per
+ * execution.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class AdmissionQueue implements AdmissionQueueMXBean {
+    /**
+     * Default number of queued executions.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Default message of the ephemeral reply to shed executions.
+     */
+    public static final String DEFAULT_SHED_MESSAGE = "\u274c The bot is very busy right now, please try again in a moment.";
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionQueue.class);
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Executor executor;
+    private final int concurrency;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Entry>[] lanes;
+    // guarded by lock
+    private int running;
+    private int depth;
+    private int maxDepth;
+    private long admitted;
+    private long queued;
+    private final long[] shed = new long[PRIORITIES.length];
+    private final LatencyHistogram waits = new LatencyHistogram();
+
+    /**
+     * @param executor The executor the executions run on
+     * @param concurrency Maximum number of executions running at once
+     * @param capacity Maximum number of queued executions
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AdmissionQueue(Executor executor, int concurrency, int capacity) {
+        if (concurrency <= 0) throw new IllegalArgumentException("The concurrency must be positive");
+        if (capacity < 0) throw new IllegalArgumentException("The capacity must not be negative");
+        this.executor = Objects.requireNonNull(executor);
+        this.concurrency = concurrency;
+        this.capacity = capacity;
+        this.lanes = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < lanes.length; i++) lanes[i] = new ArrayDeque<>();
+    }
+
+    /**
+     * Submits an execution. It runs at once if less than {@code concurrency}
+     * executions are running and nothing is queued, otherwise it is queued or
+     * shed.
+     * @param priority The priority of the execution
+     * @param task The execution, receives the nanoseconds it waited in the queue
+     * @param onShed Called if the execution is shed, now or when a later
+     *        execution takes its place
+     * @return Whether the execution was admitted, {@code false} if it was shed at once
+     */
+    public boolean submit(Priority priority, LongConsumer task, Runnable onShed) {
+        var entry = new Entry(priority, task, onShed);
+        Entry victim = null;
+        lock.lock();
+        try {
+            if (running < concurrency && depth == 0) {
+                running++;
+                admitted++;
+            } else if (depth < capacity) {
+                enqueue(entry);
+            } else {
+                victim = evict(priority);
+                if (victim == null) {
+                    shed[priority.ordinal()]++;
+                    entry = null;
+                } else {
+                    shed[victim.priority.ordinal()]++;
+                    enqueue(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (victim != null) victim.onShed.run();
+        if (entry == null) {
+            onShed.run();
+            return false;
+        }
+        if (!entry.waited) start(entry);
+        return true;
+    }
+
+    private void enqueue(Entry entry) {
+        entry.waited = true;
+        entry.enqueuedAt = System.nanoTime();
+        lanes[entry.priority.ordinal()].addLast(entry);
+        queued++;
+        if (++depth > maxDepth) maxDepth = depth;
+    }
+
+    /**
+     * @return The oldest queued entry of the lowest priority below {@code priority},
+     * removed from its lane, {@code null} if there is none
+     */
+    private Entry evict(Priority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            var victim = lanes[i].pollFirst();
+            if (victim != null) {
+                depth--;
+                return victim;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs an admitted entry on the executor, the caller already counted it
+     * as running. If the executor rejects it, the entry is shed and its slot
+     * is handed to the next queued entry, entries may have been queued behind
+     * it in the meantime and no worker would ever pick them up otherwise.
+     */
+    private void start(Entry entry) {
+        while (entry != null) {
+            var admitted = entry;
+            try {
+                executor.execute(() -> drain(admitted));
+                return;
+            } catch (RejectedExecutionException e) {
+                lock.lock();
+                try {
+                    shed[entry.priority.ordinal()]++;
+                } finally {
+                    lock.unlock();
+                }
+                entry.onShed.run();
+                entry = next();
+            }
+        }
+    }
+
+    /**
+     * Runs an entry, then the queued entries until the queue is empty.
+     */
+    private void drain(Entry entry) {
+        while (entry != null) {
+            var wait = entry.waited ? System.nanoTime() - entry.enqueuedAt : 0L;
+            waits.record(wait);
+            try {
+                entry.task.accept(wait);
+            } catch (Throwable e) {
+                logger.error("An admitted execution failed", e);
+            }
+            entry = next();
+        }
+    }
+
+    /**
+     * @return The queued entry of the highest priority, {@code null} if the
+     * queue is empty, which frees the slot of the calling worker
+     */
+    private Entry next() {
+        lock.lock();
+        try {
+            for (int i = lanes.length - 1; i >= 0; i--) {
+                var entry = lanes[i].pollFirst();
+                if (entry != null) {
+                    depth--;
+                    admitted++;
+                    return entry;
+                }
+            }
+            running--;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A copy of the current values
+     */
+    public AdmissionStats stats() {
+        lock.lock();
+        try {
+            var depthByPriority = new EnumMap<Priority, Integer>(Priority.class);
+            var shedByPriority = new EnumMap<Priority, Long>(Priority.class);
+            for (var priority : PRIORITIES) {
+                depthByPriority.put(priority, lanes[priority.ordinal()].size());
+                shedByPriority.put(priority, shed[priority.ordinal()]);
+            }
+            return new AdmissionStats(concurrency, capacity, running, depth, maxDepth, depthByPriority,
+                    admitted, queued, shedByPriority, waits.snapshot());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getDepth() {
+        lock.lock();
+        try {
+            return depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getMaxDepth() {
+        lock.lock();
+        try {
+            return maxDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getShed() {
+        lock.lock();
+        try {
+            var total = 0L;
+            for (var count : shed) total += count;
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getShedByPriority() {
+        var byName = new LinkedHashMap<String, Long>();
+        stats().getShedByPriority().forEach((priority, count) -> byName.put(priority.name(), count));
+        return byName;
+    }
+
+    @Override
+    public long getWaitMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(waits.snapshot().getMeanNanos());
+    }
+
+    @Override
+    public long getWaitP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(waits.snapshot().getPercentileNanos(99));
+    }
+
+    /**
+     * Registers this queue as MXBean, replacing a previously registered queue.
+     */
+    public void registerMBean() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = objectName();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("Could not register the admission queue with JMX", e);
+        }
+    }
+
+    /**
+     * Unregisters the MXBean registered by {@link #registerMBean()}.
+     */
+    public void unregisterMBean() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = objectName();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+        } catch (JMException e) {
+            logger.warn("Could not unregister the admission queue", e);
+        }
+    }
+
+    private static ObjectName objectName() throws JMException {
+        return new ObjectName(Metrics.DOMAIN + ":type=AdmissionQueue");
+    }
+
+    /**
+     * A submitted execution.
+     */
+    private static final class Entry {
+        private final Priority priority;
+        private final LongConsumer task;
+        private final Runnable onShed;
+        /**
+         * Whether the entry was queued, {@code false} if it was admitted at once
+         */
+        private boolean waited;
+        /**
+         * {@link System#nanoTime()} when the entry was queued
+         */
+        private long enqueuedAt;
+
+        private Entry(Priority priority, LongConsumer task, Runnable onShed) {
+            this.priority = priority;
+            this.task = task;
+            this.onShed = onShed;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.maeves2.snowballnebula.admission;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link AdmissionQueue}, registered as
+ * {@code io.github.maeves2.snowballnebula:type=AdmissionQueue}.
+ * Wait times are in microseconds.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public interface AdmissionQueueMXBean {
+    int getConcurrency();
+
+    int getCapacity();
+
+    int getRunning();
+
+    int getDepth();
+
+    int getMaxDepth();
+
+    long getShed();
+
+    Map<String, Long> getShedByPriority();
+
+    long getWaitMeanMicros();
+
+    long getWaitP99Micros();
+}
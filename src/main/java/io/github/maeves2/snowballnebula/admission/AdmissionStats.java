@@ -0,0 +1,136 @@
+package io.github.maeves2.snowballnebula.admission;
+
+import io.github.maeves2.snowballnebula.metrics.HistogramSnapshot;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable copy of the statistics of the {@link AdmissionQueue}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class AdmissionStats {
+    private final int concurrency;
+    private final int capacity;
+    private final int running;
+    private final int depth;
+    private final int maxDepth;
+    private final Map<Priority, Integer> depthByPriority;
+    private final long admitted;
+    private final long queued;
+    private final Map<Priority, Long> shedByPriority;
+    private final HistogramSnapshot wait;
+
+    public AdmissionStats(int concurrency, int capacity, int running, int depth, int maxDepth,
+                          Map<Priority, Integer> depthByPriority, long admitted, long queued,
+                          Map<Priority, Long> shedByPriority, HistogramSnapshot wait) {
+        this.concurrency = concurrency;
+        this.capacity = capacity;
+        this.running = running;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.depthByPriority = Collections.unmodifiableMap(copy(depthByPriority));
+        this.admitted = admitted;
+        this.queued = queued;
+        this.shedByPriority = Collections.unmodifiableMap(copy(shedByPriority));
+        this.wait = wait;
+    }
+
+    /**
+     * @return The maximum number of executions running at once
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return The maximum number of queued executions
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of running executions
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return The number of queued executions
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The highest number of queued executions so far
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return The number of queued executions by priority
+     */
+    public Map<Priority, Integer> getDepthByPriority() {
+        return depthByPriority;
+    }
+
+    /**
+     * @return The number of executions which were run, at once or after waiting
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * @return The number of executions which had to wait in the queue
+     */
+    public long getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return The number of shed executions
+     */
+    public long getShed() {
+        var total = 0L;
+        for (var count : shedByPriority.values()) total += count;
+        return total;
+    }
+
+    /**
+     * @return The number of shed executions by priority
+     */
+    public Map<Priority, Long> getShedByPriority() {
+        return shedByPriority;
+    }
+
+    /**
+     * @return The time admitted executions waited before they ran, {@code 0}
+     * for executions admitted at once
+     */
+    public HistogramSnapshot getWait() {
+        return wait;
+    }
+
+    /**
+     * Copies a map into an {@link EnumMap}, which iterates in priority order.
+     */
+    private static <V> Map<Priority, V> copy(Map<Priority, V> map) {
+        var copy = new EnumMap<Priority, V>(Priority.class);
+        copy.putAll(map);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionStats{concurrency=" + concurrency + ", capacity=" + capacity + ", running=" + running
+                + ", depth=" + depth + ", maxDepth=" + maxDepth + ", admitted=" + admitted + ", queued=" + queued
+                + ", shed=" + getShed() + ", wait=" + wait + "}";
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.maeves2.snowballnebula.admission;
+
+/**
+ * Priority of a command in the {@link AdmissionQueue}. Queued executions of
+ * higher priority run first, and when the queue is full they take the place
+ * of queued executions of lower priority.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public enum Priority {
+    /**
+     * Expensive or unimportant commands, shed first under load.
+     */
+    LOW,
+    /**
+     * The default priority.
+     */
+    NORMAL,
+    /**
+     * Cheap or important commands, only shed if the queue is full of them.
+     */
+    HIGH
+}
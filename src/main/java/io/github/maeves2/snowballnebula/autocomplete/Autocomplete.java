@@ -0,0 +1,39 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import java.lang.annotation.*;
+
+/**
+ * This annotation is used to create an autocomplete handler for an option of
+ * a slash command. The option needs {@code autocomplete = true}. The annotated
+ * method takes an {@link AutocompleteEvent} and either returns the choices,
+ * as a {@code Collection} of {@code Command.Choice}s, {@code String}s or
+ * numbers, or replies itself using {@link AutocompleteEvent#replyChoices}.
+ * At most {@value AutocompleteEvent#MAX_CHOICES} choices are sent.
+ * <p>
+ * Discord expects an answer within three seconds while the user is typing,
+ * handlers should look up the choices in memory, for example in a
+ * {@link PrefixIndex}.
+ * <pre>{@code
+ * @Autocomplete(command = "item", option = "name")
+ * public static List<String> items(AutocompleteEvent event) {
+ *     return ITEMS.search(event.getValue(), AutocompleteEvent.MAX_CHOICES);
+ * }
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Autocomplete {
+    /**
+     * The path of the command, for example {@code item} or {@code admin members ban}.
+     * @return The path of the command
+     */
+    String command();
+
+    /**
+     * The name of the option.
+     * @return The name of the option
+     */
+    String option();
+}
@@ -0,0 +1,233 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.requests.RestActionImpl;
+import net.dv8tion.jda.internal.requests.Route;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Autocomplete request sent by Discord while a user types into an option
+ * with autocompletion. The JDA version this library is built against has no
+ * event for these requests yet, so they are read from the raw gateway events
+ * (see {@code JDABuilder#setRawEventsEnabled}) and answered using the
+ * interaction callback endpoint. Synthetic requests can be created using the
+ * constructor, for example in tests.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class AutocompleteEvent {
+    /**
+     * Interaction type of autocomplete requests.
+     */
+    public static final int INTERACTION_TYPE = 4;
+    /**
+     * Callback type of autocomplete results.
+     */
+    public static final int CALLBACK_TYPE = 8;
+    /**
+     * Maximum number of choices Discord accepts.
+     */
+    public static final int MAX_CHOICES = 25;
+
+    private final JDA jda;
+    private final long interactionId;
+    private final String token;
+    private final String name;
+    private final String group;
+    private final String subcommand;
+    private final String option;
+    private final OptionType optionType;
+    private final String value;
+    private final Map<String, String> options;
+    private final long userId;
+    private final long guildId;
+
+    /**
+     * @param jda The shard which received the request, {@code null} for synthetic requests
+     * @param interactionId ID of the interaction
+     * @param token Token of the interaction
+     * @param name Name of the command
+     * @param group Name of the subcommand group, {@code null} if none
+     * @param subcommand Name of the subcommand, {@code null} if none
+     * @param option Name of the focused option
+     * @param optionType Type of the focused option
+     * @param value What the user typed into the focused option so far
+     * @param options Values of the other options the user already filled in
+     * @param userId ID of the user
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     */
+    public AutocompleteEvent(JDA jda, long interactionId, String token, String name, String group, String subcommand,
+                             String option, OptionType optionType, String value, Map<String, String> options,
+                             long userId, long guildId) {
+        this.jda = jda;
+        this.interactionId = interactionId;
+        this.token = token;
+        this.name = name;
+        this.group = group;
+        this.subcommand = subcommand;
+        this.option = option;
+        this.optionType = optionType;
+        this.value = value;
+        this.options = Map.copyOf(options);
+        this.userId = userId;
+        this.guildId = guildId;
+    }
+
+    /**
+     * Reads an autocomplete request from the payload of an
+     * {@code INTERACTION_CREATE} gateway event.
+     * @param jda The shard which received the event
+     * @param interaction The payload
+     * @return {@link AutocompleteEvent}, {@code null} if the interaction is no
+     * autocomplete request or has no focused option
+     */
+    public static AutocompleteEvent parse(JDA jda, DataObject interaction) {
+        if (interaction.getInt("type", 0) != INTERACTION_TYPE) return null;
+        var data = interaction.getObject("data");
+        String group = null;
+        String subcommand = null;
+        var options = data.optArray("options").orElseGet(DataArray::empty);
+        // subcommand groups and subcommands wrap the actual options
+        while (options.length() == 1) {
+            var nested = options.getObject(0);
+            var type = OptionType.fromKey(nested.getInt("type"));
+            if (type == OptionType.SUB_COMMAND_GROUP) group = nested.getString("name");
+            else if (type == OptionType.SUB_COMMAND) subcommand = nested.getString("name");
+            else break;
+            options = nested.optArray("options").orElseGet(DataArray::empty);
+        }
+        String focused = null;
+        var focusedType = OptionType.STRING;
+        String value = null;
+        var values = new HashMap<String, String>();
+        for (int i = 0; i < options.length(); i++) {
+            var option = options.getObject(i);
+            var text = option.isNull("value") ? "" : String.valueOf(option.get("value"));
+            if (option.getBoolean("focused")) {
+                focused = option.getString("name");
+                focusedType = OptionType.fromKey(option.getInt("type"));
+                value = text;
+            } else {
+                values.put(option.getString("name"), text);
+            }
+        }
+        if (focused == null) return null;
+        var user = interaction.optObject("member").map(member -> member.getObject("user"))
+                .orElseGet(() -> interaction.getObject("user"));
+        return new AutocompleteEvent(jda, interaction.getUnsignedLong("id"), interaction.getString("token"),
+                data.getString("name"), group, subcommand, focused, focusedType, value, values,
+                user.getUnsignedLong("id"), interaction.getUnsignedLong("guild_id", 0));
+    }
+
+    public JDA getJDA() {
+        return jda;
+    }
+
+    public long getInteractionId() {
+        return interactionId;
+    }
+
+    /**
+     * @return The name of the command
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The name of the subcommand group, {@code null} if none
+     */
+    public String getSubcommandGroup() {
+        return group;
+    }
+
+    /**
+     * @return The name of the subcommand, {@code null} if none
+     */
+    public String getSubcommandName() {
+        return subcommand;
+    }
+
+    /**
+     * @return The name of the focused option
+     */
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * @return The type of the focused option
+     */
+    public OptionType getOptionType() {
+        return optionType;
+    }
+
+    /**
+     * @return What the user typed into the focused option so far
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @param name The name of an option
+     * @return The value of another option the user already filled in, {@code null} if not filled in
+     */
+    public String getOption(String name) {
+        return options.get(name);
+    }
+
+    public long getUserIdLong() {
+        return userId;
+    }
+
+    /**
+     * @return The ID of the guild, {@code 0} in direct messages
+     */
+    public long getGuildIdLong() {
+        return guildId;
+    }
+
+    /**
+     * Answers the request. Only the first {@value #MAX_CHOICES} choices are sent.
+     * @param choices The choices, their values have to match the type of the option
+     * @return {@link RestAction}
+     */
+    public RestAction<Void> replyChoices(Collection<Command.Choice> choices) {
+        var route = Route.Interactions.CALLBACK.compile(Long.toUnsignedString(interactionId), token);
+        return new RestActionImpl<>(jda, route, toData(choices));
+    }
+
+    /**
+     * @return The body of the callback answering the request
+     */
+    public DataObject toData(Collection<Command.Choice> choices) {
+        var array = DataArray.empty();
+        for (var choice : choices) {
+            if (array.length() == MAX_CHOICES) break;
+            var data = DataObject.empty().put("name", choice.getName());
+            switch (optionType) {
+                case INTEGER -> data.put("value", choice.getAsLong());
+                case NUMBER -> data.put("value", choice.getAsDouble());
+                default -> data.put("value", choice.getAsString());
+            }
+            array.add(data);
+        }
+        return DataObject.empty().put("type", CALLBACK_TYPE)
+                .put("data", DataObject.empty().put("choices", array));
+    }
+
+    @Override
+    public String toString() {
+        return "AutocompleteEvent{command=" + name + (group == null ? "" : " " + group)
+                + (subcommand == null ? "" : " " + subcommand) + ", option=" + option + ", value=" + value + "}";
+    }
+}
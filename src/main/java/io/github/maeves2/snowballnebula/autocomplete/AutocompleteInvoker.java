@@ -0,0 +1,22 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import io.github.maeves2.snowballnebula.util.Invokers;
+
+/**
+ * Compiled entry point of a method annotated with {@link Autocomplete},
+ * destined for internal use. Created once by {@link Invokers#forAutocomplete}
+ * when the handler is registered.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@FunctionalInterface
+public interface AutocompleteInvoker {
+    /**
+     * Invokes the autocomplete handler.
+     * @param instance The instance the method is invoked on, ignored for static methods
+     * @param event The autocomplete request
+     * @return The value returned by the handler method, {@code null} for {@code void} methods
+     * @throws Throwable Anything thrown by the handler method
+     */
+    Object invoke(Object instance, AutocompleteEvent event) throws Throwable;
+}
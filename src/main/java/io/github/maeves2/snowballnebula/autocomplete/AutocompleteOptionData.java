@@ -0,0 +1,23 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * Option data of an option with autocompletion. The JDA version this library
+ * is built against cannot mark options as autocompleted yet, so this class
+ * adds the flag when the option is serialized.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class AutocompleteOptionData extends OptionData {
+    public AutocompleteOptionData(OptionType type, String name, String description, boolean required) {
+        super(type, name, description, required);
+    }
+
+    @Override
+    public DataObject toData() {
+        return super.toData().put("autocomplete", true);
+    }
+}
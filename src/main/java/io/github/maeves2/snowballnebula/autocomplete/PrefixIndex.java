@@ -0,0 +1,345 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Case-insensitive prefix index of strings, for example item names or tags,
+ * meant to answer {@link Autocomplete} requests. Every value has a weight,
+ * searches return the matching values with the highest weights, values with
+ * equal weights in alphabetical order.
+ * <p>
+ * The values are kept in one sorted array, so the matches of a prefix are a
+ * contiguous range found by two binary searches. A segment tree over the
+ * weights finds the heaviest value of any range in {@code O(log n)}, so the
+ * top {@code N} matches are found in {@code O(N log n)} even if the prefix
+ * matches every value. {@link #search(String, String[])} allocates nothing.
+ * <p>
+ * Searches are lock-free and read an immutable snapshot. Updates are
+ * serialized, they merge the changed values into a new snapshot in linear
+ * time without sorting the index again, so batching updates using
+ * {@link #putAll(Map)} and {@link #removeAll(Collection)} is cheaper than
+ * changing values one by one.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class PrefixIndex {
+    /**
+     * Order of the values: case-insensitive, values which only differ in case
+     * are ordered by their natural order.
+     */
+    private static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+    private static final Snapshot EMPTY = new Snapshot(new String[0], new long[0]);
+    /**
+     * Search ranges of {@link #search(String, String[])}, three ints per range.
+     */
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[3 * 32]);
+
+    private volatile Snapshot snapshot = EMPTY;
+
+    public PrefixIndex() {
+    }
+
+    /**
+     * @param values The values of the index, all with weight {@code 0}
+     */
+    public PrefixIndex(Collection<String> values) {
+        addAll(values);
+    }
+
+    /**
+     * Adds a value with weight {@code 0}, or keeps the weight if it exists.
+     * @param value The value
+     */
+    public synchronized void add(String value) {
+        if (!contains(value)) put(value, 0);
+    }
+
+    /**
+     * Adds values with weight {@code 0}, existing values keep their weight.
+     * @param values The values
+     */
+    public synchronized void addAll(Collection<String> values) {
+        var current = snapshot;
+        var added = new ArrayList<String>(values.size());
+        for (var value : values) if (current.indexOf(value) < 0) added.add(value);
+        var weights = new long[added.size()];
+        update(added, weights, Set.of());
+    }
+
+    /**
+     * Adds a value or changes its weight.
+     * @param value The value
+     * @param weight The weight, higher weights are returned first
+     */
+    public synchronized void put(String value, long weight) {
+        update(List.of(value), new long[] {weight}, Set.of());
+    }
+
+    /**
+     * Adds values or changes their weights.
+     * @param values The values and their weights
+     */
+    public synchronized void putAll(Map<String, Long> values) {
+        var added = new ArrayList<String>(values.size());
+        var weights = new long[values.size()];
+        for (var entry : values.entrySet()) {
+            weights[added.size()] = entry.getValue();
+            added.add(entry.getKey());
+        }
+        update(added, weights, Set.of());
+    }
+
+    /**
+     * @param value The value to remove
+     * @return Whether the value was in the index
+     */
+    public synchronized boolean remove(String value) {
+        if (!contains(value)) return false;
+        update(List.of(), new long[0], Set.of(value));
+        return true;
+    }
+
+    /**
+     * @param values The values to remove
+     */
+    public synchronized void removeAll(Collection<String> values) {
+        update(List.of(), new long[0], Set.copyOf(values));
+    }
+
+    public boolean contains(String value) {
+        return snapshot.indexOf(value) >= 0;
+    }
+
+    public int size() {
+        return snapshot.values.length;
+    }
+
+    /**
+     * Finds the values starting with a prefix, ignoring case.
+     * @param prefix The prefix, usually the text the user typed
+     * @param results Receives the matches with the highest weights, at most
+     *        as many as it is long
+     * @return The number of matches written to {@code results}
+     */
+    public int search(String prefix, String[] results) {
+        var snapshot = this.snapshot;
+        var values = snapshot.values;
+        var lo = snapshot.lowerBound(prefix);
+        var hi = snapshot.upperBound(prefix, lo);
+        var limit = results.length;
+        if (lo == hi || limit == 0) return 0;
+        if (snapshot.uniform) {
+            var count = Math.min(limit, hi - lo);
+            System.arraycopy(values, lo, results, 0, count);
+            return count;
+        }
+        var ranges = SCRATCH.get();
+        if (ranges.length < 3 * (limit + 1)) {
+            ranges = new int[3 * (limit + 1)];
+            SCRATCH.set(ranges);
+        }
+        // every range holds its bounds and the index of its heaviest value,
+        // taking a value splits its range in two
+        ranges[0] = lo;
+        ranges[1] = hi;
+        ranges[2] = snapshot.heaviest(lo, hi);
+        var count = 1;
+        var found = 0;
+        while (found < limit && count > 0) {
+            var best = 0;
+            for (int i = 1; i < count; i++)
+                if (snapshot.heavier(ranges[3 * i + 2], ranges[3 * best + 2]) == ranges[3 * i + 2]) best = i;
+            var start = ranges[3 * best];
+            var end = ranges[3 * best + 1];
+            var taken = ranges[3 * best + 2];
+            results[found++] = values[taken];
+            if (start < taken) {
+                ranges[3 * best + 1] = taken;
+                ranges[3 * best + 2] = snapshot.heaviest(start, taken);
+            } else {
+                count--;
+                System.arraycopy(ranges, 3 * count, ranges, 3 * best, 3);
+            }
+            if (taken + 1 < end) {
+                ranges[3 * count] = taken + 1;
+                ranges[3 * count + 1] = end;
+                ranges[3 * count + 2] = snapshot.heaviest(taken + 1, end);
+                count++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the values starting with a prefix, ignoring case.
+     * @param prefix The prefix, usually the text the user typed
+     * @param limit The maximum number of matches
+     * @return The matches with the highest weights
+     */
+    public List<String> search(String prefix, int limit) {
+        var results = new String[limit];
+        var count = search(prefix, results);
+        return List.of(Arrays.copyOf(results, count));
+    }
+
+    /**
+     * Merges the sorted, changed values into the current snapshot.
+     */
+    private void update(List<String> added, long[] weights, Set<String> removed) {
+        var order = new Integer[added.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> ORDER.compare(added.get(a), added.get(b)));
+        var current = snapshot;
+        var values = new String[current.values.length + order.length];
+        var newWeights = new long[values.length];
+        var size = 0;
+        int i = 0, j = 0;
+        while (i < current.values.length || j < order.length) {
+            int c;
+            if (j == order.length) c = -1;
+            else if (i == current.values.length) c = 1;
+            else c = ORDER.compare(current.values[i], added.get(order[j]));
+            String value;
+            long weight;
+            if (c < 0) {
+                value = current.values[i];
+                weight = current.weights[i++];
+            } else {
+                // later duplicates in the batch win
+                while (j + 1 < order.length && added.get(order[j]).equals(added.get(order[j + 1]))) j++;
+                value = added.get(order[j]);
+                weight = weights[order[j++]];
+                if (c == 0) i++;
+            }
+            if (removed.contains(value)) continue;
+            values[size] = value;
+            newWeights[size++] = weight;
+        }
+        if (size < values.length) {
+            values = Arrays.copyOf(values, size);
+            newWeights = Arrays.copyOf(newWeights, size);
+        }
+        snapshot = new Snapshot(values, newWeights);
+    }
+
+    /**
+     * Compares the start of a value with a prefix, ignoring case the same
+     * way {@link String#CASE_INSENSITIVE_ORDER} does.
+     * @return {@code 0} if the value starts with the prefix, otherwise whether
+     * the value is ordered before or after the values starting with it
+     */
+    private static int comparePrefix(String value, String prefix) {
+        var length = Math.min(value.length(), prefix.length());
+        for (int i = 0; i < length; i++) {
+            var a = value.charAt(i);
+            var b = prefix.charAt(i);
+            if (a == b) continue;
+            a = Character.toUpperCase(a);
+            b = Character.toUpperCase(b);
+            if (a == b) continue;
+            a = Character.toLowerCase(a);
+            b = Character.toLowerCase(b);
+            if (a != b) return a - b;
+        }
+        return value.length() >= prefix.length() ? 0 : -1;
+    }
+
+    private static final class Snapshot {
+        private final String[] values;
+        private final long[] weights;
+        /**
+         * Iterative segment tree: leaves are at {@code n + i}, every node holds
+         * the index of the heaviest value below it.
+         */
+        private final int[] tree;
+        /**
+         * Whether all weights are equal, searches then simply take the first
+         * matches.
+         */
+        private final boolean uniform;
+
+        private Snapshot(String[] values, long[] weights) {
+            this.values = values;
+            this.weights = weights;
+            var n = values.length;
+            var uniform = true;
+            for (int i = 1; i < n && uniform; i++) uniform = weights[i] == weights[0];
+            this.uniform = uniform;
+            this.tree = uniform ? null : new int[2 * n];
+            if (uniform) return;
+            for (int i = 0; i < n; i++) tree[n + i] = i;
+            for (int i = n - 1; i > 0; i--) tree[i] = heavier(tree[2 * i], tree[2 * i + 1]);
+        }
+
+        private int indexOf(String value) {
+            int lo = 0, hi = values.length - 1;
+            while (lo <= hi) {
+                var mid = (lo + hi) >>> 1;
+                var c = ORDER.compare(values[mid], value);
+                if (c < 0) lo = mid + 1;
+                else if (c > 0) hi = mid - 1;
+                else return mid;
+            }
+            return -1;
+        }
+
+        /**
+         * @return The index of the first value not ordered before the values
+         * starting with the prefix
+         */
+        private int lowerBound(String prefix) {
+            int lo = 0, hi = values.length;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (comparePrefix(values[mid], prefix) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * @return The index of the first value ordered after the values
+         * starting with the prefix
+         */
+        private int upperBound(String prefix, int from) {
+            int lo = from, hi = values.length;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (comparePrefix(values[mid], prefix) <= 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * @return The index of the heaviest value in {@code [from, to)}
+         */
+        private int heaviest(int from, int to) {
+            var n = values.length;
+            var best = -1;
+            for (int lo = from + n, hi = to + n; lo < hi; lo >>= 1, hi >>= 1) {
+                if ((lo & 1) == 1) best = heavier(best, tree[lo++]);
+                if ((hi & 1) == 1) best = heavier(best, tree[--hi]);
+            }
+            return best;
+        }
+
+        /**
+         * @return The index of the heavier value, the lower index if both
+         * weigh the same, ignoring {@code -1}
+         */
+        private int heavier(int a, int b) {
+            if (a < 0) return b;
+            if (b < 0) return a;
+            if (weights[a] != weights[b]) return weights[a] > weights[b] ? a : b;
+            return Math.min(a, b);
+        }
+    }
+}
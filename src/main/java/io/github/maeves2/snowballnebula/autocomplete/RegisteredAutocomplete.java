@@ -0,0 +1,103 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import io.github.maeves2.snowballnebula.scope.InstanceProvider;
+import io.github.maeves2.snowballnebula.util.Invokers;
+
+import java.lang.reflect.Method;
+
+/**
+ * An autocomplete handler, created from a method annotated with {@link Autocomplete}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class RegisteredAutocomplete {
+    /**
+     * Path of the command.
+     */
+    private final String command;
+
+    /**
+     * Name of the completed option.
+     */
+    private final String option;
+
+    /**
+     * Instance of mapped object.
+     */
+    private final Object instance;
+
+    /**
+     * Provides the instances a non-static handler method is invoked on,
+     * {@code null} for static methods.
+     */
+    private final InstanceProvider provider;
+
+    /**
+     * The handler method, {@code null} for generated registries.
+     */
+    private final Method method;
+
+    /**
+     * Compiled invoker of {@code method}.
+     */
+    private final AutocompleteInvoker invoker;
+
+    public RegisteredAutocomplete(String command, String option, Object instance, Method method) {
+        this(command, option, instance, method, Invokers.forAutocomplete(method));
+    }
+
+    /**
+     * The constructor of this class, with an already compiled invoker.
+     */
+    public RegisteredAutocomplete(String command, String option, Object instance, Method method,
+                                  AutocompleteInvoker invoker) {
+        this(command, option, instance, null, method, invoker);
+    }
+
+    /**
+     * The constructor of this class, for handlers which may be non-static.
+     */
+    public RegisteredAutocomplete(String command, String option, Object instance, InstanceProvider provider,
+                                  Method method, AutocompleteInvoker invoker) {
+        this.command = command;
+        this.option = option;
+        this.instance = instance;
+        this.provider = provider;
+        this.method = method;
+        this.invoker = invoker;
+    }
+
+    /**
+     * @return The path of the command
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * @return The name of the completed option
+     */
+    public String getOption() {
+        return option;
+    }
+
+    public Object getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return The provider of the instances the handler is invoked on,
+     * {@code null} if the handler is static
+     */
+    public InstanceProvider getProvider() {
+        return provider;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public AutocompleteInvoker getInvoker() {
+        return invoker;
+    }
+}
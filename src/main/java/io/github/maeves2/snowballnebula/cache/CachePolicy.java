@@ -0,0 +1,62 @@
+package io.github.maeves2.snowballnebula.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the results of a command are cached. Created from {@link Cached}
+ * annotations or by generated registries.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CachePolicy {
+    /**
+     * Default value of {@link Cached#maxSize()}.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final CacheScope scope;
+    private final long ttl;
+    private final TimeUnit unit;
+    private final int maxSize;
+
+    /**
+     * @param scope Who shares the results
+     * @param ttl How long a result is reused
+     * @param unit Unit of the time to live
+     * @param maxSize Maximum number of cached results
+     */
+    public CachePolicy(CacheScope scope, long ttl, TimeUnit unit, int maxSize) {
+        if (ttl < 1) throw new IllegalArgumentException("The time to live of a cache must be positive");
+        if (maxSize < 1) throw new IllegalArgumentException("A cache must hold at least one result");
+        this.scope = scope;
+        this.ttl = ttl;
+        this.unit = unit;
+        this.maxSize = maxSize;
+    }
+
+    public CacheScope getScope() {
+        return scope;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public TimeUnit getUnit() {
+        return unit;
+    }
+
+    public long getTtlNanos() {
+        return unit.toNanos(ttl);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CachePolicy{" + ttl + " " + unit.name().toLowerCase() + " per "
+                + scope.name().toLowerCase() + ", maxSize=" + maxSize + "}";
+    }
+}
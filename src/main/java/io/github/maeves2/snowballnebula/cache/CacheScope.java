@@ -0,0 +1,22 @@
+package io.github.maeves2.snowballnebula.cache;
+
+/**
+ * Who shares the cached results of a command.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public enum CacheScope {
+    /**
+     * Every user has their own results.
+     */
+    USER,
+    /**
+     * Every guild has its own results, shared by all its members. Direct
+     * messages share one set of results.
+     */
+    GUILD,
+    /**
+     * Results are shared by everyone.
+     */
+    GLOBAL
+}
@@ -0,0 +1,77 @@
+package io.github.maeves2.snowballnebula.cache;
+
+/**
+ * Immutable copy of the statistics of one {@link ResultCache}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long coalesced;
+    private final long evictions;
+    private final int size;
+    private final long estimatedBytes;
+
+    public CacheStats(long hits, long misses, long coalesced, long evictions, int size, long estimatedBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+        this.evictions = evictions;
+        this.size = size;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The fraction of lookups answered from the cache, {@code 0} if
+     * there were none
+     */
+    public double getHitRate() {
+        var total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return The number of misses which shared the result of an identical
+     * execution instead of executing the command
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return The number of results evicted because the cache was full
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of cached results, including expired ones which
+     * were not removed yet
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return A rough estimate of the heap used by the cached results
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hits + ", misses=" + misses + ", coalesced=" + coalesced
+                + ", evictions=" + evictions + ", size=" + size + ", estimatedBytes=" + estimatedBytes + "}";
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.maeves2.snowballnebula.cache;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.SlashCommand;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the results of a method annotated with {@link SlashCommand}. The
+ * method has to return a {@link net.dv8tion.jda.api.entities.MessageEmbed},
+ * a {@link net.dv8tion.jda.api.entities.Message} or a {@link String} instead
+ * of replying itself, the framework replies with the returned value. Results
+ * are cached by {@link #scope()} and option values, so executions with the
+ * same options are answered from the cache until the result is {@link #ttl()}
+ * old, and identical executions running at the same time share one result.
+ * Returning {@code null} replies nothing and caches nothing.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * @Cached(ttl = 30, scope = CacheScope.GUILD)
+ * @SlashCommand(name = "leaderboard", desc = "Show the leaderboard", options = {})
+ * public MessageEmbed leaderboard(SlashCommandEvent event) {
+ *     return buildLeaderboard(event.getGuild());
+ * }
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ * @see SnowballNebula#invalidateCache(String)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+    /**
+     * How long a result is reused, in {@link #unit()}.
+     * @return The time to live of a result
+     */
+    long ttl();
+
+    /**
+     * The unit of {@link #ttl()}, defaults to seconds.
+     * @return The unit of the time to live
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Who shares the results, defaults to {@code CacheScope.USER}.
+     * @return The scope of the cache
+     */
+    CacheScope scope() default CacheScope.USER;
+
+    /**
+     * The maximum number of cached results of the command, defaults to
+     * {@code 1024}. Least recently used results are evicted first.
+     * @return The maximum number of results
+     */
+    int maxSize() default CachePolicy.DEFAULT_MAX_SIZE;
+}
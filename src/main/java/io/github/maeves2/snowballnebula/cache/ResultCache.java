@@ -0,0 +1,282 @@
+package io.github.maeves2.snowballnebula.cache;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cached results of one command, destined for internal use. Results are
+ * keyed by the scope ID (user, guild or nothing) and the option values of
+ * the execution, normalized so that the order and spelling of the options
+ * do not matter.
+ * <p>
+ * Lookups are lock-free. Eviction uses the CLOCK algorithm, an approximation
+ * of LRU: every result sits in a queue and is marked when it is read. When
+ * the cache is full, results are taken from the head of the queue, marked
+ * ones are unmarked and put back at the tail, the first unmarked or expired
+ * one is evicted. Identical executions running at the same time are
+ * coalesced, only the first one executes the command and the others share
+ * its result, unless it is {@code null}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ResultCache {
+    /**
+     * Estimated heap used by a cache entry besides its key and value: the
+     * entry, its map node and its queue node.
+     */
+    private static final int ENTRY_OVERHEAD = 112;
+    private static final char SEPARATOR = '\u0000';
+
+    private final CachePolicy policy;
+    private final long ttl;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    /**
+     * CLOCK queue. May contain entries which were already removed from
+     * {@code entries}, they are skipped and its length is bounded by
+     * {@code queued}.
+     */
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    /**
+     * Incremented by every invalidation, results of executions which started
+     * before an invalidation are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResultCache(CachePolicy policy) {
+        this.policy = policy;
+        this.ttl = policy.getTtlNanos();
+    }
+
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Computes the cache key of an execution.
+     * @param event The event of the execution
+     * @return The key
+     */
+    public String key(SlashCommandEvent event) {
+        var key = new StringBuilder().append(scopeId(event)).append(SEPARATOR);
+        var options = event.getOptions();
+        if (options.size() > 1) {
+            options = new ArrayList<>(options);
+            options.sort(Comparator.comparing(OptionMapping::getName));
+        }
+        for (var option : options) {
+            key.append(option.getName()).append('=');
+            switch (option.getType()) {
+                case INTEGER -> key.append(option.getAsLong());
+                case NUMBER -> key.append(option.getAsDouble());
+                case BOOLEAN -> key.append(option.getAsBoolean());
+                case STRING -> key.append(option.getAsString().strip());
+                default -> key.append(option.getAsString());
+            }
+            key.append(SEPARATOR);
+        }
+        return key.toString();
+    }
+
+    private long scopeId(SlashCommandEvent event) {
+        return switch (policy.getScope()) {
+            case USER -> event.getUser().getIdLong();
+            case GUILD -> event.getGuild() == null ? 0 : event.getGuild().getIdLong();
+            case GLOBAL -> 0;
+        };
+    }
+
+    /**
+     * Looks up a result and counts a hit or a miss.
+     * @param key The key of the execution
+     * @return The cached result, {@code null} if there is none
+     */
+    public Object getIfPresent(String key) {
+        var value = lookup(key);
+        if (value != null) hits.increment();
+        else misses.increment();
+        return value;
+    }
+
+    private Object lookup(String key) {
+        var entry = entries.get(key);
+        if (entry == null) return null;
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            remove(entry);
+            return null;
+        }
+        if (!entry.referenced) entry.referenced = true;
+        return entry.value;
+    }
+
+    /**
+     * Executes a command unless an identical execution is already running,
+     * in which case the returned future completes with its result. Results
+     * which are not {@code null} are cached. A {@code null} result is not
+     * shared: the command did not return a reply, so every execution waiting
+     * for it runs its own loader once it completed, on the thread which
+     * completed it.
+     * @param key The key of the execution
+     * @param loader Executes the command, called on the current thread
+     * @return A future of the result, already completed if the command was
+     * executed by this call
+     */
+    public CompletableFuture<Object> compute(String key, Loader loader) {
+        var execution = new CompletableFuture<Object>();
+        var pending = inFlight.putIfAbsent(key, execution);
+        if (pending != null) {
+            coalesced.increment();
+            return pending.thenCompose(value -> value != null ? pending : compute(key, loader));
+        }
+        Object value = null;
+        Throwable failure = null;
+        try {
+            value = lookup(key);
+            if (value == null) {
+                var start = generation.get();
+                value = loader.load();
+                if (value != null && generation.get() == start) put(key, value);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            // removed before completing, so that waiting executions which run
+            // their own loader do not coalesce with this finished one
+            inFlight.remove(key, execution);
+        }
+        if (failure != null) execution.completeExceptionally(failure);
+        else execution.complete(value);
+        return execution;
+    }
+
+    private void put(String key, Object value) {
+        var entry = new Entry(key, value, System.nanoTime() + ttl, estimateBytes(key, value));
+        var previous = entries.put(key, entry);
+        if (previous != null) bytes.add(-previous.bytes);
+        bytes.add(entry.bytes);
+        clock.offer(entry);
+        queued.incrementAndGet();
+        evict();
+    }
+
+    /**
+     * Runs the CLOCK hand until the cache and its queue are small enough.
+     */
+    private void evict() {
+        var maxSize = policy.getMaxSize();
+        while (true) {
+            var full = entries.size() > maxSize;
+            if (!full && queued.get() <= 2 * maxSize) return;
+            var entry = clock.poll();
+            if (entry == null) return;
+            queued.decrementAndGet();
+            if (entries.get(entry.key) != entry) continue;
+            if (!full || entry.referenced && System.nanoTime() - entry.expiresAt < 0) {
+                if (full) entry.referenced = false;
+                clock.offer(entry);
+                queued.incrementAndGet();
+            } else if (remove(entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(Entry entry) {
+        if (!entries.remove(entry.key, entry)) return false;
+        bytes.add(-entry.bytes);
+        return true;
+    }
+
+    /**
+     * Removes all results. Executions which are running keep their result
+     * to themselves.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (var entry : entries.values()) remove(entry);
+    }
+
+    /**
+     * Removes the results of one user or guild, depending on the scope of
+     * the cache.
+     * @param scopeId ID of the user or guild, ignored for global caches
+     */
+    public void invalidate(long scopeId) {
+        if (policy.getScope() == CacheScope.GLOBAL) scopeId = 0;
+        generation.incrementAndGet();
+        var prefix = Long.toString(scopeId) + SEPARATOR;
+        for (var entry : entries.values())
+            if (entry.key.startsWith(prefix)) remove(entry);
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(),
+                entries.size(), bytes.sum());
+    }
+
+    /**
+     * @param type The return type of a command method
+     * @return Whether results of this type can be cached
+     */
+    public static boolean isCacheable(Class<?> type) {
+        return MessageEmbed.class.isAssignableFrom(type) || Message.class.isAssignableFrom(type)
+                || CharSequence.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Roughly estimates the heap used by a cache entry, strings are assumed
+     * to be Latin-1.
+     */
+    private static int estimateBytes(String key, Object value) {
+        var size = ENTRY_OVERHEAD + 40 + key.length();
+        if (value instanceof MessageEmbed embed) {
+            size += 256 + embed.getLength();
+        } else if (value instanceof Message message) {
+            size += 256 + message.getContentRaw().length();
+            for (var embed : message.getEmbeds()) size += 256 + embed.getLength();
+        } else if (value instanceof CharSequence text) {
+            size += 40 + text.length();
+        }
+        return size;
+    }
+
+    /**
+     * Executes a command for {@link #compute(String, Loader)}.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final Object value;
+        private final long expiresAt;
+        private final int bytes;
+        private volatile boolean referenced;
+
+        private Entry(String key, Object value, long expiresAt, int bytes) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+}
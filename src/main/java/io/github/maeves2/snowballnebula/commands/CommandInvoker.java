@@ -0,0 +1,25 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import io.github.maeves2.snowballnebula.util.Invokers;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
+/**
+ * Compiled entry point of a method annotated with {@link SlashCommand}, destined
+ * for internal use. Invokers are created once by {@link Invokers#forCommand}
+ * when a command is registered, so executing a command does not go through
+ * {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@FunctionalInterface
+public interface CommandInvoker {
+    /**
+     * Invokes the command method. Exceptions thrown by the command method are
+     * thrown as-is, they are not wrapped.
+     * @param instance The instance the method is invoked on, ignored for static methods
+     * @param event The event which triggered the command
+     * @return The value returned by the command method, {@code null} for {@code void} methods
+     * @throws Throwable Anything thrown by the command method
+     */
+    Object invoke(Object instance, SlashCommandEvent event) throws Throwable;
+}
@@ -0,0 +1,358 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.autocomplete.RegisteredAutocomplete;
+import io.github.maeves2.snowballnebula.exception.ExceptionRouter;
+import io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandGroupData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the registered commands, exception handlers and
+ * autocomplete handlers, destined for internal use. {@link SnowballNebula} holds the current
+ * snapshot in a single volatile field, so dispatching a command reads it
+ * without taking any lock. Registering or removing commands builds a new
+ * snapshot, including a new {@link ExceptionRouter} if the handlers changed,
+ * and publishes it at once.
+ * <p>
+ * Commands are keyed by their {@link RegisteredCommand#getPath() path}. When a
+ * snapshot is created, every path including aliases is flattened into a
+ * {@link RoutingTable} and the commands are arranged into a tree of top-level
+ * commands, subcommand groups and subcommands. The command data sent to
+ * Discord is only assembled from that tree when it is first needed, so
+ * registering commands builds no JDA objects.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandRegistry {
+    /**
+     * Snapshot without commands and exception handlers.
+     */
+    public static final CommandRegistry EMPTY =
+            new CommandRegistry(new LinkedHashMap<>(), List.of(), new ExceptionRouter(List.of()), List.of());
+
+    private final Map<String, RegisteredCommand> commands;
+    private final List<RegisteredExceptionHandler> handlers;
+    private final ExceptionRouter router;
+    private final List<RegisteredAutocomplete> completers;
+    /**
+     * Autocomplete handlers by command and option name. Keyed by identity, so
+     * finding the handler of a request builds no string.
+     */
+    private final Map<RegisteredCommand, Map<String, RegisteredAutocomplete>> completersByCommand;
+    private final RoutingTable routes;
+    /**
+     * Name of the command every alias belongs to
+     */
+    private final Map<String, String> primaryNames;
+    private final Map<String, Node> tree;
+    /**
+     * Command data assembled from {@code tree}, {@code null} until first used
+     */
+    private volatile List<CommandData> data;
+
+    /**
+     * @throws IllegalArgumentException If a top-level command also has
+     *         subcommands, or if an alias is taken by another command
+     */
+    private CommandRegistry(LinkedHashMap<String, RegisteredCommand> commands,
+                            List<RegisteredExceptionHandler> handlers, ExceptionRouter router,
+                            List<RegisteredAutocomplete> completers) {
+        this.commands = Collections.unmodifiableMap(commands);
+        this.handlers = handlers;
+        this.router = router;
+        this.completers = completers;
+        this.completersByCommand = new IdentityHashMap<>();
+        for (var completer : completers) {
+            var command = commands.get(completer.getCommand());
+            if (command != null)
+                completersByCommand.computeIfAbsent(command, e -> new HashMap<>()).putIfAbsent(completer.getOption(), completer);
+        }
+        var count = 0;
+        for (var command : commands.values()) count += 1 + command.getAliases().size();
+        this.routes = new RoutingTable(count);
+        for (var command : commands.values())
+            routes.add(command.getName(), command.getGroup(), command.getSubcommand(), command);
+        this.primaryNames = new HashMap<>();
+        for (var command : commands.values()) {
+            for (var alias : command.getAliases()) {
+                if (!routes.add(alias, command.getGroup(), command.getSubcommand(), command))
+                    throw new IllegalArgumentException("Alias " + alias + " of /" + command.getPath()
+                            + " is already taken by another command");
+                primaryNames.putIfAbsent(alias, command.getName());
+            }
+        }
+        this.tree = arrange(commands.values());
+    }
+
+    /**
+     * @param path Path of the command, for example {@code ping} or {@code admin ban}
+     * @return The command, {@code null} if there is none with this path
+     */
+    public RegisteredCommand get(String path) {
+        return commands.get(path);
+    }
+
+    /**
+     * Resolves the command of an event, using the names returned by
+     * {@code SlashCommandEvent#getName()}, {@code getSubcommandGroup()} and
+     * {@code getSubcommandName()}. Aliases are resolved as well.
+     * @param name Name of the top-level command
+     * @param group Name of the subcommand group, {@code null} if none
+     * @param subcommand Name of the subcommand, {@code null} if none
+     * @return The command, {@code null} if there is none
+     */
+    public RegisteredCommand resolve(String name, String group, String subcommand) {
+        return routes.resolve(name, group, subcommand);
+    }
+
+    /**
+     * @param name A top-level name shown in Discord
+     * @return The name of the command an alias belongs to, {@code name}
+     *         itself if it is no alias
+     */
+    public String primaryName(String name) {
+        return primaryNames.getOrDefault(name, name);
+    }
+
+    /**
+     * @param command The command of an autocomplete request
+     * @param option The name of the focused option
+     * @return The autocomplete handler, {@code null} if there is none
+     */
+    public RegisteredAutocomplete completer(RegisteredCommand command, String option) {
+        var options = completersByCommand.get(command);
+        return options == null ? null : options.get(option);
+    }
+
+    /**
+     * @return All autocomplete handlers, in registration order
+     */
+    public List<RegisteredAutocomplete> getCompleters() {
+        return completers;
+    }
+
+    /**
+     * @return The data of all top-level commands including their aliases,
+     * subcommands and subcommand groups, ready to be sent to Discord
+     */
+    public List<CommandData> getData() {
+        var data = this.data;
+        if (data == null) {
+            data = assemble(tree);
+            this.data = data;
+        }
+        return data;
+    }
+
+    /**
+     * @return All commands and subcommands, in registration order
+     */
+    public Collection<RegisteredCommand> getCommands() {
+        return commands.values();
+    }
+
+    /**
+     * @return All exception handlers, in registration order
+     */
+    public List<RegisteredExceptionHandler> getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * @return The routing table of the exception handlers
+     */
+    public ExceptionRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Adds commands and exception handlers.
+     * @param added The commands to add
+     * @param addedHandlers The exception handlers to add
+     * @param replace Whether commands replace registered commands with the same
+     *        path, otherwise adding a registered path fails
+     * @return The new snapshot, or this one if nothing changed
+     * @throws IllegalArgumentException If a path is added twice, or is
+     *         already registered and {@code replace} is {@code false}
+     */
+    public CommandRegistry with(Collection<RegisteredCommand> added,
+                                Collection<RegisteredExceptionHandler> addedHandlers, boolean replace) {
+        return with(added, addedHandlers, List.of(), replace);
+    }
+
+    /**
+     * Adds commands, exception handlers and autocomplete handlers.
+     * @param added The commands to add
+     * @param addedHandlers The exception handlers to add
+     * @param addedCompleters The autocomplete handlers to add
+     * @param replace Whether commands and autocomplete handlers replace
+     *        registered ones with the same path, otherwise adding a
+     *        registered command path fails and the registered autocomplete
+     *        handler is kept
+     * @return The new snapshot, or this one if nothing changed
+     * @throws IllegalArgumentException If a path is added twice, or is
+     *         already registered and {@code replace} is {@code false}
+     */
+    public CommandRegistry with(Collection<RegisteredCommand> added, Collection<RegisteredExceptionHandler> addedHandlers,
+                                Collection<RegisteredAutocomplete> addedCompleters, boolean replace) {
+        if (added.isEmpty() && addedHandlers.isEmpty() && addedCompleters.isEmpty()) return this;
+        var newCommands = new LinkedHashMap<>(commands);
+        var paths = new HashMap<String, RegisteredCommand>();
+        for (var command : added) {
+            var path = command.getPath();
+            var twice = paths.put(path, command);
+            if (twice != null) throw duplicate(path, twice, command);
+            var registered = newCommands.put(path, command);
+            if (registered != null && !replace) throw duplicate(path, registered, command);
+        }
+        var newCompleters = completers;
+        if (!addedCompleters.isEmpty()) {
+            var list = new ArrayList<RegisteredAutocomplete>();
+            if (replace) {
+                list.addAll(addedCompleters);
+                list.addAll(completers);
+            } else {
+                list.addAll(completers);
+                list.addAll(addedCompleters);
+            }
+            newCompleters = List.copyOf(list);
+        }
+        if (addedHandlers.isEmpty())
+            return new CommandRegistry(newCommands, handlers, router, newCompleters);
+        var newHandlers = new ArrayList<>(handlers);
+        newHandlers.addAll(addedHandlers);
+        return new CommandRegistry(newCommands, List.copyOf(newHandlers), new ExceptionRouter(newHandlers), newCompleters);
+    }
+
+    /**
+     * Removes commands by path. The name of a top-level command removes all
+     * its subcommands as well.
+     * @param paths The paths of the commands to remove
+     * @return The new snapshot, or this one if nothing changed
+     */
+    public CommandRegistry withoutCommands(Set<String> paths) {
+        var newCommands = new LinkedHashMap<>(commands);
+        newCommands.values().removeIf(command -> paths.contains(command.getPath()) || paths.contains(command.getName()));
+        if (newCommands.size() == commands.size()) return this;
+        return new CommandRegistry(newCommands, handlers, router, completers);
+    }
+
+    /**
+     * Removes the commands, exception handlers and autocomplete handlers
+     * declared by some classes.
+     * Classes are compared by name, so classes reloaded by another class
+     * loader match as well.
+     * @param classNames The names of the classes
+     * @return The new snapshot, or this one if nothing changed
+     */
+    public CommandRegistry withoutClasses(Set<String> classNames) {
+        var newCommands = new LinkedHashMap<>(commands);
+        newCommands.values().removeIf(command -> classNames.contains(className(command.getInstance())));
+        var newHandlers = new ArrayList<>(handlers);
+        newHandlers.removeIf(handler -> classNames.contains(className(handler.getInstance())));
+        var newCompleters = new ArrayList<>(completers);
+        newCompleters.removeIf(completer -> classNames.contains(className(completer.getInstance())));
+        if (newCommands.size() == commands.size() && newHandlers.size() == handlers.size()
+                && newCompleters.size() == completers.size()) return this;
+        if (newHandlers.size() == handlers.size())
+            return new CommandRegistry(newCommands, handlers, router, List.copyOf(newCompleters));
+        return new CommandRegistry(newCommands, List.copyOf(newHandlers), new ExceptionRouter(newHandlers),
+                List.copyOf(newCompleters));
+    }
+
+    static IllegalArgumentException duplicate(String path, RegisteredCommand first, RegisteredCommand second) {
+        return new IllegalArgumentException("Command /" + path + " is declared twice, by "
+                + source(first) + " and by " + source(second));
+    }
+
+    /**
+     * @return The method declaring a command, or its class if unknown
+     */
+    private static String source(RegisteredCommand command) {
+        var method = command.getMethod();
+        return method != null ? method.getDeclaringClass().getName() + "#" + method.getName()
+                : className(command.getInstance());
+    }
+
+    /**
+     * @return The name of the class declaring a command or exception handler
+     */
+    private static String className(Object instance) {
+        if (instance == null) return "";
+        return instance instanceof Class<?> type ? type.getName() : instance.getClass().getName();
+    }
+
+    /**
+     * Arranges all commands into a tree. Subcommands are grouped under their
+     * top-level command and group, every alias gets its own node.
+     * @throws IllegalArgumentException If a top-level command also has subcommands
+     */
+    private static Map<String, Node> arrange(Collection<RegisteredCommand> commands) {
+        var tree = new LinkedHashMap<String, Node>();
+        for (var command : commands) {
+            var names = new ArrayList<String>();
+            names.add(command.getName());
+            names.addAll(command.getAliases());
+            for (var name : names) {
+                var node = tree.computeIfAbsent(name, e -> new Node());
+                if (command.getSubcommand() == null) {
+                    if (node.command == null) node.command = command;
+                } else {
+                    if (node.description == null) node.description = command.getCommandDescription();
+                    var group = command.getGroup() == null ? node : node.groups.computeIfAbsent(command.getGroup(), e -> new Node());
+                    if (group != node && group.description == null) group.description = command.getGroupDescription();
+                    group.subcommands.add(command);
+                }
+            }
+        }
+        tree.forEach((name, node) -> {
+            if (node.command != null && (!node.subcommands.isEmpty() || !node.groups.isEmpty()))
+                throw new IllegalArgumentException("Command /" + name + " cannot have subcommands");
+        });
+        return tree;
+    }
+
+    /**
+     * Assembles the command data of all commands from their tree.
+     */
+    private static List<CommandData> assemble(Map<String, Node> tree) {
+        var data = new ArrayList<CommandData>(tree.size());
+        tree.forEach((name, node) -> {
+            if (node.command != null) {
+                data.add(name.equals(node.command.getName()) ? node.command.getData()
+                        : new CommandData(name, node.command.getDescription()).addOptions(node.command.getOptions()));
+                return;
+            }
+            var command = new CommandData(name, node.description != null ? node.description : name);
+            for (var subcommand : node.subcommands) command.addSubcommands(subcommand.getSubcommandData());
+            node.groups.forEach((groupName, group) -> {
+                var groupData = new SubcommandGroupData(groupName, group.description != null ? group.description : groupName);
+                for (var subcommand : group.subcommands) groupData.addSubcommands(subcommand.getSubcommandData());
+                command.addSubcommandGroups(groupData);
+            });
+            data.add(command);
+        });
+        return List.copyOf(data);
+    }
+
+    /**
+     * A top-level command or subcommand group while assembling command data.
+     */
+    private static final class Node {
+        private RegisteredCommand command;
+        private String description;
+        private final List<RegisteredCommand> subcommands = new ArrayList<>();
+        private final Map<String, Node> groups = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import io.github.maeves2.snowballnebula.autocomplete.Autocomplete;
+import io.github.maeves2.snowballnebula.autocomplete.RegisteredAutocomplete;
+import io.github.maeves2.snowballnebula.cache.Cached;
+import io.github.maeves2.snowballnebula.exception.ExceptionHandler;
+import io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler;
+import io.github.maeves2.snowballnebula.scope.InstanceProvider;
+import io.github.maeves2.snowballnebula.util.Invokers;
+import io.github.maeves2.snowballnebula.util.Utilities;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the commands, exception handlers and autocomplete handlers
+ * declared by classes, destined for internal use. Please note that all
+ * methods in this class are static.
+ * <p>
+ * Classes are processed in parallel, in two passes. The scan finds the
+ * annotated public methods of every class and its superclasses, without
+ * looking at the methods inherited from {@link Object}. The reflection pass
+ * then creates the invoker of every method. Commands are staged by path in
+ * a concurrent map while they are created, so a path declared twice fails
+ * the scan as soon as the second declaration is reached. The result keeps
+ * the order of the classes, so it can be published at once and registers
+ * the same way every time. Classes declaring non-static methods are
+ * constructed according to their {@link io.github.maeves2.snowballnebula.scope.Scoped}
+ * annotation.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandScanner {
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private CommandScanner() {
+        throw new UnsupportedOperationException("No instances for you.");
+    }
+
+    /**
+     * Scans classes.
+     * @param classes The classes that should be checked for commands
+     * @return {@link Result}
+     * @throws IllegalArgumentException If a command path is declared twice
+     */
+    public static Result scan(Class<?>... classes) {
+        var start = System.nanoTime();
+        var found = Arrays.stream(classes).parallel()
+                .flatMap(clazz -> annotatedMethods(clazz).stream().map(method -> new Found(clazz, method)))
+                .toList();
+        var scanned = System.nanoTime();
+        var staged = new ConcurrentHashMap<String, RegisteredCommand>();
+        var providers = new ConcurrentHashMap<Class<?>, InstanceProvider>();
+        var created = found.parallelStream().map(declaration -> create(declaration, staged, providers)).toList();
+        var reflected = System.nanoTime();
+
+        var commands = new ArrayList<RegisteredCommand>();
+        var handlers = new ArrayList<RegisteredExceptionHandler>();
+        var completers = new ArrayList<RegisteredAutocomplete>();
+        for (var declaration : created) {
+            if (declaration.command() != null) commands.add(declaration.command());
+            if (declaration.handler() != null) handlers.add(declaration.handler());
+            if (declaration.completer() != null) completers.add(declaration.completer());
+        }
+        return new Result(classes.length, commands, handlers, completers,
+                Duration.ofNanos(scanned - start), Duration.ofNanos(reflected - scanned));
+    }
+
+    /**
+     * Finds the annotated public methods of a class and its superclasses.
+     * Methods overridden by a subclass are only looked at once.
+     */
+    private static List<Method> annotatedMethods(Class<?> clazz) {
+        var methods = new ArrayList<Method>();
+        var inherits = clazz.getSuperclass() != null && clazz.getSuperclass() != Object.class;
+        var seen = inherits ? new HashSet<String>() : null;
+        for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (var method : type.getDeclaredMethods()) {
+                if (!Modifier.isPublic(method.getModifiers()) || method.isBridge() || method.isSynthetic()) continue;
+                if (seen != null && !seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) continue;
+                if (method.isAnnotationPresent(SlashCommand.class) || method.isAnnotationPresent(ExceptionHandler.class)
+                        || method.isAnnotationPresent(Autocomplete.class)) methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Creates the command, or the exception and autocomplete handlers, of
+     * an annotated method. Non-static methods share the
+     * {@link InstanceProvider} of their class.
+     */
+    private static Declaration create(Found found, ConcurrentHashMap<String, RegisteredCommand> staged,
+                                      ConcurrentHashMap<Class<?>, InstanceProvider> providers) {
+        var clazz = found.clazz();
+        var method = found.method();
+        var provider = Modifier.isStatic(method.getModifiers()) ? null
+                : providers.computeIfAbsent(clazz, InstanceProvider::of);
+        var command = method.getAnnotation(SlashCommand.class);
+        if (command != null) {
+            var registered = RegisteredCommand.builder(command)
+                    .setInstance(clazz)
+                    .setProvider(provider)
+                    .setMethod(method)
+                    .setCache(Utilities.asCachePolicy(method.getAnnotation(Cached.class)))
+                    .build();
+            var twice = staged.putIfAbsent(registered.getPath(), registered);
+            if (twice != null) throw CommandRegistry.duplicate(registered.getPath(), twice, registered);
+            return new Declaration(registered, null, null);
+        }
+        RegisteredExceptionHandler handler = null;
+        var exceptionHandler = method.getAnnotation(ExceptionHandler.class);
+        if (exceptionHandler != null)
+            handler = new RegisteredExceptionHandler(exceptionHandler.commands(), clazz, provider, method,
+                    Invokers.forHandler(method), exceptionHandler.exception());
+        RegisteredAutocomplete completer = null;
+        var autocomplete = method.getAnnotation(Autocomplete.class);
+        if (autocomplete != null)
+            completer = new RegisteredAutocomplete(autocomplete.command(), autocomplete.option(), clazz, provider,
+                    method, Invokers.forAutocomplete(method));
+        return new Declaration(null, handler, completer);
+    }
+
+    private record Found(Class<?> clazz, Method method) {
+    }
+
+    private record Declaration(RegisteredCommand command, RegisteredExceptionHandler handler,
+                               RegisteredAutocomplete completer) {
+    }
+
+    /**
+     * Everything declared by the scanned classes, in the order of the classes.
+     */
+    public static class Result {
+        private final int classes;
+        private final List<RegisteredCommand> commands;
+        private final List<RegisteredExceptionHandler> handlers;
+        private final List<RegisteredAutocomplete> completers;
+        private final Duration scan;
+        private final Duration reflect;
+
+        private Result(int classes, List<RegisteredCommand> commands, List<RegisteredExceptionHandler> handlers,
+                       List<RegisteredAutocomplete> completers, Duration scan, Duration reflect) {
+            this.classes = classes;
+            this.commands = List.copyOf(commands);
+            this.handlers = List.copyOf(handlers);
+            this.completers = List.copyOf(completers);
+            this.scan = scan;
+            this.reflect = reflect;
+        }
+
+        /**
+         * @return The number of scanned classes
+         */
+        public int getClasses() {
+            return classes;
+        }
+
+        public List<RegisteredCommand> getCommands() {
+            return commands;
+        }
+
+        public List<RegisteredExceptionHandler> getHandlers() {
+            return handlers;
+        }
+
+        public List<RegisteredAutocomplete> getCompleters() {
+            return completers;
+        }
+
+        /**
+         * @return Time spent finding the annotated methods
+         */
+        public Duration getScan() {
+            return scan;
+        }
+
+        /**
+         * @return Time spent creating invokers
+         */
+        public Duration getReflect() {
+            return reflect;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.autocomplete.RegisteredAutocomplete;
+import io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler;
+
+import java.util.List;
+
+/**
+ * Registry of commands and exception handlers generated at compile time by
+ * the {@code SnowballNebula-processor} annotation processor. The generated
+ * registry contains every method annotated with {@link SlashCommand},
+ * {@link io.github.maeves2.snowballnebula.exception.ExceptionHandler} or
+ * {@link io.github.maeves2.snowballnebula.autocomplete.Autocomplete} in a
+ * class annotated with {@link AutoRegister}, with direct invokers and
+ * prebuilt option data, so loading it needs neither classpath scanning nor
+ * reflection. Generated registries are listed in
+ * {@code META-INF/services/io.github.maeves2.snowballnebula.commands.GeneratedRegistry}
+ * and loaded using {@link SnowballNebula#enableGeneratedRegistry()}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public interface GeneratedRegistry {
+    /**
+     * @return All commands of this registry
+     */
+    List<RegisteredCommand> commands();
+
+    /**
+     * @return All exception handlers of this registry, in declaration order
+     */
+    List<RegisteredExceptionHandler> handlers();
+
+    /**
+     * @return All autocomplete handlers of this registry, none for registries
+     * generated by older versions of the processor
+     * @since 1.3.0
+     */
+    default List<RegisteredAutocomplete> completers() {
+        return List.of();
+    }
+}
@@ -0,0 +1,379 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.IMentionable;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds the options of a slash command to typed parameters of the command
+ * method. Parameters are bound to the declared {@link SlashCommand.Option}s
+ * by position, skipping parameters which can hold a
+ * {@link SlashCommandEvent}, which receive the event. Generated registries
+ * bind the same way, so a class binds identically on both paths. Parameter
+ * names never change the binding: if they are known (the class was compiled
+ * with {@code -parameters}, always for generated registries), a parameter
+ * named after another option than the one at its position is rejected.
+ * <h2>Supported types</h2>
+ * <li>{@code STRING}: {@link String}, any enum (by constant name)</li>
+ * <li>{@code INTEGER}: {@code long}, {@code int} and their wrappers</li>
+ * <li>{@code NUMBER}: {@code double} and its wrapper</li>
+ * <li>{@code BOOLEAN}: {@code boolean} and its wrapper</li>
+ * <li>{@code USER}: {@link User}, {@link Member}</li>
+ * <li>{@code ROLE}: {@link Role}</li>
+ * <li>{@code CHANNEL}: {@link GuildChannel} or a subtype, {@link MessageChannel}</li>
+ * <li>{@code MENTIONABLE}: {@link IMentionable}</li>
+ * <li>any option: {@link OptionMapping}</li>
+ * Absent options bind to {@code null}, or to {@code 0}/{@code false} for
+ * primitive parameters. Integers outside the range of {@code int} and
+ * strings which name no enum constant are rejected with an
+ * {@link IllegalArgumentException}, which is routed to the exception
+ * handlers of the command. Mismatching names and types are reported when the
+ * command is registered. The static getters of this class are also called
+ * by registries generated at compile time.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class OptionBinders {
+    private static final Set<OptionType> ANY = EnumSet.allOf(OptionType.class);
+    /**
+     * Getter and accepted option types of every supported parameter type,
+     * except enums and subtypes of {@link GuildChannel}.
+     */
+    private static final Map<Class<?>, Binding> BINDINGS = Map.ofEntries(
+            Map.entry(String.class, new Binding("getString", EnumSet.of(OptionType.STRING))),
+            Map.entry(long.class, new Binding("getLong", EnumSet.of(OptionType.INTEGER))),
+            Map.entry(Long.class, new Binding("getLongOrNull", EnumSet.of(OptionType.INTEGER))),
+            Map.entry(int.class, new Binding("getInt", EnumSet.of(OptionType.INTEGER))),
+            Map.entry(Integer.class, new Binding("getIntOrNull", EnumSet.of(OptionType.INTEGER))),
+            Map.entry(double.class, new Binding("getDouble", EnumSet.of(OptionType.NUMBER))),
+            Map.entry(Double.class, new Binding("getDoubleOrNull", EnumSet.of(OptionType.NUMBER))),
+            Map.entry(boolean.class, new Binding("getBoolean", EnumSet.of(OptionType.BOOLEAN))),
+            Map.entry(Boolean.class, new Binding("getBooleanOrNull", EnumSet.of(OptionType.BOOLEAN))),
+            Map.entry(User.class, new Binding("getUser", EnumSet.of(OptionType.USER, OptionType.MENTIONABLE))),
+            Map.entry(Member.class, new Binding("getMember", EnumSet.of(OptionType.USER, OptionType.MENTIONABLE))),
+            Map.entry(Role.class, new Binding("getRole", EnumSet.of(OptionType.ROLE, OptionType.MENTIONABLE))),
+            Map.entry(MessageChannel.class, new Binding("getMessageChannel", EnumSet.of(OptionType.CHANNEL))),
+            Map.entry(IMentionable.class, new Binding("getMentionable",
+                    EnumSet.of(OptionType.MENTIONABLE, OptionType.USER, OptionType.ROLE, OptionType.CHANNEL))),
+            Map.entry(OptionMapping.class, new Binding("find", ANY))
+    );
+
+    /**
+     * Constants of every enum bound by {@link #getEnum(SlashCommandEvent, String, Class)},
+     * {@link Class#getEnumConstants()} copies them on every call.
+     */
+    private static final ClassValue<Enum<?>[]> ENUM_CONSTANTS = new ClassValue<>() {
+        @Override
+        protected Enum<?>[] computeValue(Class<?> type) {
+            return (Enum<?>[]) type.getEnumConstants();
+        }
+    };
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private OptionBinders() {
+        throw new UnsupportedOperationException("No instances for you.");
+    }
+
+    /**
+     * Whether a parameter of this type receives the event instead of an option.
+     * @param type The parameter type
+     * @return Whether the parameter is an event parameter
+     */
+    public static boolean isEventParameter(Class<?> type) {
+        return type.isAssignableFrom(SlashCommandEvent.class);
+    }
+
+    /**
+     * Returns the name of the getter of this class which binds an option to a
+     * parameter of the given type. Enums use {@code getEnum}, which also takes
+     * the enum class, subtypes of {@link GuildChannel} use
+     * {@code getGuildChannel}, whose result has to be cast.
+     * @param type The parameter type
+     * @param optionType The type of the option
+     * @return The name of the getter
+     * @throws IllegalArgumentException If the option cannot be bound to this type
+     */
+    public static String getterName(Class<?> type, OptionType optionType) {
+        String getter;
+        Set<OptionType> accepted;
+        if (type.isEnum()) {
+            getter = "getEnum";
+            accepted = EnumSet.of(OptionType.STRING);
+        } else if (GuildChannel.class.isAssignableFrom(type)) {
+            getter = "getGuildChannel";
+            accepted = EnumSet.of(OptionType.CHANNEL);
+        } else {
+            var binding = BINDINGS.get(type);
+            if (binding == null)
+                throw new IllegalArgumentException("Parameters of type " + type.getName() + " are not supported");
+            getter = binding.getter();
+            accepted = binding.accepted();
+        }
+        if (!accepted.contains(optionType))
+            throw new IllegalArgumentException("Options of type " + optionType + " cannot be bound to "
+                    + type.getSimpleName() + " (expected " + accepted + ")");
+        return getter;
+    }
+
+    /**
+     * Matches the parameters of a command method with its options, by
+     * position.
+     * @param method The command method
+     * @param options The options of the command
+     * @return The option of every parameter, {@code null} for event parameters
+     * @throws IllegalArgumentException If a parameter does not match an option
+     */
+    public static OptionData[] match(Method method, List<OptionData> options) {
+        var parameters = method.getParameters();
+        var matched = new OptionData[parameters.length];
+        var position = 0;
+        for (int i = 0; i < parameters.length; i++) {
+            var parameter = parameters[i];
+            if (isEventParameter(parameter.getType())) continue;
+            if (position == options.size())
+                throw new IllegalArgumentException(describe(method, parameter)
+                        + " does not match any option, declared options: "
+                        + options.stream().map(OptionData::getName).toList());
+            var option = options.get(position++);
+            if (parameter.isNamePresent()) {
+                var misplaced = misplacedName(parameter.getName(), option.getName(),
+                        options.stream().map(OptionData::getName).toList());
+                if (misplaced != null) throw new IllegalArgumentException(describe(method, parameter) + ": " + misplaced);
+            }
+            try {
+                getterName(parameter.getType(), option.getType());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(describe(method, parameter) + ": " + e.getMessage(), e);
+            }
+            matched[i] = option;
+        }
+        return matched;
+    }
+
+    /**
+     * Adapts a method handle of a command method to take only the event,
+     * binding all other parameters to options.
+     * @param target Method handle of the command method, with a leading
+     *               receiver parameter for static and instance methods alike
+     * @param method The command method
+     * @param options The options of the command
+     * @return Method handle of type {@code (Object, SlashCommandEvent)Object}
+     */
+    public static MethodHandle bind(MethodHandle target, Method method, List<OptionData> options) {
+        var matched = match(method, options);
+        var filters = new MethodHandle[matched.length];
+        for (int i = 0; i < matched.length; i++) {
+            var type = method.getParameterTypes()[i];
+            filters[i] = matched[i] == null
+                    ? MethodHandles.identity(SlashCommandEvent.class).asType(MethodType.methodType(type, SlashCommandEvent.class))
+                    : getter(type, matched[i]);
+        }
+        // (receiver, event, event, ...) collapsed into (receiver, event)
+        var reorder = new int[matched.length + 1];
+        Arrays.fill(reorder, 1, reorder.length, 1);
+        var filtered = MethodHandles.filterArguments(target, 1, filters);
+        filtered = filtered.asType(filtered.type().changeParameterType(0, Object.class));
+        var collapsed = MethodHandles.permuteArguments(filtered,
+                MethodType.methodType(filtered.type().returnType(), Object.class, SlashCommandEvent.class), reorder);
+        return collapsed.asType(MethodType.methodType(Object.class, Object.class, SlashCommandEvent.class));
+    }
+
+    private static MethodHandle getter(Class<?> type, OptionData option) {
+        var name = getterName(type, option.getType());
+        try {
+            var lookup = MethodHandles.lookup();
+            MethodHandle getter;
+            if (type.isEnum()) {
+                // the constants are looked up once per parameter, when the command is bound
+                getter = lookup.findStatic(OptionBinders.class, name, MethodType.methodType(
+                        Enum.class, SlashCommandEvent.class, String.class, Class.class, Enum[].class));
+                getter = MethodHandles.insertArguments(getter, 1, option.getName(), type, ENUM_CONSTANTS.get(type));
+            } else {
+                var returnType = type.isPrimitive() || BINDINGS.containsKey(type)
+                        ? type : GuildChannel.class;
+                getter = lookup.findStatic(OptionBinders.class, name,
+                        MethodType.methodType(returnType, SlashCommandEvent.class, String.class));
+                getter = MethodHandles.insertArguments(getter, 1, option.getName());
+            }
+            return getter.asType(MethodType.methodType(type, SlashCommandEvent.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks the name of a parameter against the option bound to it by
+     * position, also used by the annotation processor.
+     * @param parameter The name of the parameter
+     * @param option The name of the option at the position of the parameter
+     * @param options The names of all options of the command
+     * @return A description of the mismatch, or {@code null} if the parameter
+     * is not named after another option
+     */
+    public static String misplacedName(String parameter, String option, List<String> options) {
+        if (parameter.equals(option) || !options.contains(parameter)) return null;
+        return "named after option " + parameter + " but bound to option " + option
+                + " by position, parameters are bound in the order of the options";
+    }
+
+    private static String describe(Method method, Parameter parameter) {
+        return "Parameter " + parameter.getName() + " of " + method.getDeclaringClass().getSimpleName()
+                + "#" + method.getName();
+    }
+
+    /**
+     * Finds an option by name without allocating, unlike
+     * {@link SlashCommandEvent#getOption(String)}.
+     * @param event The event
+     * @param name The name of the option
+     * @return {@link OptionMapping}, or {@code null} if the option is absent
+     */
+    public static OptionMapping find(SlashCommandEvent event, String name) {
+        var options = event.getOptions();
+        for (int i = 0, size = options.size(); i < size; i++) {
+            var option = options.get(i);
+            if (option.getName().equals(name)) return option;
+        }
+        return null;
+    }
+
+    public static String getString(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsString();
+    }
+
+    public static long getLong(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? 0L : option.getAsLong();
+    }
+
+    public static Long getLongOrNull(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsLong();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value is out of the range of {@code int}
+     */
+    public static int getInt(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? 0 : toInt(option);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value is out of the range of {@code int}
+     */
+    public static Integer getIntOrNull(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : toInt(option);
+    }
+
+    private static int toInt(OptionMapping option) {
+        var value = option.getAsLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Option " + option.getName() + " is out of range: " + value);
+        return (int) value;
+    }
+
+    public static double getDouble(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? 0D : option.getAsDouble();
+    }
+
+    public static Double getDoubleOrNull(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsDouble();
+    }
+
+    public static boolean getBoolean(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option != null && option.getAsBoolean();
+    }
+
+    public static Boolean getBooleanOrNull(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsBoolean();
+    }
+
+    public static User getUser(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsUser();
+    }
+
+    public static Member getMember(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsMember();
+    }
+
+    public static Role getRole(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsRole();
+    }
+
+    public static GuildChannel getGuildChannel(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsGuildChannel();
+    }
+
+    public static MessageChannel getMessageChannel(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsMessageChannel();
+    }
+
+    public static IMentionable getMentionable(SlashCommandEvent event, String name) {
+        var option = find(event, name);
+        return option == null ? null : option.getAsMentionable();
+    }
+
+    /**
+     * Binds a string option to an enum constant of the same name, ignoring case.
+     * @param event The event
+     * @param name The name of the option
+     * @param type The enum class
+     * @param <E> The enum type
+     * @return The enum constant, or {@code null} if the option is absent
+     * @throws IllegalArgumentException If there is no constant with this name
+     */
+    public static <E extends Enum<E>> E getEnum(SlashCommandEvent event, String name, Class<E> type) {
+        return type.cast(getEnum(event, name, type, ENUM_CONSTANTS.get(type)));
+    }
+
+    /**
+     * Binds a string option to one of the constants of an enum, which the
+     * caller looked up once.
+     */
+    private static Enum<?> getEnum(SlashCommandEvent event, String name, Class<?> type, Enum<?>[] constants) {
+        var option = find(event, name);
+        if (option == null) return null;
+        var value = option.getAsString();
+        for (var constant : constants)
+            if (constant.name().equalsIgnoreCase(value)) return constant;
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " named " + value);
+    }
+
+    /**
+     * Getter and accepted option types of a parameter type.
+     */
+    private record Binding(String getter, Set<OptionType> accepted) {
+    }
+}
@@ -1,12 +1,25 @@
 package io.github.maeves2.snowballnebula.commands;
 
 import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.admission.Priority;
+import io.github.maeves2.snowballnebula.cache.CachePolicy;
+import io.github.maeves2.snowballnebula.cache.ResultCache;
+import io.github.maeves2.snowballnebula.ratelimit.CommandRateLimits;
+import io.github.maeves2.snowballnebula.ratelimit.RateLimitRule;
+import io.github.maeves2.snowballnebula.ratelimit.RateLimiter;
+import io.github.maeves2.snowballnebula.reply.ReplyTemplate;
+import io.github.maeves2.snowballnebula.scope.InstanceProvider;
+import io.github.maeves2.snowballnebula.util.Invokers;
+import io.github.maeves2.snowballnebula.util.Utilities;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
 
 /**
  * Class which holds a registered slash command, destined for internal use.
@@ -17,16 +30,59 @@ import java.util.List;
  * @author Maeves2
  */
 public class RegisteredCommand {
+    /**
+     * Templates of the default messages, shared by all commands using them
+     */
+    private static final ReplyTemplate DEFAULT_PERMISSION_TEMPLATE =
+            ReplyTemplate.compile(SlashCommand.DEFAULT_PERMISSION_MESSAGE);
+    private static final ReplyTemplate DEFAULT_BUSY_TEMPLATE = ReplyTemplate.compile(SlashCommand.DEFAULT_BUSY_MESSAGE);
+    private static final ReplyTemplate DEFAULT_RATE_LIMIT_TEMPLATE =
+            ReplyTemplate.compile(SlashCommand.DEFAULT_RATE_LIMIT_MESSAGE);
+
     /**
      * Instance of the command, holds the class to which belongs the method
      * annotated with {@link SlashCommand}. Used to invoke said method when
      * the command is executed.
      */
     private Object instance;
+    /**
+     * Provides the instances a non-static command method is invoked on,
+     * {@code null} for static methods
+     */
+    private InstanceProvider provider;
     /**
      * Name of the command
      */
     private String name;
+    /**
+     * Name of the subcommand group, {@code null} if the command is not in a group
+     */
+    private String group;
+    /**
+     * Name of the subcommand, {@code null} if this is a top-level command
+     */
+    private String subcommand;
+    /**
+     * Other names of the top-level command under which the command is registered as well
+     */
+    private List<String> aliases = List.of();
+    /**
+     * Path of the command as shown in the discord client, for example
+     * {@code admin ban}
+     */
+    private String path;
+    /**
+     * Description of the command or subcommand
+     */
+    private String description;
+    /**
+     * Description of the top-level command of a subcommand, {@code null} if unset
+     */
+    private String commandDescription;
+    /**
+     * Description of the subcommand group, {@code null} if unset
+     */
+    private String groupDescription;
     /**
      * Permission needed to execute the slash command
      */
@@ -36,15 +92,68 @@ public class RegisteredCommand {
      * executes the command
      */
     private String permissionMessage;
+    /**
+     * {@code permissionMessage}, compiled when the command is created
+     */
+    private ReplyTemplate permissionTemplate;
+    /**
+     * Limits the number of concurrent executions, {@code null} if unlimited
+     */
+    private Semaphore concurrencyLimit;
+    /**
+     * The message sent when the command is executed while the concurrency
+     * limit is reached
+     */
+    private String busyMessage;
+    /**
+     * {@code busyMessage}, compiled when the command is created
+     */
+    private ReplyTemplate busyTemplate;
+    /**
+     * Priority of the command in the admission queue
+     */
+    private Priority priority = Priority.NORMAL;
+    /**
+     * Whether the command may reply after its method returned
+     */
+    private boolean asyncReply;
+    /**
+     * Rate limits of the command, {@code null} if unlimited
+     */
+    private CommandRateLimits rateLimits;
+    /**
+     * The message sent when the command is rejected by a rate limit
+     */
+    private String rateLimitMessage;
+    /**
+     * {@code rateLimitMessage}, compiled when the command is created
+     */
+    private ReplyTemplate rateLimitTemplate;
+    /**
+     * Cached results of the command, {@code null} if results are not cached
+     */
+    private ResultCache cache;
     /**
      * Method which handles command execution. This method is invoked on
-     * {@code instance} when the slash command is executed.
+     * {@code instance} when the slash command is executed. {@code null} for
+     * commands loaded from a {@link GeneratedRegistry}.
      */
     private Method method;
     /**
-     * Command data of the command
+     * Compiled invoker of {@code method}, used instead of reflection when the
+     * slash command is executed.
+     */
+    private CommandInvoker invoker;
+    /**
+     * Command data of the command, built on first use, always {@code null}
+     * for subcommands
+     */
+    private volatile CommandData data;
+    /**
+     * Subcommand data of the command, built on first use, always {@code null}
+     * for top-level commands
      */
-    private CommandData data;
+    private volatile SubcommandData subcommandData;
     /**
      * A list of all options
      */
@@ -55,19 +164,164 @@ public class RegisteredCommand {
         this.name = name;
         this.perm = perm;
         this.permissionMessage = permissionMessage;
+        this.permissionTemplate = template(permissionMessage, DEFAULT_PERMISSION_TEMPLATE);
+        this.busyMessage = SlashCommand.DEFAULT_BUSY_MESSAGE;
+        this.busyTemplate = DEFAULT_BUSY_TEMPLATE;
+        this.rateLimitMessage = SlashCommand.DEFAULT_RATE_LIMIT_MESSAGE;
+        this.rateLimitTemplate = DEFAULT_RATE_LIMIT_TEMPLATE;
         this.method = method;
+        this.invoker = Invokers.forCommand(method);
         this.data = data;
         this.options = options;
+        this.path = name;
+        this.description = data.getDescription();
+    }
+
+    /**
+     * Creates a registered command from a {@link Builder}.
+     * @param builder The builder
+     */
+    private RegisteredCommand(Builder builder) {
+        this.instance = builder.instance;
+        this.provider = builder.provider;
+        this.name = builder.name;
+        this.group = builder.group;
+        this.subcommand = builder.subcommand;
+        this.aliases = List.copyOf(builder.aliases);
+        this.path = name + (group == null ? "" : " " + group) + (subcommand == null ? "" : " " + subcommand);
+        this.description = builder.description;
+        this.commandDescription = builder.commandDescription;
+        this.groupDescription = builder.groupDescription;
+        this.perm = builder.perm;
+        this.permissionMessage = builder.permissionMessage;
+        this.permissionTemplate = template(permissionMessage, DEFAULT_PERMISSION_TEMPLATE);
+        this.concurrencyLimit = builder.maxConcurrency > 0 ? new Semaphore(builder.maxConcurrency) : null;
+        this.busyMessage = builder.busyMessage;
+        this.busyTemplate = template(busyMessage, DEFAULT_BUSY_TEMPLATE);
+        this.priority = builder.priority;
+        this.asyncReply = builder.asyncReply;
+        this.rateLimits = builder.rateLimits.isEmpty() ? null
+                : new CommandRateLimits(builder.rateLimits, RateLimiter.DEFAULT_MAX_CAPACITY);
+        this.rateLimitMessage = builder.rateLimitMessage;
+        this.rateLimitTemplate = template(rateLimitMessage, DEFAULT_RATE_LIMIT_TEMPLATE);
+        this.cache = builder.cache != null ? new ResultCache(builder.cache) : null;
+        this.method = builder.method;
+        this.options = List.copyOf(builder.options);
+        this.invoker = builder.invoker != null ? builder.invoker : Invokers.forCommand(builder.method, this.options);
+    }
+
+    /**
+     * Compiles a message, unless it is the default one.
+     */
+    private static ReplyTemplate template(String message, ReplyTemplate defaultTemplate) {
+        return defaultTemplate.getSource().equals(message) ? defaultTemplate : ReplyTemplate.compile(message);
+    }
+
+    /**
+     * Creates a builder for a command with the given name.
+     * @param name The name of the command
+     * @return {@link Builder}
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * Creates a builder initialized with the values of a {@link SlashCommand}
+     * annotation.
+     * @param command The annotation
+     * @return {@link Builder}
+     */
+    public static Builder builder(SlashCommand command) {
+        return new Builder(command.name())
+                .setGroup(command.group())
+                .setSubcommand(command.subcommand())
+                .setAliases(List.of(command.aliases()))
+                .setCommandDescription(command.commandDesc())
+                .setGroupDescription(command.groupDesc())
+                .setDescription(command.desc())
+                .setPerm(command.perm())
+                .setPermissionMessage(command.permissionMessage())
+                .setMaxConcurrency(command.maxConcurrency())
+                .setBusyMessage(command.busyMessage())
+                .setPriority(command.priority())
+                .setAsyncReply(command.asyncReply())
+                .setRateLimits(Utilities.asRateLimitRules(command.rateLimits()))
+                .setRateLimitMessage(command.rateLimitMessage())
+                .setOptions(Utilities.asOptionData(command.options()));
     }
 
     public Object getInstance() {
         return instance;
     }
 
+    /**
+     * @return The provider of the instances the command method is invoked
+     * on, {@code null} if the method is static and invoked on
+     * {@link #getInstance()}
+     */
+    public InstanceProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return The name of the top-level command
+     */
     public String getName() {
         return name;
     }
 
+    /**
+     * @return The name of the subcommand group, {@code null} if the command
+     * is not in a group
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return The name of the subcommand, {@code null} if this is a
+     * top-level command
+     */
+    public String getSubcommand() {
+        return subcommand;
+    }
+
+    /**
+     * @return Other names of the top-level command
+     */
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    /**
+     * @return The path of the command as shown in the discord client, for
+     * example {@code admin ban}. Used as key of the registry, of metrics and
+     * of log records.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return The description of the top-level command of a subcommand,
+     * {@code null} if unset
+     */
+    public String getCommandDescription() {
+        return commandDescription;
+    }
+
+    /**
+     * @return The description of the subcommand group, {@code null} if unset
+     */
+    public String getGroupDescription() {
+        return groupDescription;
+    }
+
     public Permission getPerm() {
         return perm;
     }
@@ -76,15 +330,311 @@ public class RegisteredCommand {
         return permissionMessage;
     }
 
+    /**
+     * @return The compiled permission message
+     */
+    public ReplyTemplate getPermissionTemplate() {
+        return permissionTemplate;
+    }
+
+    /**
+     * Tries to reserve one execution slot of this command. Every successful
+     * call has to be followed by {@link #release()}.
+     * @return Whether the command may be executed
+     */
+    public boolean tryAcquire() {
+        return concurrencyLimit == null || concurrencyLimit.tryAcquire();
+    }
+
+    /**
+     * Frees an execution slot reserved using {@link #tryAcquire()}.
+     */
+    public void release() {
+        if (concurrencyLimit != null) concurrencyLimit.release();
+    }
+
+    public String getBusyMessage() {
+        return busyMessage;
+    }
+
+    /**
+     * @return The compiled busy message
+     */
+    public ReplyTemplate getBusyTemplate() {
+        return busyTemplate;
+    }
+
+    /**
+     * @return The priority of this command in the admission queue
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return Whether the command may reply after its method returned, see
+     * {@link SlashCommand#asyncReply()}
+     */
+    public boolean isAsyncReply() {
+        return asyncReply;
+    }
+
+    /**
+     * Takes a token from every rate limit of this command.
+     * @param userId ID of the user executing the command
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     * @return {@code 0} if the command may be executed, or the number of
+     * nanoseconds until it may be executed again
+     */
+    public long checkRateLimits(long userId, long guildId) {
+        return rateLimits == null ? 0 : rateLimits.tryAcquire(userId, guildId);
+    }
+
+    /**
+     * @return The rate limits of this command, {@code null} if unlimited
+     */
+    public CommandRateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    public String getRateLimitMessage() {
+        return rateLimitMessage;
+    }
+
+    /**
+     * @return The compiled rate limit message
+     */
+    public ReplyTemplate getRateLimitTemplate() {
+        return rateLimitTemplate;
+    }
+
+    /**
+     * @return The cached results of this command, {@code null} if results
+     * are not cached
+     */
+    public ResultCache getCache() {
+        return cache;
+    }
+
     public Method getMethod() {
         return method;
     }
 
+    public CommandInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * Returns the command data of a top-level command. It is only needed
+     * when commands are pushed to Discord, so it is built on first use.
+     * @return The command data, {@code null} for subcommands. The data of
+     * all commands, including subcommands and aliases, is assembled by
+     * {@link CommandRegistry#getData()}.
+     */
     public CommandData getData() {
+        var data = this.data;
+        if (data == null && subcommand == null) {
+            data = new CommandData(name, description).addOptions(options);
+            this.data = data;
+        }
         return data;
     }
 
+    /**
+     * Returns the subcommand data of a subcommand, built on first use.
+     * @return The subcommand data, {@code null} for top-level commands
+     */
+    public SubcommandData getSubcommandData() {
+        var subcommandData = this.subcommandData;
+        if (subcommandData == null && subcommand != null) {
+            subcommandData = new SubcommandData(subcommand, description).addOptions(options);
+            this.subcommandData = subcommandData;
+        }
+        return subcommandData;
+    }
+
     public List<OptionData> getOptions() {
         return options;
     }
+
+    /**
+     * Builder for {@link RegisteredCommand}, used by {@link SnowballNebula#register(Class[])}
+     * and by registries generated at compile time. Every value which is not
+     * set defaults to the default of the matching {@link SlashCommand} attribute.
+     */
+    public static class Builder {
+        private final String name;
+        private String group;
+        private String subcommand;
+        private List<String> aliases = List.of();
+        private String description = "";
+        private String commandDescription;
+        private String groupDescription;
+        private Object instance;
+        private InstanceProvider provider;
+        private Permission perm = Permission.UNKNOWN;
+        private String permissionMessage = SlashCommand.DEFAULT_PERMISSION_MESSAGE;
+        private int maxConcurrency;
+        private String busyMessage = SlashCommand.DEFAULT_BUSY_MESSAGE;
+        private Priority priority = Priority.NORMAL;
+        private boolean asyncReply;
+        private List<RateLimitRule> rateLimits = List.of();
+        private String rateLimitMessage = SlashCommand.DEFAULT_RATE_LIMIT_MESSAGE;
+        private CachePolicy cache;
+        private Method method;
+        private CommandInvoker invoker;
+        private List<OptionData> options = List.of();
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        /**
+         * @param group Name of the subcommand group, blank or {@code null} if none
+         * @return {@link Builder} for chaining convenience
+         */
+        public Builder setGroup(String group) {
+            this.group = blankToNull(group);
+            return this;
+        }
+
+        /**
+         * @param subcommand Name of the subcommand, blank or {@code null} for a
+         *        top-level command
+         * @return {@link Builder} for chaining convenience
+         */
+        public Builder setSubcommand(String subcommand) {
+            this.subcommand = blankToNull(subcommand);
+            return this;
+        }
+
+        public Builder setAliases(List<String> aliases) {
+            this.aliases = aliases;
+            return this;
+        }
+
+        public Builder setDescription(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder setCommandDescription(String commandDescription) {
+            this.commandDescription = blankToNull(commandDescription);
+            return this;
+        }
+
+        public Builder setGroupDescription(String groupDescription) {
+            this.groupDescription = blankToNull(groupDescription);
+            return this;
+        }
+
+        public Builder setInstance(Object instance) {
+            this.instance = instance;
+            return this;
+        }
+
+        /**
+         * @param provider Provides the instances a non-static command method
+         *        is invoked on, {@code null} for static methods
+         * @return {@link Builder} for chaining convenience
+         * @see io.github.maeves2.snowballnebula.scope.Scoped
+         */
+        public Builder setProvider(InstanceProvider provider) {
+            this.provider = provider;
+            return this;
+        }
+
+        public Builder setPerm(Permission perm) {
+            this.perm = perm;
+            return this;
+        }
+
+        public Builder setPermissionMessage(String permissionMessage) {
+            this.permissionMessage = permissionMessage;
+            return this;
+        }
+
+        public Builder setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public Builder setBusyMessage(String busyMessage) {
+            this.busyMessage = busyMessage;
+            return this;
+        }
+
+        public Builder setPriority(Priority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
+        public Builder setAsyncReply(boolean asyncReply) {
+            this.asyncReply = asyncReply;
+            return this;
+        }
+
+        public Builder setRateLimits(List<RateLimitRule> rateLimits) {
+            this.rateLimits = rateLimits;
+            return this;
+        }
+
+        public Builder setRateLimitMessage(String rateLimitMessage) {
+            this.rateLimitMessage = rateLimitMessage;
+            return this;
+        }
+
+        /**
+         * Caches the results of the command, the command method then has to
+         * return the reply instead of sending it.
+         * @param cache How results are cached, {@code null} to not cache them
+         * @return {@link Builder} for chaining convenience
+         * @see io.github.maeves2.snowballnebula.cache.Cached
+         */
+        public Builder setCache(CachePolicy cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets the command method. If no invoker is set, one is compiled from
+         * this method and the options using {@link Invokers#forCommand(Method, List)}.
+         * @param method The method annotated with {@link SlashCommand}
+         * @return {@link Builder} for chaining convenience
+         */
+        public Builder setMethod(Method method) {
+            this.method = method;
+            return this;
+        }
+
+        public Builder setInvoker(CommandInvoker invoker) {
+            this.invoker = invoker;
+            return this;
+        }
+
+        public Builder setOptions(List<OptionData> options) {
+            this.options = options;
+            return this;
+        }
+
+        /**
+         * @return The registered command
+         * @throws IllegalStateException If neither a method nor an invoker was set,
+         *         or if the results of a method which cannot return a reply are cached
+         */
+        public RegisteredCommand build() {
+            if (method == null && invoker == null)
+                throw new IllegalStateException("Command /" + name + " has neither a method nor an invoker");
+            if (group != null && subcommand == null)
+                throw new IllegalStateException("Command /" + name + " has a subcommand group but no subcommand");
+            if (cache != null && method != null && !ResultCache.isCacheable(method.getReturnType()))
+                throw new IllegalStateException("Cached command /" + name
+                        + " has to return a MessageEmbed, a Message or a String");
+            return new RegisteredCommand(this);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
 }
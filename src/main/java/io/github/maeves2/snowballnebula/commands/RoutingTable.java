@@ -0,0 +1,73 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import java.util.Objects;
+
+/**
+ * Routing table resolving a (command, group, subcommand) triple to the
+ * registered command, destined for internal use. Every path of every command,
+ * including its aliases, is flattened into one open addressing hash table
+ * when a {@link CommandRegistry} snapshot is created, so resolving an event
+ * is a single probe sequence which neither allocates nor builds a path
+ * string. The table is at most half full, so probe sequences stay short no
+ * matter how many routes there are.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+final class RoutingTable {
+    private final Route[] table;
+    private final int mask;
+
+    /**
+     * @param routes Number of routes the table has to hold
+     */
+    RoutingTable(int routes) {
+        var capacity = Integer.highestOneBit(Math.max(4, routes * 2 - 1)) << 1;
+        this.table = new Route[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a route unless the path is taken.
+     * @return Whether the route was added
+     */
+    boolean add(String name, String group, String subcommand, RegisteredCommand command) {
+        var i = hash(name, group, subcommand) & mask;
+        for (Route route; (route = table[i]) != null; i = (i + 1) & mask) {
+            if (route.matches(name, group, subcommand)) return false;
+        }
+        table[i] = new Route(name, group, subcommand, command);
+        return true;
+    }
+
+    /**
+     * @param name Name of the command
+     * @param group Name of the subcommand group, {@code null} if none
+     * @param subcommand Name of the subcommand, {@code null} if none
+     * @return The command, {@code null} if no route matches
+     */
+    RegisteredCommand resolve(String name, String group, String subcommand) {
+        var i = hash(name, group, subcommand) & mask;
+        for (Route route; (route = table[i]) != null; i = (i + 1) & mask) {
+            if (route.matches(name, group, subcommand)) return route.command;
+        }
+        return null;
+    }
+
+    /**
+     * Combines the cached hash codes of the strings, spreading the high bits
+     * so that the mask does not discard them.
+     */
+    private static int hash(String name, String group, String subcommand) {
+        var h = name.hashCode();
+        h = 31 * h + (group == null ? 0 : group.hashCode());
+        h = 31 * h + (subcommand == null ? 0 : subcommand.hashCode());
+        return h ^ (h >>> 16);
+    }
+
+    private record Route(String name, String group, String subcommand, RegisteredCommand command) {
+        private boolean matches(String name, String group, String subcommand) {
+            return this.name.equals(name) && Objects.equals(this.group, group)
+                    && Objects.equals(this.subcommand, subcommand);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package io.github.maeves2.snowballnebula.commands;
 
 import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.admission.Priority;
+import io.github.maeves2.snowballnebula.ratelimit.RateLimitScope;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This annotation is used to create a new slash command. The slash command
@@ -18,12 +21,31 @@ import java.lang.annotation.*;
  *             @SlashCommand.Option(type = OptionType.BOOLEAN, name = "embed", desc = "Make it an embed?")
  *     })
  * }</pre>
+ * Subcommands are declared by setting {@link #subcommand()}, and optionally
+ * {@link #group()}, on methods sharing the same {@link #name()}:
+ * <pre>{@code
+ * @SlashCommand(name = "admin", subcommand = "ban", desc = "Ban a member", commandDesc = "Admin tools",
+ *         perm = Permission.BAN_MEMBERS, options = @SlashCommand.Option(type = OptionType.USER, name = "member", required = true))
+ * }</pre>
  * @since 1.0.0
  * @author MaeveS2
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface SlashCommand {
+    /**
+     * Default value of {@link #permissionMessage()}.
+     */
+    String DEFAULT_PERMISSION_MESSAGE = "\u274c You do not have the needed permissions to execute this command ($PERMISSION$).";
+    /**
+     * Default value of {@link #busyMessage()}.
+     */
+    String DEFAULT_BUSY_MESSAGE = "\u274c This command is busy right now, please try again in a moment.";
+    /**
+     * Default value of {@link #rateLimitMessage()}.
+     */
+    String DEFAULT_RATE_LIMIT_MESSAGE = "\u274c You are using this command too often, please try again in $RETRY$ seconds.";
+
     /**
      * The name of the slash command, the annotated method is called when a
      * slash command with this name is used.
@@ -32,8 +54,54 @@ public @interface SlashCommand {
     String name();
 
     /**
-     * The description of the slash command, shown in the discord client. Defaults
-     * to a blank description.
+     * The name of the subcommand group the subcommand belongs to, for example
+     * {@code mod} in {@code /admin mod ban}. Requires {@link #subcommand()}.
+     * Defaults to no group.
+     * @return The name of the subcommand group
+     * @since 1.3.0
+     */
+    String group() default "";
+
+    /**
+     * The name of the subcommand, for example {@code ban} in
+     * {@code /admin ban}. Defaults to no subcommand, which makes the method a
+     * top-level command. A top-level command cannot have subcommands.
+     * @return The name of the subcommand
+     * @since 1.3.0
+     */
+    String subcommand() default "";
+
+    /**
+     * Other names of the top-level command, the command is registered under
+     * each of them as well. For subcommands, the alias replaces the name of
+     * the top-level command, so {@code aliases = "a"} on {@code /admin ban}
+     * adds {@code /a ban}. Defaults to no aliases.
+     * @return The aliases of the command
+     * @since 1.3.0
+     */
+    String[] aliases() default {};
+
+    /**
+     * The description of the top-level command of a subcommand, shown in the
+     * discord client. Only one subcommand has to set it, defaults to the name
+     * of the command.
+     * @return The description of the top-level command
+     * @since 1.3.0
+     */
+    String commandDesc() default "";
+
+    /**
+     * The description of the subcommand group, shown in the discord client.
+     * Only one subcommand of the group has to set it, defaults to the name of
+     * the group.
+     * @return The description of the subcommand group
+     * @since 1.3.0
+     */
+    String groupDesc() default "";
+
+    /**
+     * The description of the slash command or subcommand, shown in the discord
+     * client. Defaults to a blank description.
      * @return The description of the slash command
      */
     String desc() default "";
@@ -48,10 +116,76 @@ public @interface SlashCommand {
     /**
      * The message sent when a user who doesn't have the needed permission
      * executes the command, default message available. The string {@code $PERMISSION$}
-     * will be replaced with the name of the permission.
+     * will be replaced with the name of the permission, {@code $USER$} and
+     * {@code $COMMAND$} are replaced as well. The message is compiled into a
+     * {@link io.github.maeves2.snowballnebula.reply.ReplyTemplate} once.
      * @return The permission message of the slash command
      */
-    String permissionMessage() default "\u274c You do not have the needed permissions to execute this command ($PERMISSION$).";
+    String permissionMessage() default DEFAULT_PERMISSION_MESSAGE;
+
+    /**
+     * The maximum number of concurrent executions of this command. Further
+     * executions are rejected with {@link #busyMessage()} until a running one
+     * finishes. Defaults to {@code 0}, which means unlimited.
+     * @return The maximum number of concurrent executions
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * The message sent when the command is executed while {@link #maxConcurrency()}
+     * executions are already running, default message available. The
+     * strings {@code $USER$} and {@code $COMMAND$} will be replaced.
+     * @return The busy message of the slash command
+     */
+    String busyMessage() default DEFAULT_BUSY_MESSAGE;
+
+    /**
+     * The priority of the slash command in the admission queue, see
+     * {@link SnowballNebula#enableAdmissionControl(int, int)}. Queued
+     * executions of higher priority run first, and under load executions of
+     * lower priority are shed first. Defaults to {@code Priority.NORMAL}.
+     * @return The priority of the slash command
+     * @since 1.3.0
+     */
+    Priority priority() default Priority.NORMAL;
+
+    /**
+     * Whether the slash command may reply after its method returned, for
+     * example from the callback of a {@link net.dv8tion.jda.api.requests.RestAction}.
+     * The reply watchdog stops watching an execution once its method
+     * returned, or its exception handler did, unless this is set; then the
+     * reply is deferred whenever it does not arrive in time. Defaults to
+     * {@code false}.
+     * @return Whether the slash command replies asynchronously
+     * @since 1.3.0
+     */
+    boolean asyncReply() default false;
+
+    /**
+     * Rate limits of the slash command, specified using an array of the
+     * {@link RateLimit} annotation. An execution is only allowed if every
+     * limit allows it, other executions are rejected with
+     * {@link #rateLimitMessage()}. Defaults to no limits.
+     * <h2>Example</h2>
+     * <pre>{@code
+     * rateLimits = {
+     *         @SlashCommand.RateLimit(scope = RateLimitScope.USER, uses = 3, per = 10),
+     *         @SlashCommand.RateLimit(scope = RateLimitScope.GLOBAL, uses = 100, per = 1, unit = TimeUnit.MINUTES)
+     * }
+     * }</pre>
+     * @return An array of the rate limits
+     */
+    RateLimit[] rateLimits() default {};
+
+    /**
+     * The message sent when an execution is rejected by one of the
+     * {@link #rateLimits()}, default message available. The string
+     * {@code $RETRY$} will be replaced with the number of seconds until the
+     * command can be executed again, {@code $USER$} and {@code $COMMAND$}
+     * are replaced as well.
+     * @return The rate limit message of the slash command
+     */
+    String rateLimitMessage() default DEFAULT_RATE_LIMIT_MESSAGE;
 
     /**
      * The options of the slash command, shown in the discord client. Specified
@@ -87,5 +221,46 @@ public @interface SlashCommand {
          * @return Whether the option is required
          */
         boolean required() default false;
+
+        /**
+         * Whether the option is autocompleted by an
+         * {@link io.github.maeves2.snowballnebula.autocomplete.Autocomplete}
+         * handler, defaults to {@code false}. Only string, integer and number
+         * options can be autocompleted.
+         * @return Whether the option is autocompleted
+         */
+        boolean autocomplete() default false;
+    }
+
+    /**
+     * Nested annotation used to create a token bucket rate limit for a slash
+     * command. A bucket holds up to {@code uses} tokens and is refilled
+     * evenly over {@code per}, so bursts of {@code uses} executions are
+     * allowed.
+     */
+    @interface RateLimit {
+        /**
+         * What the limit is counted per, defaults to {@code RateLimitScope.USER}.
+         * @return The scope of the rate limit
+         */
+        RateLimitScope scope() default RateLimitScope.USER;
+
+        /**
+         * The number of executions allowed per period
+         * @return The number of executions
+         */
+        int uses();
+
+        /**
+         * The length of the period, in {@link #unit()}
+         * @return The length of the period
+         */
+        long per();
+
+        /**
+         * The unit of {@link #per()}, defaults to seconds.
+         * @return The unit of the period
+         */
+        TimeUnit unit() default TimeUnit.SECONDS;
     }
 }
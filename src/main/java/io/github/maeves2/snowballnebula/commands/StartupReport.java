@@ -0,0 +1,118 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Time spent registering commands, returned by
+ * {@link io.github.maeves2.snowballnebula.SnowballNebula#getStartupReport()}.
+ * Registrations add up, so the report covers every class registered since
+ * startup, split into four phases:
+ * <li>scan: finding the classes and their annotated methods</li>
+ * <li>reflect: creating the invokers and option binders of every method</li>
+ * <li>build: building and publishing the registry</li>
+ * <li>sync: building the command data and pushing it to Discord, for the
+ * last full sync</li>
+ * Scan and reflect run in parallel, their times are wall-clock times.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class StartupReport {
+    /**
+     * Report of an instance which did not register anything yet.
+     */
+    public static final StartupReport EMPTY = new StartupReport(0, 0, 0, 0,
+            Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+    private final int classes;
+    private final int commands;
+    private final int handlers;
+    private final int completers;
+    private final Duration scan;
+    private final Duration reflect;
+    private final Duration build;
+    private final Duration sync;
+
+    public StartupReport(int classes, int commands, int handlers, int completers,
+                         Duration scan, Duration reflect, Duration build, Duration sync) {
+        this.classes = classes;
+        this.commands = commands;
+        this.handlers = handlers;
+        this.completers = completers;
+        this.scan = Objects.requireNonNull(scan);
+        this.reflect = Objects.requireNonNull(reflect);
+        this.build = Objects.requireNonNull(build);
+        this.sync = Objects.requireNonNull(sync);
+    }
+
+    /**
+     * Adds a registration to this report.
+     * @param registration The report of the registration, its sync time is ignored
+     * @return A new report with the counts and times of both
+     */
+    public StartupReport plus(StartupReport registration) {
+        return new StartupReport(classes + registration.classes, commands + registration.commands,
+                handlers + registration.handlers, completers + registration.completers,
+                scan.plus(registration.scan), reflect.plus(registration.reflect), build.plus(registration.build), sync);
+    }
+
+    /**
+     * @param sync Time the last full sync took
+     * @return A new report with this sync time
+     */
+    public StartupReport withSync(Duration sync) {
+        return new StartupReport(classes, commands, handlers, completers, scan, reflect, build, sync);
+    }
+
+    /**
+     * @return The number of scanned classes
+     */
+    public int getClasses() {
+        return classes;
+    }
+
+    public int getCommands() {
+        return commands;
+    }
+
+    public int getHandlers() {
+        return handlers;
+    }
+
+    public int getCompleters() {
+        return completers;
+    }
+
+    public Duration getScan() {
+        return scan;
+    }
+
+    public Duration getReflect() {
+        return reflect;
+    }
+
+    public Duration getBuild() {
+        return build;
+    }
+
+    /**
+     * @return Time the last full sync took, zero if commands were not synced yet
+     */
+    public Duration getSync() {
+        return sync;
+    }
+
+    /**
+     * @return The sum of all phases
+     */
+    public Duration getTotal() {
+        return scan.plus(reflect).plus(build).plus(sync);
+    }
+
+    @Override
+    public String toString() {
+        return "StartupReport{classes=" + classes + ", commands=" + commands + ", handlers=" + handlers
+                + ", completers=" + completers + ", scan=" + scan.toMillis() + "ms, reflect=" + reflect.toMillis()
+                + "ms, build=" + build.toMillis() + "ms, sync=" + sync.toMillis() + "ms}";
+    }
+}
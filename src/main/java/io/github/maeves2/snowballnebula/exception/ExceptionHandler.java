@@ -1,8 +1,16 @@
 package io.github.maeves2.snowballnebula.exception;
 
-
 import java.lang.annotation.*;
 
+/**
+ * This annotation is used to create an exception handler for slash commands.
+ * The annotated method takes the exception and the {@code SlashCommandEvent}
+ * as arguments. Only one handler is invoked per exception: the one whose
+ * exception is the nearest supertype of the thrown exception, handlers naming
+ * the command win over {@code "*"} handlers (see {@link ExceptionRouter}).
+ * @since 1.0.0
+ * @author MaeveS2
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface ExceptionHandler {
@@ -0,0 +1,96 @@
+package io.github.maeves2.snowballnebula.exception;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Routing table which resolves the exception handler responsible for an
+ * exception thrown by a command, destined for internal use. The handlers
+ * applicable to each command are computed once when the router is created,
+ * the handler for a given exception class is computed on first use and cached.
+ * Routers are immutable, a new one is built whenever handlers are registered.
+ * <h2>Precedence</h2>
+ * <li>The handler whose exception is the nearest supertype of the thrown
+ * exception wins</li>
+ * <li>On equal distance, a handler naming the command wins over a {@code "*"} handler</li>
+ * <li>On equal distance and scope, the handler registered first wins</li>
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ExceptionRouter {
+    /**
+     * Routes of every command which has at least one handler naming it.
+     */
+    private final Map<String, Routes> routes;
+    /**
+     * Routes of commands only handled by {@code "*"} handlers.
+     */
+    private final Routes wildcardRoutes;
+
+    /**
+     * Builds the routing table.
+     * @param handlers All registered handlers, in registration order
+     */
+    public ExceptionRouter(Collection<RegisteredExceptionHandler> handlers) {
+        var wildcard = new ArrayList<RegisteredExceptionHandler>();
+        var named = new HashMap<String, List<RegisteredExceptionHandler>>();
+        for (var handler : handlers) {
+            for (var command : handler.getCommands()) {
+                if (command.equals("*")) {
+                    wildcard.add(handler);
+                    break;
+                }
+            }
+            for (var command : handler.getCommands()) {
+                if (!command.equals("*"))
+                    named.computeIfAbsent(command, e -> new ArrayList<>()).add(handler);
+            }
+        }
+        this.wildcardRoutes = new Routes(List.of(), wildcard);
+        this.routes = new HashMap<>();
+        named.forEach((command, list) -> routes.put(command, new Routes(list, wildcard)));
+    }
+
+    /**
+     * Resolves the handler for an exception thrown by a command.
+     * @param command The name of the command
+     * @param exception The thrown exception
+     * @return The most specific handler, or {@code null} if there is none
+     */
+    public RegisteredExceptionHandler resolve(String command, Throwable exception) {
+        return routes.getOrDefault(command, wildcardRoutes).cache.get(exception.getClass()).orElse(null);
+    }
+
+    /**
+     * Handlers applicable to one command, plus the per exception class cache.
+     */
+    private static final class Routes {
+        private final List<RegisteredExceptionHandler> specific;
+        private final List<RegisteredExceptionHandler> wildcard;
+        private final ClassValue<Optional<RegisteredExceptionHandler>> cache = new ClassValue<>() {
+            @Override
+            protected Optional<RegisteredExceptionHandler> computeValue(Class<?> type) {
+                return Optional.ofNullable(find(type));
+            }
+        };
+
+        private Routes(List<RegisteredExceptionHandler> specific, List<RegisteredExceptionHandler> wildcard) {
+            this.specific = List.copyOf(specific);
+            this.wildcard = List.copyOf(wildcard);
+        }
+
+        private RegisteredExceptionHandler find(Class<?> type) {
+            for (var current = type; current != null; current = current.getSuperclass()) {
+                for (var handler : specific)
+                    if (handler.getHandledException() == current) return handler;
+                for (var handler : wildcard)
+                    if (handler.getHandledException() == current) return handler;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.maeves2.snowballnebula.exception;
+
+import io.github.maeves2.snowballnebula.util.Invokers;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
+/**
+ * Compiled entry point of a method annotated with {@link ExceptionHandler},
+ * destined for internal use. Created once by {@link Invokers#forHandler}
+ * when the handler is registered.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@FunctionalInterface
+public interface HandlerInvoker {
+    /**
+     * Invokes the exception handler.
+     * @param instance The instance the method is invoked on, ignored for static methods
+     * @param exception The exception thrown by the command
+     * @param event The event which triggered the command
+     * @throws Throwable Anything thrown by the handler method
+     */
+    void invoke(Object instance, Throwable exception, SlashCommandEvent event) throws Throwable;
+}
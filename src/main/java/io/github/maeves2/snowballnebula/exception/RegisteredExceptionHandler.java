@@ -1,5 +1,8 @@
 package io.github.maeves2.snowballnebula.exception;
 
+import io.github.maeves2.snowballnebula.scope.InstanceProvider;
+import io.github.maeves2.snowballnebula.util.Invokers;
+
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
@@ -16,11 +19,22 @@ public class RegisteredExceptionHandler {
      */
     private Object instance;
 
+    /**
+     * Provides the instances a non-static handler method is invoked on,
+     * {@code null} for static methods.
+     */
+    private InstanceProvider provider;
+
     /**
      * The method which handles the exception, invoked when an exception is encountered.
      */
     private Method method;
 
+    /**
+     * Compiled invoker of {@code method}.
+     */
+    private HandlerInvoker invoker;
+
     /**
      * The exception that can be handled by this handler.
      */
@@ -30,9 +44,27 @@ public class RegisteredExceptionHandler {
      * The constructor of this class.
      */
     public RegisteredExceptionHandler(String[] commands, Object instance, Method method, Class<? extends Exception> handledException) {
+        this(commands, instance, method, Invokers.forHandler(method), handledException);
+    }
+
+    /**
+     * The constructor of this class, with an already compiled invoker.
+     */
+    public RegisteredExceptionHandler(String[] commands, Object instance, Method method, HandlerInvoker invoker, Class<? extends Exception> handledException) {
+        this(commands, instance, null, method, invoker, handledException);
+    }
+
+    /**
+     * The constructor of this class, for handlers which may be non-static.
+     * @since 1.3.0
+     */
+    public RegisteredExceptionHandler(String[] commands, Object instance, InstanceProvider provider, Method method,
+                                      HandlerInvoker invoker, Class<? extends Exception> handledException) {
         this.commands = Arrays.asList(commands);
         this.instance = instance;
+        this.provider = provider;
         this.method = method;
+        this.invoker = invoker;
         this.handledException = handledException;
     }
 
@@ -43,6 +75,14 @@ public class RegisteredExceptionHandler {
         return instance;
     }
 
+    /**
+     * @return The provider of the instances the handler is invoked on,
+     * {@code null} if the handler is static
+     */
+    public InstanceProvider getProvider() {
+        return provider;
+    }
+
     /**
      * @return The list of handled commands
      */
@@ -64,6 +104,13 @@ public class RegisteredExceptionHandler {
         return method;
     }
 
+    /**
+     * @return The compiled invoker of the handling method
+     */
+    public HandlerInvoker getInvoker() {
+        return invoker;
+    }
+
     /**
      * @return The handled exception
      */
@@ -0,0 +1,375 @@
+package io.github.maeves2.snowballnebula.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Structured event log of the framework, destined for internal use. Events
+ * are written into a preallocated ring buffer by the threads they happen on
+ * and drained to slf4j by a background thread, using parameterized messages.
+ * Recording an event only copies IDs and references which already exist, so
+ * it does not allocate, and it never blocks: if the buffer is full the event
+ * is dropped and counted, the drainer reports dropped events as a warning.
+ * The drainer parks while the buffer is empty and is unparked by the next
+ * producer publishing an event, so an idle log does not wake up at all.
+ * <p>
+ * Command executions are the most frequent event, so they can be sampled:
+ * with a sample rate of {@code 0.1} about one execution in ten is logged.
+ * Denials, rate limits, exceptions and registrations are always logged.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class EventLog implements AutoCloseable {
+    /**
+     * Default number of slots in the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final Logger logger = LoggerFactory.getLogger("io.github.maeves2.snowballnebula.SnowballNebula");
+    /**
+     * Minimum time between two warnings about dropped events.
+     */
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Kinds of recorded events.
+     */
+    enum Type {
+        MESSAGE, REGISTRATION, HANDLER_REGISTRATION, EXECUTION, DENIAL, BUSY, RATE_LIMITED, WATCHDOG, SHED, EXCEPTION
+    }
+
+    private final LogRecord[] slots;
+    private final int mask;
+    /**
+     * Next sequence to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Next sequence to be drained, only written by the drainer.
+     */
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private volatile double sampleRate = 1;
+    private volatile boolean running = true;
+    /**
+     * Whether the drainer is parked or about to park, producers unpark it.
+     */
+    private volatile boolean waiting;
+    /**
+     * Receives every drained record, on the drainer thread. Records are
+     * reused once it returns.
+     */
+    private final Consumer<LogRecord> sink;
+    private final Thread drainer;
+
+    /**
+     * Creates an event log and starts its drainer thread.
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    public EventLog(int capacity) {
+        this(capacity, EventLog::write);
+    }
+
+    /**
+     * Creates an event log draining to the given sink instead of slf4j.
+     * @param capacity Number of slots, rounded up to a power of two
+     * @param sink Receives the drained records
+     */
+    EventLog(int capacity, Consumer<LogRecord> sink) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        var size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new LogRecord[size];
+        for (int i = 0; i < size; i++) slots[i] = new LogRecord();
+        this.mask = size - 1;
+        this.sink = sink;
+        this.drainer = new Thread(this::drain, "snowballnebula-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Sets the fraction of command executions which are logged.
+     * @param sampleRate Between {@code 0} (none) and {@code 1} (all)
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1)
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1");
+        this.sampleRate = sampleRate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return The number of events dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return The number of claimed events which were not logged yet
+     */
+    long pending() {
+        return tail.get() - head;
+    }
+
+    /**
+     * Records a free-form message, for events which happen rarely.
+     * @param message The message
+     */
+    public void message(String message) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.MESSAGE;
+        record.detail = message;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the registered command
+     * @param source Name of the class containing the command
+     */
+    public void registration(String command, String source) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.REGISTRATION;
+        record.command = command;
+        record.detail = source;
+        publish(record);
+    }
+
+    /**
+     * @param source Name of the class containing the exception handler
+     */
+    public void handlerRegistration(String source) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.HANDLER_REGISTRATION;
+        record.detail = source;
+        publish(record);
+    }
+
+    /**
+     * Records a successful command execution, subject to sampling.
+     * @param command Name of the command
+     * @param userId ID of the user who executed the command
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     * @param nanos Time the command method took
+     */
+    public void execution(String command, long userId, long guildId, long nanos) {
+        var rate = sampleRate;
+        if (rate < 1 && (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)) return;
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.EXECUTION;
+        record.command = command;
+        record.userId = userId;
+        record.guildId = guildId;
+        record.nanos = nanos;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the command
+     * @param userId ID of the user who lacked the permission
+     * @param guildId ID of the guild
+     * @param permission Name of the missing permission
+     */
+    public void denial(String command, long userId, long guildId, String permission) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.DENIAL;
+        record.command = command;
+        record.userId = userId;
+        record.guildId = guildId;
+        record.detail = permission;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the command which was too busy to be executed
+     * @param userId ID of the user who executed the command
+     */
+    public void busy(String command, long userId) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.BUSY;
+        record.command = command;
+        record.userId = userId;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the command
+     * @param userId ID of the user who executed the command
+     * @param elapsedNanos Time since the command was received
+     */
+    public void watchdog(String command, long userId, long elapsedNanos) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.WATCHDOG;
+        record.command = command;
+        record.userId = userId;
+        record.nanos = elapsedNanos;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the command which was shed by the admission queue
+     * @param userId ID of the user who executed the command
+     * @param priority Name of the priority of the command
+     */
+    public void shed(String command, long userId, String priority) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.SHED;
+        record.command = command;
+        record.userId = userId;
+        record.detail = priority;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the command
+     * @param userId ID of the user who was rate limited
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     * @param retryNanos Time until the command may be executed again
+     */
+    public void rateLimited(String command, long userId, long guildId, long retryNanos) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.RATE_LIMITED;
+        record.command = command;
+        record.userId = userId;
+        record.guildId = guildId;
+        record.nanos = retryNanos;
+        publish(record);
+    }
+
+    /**
+     * @param command Name of the command
+     * @param userId ID of the user who executed the command
+     * @param error The exception thrown by the command
+     * @param handled Whether an exception handler was found
+     */
+    public void exception(String command, long userId, Throwable error, boolean handled) {
+        var record = claim();
+        if (record == null) return;
+        record.type = Type.EXCEPTION;
+        record.command = command;
+        record.userId = userId;
+        record.error = error;
+        record.detail = handled ? "handled" : "no exception handler";
+        publish(record);
+    }
+
+    /**
+     * Stops the drainer after it logged all published events.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims the next slot, or returns {@code null} if the buffer is full.
+     */
+    private LogRecord claim() {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                dropped.increment();
+                return null;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        var record = slots[(int) (sequence & mask)];
+        record.sequence = sequence;
+        return record;
+    }
+
+    /**
+     * Publishes a claimed record, then wakes the drainer if it is waiting.
+     * The drainer sets {@link #waiting} before checking the record again, so
+     * either it sees the record or the producer sees it waiting.
+     */
+    private void publish(LogRecord record) {
+        record.published = record.sequence;
+        if (waiting) {
+            waiting = false;
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private void drain() {
+        var reported = 0L;
+        var lastReport = System.nanoTime() - REPORT_INTERVAL_NANOS;
+        while (true) {
+            var sequence = head;
+            var record = slots[(int) (sequence & mask)];
+            if (record.published != sequence) {
+                if (!running) break;
+                var total = dropped.sum();
+                var sinceReport = System.nanoTime() - lastReport;
+                if (total != reported && sinceReport >= REPORT_INTERVAL_NANOS) {
+                    logger.warn("The event log was full, {} events were dropped", total - reported);
+                    reported = total;
+                    lastReport = System.nanoTime();
+                    sinceReport = 0;
+                }
+                waiting = true;
+                if (record.published != sequence && running) {
+                    if (total != reported) LockSupport.parkNanos(this, REPORT_INTERVAL_NANOS - sinceReport);
+                    else LockSupport.park(this);
+                }
+                waiting = false;
+                continue;
+            }
+            try {
+                sink.accept(record);
+            } catch (RuntimeException e) {
+                logger.warn("Could not log an event", e);
+            }
+            record.clear();
+            head = sequence + 1;
+        }
+        var total = dropped.sum();
+        if (total != reported) logger.warn("The event log was full, {} events were dropped", total - reported);
+    }
+
+    private static void write(LogRecord record) {
+        switch (record.type) {
+            case MESSAGE -> logger.info(record.detail);
+            case REGISTRATION -> logger.info("Registered new command (/{}) from {}", record.command, record.detail);
+            case HANDLER_REGISTRATION -> logger.info("New exception handler mapped from {}", record.detail);
+            case EXECUTION -> logger.info("User {} executed command /{} in guild {} ({}us)", record.userId,
+                    record.command, record.guildId, TimeUnit.NANOSECONDS.toMicros(record.nanos));
+            case DENIAL -> logger.info("User {} was denied command /{} in guild {}, missing permission {}",
+                    record.userId, record.command, record.guildId, record.detail);
+            case BUSY -> logger.info("Command /{} was too busy to be executed by user {}",
+                    record.command, record.userId);
+            case RATE_LIMITED -> logger.info("User {} was rate limited on command /{} in guild {}, retry in {}ms",
+                    record.userId, record.command, record.guildId, TimeUnit.NANOSECONDS.toMillis(record.nanos));
+            case WATCHDOG -> logger.info("Command /{} executed by user {} did not reply within {}ms, deferred the reply",
+                    record.command, record.userId, TimeUnit.NANOSECONDS.toMillis(record.nanos));
+            case SHED -> logger.info("Command /{} executed by user {} was shed under load, priority {}",
+                    record.command, record.userId, record.detail);
+            case EXCEPTION -> logger.info("Command /{} executed by user {} threw an exception ({})",
+                    record.command, record.userId, record.detail, record.error);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.maeves2.snowballnebula.logging;
+
+/**
+ * One preallocated slot of the {@link EventLog} ring buffer. Slots are
+ * reused, so all fields are mutable. A slot is owned by the producer which
+ * claimed its sequence until {@link #published} is set to that sequence,
+ * and by the drainer afterwards.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class LogRecord {
+    /**
+     * Sequence of the last record written to this slot, {@code -1} if none.
+     */
+    volatile long published = -1;
+    /**
+     * Sequence claimed by the producer currently writing this slot.
+     */
+    long sequence;
+    EventLog.Type type;
+    String command;
+    /**
+     * Message, source class or missing permission, depending on the type.
+     */
+    String detail;
+    long userId;
+    long guildId;
+    long nanos;
+    Throwable error;
+
+    /**
+     * Drops all references, so drained records don't keep objects alive.
+     */
+    void clear() {
+        command = null;
+        detail = null;
+        error = null;
+    }
+}
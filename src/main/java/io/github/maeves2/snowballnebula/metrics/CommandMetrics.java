@@ -0,0 +1,227 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one command, destined for internal use.
+ * All recording methods are lock-free, and the memory used by an instance is
+ * bounded: at most {@link #MAX_EXCEPTION_TYPES} exception types are counted
+ * separately, further types are counted as {@link #OTHER_EXCEPTIONS}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandMetrics implements CommandMetricsMXBean {
+    /**
+     * Maximum number of exception types counted separately.
+     */
+    public static final int MAX_EXCEPTION_TYPES = 32;
+    /**
+     * Key under which exceptions beyond {@link #MAX_EXCEPTION_TYPES} are counted.
+     */
+    public static final String OTHER_EXCEPTIONS = "other";
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder permissionDenials = new LongAdder();
+    private final LongAdder busyRejections = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder watchdogDeferrals = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder handlerHits = new LongAdder();
+    private final Map<Class<?>, LongAdder> exceptions = new ConcurrentHashMap<>();
+    private final LongAdder otherExceptions = new LongAdder();
+    private final LatencyHistogram lookup = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram permissionCheck = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final LatencyHistogram routing = new LatencyHistogram();
+
+    public CommandMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a received command, and the time it took to find it.
+     * @param lookupNanos Latency of the registry lookup
+     */
+    public void recordInvocation(long lookupNanos) {
+        invocations.increment();
+        lookup.record(lookupNanos);
+    }
+
+    /**
+     * @param nanos Latency of the permission check
+     * @param denied Whether the member lacked the permission
+     */
+    public void recordPermissionCheck(long nanos, boolean denied) {
+        permissionCheck.record(nanos);
+        if (denied) permissionDenials.increment();
+    }
+
+    public void recordBusyRejection() {
+        busyRejections.increment();
+    }
+
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    /**
+     * Records an execution which did not reply in time and was deferred by
+     * the reply watchdog.
+     */
+    public void recordWatchdogDeferral() {
+        watchdogDeferrals.increment();
+    }
+
+    /**
+     * Records an execution shed by the admission queue.
+     */
+    public void recordShed() {
+        shed.increment();
+    }
+
+    /**
+     * @param nanos Time an execution waited in the admission queue
+     */
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    /**
+     * @param nanos Latency of the command method, including exceptions it threw
+     */
+    public void recordExecution(long nanos) {
+        execution.record(nanos);
+    }
+
+    /**
+     * Records an exception thrown by the command method.
+     * @param exception The exception
+     * @param routingNanos Latency of finding the exception handler
+     * @param handled Whether an exception handler was found
+     */
+    public void recordException(Throwable exception, long routingNanos, boolean handled) {
+        var counter = exceptions.get(exception.getClass());
+        if (counter == null) {
+            counter = exceptions.size() < MAX_EXCEPTION_TYPES
+                    ? exceptions.computeIfAbsent(exception.getClass(), e -> new LongAdder())
+                    : otherExceptions;
+        }
+        counter.increment();
+        routing.record(routingNanos);
+        if (handled) handlerHits.increment();
+    }
+
+    /**
+     * @return A copy of the current values
+     */
+    public CommandSnapshot snapshot() {
+        return new CommandSnapshot(name, invocations.sum(), permissionDenials.sum(), busyRejections.sum(),
+                rateLimited.sum(), watchdogDeferrals.sum(), shed.sum(), getExceptionsByType(), handlerHits.sum(),
+                lookup.snapshot(), permissionCheck.snapshot(), queueWait.snapshot(), execution.snapshot(), routing.snapshot());
+    }
+
+    @Override
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    @Override
+    public long getPermissionDenials() {
+        return permissionDenials.sum();
+    }
+
+    @Override
+    public long getBusyRejections() {
+        return busyRejections.sum();
+    }
+
+    @Override
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    @Override
+    public long getWatchdogDeferrals() {
+        return watchdogDeferrals.sum();
+    }
+
+    @Override
+    public long getShed() {
+        return shed.sum();
+    }
+
+    @Override
+    public long getExceptions() {
+        var total = otherExceptions.sum();
+        for (var counter : exceptions.values()) total += counter.sum();
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getExceptionsByType() {
+        var byType = new LinkedHashMap<String, Long>();
+        exceptions.forEach((type, counter) -> byType.put(type.getName(), counter.sum()));
+        var other = otherExceptions.sum();
+        if (other > 0) byType.put(OTHER_EXCEPTIONS, other);
+        return byType;
+    }
+
+    @Override
+    public long getHandlerHits() {
+        return handlerHits.sum();
+    }
+
+    @Override
+    public long getLookupMeanMicros() {
+        return micros(lookup.snapshot().getMeanNanos());
+    }
+
+    @Override
+    public long getPermissionCheckMeanMicros() {
+        return micros(permissionCheck.snapshot().getMeanNanos());
+    }
+
+    @Override
+    public long getQueueWaitMeanMicros() {
+        return micros(queueWait.snapshot().getMeanNanos());
+    }
+
+    @Override
+    public long getQueueWaitP99Micros() {
+        return micros(queueWait.snapshot().getPercentileNanos(99));
+    }
+
+    @Override
+    public long getExecutionMeanMicros() {
+        return micros(execution.snapshot().getMeanNanos());
+    }
+
+    @Override
+    public long getExecutionP50Micros() {
+        return micros(execution.snapshot().getPercentileNanos(50));
+    }
+
+    @Override
+    public long getExecutionP99Micros() {
+        return micros(execution.snapshot().getPercentileNanos(99));
+    }
+
+    @Override
+    public long getRoutingMeanMicros() {
+        return micros(routing.snapshot().getMeanNanos());
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
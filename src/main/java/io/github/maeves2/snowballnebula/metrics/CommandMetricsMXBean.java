@@ -0,0 +1,46 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of one command, registered as
+ * {@code io.github.maeves2.snowballnebula:type=Command,name=<command>}.
+ * Latencies are in microseconds.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public interface CommandMetricsMXBean {
+    long getInvocations();
+
+    long getPermissionDenials();
+
+    long getBusyRejections();
+
+    long getRateLimited();
+
+    long getWatchdogDeferrals();
+
+    long getShed();
+
+    long getExceptions();
+
+    Map<String, Long> getExceptionsByType();
+
+    long getHandlerHits();
+
+    long getLookupMeanMicros();
+
+    long getPermissionCheckMeanMicros();
+
+    long getQueueWaitMeanMicros();
+
+    long getQueueWaitP99Micros();
+
+    long getExecutionMeanMicros();
+
+    long getExecutionP50Micros();
+
+    long getExecutionP99Micros();
+
+    long getRoutingMeanMicros();
+}
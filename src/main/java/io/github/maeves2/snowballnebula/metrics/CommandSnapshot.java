@@ -0,0 +1,147 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import java.util.Map;
+
+/**
+ * Immutable copy of the metrics of one command, part of a {@link MetricsSnapshot}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandSnapshot {
+    private final String name;
+    private final long invocations;
+    private final long permissionDenials;
+    private final long busyRejections;
+    private final long rateLimited;
+    private final long watchdogDeferrals;
+    private final long shed;
+    private final Map<String, Long> exceptionsByType;
+    private final long handlerHits;
+    private final HistogramSnapshot lookup;
+    private final HistogramSnapshot permissionCheck;
+    private final HistogramSnapshot queueWait;
+    private final HistogramSnapshot execution;
+    private final HistogramSnapshot routing;
+
+    public CommandSnapshot(String name, long invocations, long permissionDenials, long busyRejections,
+                           long rateLimited, long watchdogDeferrals, long shed, Map<String, Long> exceptionsByType,
+                           long handlerHits, HistogramSnapshot lookup, HistogramSnapshot permissionCheck,
+                           HistogramSnapshot queueWait, HistogramSnapshot execution, HistogramSnapshot routing) {
+        this.name = name;
+        this.invocations = invocations;
+        this.permissionDenials = permissionDenials;
+        this.busyRejections = busyRejections;
+        this.rateLimited = rateLimited;
+        this.watchdogDeferrals = watchdogDeferrals;
+        this.shed = shed;
+        this.exceptionsByType = Map.copyOf(exceptionsByType);
+        this.handlerHits = handlerHits;
+        this.lookup = lookup;
+        this.permissionCheck = permissionCheck;
+        this.queueWait = queueWait;
+        this.execution = execution;
+        this.routing = routing;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of times the command was received, including denied ones
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getPermissionDenials() {
+        return permissionDenials;
+    }
+
+    /**
+     * @return The number of executions rejected because the command or the
+     * dispatch executor was busy
+     */
+    public long getBusyRejections() {
+        return busyRejections;
+    }
+
+    /**
+     * @return The number of executions rejected by a rate limit
+     */
+    public long getRateLimited() {
+        return rateLimited;
+    }
+
+    /**
+     * @return The number of executions which did not reply in time and were
+     * deferred by the reply watchdog
+     */
+    public long getWatchdogDeferrals() {
+        return watchdogDeferrals;
+    }
+
+    /**
+     * @return The number of executions shed by the admission queue
+     */
+    public long getShed() {
+        return shed;
+    }
+
+    /**
+     * @return The number of exceptions thrown by the command
+     */
+    public long getExceptions() {
+        return exceptionsByType.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return The number of exceptions by class name
+     */
+    public Map<String, Long> getExceptionsByType() {
+        return exceptionsByType;
+    }
+
+    /**
+     * @return The number of exceptions for which an exception handler was found
+     */
+    public long getHandlerHits() {
+        return handlerHits;
+    }
+
+    public HistogramSnapshot getLookup() {
+        return lookup;
+    }
+
+    public HistogramSnapshot getPermissionCheck() {
+        return permissionCheck;
+    }
+
+    /**
+     * @return Times executions waited in the admission queue, {@code 0} for
+     * executions admitted at once
+     */
+    public HistogramSnapshot getQueueWait() {
+        return queueWait;
+    }
+
+    public HistogramSnapshot getExecution() {
+        return execution;
+    }
+
+    /**
+     * @return Latencies of finding the exception handler of thrown exceptions
+     */
+    public HistogramSnapshot getRouting() {
+        return routing;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandSnapshot{name=" + name + ", invocations=" + invocations
+                + ", permissionDenials=" + permissionDenials + ", busyRejections=" + busyRejections
+                + ", rateLimited=" + rateLimited + ", watchdogDeferrals=" + watchdogDeferrals + ", shed=" + shed
+                + ", exceptions=" + exceptionsByType + ", handlerHits=" + handlerHits
+                + ", execution=" + execution + "}";
+    }
+}
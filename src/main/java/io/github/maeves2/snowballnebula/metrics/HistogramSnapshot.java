@@ -0,0 +1,73 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}. Percentiles are reported as
+ * the upper bound of the bucket they fall into, so they are accurate within a
+ * factor of two.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class HistogramSnapshot {
+    private final long[] buckets;
+    private final long count;
+    private final long totalNanos;
+
+    public HistogramSnapshot(long[] buckets, long totalNanos) {
+        this.buckets = buckets.clone();
+        var count = 0L;
+        for (var bucket : buckets) count += bucket;
+        this.count = count;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * @return The number of recorded latencies
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return The average latency in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * @param percentile The percentile, between {@code 0} and {@code 100}
+     * @return Upper bound of the latency in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) return 0;
+        var rank = (long) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100);
+        var seen = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) return 1L << i;
+        }
+        return 1L << (buckets.length - 1);
+    }
+
+    /**
+     * @return The number of latencies below {@code 2^i} nanoseconds, for
+     * every bucket {@code i}
+     */
+    public long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{count=" + count
+                + ", mean=" + TimeUnit.NANOSECONDS.toMicros(getMeanNanos()) + "us"
+                + ", p50=" + TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(50)) + "us"
+                + ", p99=" + TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(99)) + "us}";
+    }
+}
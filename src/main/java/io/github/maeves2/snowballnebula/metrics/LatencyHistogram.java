@@ -0,0 +1,47 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with a fixed number of power of two buckets,
+ * so its memory does not grow with the number of recorded values. Bucket
+ * {@code i} counts latencies below {@code 2^i} nanoseconds, the last bucket
+ * also counts everything above. Recording only increments {@link LongAdder}s,
+ * which spread contention over several cells instead of making all threads
+ * compete for one counter.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class LatencyHistogram {
+    /**
+     * Number of buckets, the last one starts at about 4.6 minutes.
+     */
+    public static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records a latency.
+     * @param nanos The latency in nanoseconds, negative values count as zero
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1)].increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * @return A copy of the current values. Values recorded while the copy is
+     * taken may or may not be part of it.
+     */
+    public HistogramSnapshot snapshot() {
+        var counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) counts[i] = buckets[i].sum();
+        return new HistogramSnapshot(counts, totalNanos.sum());
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the {@link CommandMetrics} of every command, destined for internal
+ * use. Metrics are only created for registered commands, so the number of
+ * entries is bounded by the size of the command registry. If JMX is enabled,
+ * every {@link CommandMetrics} is registered as an MXBean named
+ * {@code io.github.maeves2.snowballnebula:type=Command,name=<command>}.
+ * @since 1.3.0
+ * @author MaeveS2
+ * @see io.github.maeves2.snowballnebula.SnowballNebula#enableMetrics(boolean)
+ */
+public class Metrics {
+    /**
+     * JMX domain of all MXBeans.
+     */
+    public static final String DOMAIN = "io.github.maeves2.snowballnebula";
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    private final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>();
+    private final LongAdder unknownCommands = new LongAdder();
+    private final boolean jmx;
+
+    /**
+     * @param jmx Whether the metrics of every command should be registered as MXBean
+     */
+    public Metrics(boolean jmx) {
+        this.jmx = jmx;
+    }
+
+    /**
+     * Returns the metrics of a command, creating them on first use.
+     * @param name The name of the command
+     * @return {@link CommandMetrics}
+     */
+    public CommandMetrics forCommand(String name) {
+        var metrics = commands.get(name);
+        return metrics != null ? metrics : commands.computeIfAbsent(name, this::create);
+    }
+
+    /**
+     * Records a command which was received but is not registered.
+     */
+    public void recordUnknownCommand() {
+        unknownCommands.increment();
+    }
+
+    /**
+     * @return A copy of the current values of all commands
+     */
+    public MetricsSnapshot snapshot() {
+        var snapshots = new TreeMap<String, CommandSnapshot>();
+        commands.forEach((name, metrics) -> snapshots.put(name, metrics.snapshot()));
+        return new MetricsSnapshot(snapshots, unknownCommands.sum());
+    }
+
+    /**
+     * Unregisters all MXBeans. Metrics recorded afterwards are no longer
+     * visible through JMX.
+     */
+    public void close() {
+        if (!jmx) return;
+        var server = ManagementFactory.getPlatformMBeanServer();
+        for (var name : commands.keySet()) {
+            try {
+                var objectName = objectName(name);
+                if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                logger.warn("Could not unregister the metrics of /{}", name, e);
+            }
+        }
+    }
+
+    private CommandMetrics create(String name) {
+        var metrics = new CommandMetrics(name);
+        if (jmx) {
+            try {
+                var server = ManagementFactory.getPlatformMBeanServer();
+                var objectName = objectName(name);
+                // a previous instance may still be registered, the latest one wins
+                if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+                server.registerMBean(metrics, objectName);
+            } catch (JMException e) {
+                logger.warn("Could not register the metrics of /{} with JMX", name, e);
+            }
+        }
+        return metrics;
+    }
+
+    private static ObjectName objectName(String command) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Command,name=" + ObjectName.quote(command));
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.maeves2.snowballnebula.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of the metrics of all commands, returned by
+ * {@link io.github.maeves2.snowballnebula.SnowballNebula#metrics()}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class MetricsSnapshot {
+    /**
+     * Snapshot returned while metrics are disabled.
+     */
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(Map.of(), 0);
+
+    private final SortedMap<String, CommandSnapshot> commands;
+    private final long unknownCommands;
+
+    public MetricsSnapshot(Map<String, CommandSnapshot> commands, long unknownCommands) {
+        this.commands = Collections.unmodifiableSortedMap(new TreeMap<>(commands));
+        this.unknownCommands = unknownCommands;
+    }
+
+    /**
+     * @return The snapshot of every command which was received at least once, by name
+     */
+    public SortedMap<String, CommandSnapshot> getCommands() {
+        return commands;
+    }
+
+    /**
+     * @param name The name of the command
+     * @return The snapshot of the command, {@code null} if it was never received
+     */
+    public CommandSnapshot getCommand(String name) {
+        return commands.get(name);
+    }
+
+    /**
+     * @return The number of received commands which were not registered
+     */
+    public long getUnknownCommands() {
+        return unknownCommands;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{commands=" + commands.values() + ", unknownCommands=" + unknownCommands + "}";
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free open addressing table from snowflake IDs to the
+ * state of a token bucket, destined for internal use. Keys and values are
+ * primitive longs stored in {@link AtomicLongArray}s, so lookups neither box
+ * nor allocate. Keys are never removed: the table is replaced as a whole
+ * once its entries expired, see {@link RateLimiter}.
+ * <p>
+ * A slot is claimed by setting its key to {@link #RESERVED}, then its value
+ * is written and only then its key is published. Nobody can find the key
+ * before its value, so a value moved from an older table cannot be
+ * overwritten by a concurrent request. Threads finding a reserved slot wait
+ * for the two writes to happen. A bucket moved into a newer table is
+ * {@link #MOVED marked} in the older one, so requests still working on the
+ * older table fail their compare-and-set and look the bucket up again.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class BucketTable {
+    /**
+     * Number of slots probed before the table is considered full.
+     */
+    private static final int MAX_PROBES = 16;
+    /**
+     * Marks a free slot, snowflakes are never zero.
+     */
+    static final long EMPTY = 0;
+    /**
+     * Marks a slot whose value is being written, never used as a key.
+     */
+    static final long RESERVED = Long.MIN_VALUE;
+    /**
+     * Value of a bucket which was moved to a newer table, never a valid state.
+     */
+    static final long MOVED = Long.MIN_VALUE;
+    /**
+     * Returned by {@link #findOrReserve(long)} if the table is full.
+     */
+    static final int FULL = Integer.MIN_VALUE;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray values;
+    private final int mask;
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * Time this table started receiving entries.
+     */
+    final long createdAt;
+
+    /**
+     * @param capacity Number of slots, a power of two
+     * @param createdAt Time this table starts receiving entries
+     */
+    BucketTable(int capacity, long createdAt) {
+        this.keys = new AtomicLongArray(capacity);
+        this.values = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.createdAt = createdAt;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @return The slot of the key, or {@code -1} if it is not in the table
+     */
+    int find(long key) {
+        var index = hash(key) & mask;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            var current = key(index);
+            if (current == key) return index;
+            if (current == EMPTY) return -1;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the key, or reserves a slot for it if it is not in
+     * the table yet. A reserved slot has to be passed to
+     * {@link #publish(int, long, long)} right away, other threads looking
+     * for the key wait until it is.
+     * @return The slot of the key, {@code ~slot} of the reserved slot, or
+     *         {@link #FULL} if the table is full
+     */
+    int findOrReserve(long key) {
+        var index = hash(key) & mask;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            var current = key(index);
+            if (current == EMPTY) {
+                if (keys.compareAndSet(index, EMPTY, RESERVED)) return ~index;
+                current = key(index);
+            }
+            if (current == key) return index;
+            index = (index + 1) & mask;
+        }
+        return FULL;
+    }
+
+    /**
+     * Writes the value of a reserved slot, then its key.
+     */
+    void publish(int slot, long key, long value) {
+        values.set(slot, value);
+        keys.set(slot, key);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Returns the slot of the key, inserting it with the given value if it is
+     * not in the table yet.
+     * @return The slot, or {@code -1} if the table is full
+     */
+    int findOrInsert(long key, long initialValue) {
+        var slot = findOrReserve(key);
+        if (slot == FULL) return -1;
+        if (slot >= 0) return slot;
+        publish(~slot, key, initialValue);
+        return ~slot;
+    }
+
+    /**
+     * Reads the key of a slot, waiting while the slot is being inserted.
+     */
+    private long key(int index) {
+        var key = keys.get(index);
+        while (key == RESERVED) {
+            Thread.onSpinWait();
+            key = keys.get(index);
+        }
+        return key;
+    }
+
+    long get(int slot) {
+        return values.get(slot);
+    }
+
+    boolean compareAndSet(int slot, long expected, long value) {
+        return values.compareAndSet(slot, expected, value);
+    }
+
+    /**
+     * Marks a bucket as moved to a newer table.
+     * @return The state of the bucket, or {@link #MOVED} if it was already moved
+     */
+    long moveOut(int slot) {
+        while (true) {
+            var value = values.get(slot);
+            if (value == MOVED || values.compareAndSet(slot, value, MOVED)) return value;
+        }
+    }
+
+    /**
+     * Adds to the state of a bucket, unless it was moved.
+     * @return Whether the bucket was updated
+     */
+    boolean add(int slot, long delta) {
+        while (true) {
+            var value = values.get(slot);
+            if (value == MOVED) return false;
+            if (values.compareAndSet(slot, value, value + delta)) return true;
+        }
+    }
+
+    /**
+     * Spreads the bits of a snowflake, whose low bits are mostly the same.
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
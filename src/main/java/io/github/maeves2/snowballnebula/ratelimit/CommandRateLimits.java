@@ -0,0 +1,54 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+import java.util.List;
+
+/**
+ * All rate limits of one command, destined for internal use. A request is
+ * only allowed if every limit has a token left, tokens taken from earlier
+ * limits are given back if a later one rejects the request.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandRateLimits {
+    private final RateLimiter[] limiters;
+
+    /**
+     * @param rules The rate limits of the command
+     * @param maxCapacity Maximum number of buckets per limit and generation
+     */
+    public CommandRateLimits(List<RateLimitRule> rules, int maxCapacity) {
+        this.limiters = rules.stream()
+                .map(rule -> new RateLimiter(rule, maxCapacity))
+                .toArray(RateLimiter[]::new);
+    }
+
+    /**
+     * Takes a token from every limit.
+     * @param userId ID of the user executing the command
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     * @return {@code 0} if the command may be executed, or the number of
+     * nanoseconds until it may be executed again
+     */
+    public long tryAcquire(long userId, long guildId) {
+        for (int i = 0; i < limiters.length; i++) {
+            var wait = limiters[i].tryAcquire(key(limiters[i], userId, guildId));
+            if (wait > 0) {
+                for (int j = 0; j < i; j++) limiters[j].release(key(limiters[j], userId, guildId));
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    public List<RateLimiter> getLimiters() {
+        return List.of(limiters);
+    }
+
+    private static long key(RateLimiter limiter, long userId, long guildId) {
+        return switch (limiter.getRule().getScope()) {
+            case USER -> userId;
+            case GUILD -> guildId;
+            case GLOBAL -> 0;
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limit of a command: at most {@code uses} executions
+ * per {@code period}, counted per {@link RateLimitScope}. Created from
+ * {@link io.github.maeves2.snowballnebula.commands.SlashCommand.RateLimit}
+ * annotations or by generated registries.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class RateLimitRule {
+    private final RateLimitScope scope;
+    private final int uses;
+    private final long period;
+    private final TimeUnit unit;
+
+    /**
+     * @param scope What the limit is counted per
+     * @param uses Number of executions allowed per period, also the largest burst
+     * @param period Length of the period
+     * @param unit Unit of the period
+     */
+    public RateLimitRule(RateLimitScope scope, int uses, long period, TimeUnit unit) {
+        if (uses < 1) throw new IllegalArgumentException("A rate limit must allow at least one use");
+        if (period < 1) throw new IllegalArgumentException("The period of a rate limit must be positive");
+        this.scope = scope;
+        this.uses = uses;
+        this.period = period;
+        this.unit = unit;
+    }
+
+    public RateLimitScope getScope() {
+        return scope;
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public TimeUnit getUnit() {
+        return unit;
+    }
+
+    public long getPeriodNanos() {
+        return unit.toNanos(period);
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitRule{" + uses + " per " + period + " " + unit.name().toLowerCase() + " per "
+                + scope.name().toLowerCase() + "}";
+    }
+}
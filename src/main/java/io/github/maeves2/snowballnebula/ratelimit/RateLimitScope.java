@@ -0,0 +1,22 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+/**
+ * What a rate limit of a command is counted per.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public enum RateLimitScope {
+    /**
+     * Every user has their own bucket.
+     */
+    USER,
+    /**
+     * Every guild has its own bucket, shared by all its members. Direct
+     * messages share one bucket.
+     */
+    GUILD,
+    /**
+     * One bucket shared by everyone.
+     */
+    GLOBAL
+}
@@ -0,0 +1,259 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token buckets of one {@link RateLimitRule}, one bucket per key.
+ * Buckets use the generic cell rate algorithm: the state of a bucket is a
+ * single long, the time at which it will be full again, so it can be
+ * updated with one compare-and-set.
+ * <p>
+ * Buckets are stored in two generations of {@link BucketTable}s. A bucket
+ * which was not used for a whole period is full again and does not need to
+ * be stored, so once the current generation is one period old it becomes
+ * the previous generation and the old previous generation is dropped.
+ * Buckets found in an older table are moved into the current one. The
+ * size of a new generation follows the number of buckets used in the last
+ * one, up to a maximum, so memory is bounded and idle commands use almost
+ * nothing. If the table of a generation fills up early, a table twice the
+ * size takes over and the full one is still searched until the generation
+ * is dropped, so no bucket is forgotten before its period ended. Once a
+ * table of the maximum size is full, keys whose bucket is in a full table of
+ * the current generation keep using it there, requests of keys without a
+ * bucket are rejected until the generation rotates and counted as
+ * {@link #getOverflows() overflows}, so limits keep applying under load.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class RateLimiter {
+    /**
+     * Size of the first table, and minimum size of every table.
+     */
+    static final int MIN_CAPACITY = 64;
+    /**
+     * Default maximum number of buckets per generation.
+     */
+    public static final int DEFAULT_MAX_CAPACITY = 1 << 16;
+
+    private final RateLimitRule rule;
+    /**
+     * Time between two requests of a full bucket, in nanoseconds.
+     */
+    private final long interval;
+    /**
+     * How far the full-again time may lie in the future before requests are
+     * rejected, in nanoseconds. Allows bursts of {@code uses} requests.
+     */
+    private final long tolerance;
+    private final long period;
+    private final int maxCapacity;
+    /**
+     * Origin of all timestamps, so that they are positive and zero means
+     * "full" in a fresh table.
+     */
+    private final long epoch = System.nanoTime() - 1;
+    private static final BucketTable[] NO_TABLES = {};
+
+    private final AtomicReference<Generations> generations;
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * @param rule The rule enforced by this limiter
+     * @param maxCapacity Maximum number of buckets per generation
+     */
+    public RateLimiter(RateLimitRule rule, int maxCapacity) {
+        this.rule = rule;
+        this.period = rule.getPeriodNanos();
+        this.interval = Math.max(1, period / rule.getUses());
+        this.tolerance = interval * (rule.getUses() - 1);
+        this.maxCapacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(maxCapacity));
+        this.generations = new AtomicReference<>(new Generations(new BucketTable(MIN_CAPACITY, 1), NO_TABLES, 1));
+    }
+
+    public RateLimitRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Takes a token from the bucket of a key.
+     * @param key The user or guild ID, ignored for global limits
+     * @return {@code 0} if a token was taken, or the number of nanoseconds
+     * until the next token is available
+     */
+    public long tryAcquire(long key) {
+        if (rule.getScope() == RateLimitScope.GLOBAL) key = 1;
+        else if (key == BucketTable.EMPTY) key = -1;
+        var now = System.nanoTime() - epoch;
+        while (true) {
+            var generations = rotateIfExpired(now);
+            var table = generations.current;
+            var slot = table.findOrReserve(key);
+            if (slot == BucketTable.FULL) {
+                if (table.capacity() < maxCapacity) {
+                    grow(generations, now);
+                    continue;
+                }
+                table = owner(generations, key);
+                if (table == null) {
+                    overflows.increment();
+                    return Math.max(interval, generations.startedAt + period - now);
+                }
+                slot = table.find(key);
+            } else if (slot < 0) {
+                slot = ~slot;
+                var state = moveIn(generations, key);
+                table.publish(slot, key, state);
+                if (state == BucketTable.MOVED || this.generations.get() != generations) continue;
+            }
+            var wait = take(table, slot, now);
+            if (wait >= 0) return wait;
+        }
+    }
+
+    /**
+     * Takes a token from a bucket.
+     * @return {@code 0} if a token was taken, the number of nanoseconds until
+     *         the next token is available, or {@code -1} if the bucket was moved
+     */
+    private long take(BucketTable table, int slot, long now) {
+        while (true) {
+            var full = table.get(slot);
+            if (full == BucketTable.MOVED) return -1;
+            var start = Math.max(full, now);
+            if (start - now > tolerance) return start - tolerance - now;
+            if (table.compareAndSet(slot, full, start + interval)) return 0;
+        }
+    }
+
+    /**
+     * Moves the bucket of a key out of the newest older table holding it,
+     * while a slot for it is reserved in the current table. Buckets which
+     * were already moved are skipped. If all of them were, another request
+     * moved the bucket to a table which is not in these generations yet.
+     * @return The state of the bucket, {@code 0} (full) if there is none, or
+     *         {@link BucketTable#MOVED} if the generations were replaced
+     */
+    private long moveIn(Generations generations, long key) {
+        while (true) {
+            var moved = false;
+            for (var table : generations.older) {
+                var slot = table.find(key);
+                if (slot < 0) continue;
+                var state = table.moveOut(slot);
+                if (state != BucketTable.MOVED) return state;
+                moved = true;
+            }
+            if (!moved) return 0;
+            if (this.generations.get() != generations) return BucketTable.MOVED;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Finds the full table of the current generation holding the bucket of a
+     * key, used once the current table cannot take more buckets.
+     * @return The table, {@code null} if the key has no bucket
+     */
+    private static BucketTable owner(Generations generations, long key) {
+        for (var table : generations.older) {
+            if (table.createdAt < generations.startedAt) return null;
+            var slot = table.find(key);
+            if (slot >= 0 && table.get(slot) != BucketTable.MOVED) return table;
+        }
+        return null;
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire(long)}, used when a
+     * later rate limit of the same command rejected the request.
+     * @param key The key passed to {@link #tryAcquire(long)}
+     */
+    public void release(long key) {
+        if (rule.getScope() == RateLimitScope.GLOBAL) key = 1;
+        else if (key == BucketTable.EMPTY) key = -1;
+        while (true) {
+            var generations = this.generations.get();
+            var table = generations.current;
+            var slot = table.find(key);
+            if (slot < 0) {
+                table = owner(generations, key);
+                if (table == null) return;
+                slot = table.find(key);
+            }
+            if (table.add(slot, -interval)) return;
+        }
+    }
+
+    /**
+     * @return The number of requests rejected because no bucket could be stored
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    /**
+     * @return The number of buckets in the current generation
+     */
+    public int size() {
+        var generations = this.generations.get();
+        var size = generations.current.size();
+        for (var table : generations.older)
+            if (table.createdAt >= generations.startedAt) size += table.size();
+        return size;
+    }
+
+    private Generations rotateIfExpired(long now) {
+        var generations = this.generations.get();
+        if (now - generations.startedAt < period) return generations;
+        return rotate(generations, now);
+    }
+
+    /**
+     * Starts a new generation, unless another thread already did. The tables
+     * of the current generation become the previous one, the tables of the
+     * previous generation are dropped. Unused tables are kept instead of
+     * being replaced by an empty one.
+     */
+    private Generations rotate(Generations expected, long now) {
+        var current = expected.current;
+        var kept = new ArrayList<BucketTable>();
+        kept.add(current);
+        var size = current.size();
+        for (var table : expected.older) {
+            if (table.createdAt < expected.startedAt) continue;
+            kept.add(table);
+            size += table.size();
+        }
+        Generations next;
+        if (size == 0) {
+            next = new Generations(new BucketTable(current.capacity(), now), NO_TABLES, now);
+        } else {
+            var capacity = Math.min(maxCapacity, Math.max(MIN_CAPACITY, Integer.highestOneBit(size) * 4));
+            next = new Generations(new BucketTable(capacity, now), kept.toArray(BucketTable[]::new), now);
+        }
+        return generations.compareAndSet(expected, next) ? next : generations.get();
+    }
+
+    /**
+     * Replaces a full table by one twice the size, unless another thread
+     * already did. The full table stays searchable.
+     */
+    private void grow(Generations expected, long now) {
+        var current = expected.current;
+        var older = new BucketTable[expected.older.length + 1];
+        older[0] = current;
+        System.arraycopy(expected.older, 0, older, 1, expected.older.length);
+        var capacity = Math.min(maxCapacity, current.capacity() * 2);
+        generations.compareAndSet(expected, new Generations(new BucketTable(capacity, now), older, expected.startedAt));
+    }
+
+    /**
+     * The current table and the older tables of the current and of the
+     * previous generation, newest first, replaced atomically.
+     * @param startedAt Time the current generation started
+     */
+    private record Generations(BucketTable current, BucketTable[] older, long startedAt) {
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.maeves2.snowballnebula.reply;
+
+/**
+ * A value which can be inserted into a {@link ReplyTemplate}. Placeholders
+ * whose value was not set are left in the reply as they are.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public enum Placeholder {
+    /**
+     * {@code $PERMISSION$}, the name of the missing permission in code
+     * formatting.
+     */
+    PERMISSION("$PERMISSION$"),
+    /**
+     * {@code $USER$}, a mention of the user who executed the command.
+     */
+    USER("$USER$"),
+    /**
+     * {@code $COMMAND$}, the path of the command in code formatting, for
+     * example {@code /admin ban}.
+     */
+    COMMAND("$COMMAND$"),
+    /**
+     * {@code $EXCEPTION$}, the message of the exception, or its simple class
+     * name if it has no message.
+     */
+    EXCEPTION("$EXCEPTION$"),
+    /**
+     * {@code $RETRY$}, the number of seconds until a rate limited command
+     * may be executed again.
+     */
+    RETRY("$RETRY$");
+
+    private static final Placeholder[] VALUES = values();
+
+    private final String token;
+
+    Placeholder(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return The token standing for this placeholder in a template
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the placeholder whose token starts at an index.
+     * @return {@link Placeholder}, {@code null} if no token starts there
+     */
+    static Placeholder at(String source, int index) {
+        for (var placeholder : VALUES)
+            if (source.startsWith(placeholder.token, index)) return placeholder;
+        return null;
+    }
+
+    /**
+     * Appends the value of this placeholder, or its token if the value is
+     * not set.
+     */
+    void append(StringBuilder builder, ReplyValues values) {
+        if (values == null) {
+            builder.append(token);
+            return;
+        }
+        switch (this) {
+            case PERMISSION -> {
+                if (values.getPermission() == null) builder.append(token);
+                else builder.append('`').append(values.getPermission().getName()).append('`');
+            }
+            case USER -> builder.append(values.getUser() == null ? token : values.getUser().getAsMention());
+            case COMMAND -> {
+                if (values.getCommand() == null) builder.append(token);
+                else builder.append("`/").append(values.getCommand()).append('`');
+            }
+            case EXCEPTION -> {
+                var exception = values.getException();
+                if (exception == null) builder.append(token);
+                else builder.append(exception.getMessage() == null ? exception.getClass().getSimpleName()
+                        : exception.getMessage());
+            }
+            case RETRY -> {
+                if (values.getRetry() < 0) builder.append(token);
+                else builder.append(values.getRetry());
+            }
+        }
+    }
+}
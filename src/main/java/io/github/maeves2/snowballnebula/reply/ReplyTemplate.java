@@ -0,0 +1,207 @@
+package io.github.maeves2.snowballnebula.reply;
+
+import net.dv8tion.jda.api.entities.EmbedType;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.awt.*;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A reply message compiled into a failure embed, like the ones built by
+ * {@link io.github.maeves2.snowballnebula.util.Utilities#failEmbed(String, boolean)}.
+ * The message is parsed once into literal segments and {@link Placeholder
+ * placeholders}, rendering only appends the values of the placeholders it
+ * uses. The embed of a template without placeholders and without timestamp
+ * is built once and returned every time, the author of a template without
+ * placeholders is built once and only the timestamp is filled in per reply.
+ * Templates are immutable and can be shared.
+ * <pre>{@code
+ * private static final ReplyTemplate BANNED = ReplyTemplate.compile("$USER$ is banned from $COMMAND$.");
+ *
+ * event.replyEmbeds(BANNED.toEmbed(ReplyValues.of(event))).queue();
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public final class ReplyTemplate {
+    /**
+     * Color of failure embeds, {@code #FF212D} (red).
+     */
+    public static final Color COLOR = new Color(0xFF212D);
+    /**
+     * Prepended to the message of every failure embed.
+     */
+    public static final String PREFIX = "\u274c";
+    private static final int COLOR_RAW = COLOR.getRGB();
+
+    private final String source;
+    private final boolean timestamp;
+    /**
+     * Literal segments, one more than there are placeholders. The
+     * placeholder {@code i} sits between literal {@code i} and {@code i + 1}.
+     */
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    /**
+     * Length of all literal segments, used to size the rendered message
+     */
+    private final int literalLength;
+    /**
+     * Author of the embed, {@code null} if the template has placeholders
+     */
+    private final MessageEmbed.AuthorInfo author;
+    /**
+     * The whole embed, {@code null} unless the template has neither
+     * placeholders nor a timestamp
+     */
+    private final MessageEmbed embed;
+
+    private ReplyTemplate(String source, boolean timestamp) {
+        this.source = source;
+        this.timestamp = timestamp;
+        var literals = new ArrayList<String>();
+        var placeholders = new ArrayList<Placeholder>();
+        var literal = new StringBuilder(PREFIX);
+        var index = 0;
+        while (index < source.length()) {
+            var placeholder = source.charAt(index) == '$' ? Placeholder.at(source, index) : null;
+            if (placeholder == null) {
+                literal.append(source.charAt(index++));
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            placeholders.add(placeholder);
+            index += placeholder.getToken().length();
+        }
+        literals.add(literal.toString());
+        this.literals = literals.toArray(String[]::new);
+        this.placeholders = placeholders.toArray(Placeholder[]::new);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+        if (placeholders.isEmpty()) {
+            if (literalLength > MessageEmbed.AUTHOR_MAX_LENGTH)
+                throw new IllegalArgumentException("Reply is longer than " + MessageEmbed.AUTHOR_MAX_LENGTH
+                        + " characters: " + source);
+            this.author = new MessageEmbed.AuthorInfo(this.literals[0], null, null, null);
+            this.embed = timestamp ? null : embed(author, null);
+        } else {
+            this.author = null;
+            this.embed = null;
+        }
+    }
+
+    /**
+     * Compiles a reply with a timestamp.
+     * @param source The message, may contain placeholders
+     * @return {@link ReplyTemplate}
+     * @throws IllegalArgumentException If the message has no placeholders
+     *         and is too long for an embed author
+     */
+    public static ReplyTemplate compile(String source) {
+        return compile(source, true);
+    }
+
+    /**
+     * Compiles a reply.
+     * @param source The message, may contain placeholders
+     * @param timestamp Whether the embed has a timestamp
+     * @return {@link ReplyTemplate}
+     * @throws IllegalArgumentException If the message has no placeholders
+     *         and is too long for an embed author
+     */
+    public static ReplyTemplate compile(String source, boolean timestamp) {
+        return new ReplyTemplate(Objects.requireNonNull(source, "source"), timestamp);
+    }
+
+    /**
+     * Renders the message, without the {@link #PREFIX}.
+     * @param values The values of the placeholders, {@code null} to leave
+     *               all placeholders as they are
+     * @return The message
+     */
+    public String format(ReplyValues values) {
+        return render(values).substring(PREFIX.length());
+    }
+
+    /**
+     * Renders the embed of a template which does not need any values, its
+     * placeholders are left as they are.
+     * @return {@link MessageEmbed}
+     */
+    public MessageEmbed toEmbed() {
+        return toEmbed(null);
+    }
+
+    /**
+     * Renders the embed. Messages longer than an embed author allows are cut.
+     * @param values The values of the placeholders, {@code null} to leave
+     *               all placeholders as they are
+     * @return {@link MessageEmbed}
+     */
+    public MessageEmbed toEmbed(ReplyValues values) {
+        if (embed != null) return embed;
+        var author = this.author;
+        if (author == null) {
+            var content = render(values);
+            if (content.length() > MessageEmbed.AUTHOR_MAX_LENGTH)
+                content = content.substring(0, MessageEmbed.AUTHOR_MAX_LENGTH - 1) + "\u2026";
+            author = new MessageEmbed.AuthorInfo(content, null, null, null);
+        }
+        return embed(author, timestamp ? OffsetDateTime.now(ZoneOffset.UTC) : null);
+    }
+
+    private String render(ReplyValues values) {
+        if (placeholders.length == 0) return literals[0];
+        var builder = new StringBuilder(literalLength + 16 * placeholders.length);
+        for (var i = 0; i < placeholders.length; i++) {
+            builder.append(literals[i]);
+            placeholders[i].append(builder, values);
+        }
+        return builder.append(literals[placeholders.length]).toString();
+    }
+
+    private static MessageEmbed embed(MessageEmbed.AuthorInfo author, OffsetDateTime timestamp) {
+        return new MessageEmbed(null, null, null, EmbedType.RICH, timestamp, COLOR_RAW,
+                null, null, author, null, null, null, List.of());
+    }
+
+    /**
+     * @return Whether the message has no placeholders
+     */
+    public boolean isStatic() {
+        return placeholders.length == 0;
+    }
+
+    /**
+     * @param placeholder The placeholder
+     * @return Whether the message contains the placeholder
+     */
+    public boolean uses(Placeholder placeholder) {
+        for (var used : placeholders)
+            if (used == placeholder) return true;
+        return false;
+    }
+
+    /**
+     * @return The message the template was compiled from
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return Whether the embed has a timestamp
+     */
+    public boolean hasTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplyTemplate{" + source + "}";
+    }
+}
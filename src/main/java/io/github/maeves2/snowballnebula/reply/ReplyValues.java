@@ -0,0 +1,84 @@
+package io.github.maeves2.snowballnebula.reply;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
+/**
+ * The values inserted into the {@link Placeholder placeholders} of a
+ * {@link ReplyTemplate} when it is rendered. Values are only converted to
+ * text if the template uses them.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ReplyValues {
+    private Permission permission;
+    private User user;
+    private String command;
+    private Throwable exception;
+    private long retry = -1;
+
+    /**
+     * Creates values with the user and the command path of an event.
+     * @param event The event
+     * @return {@link ReplyValues}
+     */
+    public static ReplyValues of(SlashCommandEvent event) {
+        return new ReplyValues()
+                .setUser(event.getUser())
+                .setCommand(event.getCommandPath().replace('/', ' '));
+    }
+
+    public Permission getPermission() {
+        return permission;
+    }
+
+    public ReplyValues setPermission(Permission permission) {
+        this.permission = permission;
+        return this;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public ReplyValues setUser(User user) {
+        this.user = user;
+        return this;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * @param command Path of the command as shown in the discord client, for
+     *                example {@code admin ban}
+     * @return {@link ReplyValues} for chaining convenience
+     */
+    public ReplyValues setCommand(String command) {
+        this.command = command;
+        return this;
+    }
+
+    public Throwable getException() {
+        return exception;
+    }
+
+    public ReplyValues setException(Throwable exception) {
+        this.exception = exception;
+        return this;
+    }
+
+    /**
+     * @return Seconds until the command may be executed again, {@code -1} if unset
+     */
+    public long getRetry() {
+        return retry;
+    }
+
+    public ReplyValues setRetry(long retry) {
+        this.retry = retry;
+        return this;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.maeves2.snowballnebula.scope;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides the instances of a {@link InstanceScope#GUILD} class, keyed by
+ * guild snowflake. Lookups are lock-free, an instance is constructed inside
+ * {@link ConcurrentHashMap#computeIfAbsent} so every guild gets exactly one.
+ * <p>
+ * Eviction uses the CLOCK algorithm like
+ * {@link io.github.maeves2.snowballnebula.cache.ResultCache}: every instance
+ * sits in a queue and is marked when it is acquired. When too many instances
+ * are kept, instances are taken from the head of the queue, marked ones are
+ * unmarked and put back at the tail, the first unmarked one is evicted. An
+ * execution still using an evicted instance finishes on it, the next
+ * execution in that guild gets a new one.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class GuildProvider extends InstanceProvider {
+    /**
+     * Estimated heap used per guild besides the instance: the entry, its
+     * boxed key, its map node and its queue node.
+     */
+    private static final int ENTRY_OVERHEAD = 104;
+
+    private final int maxInstances;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * CLOCK queue. May contain entries which were already evicted, they are
+     * skipped and its length is bounded by {@code queued}.
+     */
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder evictions = new LongAdder();
+
+    GuildProvider(Class<?> type, int maxInstances) {
+        super(type);
+        this.maxInstances = maxInstances;
+    }
+
+    @Override
+    public Object acquire(long guildId) {
+        var entry = entries.get(guildId);
+        if (entry == null) {
+            var constructed = new Entry[1];
+            entry = entries.computeIfAbsent(guildId, id -> constructed[0] = new Entry(id, construct()));
+            if (entry == constructed[0]) insert(entry);
+        }
+        if (!entry.referenced) entry.referenced = true;
+        return entry.instance;
+    }
+
+    private void insert(Entry entry) {
+        clock.offer(entry);
+        queued.incrementAndGet();
+        evict();
+    }
+
+    /**
+     * Runs the CLOCK hand until few enough instances are kept.
+     */
+    private void evict() {
+        while (true) {
+            var full = entries.size() > maxInstances;
+            if (!full && queued.get() <= 2 * maxInstances) return;
+            var entry = clock.poll();
+            if (entry == null) return;
+            queued.decrementAndGet();
+            if (entries.get(entry.guildId) != entry) continue;
+            if (!full || entry.referenced) {
+                if (full) entry.referenced = false;
+                clock.offer(entry);
+                queued.incrementAndGet();
+            } else if (entries.remove(entry.guildId, entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public InstanceScope getScope() {
+        return InstanceScope.GUILD;
+    }
+
+    @Override
+    public ScopeStats stats() {
+        var size = entries.size();
+        return new ScopeStats(getType().getName(), InstanceScope.GUILD, size, created.sum(), evictions.sum(),
+                size * (instanceBytes + ENTRY_OVERHEAD));
+    }
+
+    private static final class Entry {
+        private final long guildId;
+        private final Object instance;
+        private volatile boolean referenced;
+
+        private Entry(long guildId, Object instance) {
+            this.guildId = guildId;
+            this.instance = instance;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.maeves2.snowballnebula.scope;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides the instances of a class with non-static handlers, destined for
+ * internal use. One provider is shared by all commands, exception handlers
+ * and autocomplete handlers of a registered class, so they see the same
+ * instances. Every {@link #acquire(long)} has to be followed by
+ * {@link #release(Object)} once the handler returned. Looking up an existing
+ * instance is lock-free, only constructing one may block.
+ * @since 1.3.0
+ * @author MaeveS2
+ * @see Scoped
+ */
+public abstract class InstanceProvider {
+    /**
+     * Default value of {@link Scoped#maxInstances()}.
+     */
+    public static final int DEFAULT_MAX_INSTANCES = 1024;
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    /**
+     * Estimated shallow size of an instance.
+     */
+    final long instanceBytes;
+    final LongAdder created = new LongAdder();
+
+    /**
+     * @param type The class
+     * @throws IllegalArgumentException If the class cannot be constructed
+     */
+    InstanceProvider(Class<?> type) {
+        this.type = type;
+        this.constructor = constructor(type);
+        this.instanceBytes = shallowSize(type);
+    }
+
+    /**
+     * Creates the provider of a class, using the scope declared by its
+     * {@link Scoped} annotation.
+     * @param type The class
+     * @return {@link InstanceProvider}
+     * @throws IllegalArgumentException If the class cannot be constructed
+     */
+    public static InstanceProvider of(Class<?> type) {
+        var scoped = type.getAnnotation(Scoped.class);
+        if (scoped == null) return of(type, InstanceScope.SINGLETON, DEFAULT_MAX_INSTANCES);
+        return of(type, scoped.value(), scoped.maxInstances());
+    }
+
+    /**
+     * Creates the provider of a class.
+     * @param type The class
+     * @param scope Which instance handlers are invoked on
+     * @param maxInstances The maximum number of kept instances, ignored for singletons
+     * @return {@link InstanceProvider}
+     * @throws IllegalArgumentException If the class cannot be constructed
+     */
+    public static InstanceProvider of(Class<?> type, InstanceScope scope, int maxInstances) {
+        if (scope != InstanceScope.SINGLETON && maxInstances < 1)
+            throw new IllegalArgumentException("Scoped class " + type.getName() + " must keep at least one instance");
+        return switch (scope) {
+            case SINGLETON -> new SingletonProvider(type);
+            case GUILD -> new GuildProvider(type, maxInstances);
+            case POOLED -> new PooledProvider(type, maxInstances);
+        };
+    }
+
+    /**
+     * Returns an instance to invoke a handler on.
+     * @param guildId ID of the guild of the execution, {@code 0} in direct messages
+     * @return The instance
+     * @throws IllegalStateException If the constructor of the class threw a
+     *         checked exception, unchecked ones are rethrown as they are
+     */
+    public abstract Object acquire(long guildId);
+
+    /**
+     * Hands back an instance returned by {@link #acquire(long)}.
+     * @param instance The instance
+     */
+    public void release(Object instance) {
+    }
+
+    /**
+     * @return The scope of the class
+     */
+    public abstract InstanceScope getScope();
+
+    /**
+     * @return The class whose instances are provided
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return {@link ScopeStats}
+     */
+    public abstract ScopeStats stats();
+
+    /**
+     * Constructs an instance of the class.
+     */
+    Object construct() {
+        try {
+            var instance = (Object) constructor.invokeExact();
+            created.increment();
+            return instance;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not construct " + type.getName(), e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            throw new IllegalArgumentException("Class " + type.getName() + " declares non-static handlers "
+                    + "but cannot be instantiated");
+        if (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()))
+            throw new IllegalArgumentException("Class " + type.getName() + " declares non-static handlers "
+                    + "but is an inner class, make it static");
+        try {
+            var constructor = type.getDeclaredConstructor();
+            constructor.trySetAccessible();
+            return LOOKUP.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Class " + type.getName() + " declares non-static handlers "
+                    + "but has no accessible no-argument constructor", e);
+        }
+    }
+
+    /**
+     * Roughly estimates the heap used by an instance of a class, assuming
+     * compressed object pointers. Objects referenced by its fields are not
+     * included.
+     */
+    static long shallowSize(Class<?> type) {
+        long size = 12;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (var field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+                var fieldType = field.getType();
+                if (fieldType == long.class || fieldType == double.class) size += 8;
+                else if (fieldType == byte.class || fieldType == boolean.class) size += 1;
+                else if (fieldType == short.class || fieldType == char.class) size += 2;
+                else size += 4;
+            }
+        }
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.maeves2.snowballnebula.scope;
+
+/**
+ * Which instance of a class the non-static commands, exception handlers and
+ * autocomplete handlers declared by it are invoked on.
+ * @since 1.3.0
+ * @author MaeveS2
+ * @see Scoped
+ */
+public enum InstanceScope {
+    /**
+     * The class is constructed once, when it is registered, and the instance
+     * is shared by all executions. Handlers have to be thread-safe if
+     * commands are dispatched asynchronously.
+     */
+    SINGLETON,
+    /**
+     * Every guild has its own instance, constructed when a command is first
+     * executed in the guild. Direct messages share one instance. Up to
+     * {@link Scoped#maxInstances()} instances are kept, the least recently
+     * used ones are evicted first. Executions in the same guild share the
+     * instance.
+     */
+    GUILD,
+    /**
+     * Every execution gets an instance nobody else is using, taken from a
+     * pool or constructed if the pool is empty. Up to
+     * {@link Scoped#maxInstances()} idle instances are kept for reuse, which
+     * should be at least the number of dispatch threads. Meant for handlers
+     * which are not thread-safe.
+     */
+    POOLED
+}
@@ -0,0 +1,68 @@
+package io.github.maeves2.snowballnebula.scope;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides the instances of a {@link InstanceScope#POOLED} class. Idle
+ * instances are kept on a lock-free stack, so the most recently used one is
+ * handed out first while it is still in the CPU caches. If the stack is
+ * empty a new instance is constructed, released instances which do not fit
+ * into the pool anymore are dropped.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class PooledProvider extends InstanceProvider {
+    /**
+     * Estimated heap used per idle instance besides the instance: its node.
+     */
+    private static final int NODE_OVERHEAD = 24;
+
+    private final int maxIdle;
+    private final ConcurrentLinkedDeque<Object> idle = new ConcurrentLinkedDeque<>();
+    /**
+     * Number of idle instances, {@link ConcurrentLinkedDeque#size()} is not constant time.
+     */
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder evictions = new LongAdder();
+
+    PooledProvider(Class<?> type, int maxIdle) {
+        super(type);
+        this.maxIdle = maxIdle;
+    }
+
+    @Override
+    public Object acquire(long guildId) {
+        var instance = idle.pollFirst();
+        if (instance != null) idleCount.decrementAndGet();
+        else instance = construct();
+        inUse.incrementAndGet();
+        return instance;
+    }
+
+    @Override
+    public void release(Object instance) {
+        inUse.decrementAndGet();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offerFirst(instance);
+        } else {
+            idleCount.decrementAndGet();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public InstanceScope getScope() {
+        return InstanceScope.POOLED;
+    }
+
+    @Override
+    public ScopeStats stats() {
+        var idle = idleCount.get();
+        var instances = idle + inUse.get();
+        return new ScopeStats(getType().getName(), InstanceScope.POOLED, instances, created.sum(), evictions.sum(),
+                instances * instanceBytes + idle * NODE_OVERHEAD);
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.maeves2.snowballnebula.scope;
+
+/**
+ * Immutable copy of the statistics of one {@link InstanceProvider}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ScopeStats {
+    private final String type;
+    private final InstanceScope scope;
+    private final int instances;
+    private final long created;
+    private final long evictions;
+    private final long estimatedBytes;
+
+    public ScopeStats(String type, InstanceScope scope, int instances, long created, long evictions,
+                      long estimatedBytes) {
+        this.type = type;
+        this.scope = scope;
+        this.instances = instances;
+        this.created = created;
+        this.evictions = evictions;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * @return The name of the class
+     */
+    public String getType() {
+        return type;
+    }
+
+    public InstanceScope getScope() {
+        return scope;
+    }
+
+    /**
+     * @return The number of instances kept by the provider, including pooled
+     * instances which are in use
+     */
+    public int getInstances() {
+        return instances;
+    }
+
+    /**
+     * @return The number of instances constructed so far
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return The number of guild instances evicted, or of pooled instances
+     * dropped because the pool was full
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Roughly the heap used by the kept instances and their
+     * bookkeeping, without the objects referenced by the instances
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ScopeStats{type=" + type + ", scope=" + scope + ", instances=" + instances + ", created=" + created
+                + ", evictions=" + evictions + ", estimatedBytes=" + estimatedBytes + "}";
+    }
+}
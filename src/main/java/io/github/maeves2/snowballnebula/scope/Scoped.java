@@ -0,0 +1,50 @@
+package io.github.maeves2.snowballnebula.scope;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.SlashCommand;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@link InstanceScope} of a class whose commands are not
+ * static. Non-static methods annotated with {@link SlashCommand},
+ * {@link io.github.maeves2.snowballnebula.exception.ExceptionHandler} or
+ * {@link io.github.maeves2.snowballnebula.autocomplete.Autocomplete} are
+ * invoked on an instance created using the public no-argument constructor of
+ * the class. Classes without this annotation are singletons.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * @Scoped(value = InstanceScope.GUILD, maxInstances = 10_000)
+ * public class Quiz {
+ *     private final List<Question> asked = new ArrayList<>();
+ *
+ *     @SlashCommand(name = "quiz", desc = "Ask a question", options = {})
+ *     public void quiz(SlashCommandEvent event) {
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ * @see SnowballNebula#getScopeStats()
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Scoped {
+    /**
+     * Which instance handlers are invoked on, defaults to
+     * {@code InstanceScope.SINGLETON}.
+     * @return The scope of the class
+     */
+    InstanceScope value() default InstanceScope.SINGLETON;
+
+    /**
+     * The maximum number of guild instances, or of idle pooled instances,
+     * which are kept. Defaults to {@code 1024}, ignored for singletons.
+     * @return The maximum number of kept instances
+     */
+    int maxInstances() default InstanceProvider.DEFAULT_MAX_INSTANCES;
+}
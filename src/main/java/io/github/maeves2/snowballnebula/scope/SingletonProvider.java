@@ -0,0 +1,31 @@
+package io.github.maeves2.snowballnebula.scope;
+
+/**
+ * Provides the one instance of a {@link InstanceScope#SINGLETON} class,
+ * constructed when the provider is created.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class SingletonProvider extends InstanceProvider {
+    private final Object instance;
+
+    SingletonProvider(Class<?> type) {
+        super(type);
+        this.instance = construct();
+    }
+
+    @Override
+    public Object acquire(long guildId) {
+        return instance;
+    }
+
+    @Override
+    public InstanceScope getScope() {
+        return InstanceScope.SINGLETON;
+    }
+
+    @Override
+    public ScopeStats stats() {
+        return new ScopeStats(getType().getName(), InstanceScope.SINGLETON, 1, created.sum(), 0, instanceBytes);
+    }
+}
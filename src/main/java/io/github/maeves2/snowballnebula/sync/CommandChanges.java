@@ -0,0 +1,110 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Difference between two command sets, used to push only the commands which
+ * changed when commands are registered or removed at runtime. Added and
+ * changed commands are upserted one by one, removed commands are looked up
+ * by name and deleted, unchanged commands are not sent at all.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandChanges {
+    private final List<CommandData> upserts;
+    private final Set<String> removals;
+
+    public CommandChanges(List<CommandData> upserts, Set<String> removals) {
+        this.upserts = List.copyOf(upserts);
+        this.removals = Set.copyOf(removals);
+    }
+
+    /**
+     * Computes the changes between two command sets. Commands are compared
+     * using their {@link CommandFingerprints fingerprint}.
+     * @param before The commands before the change
+     * @param after The commands after the change
+     * @return {@link CommandChanges}
+     */
+    public static CommandChanges between(Collection<CommandData> before, Collection<CommandData> after) {
+        var old = new HashMap<String, CommandData>();
+        for (var command : before) old.put(command.getName(), command);
+        var upserts = new ArrayList<CommandData>();
+        for (var command : after) {
+            var previous = old.remove(command.getName());
+            if (previous == null || !CommandFingerprints.of(List.of(previous)).equals(CommandFingerprints.of(List.of(command))))
+                upserts.add(command);
+        }
+        return new CommandChanges(upserts, new TreeSet<>(old.keySet()));
+    }
+
+    /**
+     * @return The added and changed commands
+     */
+    public List<CommandData> getUpserts() {
+        return upserts;
+    }
+
+    /**
+     * @return The names of the removed commands
+     */
+    public Set<String> getRemovals() {
+        return removals;
+    }
+
+    public boolean isEmpty() {
+        return upserts.isEmpty() && removals.isEmpty();
+    }
+
+    /**
+     * Pushes the changes to the commands of a guild.
+     * @param guild The guild
+     * @return Future completing once every request succeeded
+     */
+    public CompletableFuture<Void> pushTo(Guild guild) {
+        return push(guild::upsertCommand, guild::retrieveCommands, guild::deleteCommandById);
+    }
+
+    /**
+     * Pushes the changes to the global commands.
+     * @param jda Any shard of the bot
+     * @return Future completing once every request succeeded
+     */
+    public CompletableFuture<Void> pushTo(JDA jda) {
+        return push(jda::upsertCommand, jda::retrieveCommands, jda::deleteCommandById);
+    }
+
+    private CompletableFuture<Void> push(Function<CommandData, RestAction<Command>> upsert,
+                                        Supplier<RestAction<List<Command>>> retrieve,
+                                        Function<String, RestAction<Void>> delete) {
+        var pending = new ArrayList<CompletableFuture<?>>();
+        for (var command : upserts) pending.add(upsert.apply(command).submit());
+        if (!removals.isEmpty()) {
+            pending.add(retrieve.get().submit().thenCompose(commands -> CompletableFuture.allOf(commands.stream()
+                    .filter(command -> removals.contains(command.getName()))
+                    .map(command -> delete.apply(command.getId()).submit())
+                    .toArray(CompletableFuture[]::new))));
+        }
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public String toString() {
+        return "CommandChanges{upserts=" + upserts.stream().map(CommandData::getName).toList()
+                + ", removals=" + removals + "}";
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent store of the fingerprints of the command sets last pushed to
+ * Discord, used to skip pushing command sets which did not change since the
+ * last startup. Fingerprints are kept per guild (keyed by the guild ID) and
+ * for the global commands (keyed by {@link #GLOBAL}).
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class CommandFingerprints {
+    /**
+     * Key of the fingerprint of the global commands.
+     */
+    public static final String GLOBAL = "global";
+    /**
+     * The file the fingerprints are stored in.
+     */
+    private final Path file;
+    /**
+     * Fingerprints of the last successfully pushed command sets.
+     */
+    private final Map<String, String> pushed = new ConcurrentHashMap<>();
+
+    private CommandFingerprints(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the fingerprints stored in a file. If the file does not exist yet,
+     * no fingerprints are loaded and it is created on the first {@link #save()}.
+     * @param file The file to load the fingerprints from
+     * @return {@link CommandFingerprints}
+     */
+    public static CommandFingerprints load(Path file) {
+        var fingerprints = new CommandFingerprints(file);
+        if (Files.exists(file)) {
+            var properties = new Properties();
+            try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            properties.forEach((key, value) -> fingerprints.pushed.put((String) key, (String) value));
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Computes the fingerprint of a set of commands. The fingerprint does not
+     * depend on the order of the commands or the order of keys in their
+     * serialized form.
+     * @param commands The commands
+     * @return Hex encoded SHA-256 hash
+     */
+    public static String of(Collection<CommandData> commands) {
+        var sorted = commands.stream()
+                .sorted(Comparator.comparing(CommandData::getName))
+                .map(e -> canonical(e.toData()))
+                .toList();
+        try {
+            var digest = MessageDigest.getInstance("SHA-256")
+                    .digest(sorted.toString().getBytes(StandardCharsets.UTF_8));
+            var hex = new StringBuilder(digest.length * 2);
+            for (var b : digest)
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Converts serialized command data into nested sorted maps and lists.
+     */
+    private static Object canonical(Object value) {
+        if (value instanceof DataObject object) {
+            return canonical(object.toMap());
+        } else if (value instanceof DataArray array) {
+            return canonical(array.toList());
+        } else if (value instanceof Map<?, ?> map) {
+            var sorted = new TreeMap<String, Object>();
+            map.forEach((key, entry) -> sorted.put(String.valueOf(key), canonical(entry)));
+            return sorted;
+        } else if (value instanceof List<?> list) {
+            return list.stream().map(CommandFingerprints::canonical).toList();
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether a command set was already pushed.
+     * @param key The guild ID, or {@link #GLOBAL}
+     * @param fingerprint The fingerprint of the command set
+     * @return Whether the command set with this fingerprint was the last one pushed
+     */
+    public boolean isUpToDate(String key, String fingerprint) {
+        return fingerprint.equals(pushed.get(key));
+    }
+
+    /**
+     * Records that a command set was pushed successfully.
+     * @param key The guild ID, or {@link #GLOBAL}
+     * @param fingerprint The fingerprint of the command set
+     */
+    public void update(String key, String fingerprint) {
+        pushed.put(key, fingerprint);
+    }
+
+    /**
+     * Forgets the fingerprint of a command set, so it is pushed again.
+     * @param key The guild ID, or {@link #GLOBAL}
+     */
+    public void invalidate(String key) {
+        pushed.remove(key);
+    }
+
+    /**
+     * Writes all fingerprints to the file. The file is replaced atomically,
+     * so a crash while saving never leaves a truncated file behind.
+     */
+    public synchronized void save() {
+        var properties = new Properties();
+        properties.putAll(pushed);
+        try {
+            var parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            var temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (var writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "SnowballNebula command fingerprints");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The file the fingerprints are stored in
+     */
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,450 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Persistent table of the commands which are turned on or off per guild,
+ * stored in a memory-mapped file. Commands are identified by their
+ * top-level name, aliases follow the command they belong to. Every command
+ * which was toggled once gets a number, every guild with toggled commands
+ * gets a row of two bitsets: which commands were toggled in the guild and
+ * whether they are enabled. Commands which were not toggled in a guild use
+ * their default, which is enabled unless changed using
+ * {@link #setEnabledByDefault(String, boolean)}.
+ * <p>
+ * Rows are kept in an open addressing table keyed by the guild snowflake,
+ * like the buckets of the rate limiter. Opening the table only maps the file
+ * and reads the command names, no row is parsed. {@link #isEnabled(long, String)}
+ * reads the mapped rows directly with volatile loads, so it neither locks nor
+ * allocates. Changes are serialized, written to the mapping and forced to
+ * disk. When the table gets too full, it is copied into a file twice the size
+ * which replaces the old one.
+ * <h2>File layout</h2>
+ * All numbers are little-endian. A header of 64 bytes (magic, version,
+ * capacity, number of rows, number of commands) is followed by
+ * {@value #MAX_COMMANDS} command names of 64 bytes each (length byte and
+ * UTF-8) and by the rows, each a guild ID and two bitsets of
+ * {@value #MAX_COMMANDS} bits.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class GuildCommandTable implements Closeable {
+    /**
+     * Maximum number of commands which can be toggled.
+     */
+    public static final int MAX_COMMANDS = 128;
+    /**
+     * The message executions of disabled commands are answered with.
+     */
+    public static final String DEFAULT_DISABLED_MESSAGE = "\u274c This command is disabled in this server.";
+    private static final int MAGIC = 0x534E4754;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int NAME_BYTES = 64;
+    private static final int ROWS_OFFSET = HEADER_BYTES + MAX_COMMANDS * NAME_BYTES;
+    private static final int WORDS = MAX_COMMANDS / 64;
+    /**
+     * Longs per row: the guild ID, the toggled bits and the enabled bits.
+     */
+    private static final int ROW_LONGS = 1 + 2 * WORDS;
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * Number of slots probed before the table is considered full.
+     */
+    private static final int MAX_PROBES = 16;
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path file;
+    private volatile Mapping mapping;
+    /**
+     * Numbers of the toggled commands, replaced as a whole when a command
+     * gets a number.
+     */
+    private volatile Map<String, Integer> ids;
+    private volatile Set<String> disabledByDefault = Set.of();
+
+    private GuildCommandTable(Path file, Mapping mapping, Map<String, Integer> ids) {
+        this.file = file;
+        this.mapping = mapping;
+        this.ids = ids;
+    }
+
+    /**
+     * Opens the table stored in a file, creating the file if it does not
+     * exist yet.
+     * @param file The file
+     * @return {@link GuildCommandTable}
+     * @throws UncheckedIOException If the file cannot be read or is not a table
+     */
+    public static GuildCommandTable open(Path file) {
+        try {
+            var mapping = Files.exists(file) && Files.size(file) > 0 ? Mapping.open(file)
+                    : Mapping.create(file, INITIAL_CAPACITY);
+            var ids = new HashMap<String, Integer>();
+            for (int id = 0; id < mapping.commandCount(); id++) ids.put(mapping.name(id), id);
+            return new GuildCommandTable(file, mapping, Map.copyOf(ids));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks whether a command is enabled in a guild.
+     * @param guildId ID of the guild, {@code 0} in direct messages where
+     *        only the defaults apply
+     * @param name Top-level name of the command
+     * @return Whether the command is enabled
+     */
+    public boolean isEnabled(long guildId, String name) {
+        var enabled = !disabledByDefault.contains(name);
+        var id = ids.get(name);
+        if (id == null || guildId == 0) return enabled;
+        var mapping = this.mapping;
+        var row = mapping.find(guildId);
+        if (row < 0) return enabled;
+        var word = id >>> 6;
+        var bit = 1L << id;
+        if ((mapping.get(row, 1 + word) & bit) == 0) return enabled;
+        return (mapping.get(row, 1 + WORDS + word) & bit) != 0;
+    }
+
+    /**
+     * Turns a command on or off in a guild.
+     * @param guildId ID of the guild
+     * @param name Top-level name of the command
+     * @param enabled Whether the command is enabled
+     * @return Whether the command was turned on or off by this call
+     * @throws IllegalArgumentException If the guild ID is not positive or the
+     *         name is longer than 63 bytes
+     * @throws IllegalStateException If {@value #MAX_COMMANDS} other commands
+     *         were already toggled
+     */
+    public synchronized boolean setEnabled(long guildId, String name, boolean enabled) {
+        if (guildId <= 0) throw new IllegalArgumentException("Commands can only be toggled in guilds");
+        var before = isEnabled(guildId, name);
+        var id = id(name);
+        var row = row(guildId);
+        var mapping = this.mapping;
+        var word = id >>> 6;
+        var bit = 1L << id;
+        var values = mapping.get(row, 1 + WORDS + word);
+        mapping.set(row, 1 + WORDS + word, enabled ? values | bit : values & ~bit);
+        mapping.set(row, 1 + word, mapping.get(row, 1 + word) | bit);
+        mapping.force();
+        return before != enabled;
+    }
+
+    /**
+     * Makes a command use its default in a guild again.
+     * @param guildId ID of the guild
+     * @param name Top-level name of the command
+     * @return Whether the command was turned on or off by this call
+     */
+    public synchronized boolean reset(long guildId, String name) {
+        var id = ids.get(name);
+        var mapping = this.mapping;
+        var row = id == null ? -1 : mapping.find(guildId);
+        if (row < 0) return false;
+        var before = isEnabled(guildId, name);
+        mapping.set(row, 1 + (id >>> 6), mapping.get(row, 1 + (id >>> 6)) & ~(1L << id));
+        mapping.force();
+        return before != isEnabled(guildId, name);
+    }
+
+    /**
+     * Sets whether a command is enabled in guilds where it was not toggled,
+     * for example to only enable premium commands in some guilds. Defaults
+     * are not stored in the table and have to be set on every startup.
+     * @param name Top-level name of the command
+     * @param enabled Whether the command is enabled by default
+     * @return {@link GuildCommandTable} for chaining convenience
+     */
+    public synchronized GuildCommandTable setEnabledByDefault(String name, boolean enabled) {
+        var disabled = new HashSet<>(disabledByDefault);
+        if (enabled) disabled.remove(name);
+        else disabled.add(name);
+        this.disabledByDefault = Set.copyOf(disabled);
+        return this;
+    }
+
+    /**
+     * Removes the commands which are disabled in a guild from a command set.
+     * @param guildId ID of the guild
+     * @param commands The data of all commands
+     * @return The data of the enabled commands, {@code commands} itself if
+     *         all of them are enabled
+     * @see #filter(long, List, UnaryOperator)
+     */
+    public List<CommandData> filter(long guildId, List<CommandData> commands) {
+        return filter(guildId, commands, UnaryOperator.identity());
+    }
+
+    /**
+     * Removes the commands which are disabled in a guild from a command set,
+     * including the aliases of disabled commands.
+     * @param guildId ID of the guild
+     * @param commands The data of all commands
+     * @param primaryName Maps the name of an alias to the name of its command,
+     *                    for example {@link io.github.maeves2.snowballnebula.commands.CommandRegistry#primaryName(String)}
+     * @return The data of the enabled commands, {@code commands} itself if
+     *         all of them are enabled
+     */
+    public List<CommandData> filter(long guildId, List<CommandData> commands, UnaryOperator<String> primaryName) {
+        List<CommandData> enabled = null;
+        for (int i = 0; i < commands.size(); i++) {
+            var command = commands.get(i);
+            if (isEnabled(guildId, primaryName.apply(command.getName()))) {
+                if (enabled != null) enabled.add(command);
+            } else if (enabled == null) {
+                enabled = new ArrayList<>(commands.subList(0, i));
+            }
+        }
+        return enabled == null ? commands : enabled;
+    }
+
+    /**
+     * @return The number of guilds with toggled commands
+     */
+    public int getGuildCount() {
+        return mapping.size();
+    }
+
+    /**
+     * @return The file the table is stored in
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Forces pending changes to disk and closes the file. The table must not
+     * be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            mapping.force();
+            mapping.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of a command, giving it the next one if it has none.
+     */
+    private int id(String name) {
+        var id = ids.get(name);
+        if (id != null) return id;
+        var bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NAME_BYTES)
+            throw new IllegalArgumentException("Command name " + name + " is too long to be toggled");
+        var mapping = this.mapping;
+        var count = mapping.commandCount();
+        if (count == MAX_COMMANDS)
+            throw new IllegalStateException("At most " + MAX_COMMANDS + " commands can be toggled");
+        mapping.setName(count, bytes);
+        mapping.buffer.putInt(16, count + 1);
+        var ids = new HashMap<>(this.ids);
+        ids.put(name, count);
+        this.ids = Map.copyOf(ids);
+        return count;
+    }
+
+    /**
+     * Returns the row of a guild, inserting it if the guild has none.
+     */
+    private int row(long guildId) {
+        var row = mapping.find(guildId);
+        if (row >= 0) return row;
+        if (2 * (mapping.size() + 1) > mapping.capacity || (row = mapping.insert(guildId)) < 0) {
+            grow();
+            row = mapping.insert(guildId);
+        }
+        return row;
+    }
+
+    /**
+     * Copies the table into a file twice the size which replaces the current
+     * one. Readers keep using the old mapping until the new one is published.
+     */
+    private void grow() {
+        var old = this.mapping;
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            var capacity = old.capacity;
+            Mapping grown;
+            while (true) {
+                capacity *= 2;
+                grown = Mapping.create(temporary, capacity);
+                grown.buffer.put(HEADER_BYTES, old.buffer, HEADER_BYTES, ROWS_OFFSET - HEADER_BYTES);
+                grown.buffer.putInt(16, old.commandCount());
+                if (grown.copyRows(old)) break;
+                grown.channel.close();
+            }
+            grown.force();
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.mapping = grown;
+            old.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A mapped table file.
+     */
+    private static final class Mapping {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final int mask;
+
+        private Mapping(FileChannel channel, int capacity) throws IOException {
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, ROWS_OFFSET + (long) capacity * ROW_LONGS * 8);
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+        }
+
+        static Mapping create(Path file, int capacity) throws IOException {
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var mapping = new Mapping(channel, capacity);
+            mapping.buffer.order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(0, MAGIC).putInt(4, VERSION).putInt(8, capacity).putInt(12, 0).putInt(16, 0);
+            return mapping;
+        }
+
+        static Mapping open(Path file) throws IOException {
+            var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                var header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(header, 0);
+                var capacity = header.getInt(8);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || Integer.bitCount(capacity) != 1
+                        || channel.size() < ROWS_OFFSET + (long) capacity * ROW_LONGS * 8)
+                    throw new IOException(file + " is not a guild command table");
+                var mapping = new Mapping(channel, capacity);
+                mapping.buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return mapping;
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        int size() {
+            return buffer.getInt(12);
+        }
+
+        int commandCount() {
+            return buffer.getInt(16);
+        }
+
+        String name(int id) {
+            var offset = HEADER_BYTES + id * NAME_BYTES;
+            var bytes = new byte[buffer.get(offset)];
+            buffer.get(offset + 1, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void setName(int id, byte[] bytes) {
+            var offset = HEADER_BYTES + id * NAME_BYTES;
+            buffer.put(offset, (byte) bytes.length);
+            buffer.put(offset + 1, bytes);
+        }
+
+        long get(int row, int index) {
+            return (long) LONGS.getVolatile(buffer, ROWS_OFFSET + (row * ROW_LONGS + index) * 8);
+        }
+
+        void set(int row, int index, long value) {
+            LONGS.setVolatile(buffer, ROWS_OFFSET + (row * ROW_LONGS + index) * 8, value);
+        }
+
+        /**
+         * @return The row of the guild, or {@code -1} if it has none
+         */
+        int find(long guildId) {
+            var row = hash(guildId) & mask;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                var key = get(row, 0);
+                if (key == guildId) return row;
+                if (key == 0) return -1;
+                row = (row + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Inserts an empty row. The guild ID is written last, so readers never
+         * see a row which is not cleared yet.
+         * @return The row, or {@code -1} if all probed rows are taken
+         */
+        int insert(long guildId) {
+            var row = hash(guildId) & mask;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                if (get(row, 0) == 0) {
+                    for (int j = 1; j < ROW_LONGS; j++) set(row, j, 0);
+                    set(row, 0, guildId);
+                    buffer.putInt(12, size() + 1);
+                    return row;
+                }
+                row = (row + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * @return Whether every row of the other table fit into this one
+         */
+        boolean copyRows(Mapping other) {
+            for (int row = 0; row < other.capacity; row++) {
+                var guildId = other.get(row, 0);
+                if (guildId == 0) continue;
+                var copy = insert(guildId);
+                if (copy < 0) return false;
+                for (int j = 1; j < ROW_LONGS; j++) set(copy, j, other.get(row, j));
+            }
+            return true;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        /**
+         * Spreads the bits of a snowflake, whose low bits are mostly the same.
+         */
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.entities.Guild;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pushes the commands of one guild to Discord, used by the
+ * {@link GuildRegistrationScheduler}. Keeping the REST call behind this
+ * interface lets the scheduler run against stubbed guilds without network access.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+@FunctionalInterface
+public interface GuildPush {
+    /**
+     * Starts pushing the commands of a guild.
+     * @param guild The guild
+     * @return A future completing once Discord accepted the commands, or
+     *         {@code null} if the guild does not have to be pushed
+     */
+    CompletableFuture<?> push(Guild guild);
+}
@@ -0,0 +1,270 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import io.github.maeves2.snowballnebula.util.DispatchExecutors;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.exceptions.RateLimitedException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes commands to many guilds while keeping a bounded number of requests
+ * in flight. Guilds are pushed in priority order (largest guilds first by
+ * default), rate limited and server side failures are retried with
+ * exponential backoff. Every call to {@link #schedule(Collection, GuildPush)}
+ * returns a future which completes with the result of every guild once all
+ * of them are done.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * var scheduler = new GuildRegistrationScheduler()
+ *                 .setMaxInFlight(8)
+ *                 .setPriority(Comparator.comparingLong(Guild::getIdLong));
+ * snowball.setRegistrationScheduler(scheduler)
+ *         .registerCommandsInGuilds()
+ *         .thenAccept(report -> System.out.println(report));
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class GuildRegistrationScheduler {
+    /**
+     * Orders guilds by member count, largest first.
+     */
+    public static final Comparator<Guild> LARGEST_FIRST =
+            Comparator.comparingInt(Guild::getMemberCount).reversed();
+    /**
+     * Upper bound of the delay between two attempts.
+     */
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private int maxInFlight = 4;
+    private int maxAttempts = 5;
+    private long backoffMillis = 1_000;
+    private Comparator<Guild> priority = LARGEST_FIRST;
+    private final ScheduledExecutorService retryExecutor;
+
+    /**
+     * Creates a scheduler with its own daemon thread for delayed retries.
+     */
+    public GuildRegistrationScheduler() {
+        this(Executors.newSingleThreadScheduledExecutor(
+                DispatchExecutors.daemonFactory("SnowballNebula-Registration")));
+    }
+
+    /**
+     * Creates a scheduler using the given executor for delayed retries.
+     * @param retryExecutor The executor retries are scheduled on
+     */
+    public GuildRegistrationScheduler(ScheduledExecutorService retryExecutor) {
+        this.retryExecutor = Objects.requireNonNull(retryExecutor);
+    }
+
+    /**
+     * Sets the maximum number of pushes in flight at the same time, defaults to {@code 4}.
+     * Guilds waiting for a retry keep their slot.
+     * @param maxInFlight The maximum number of concurrent pushes
+     * @return {@link GuildRegistrationScheduler} for chaining convenience
+     */
+    public GuildRegistrationScheduler setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be at least 1");
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of attempts per guild, defaults to {@code 5}.
+     * @param maxAttempts The maximum number of attempts
+     * @return {@link GuildRegistrationScheduler} for chaining convenience
+     */
+    public GuildRegistrationScheduler setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be at least 1");
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the delay before the first retry, defaults to one second. The delay
+     * doubles after every failed attempt.
+     * @param backoff The initial backoff
+     * @return {@link GuildRegistrationScheduler} for chaining convenience
+     */
+    public GuildRegistrationScheduler setBackoff(Duration backoff) {
+        this.backoffMillis = backoff.toMillis();
+        return this;
+    }
+
+    /**
+     * Sets the order guilds are pushed in, defaults to {@link #LARGEST_FIRST}.
+     * @param priority Comparator, guilds comparing lower are pushed first
+     * @return {@link GuildRegistrationScheduler} for chaining convenience
+     */
+    public GuildRegistrationScheduler setPriority(Comparator<Guild> priority) {
+        this.priority = Objects.requireNonNull(priority);
+        return this;
+    }
+
+    /**
+     * Pushes the commands of all guilds.
+     * @param guilds The guilds
+     * @param push Starts the push of a single guild
+     * @return Future completing with the results of all guilds
+     */
+    public CompletableFuture<RegistrationReport> schedule(Collection<Guild> guilds, GuildPush push) {
+        return new Run(guilds, push).start();
+    }
+
+    /**
+     * Checks whether a failed push is worth retrying: rate limits, server
+     * errors and I/O failures are, everything else is not.
+     * @param error The error of the failed attempt
+     * @return Whether to retry
+     */
+    protected boolean isRetryable(Throwable error) {
+        if (error instanceof RateLimitedException) return true;
+        if (error instanceof ErrorResponseException e) {
+            var response = e.getResponse();
+            return e.isServerError() || (response != null && (response.code == 429 || response.code >= 500));
+        }
+        return error instanceof IOException;
+    }
+
+    /**
+     * Computes the delay before the next attempt, with up to 20% of jitter.
+     * Honors the retry-after value of rate limited responses.
+     */
+    private long backoff(int attempt, Throwable error) {
+        var delay = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 16));
+        delay += ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+        if (error instanceof RateLimitedException e)
+            delay = Math.max(delay, e.getRetryAfter());
+        if (error instanceof ErrorResponseException e && e.getResponse() != null)
+            delay = Math.max(delay, e.getResponse().retryAfter);
+        return delay;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null)
+            error = error.getCause();
+        return error;
+    }
+
+    /**
+     * State of one call to {@link #schedule(Collection, GuildPush)}. Guilds
+     * are started by a single drain loop at a time: a push which completes
+     * right away only hands its slot back, the loop already running picks up
+     * the next guild. This keeps the stack flat no matter how many guilds
+     * complete inline.
+     */
+    private final class Run {
+        private final ConcurrentLinkedQueue<Guild> queue;
+        private final GuildPush push;
+        private final ConcurrentLinkedQueue<GuildResult> results = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger remaining;
+        /**
+         * Slots not held by a guild, every started guild holds one until it finished
+         */
+        private final AtomicInteger slots = new AtomicInteger(maxInFlight);
+        /**
+         * Number of drain requests, the thread which raises it from zero runs
+         * the loop until it drops back to zero
+         */
+        private final AtomicInteger drains = new AtomicInteger();
+        private final CompletableFuture<RegistrationReport> future = new CompletableFuture<>();
+        private final long start = System.nanoTime();
+
+        private Run(Collection<Guild> guilds, GuildPush push) {
+            var sorted = new ArrayList<>(guilds);
+            sorted.sort(priority);
+            this.queue = new ConcurrentLinkedQueue<>(sorted);
+            this.remaining = new AtomicInteger(sorted.size());
+            this.push = push;
+        }
+
+        private CompletableFuture<RegistrationReport> start() {
+            if (remaining.get() == 0) {
+                complete();
+            } else {
+                drain();
+            }
+            return future;
+        }
+
+        /**
+         * Starts queued guilds while slots are free. If another thread is
+         * already draining, it is told to loop once more instead.
+         */
+        private void drain() {
+            if (drains.getAndIncrement() != 0) return;
+            do {
+                Guild guild;
+                while (slots.get() > 0 && (guild = queue.poll()) != null) {
+                    slots.decrementAndGet();
+                    attempt(guild, 1);
+                }
+            } while (drains.decrementAndGet() != 0);
+        }
+
+        /**
+         * Starts an attempt of a guild holding a slot.
+         */
+        private void attempt(Guild guild, int attempt) {
+            CompletableFuture<?> pending;
+            try {
+                pending = push.push(guild);
+            } catch (RuntimeException e) {
+                pending = CompletableFuture.failedFuture(e);
+            }
+            if (pending == null) {
+                finish(new GuildResult(guild.getIdLong(), GuildResult.Status.SKIPPED, 0, null));
+                return;
+            }
+            pending.whenComplete((result, error) -> {
+                if (error == null) {
+                    finish(new GuildResult(guild.getIdLong(), GuildResult.Status.SUCCESS, attempt, null));
+                    return;
+                }
+                var cause = unwrap(error);
+                if (attempt < maxAttempts && isRetryable(cause)) {
+                    retryExecutor.schedule(() -> attempt(guild, attempt + 1),
+                            backoff(attempt, cause), TimeUnit.MILLISECONDS);
+                } else {
+                    finish(new GuildResult(guild.getIdLong(), GuildResult.Status.FAILED, attempt, cause));
+                }
+            });
+        }
+
+        /**
+         * Records the result of a guild and hands its slot back.
+         */
+        private void finish(GuildResult result) {
+            results.add(result);
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+                return;
+            }
+            slots.incrementAndGet();
+            drain();
+        }
+
+        private void complete() {
+            future.complete(new RegistrationReport(List.copyOf(results),
+                    Duration.ofNanos(System.nanoTime() - start)));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.maeves2.snowballnebula.sync;
+
+/**
+ * Outcome of pushing the commands of one guild, part of a {@link RegistrationReport}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class GuildResult {
+    /**
+     * Possible outcomes of a push.
+     */
+    public enum Status {
+        /**
+         * Discord accepted the commands.
+         */
+        SUCCESS,
+        /**
+         * The commands did not change, nothing was sent.
+         */
+        SKIPPED,
+        /**
+         * All attempts failed, see {@link GuildResult#getError()}.
+         */
+        FAILED
+    }
+
+    private final long guildId;
+    private final Status status;
+    private final int attempts;
+    private final Throwable error;
+
+    public GuildResult(long guildId, Status status, int attempts, Throwable error) {
+        this.guildId = guildId;
+        this.status = status;
+        this.attempts = attempts;
+        this.error = error;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The number of REST calls sent for this guild, {@code 0} if it was skipped
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return The error of the last attempt, {@code null} unless the status is {@link Status#FAILED}
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "GuildResult{guildId=" + guildId + ", status=" + status + ", attempts=" + attempts
+                + (error == null ? "" : ", error=" + error) + "}";
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of registering commands in a set of guilds using the
+ * {@link GuildRegistrationScheduler}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class RegistrationReport {
+    /**
+     * The results of every guild, in the order they completed.
+     */
+    private final List<GuildResult> results;
+    /**
+     * Time between scheduling the first push and the completion of the last one.
+     */
+    private final Duration elapsed;
+
+    public RegistrationReport(List<GuildResult> results, Duration elapsed) {
+        this.results = List.copyOf(results);
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Combines the reports of registrations which ran in parallel, for
+     * example one per shard.
+     * @param reports The reports
+     * @return A report containing all results, with the longest elapsed time
+     */
+    public static RegistrationReport merge(List<RegistrationReport> reports) {
+        var results = new ArrayList<GuildResult>();
+        var elapsed = Duration.ZERO;
+        for (var report : reports) {
+            results.addAll(report.results);
+            if (report.elapsed.compareTo(elapsed) > 0) elapsed = report.elapsed;
+        }
+        return new RegistrationReport(results, elapsed);
+    }
+
+    public List<GuildResult> getResults() {
+        return results;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @param status The status to count
+     * @return The number of guilds with this status
+     */
+    public int count(GuildResult.Status status) {
+        return (int) results.stream().filter(e -> e.getStatus() == status).count();
+    }
+
+    /**
+     * @return A {@link SyncReport} containing the number of pushed and skipped guilds
+     */
+    public SyncReport toSyncReport() {
+        var skipped = count(GuildResult.Status.SKIPPED);
+        return new SyncReport(results.size() - skipped, skipped);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrationReport{succeeded=" + count(GuildResult.Status.SUCCESS)
+                + ", skipped=" + count(GuildResult.Status.SKIPPED)
+                + ", failed=" + count(GuildResult.Status.FAILED)
+                + ", elapsed=" + elapsed.toMillis() + "ms}";
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.maeves2.snowballnebula.sync;
+
+/**
+ * Summary of one command synchronisation, returned by
+ * {@link io.github.maeves2.snowballnebula.SnowballNebula#getLastSyncReport()}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class SyncReport {
+    /**
+     * Number of REST calls which were sent.
+     */
+    private final int pushed;
+    /**
+     * Number of REST calls which were skipped because the command set did not change.
+     */
+    private final int skipped;
+
+    public SyncReport(int pushed, int skipped) {
+        this.pushed = pushed;
+        this.skipped = skipped;
+    }
+
+    public int getPushed() {
+        return pushed;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncReport{pushed=" + pushed + ", skipped=" + skipped + "}";
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.maeves2.snowballnebula.tracing;
+
+/**
+ * Stages of dispatching a command, every phase is exported as a child span
+ * of the {@link Trace} of the interaction. Phases which did not happen, like
+ * the exception routing of a command which did not throw, are not exported.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public enum Phase {
+    /**
+     * Resolving the command in the registry.
+     */
+    LOOKUP("lookup"),
+    /**
+     * Checking the permission of the member.
+     */
+    PERMISSION_CHECK("permission check"),
+    /**
+     * Waiting in the admission queue or for the dispatch executor.
+     */
+    QUEUE("queue"),
+    /**
+     * Running the command method.
+     */
+    EXECUTION("execution"),
+    /**
+     * Resolving and running the exception handler.
+     */
+    EXCEPTION_ROUTING("exception routing"),
+    /**
+     * From queueing the first reply until Discord acknowledged it.
+     */
+    REPLY("reply");
+
+    private final String spanName;
+
+    Phase(String spanName) {
+        this.spanName = spanName;
+    }
+
+    /**
+     * @return The name of the exported span
+     */
+    public String getSpanName() {
+        return spanName;
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.maeves2.snowballnebula.tracing;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Span file written by the {@link Tracer}, destined for internal use. Lines
+ * are appended to the file until it would exceed its maximum size, then it
+ * is rotated: {@code spans.json} becomes {@code spans.json.1}, which becomes
+ * {@code spans.json.2} and so on, the oldest file is deleted.
+ * Not thread-safe, only used by the exporter thread.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class SpanFile implements AutoCloseable {
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private OutputStream out;
+    private long size;
+
+    /**
+     * Opens a span file, appending to it if it exists.
+     * @param file The file
+     * @param maxBytes Size at which the file is rotated
+     * @param maxFiles Number of rotated files which are kept
+     */
+    SpanFile(Path file, long maxBytes, int maxFiles) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        open();
+    }
+
+    /**
+     * Appends a line, rotating the file first if it would grow too large.
+     * @param line The line, without line separator
+     */
+    void write(CharSequence line) throws IOException {
+        var bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (size > 0 && size + bytes.length > maxBytes) rotate();
+        out.write(bytes);
+        size += bytes.length;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        size = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        if (maxFiles == 0) {
+            Files.delete(file);
+        } else {
+            Files.deleteIfExists(rotated(maxFiles));
+            for (int i = maxFiles - 1; i > 0; i--) {
+                var source = rotated(i);
+                if (Files.exists(source)) Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
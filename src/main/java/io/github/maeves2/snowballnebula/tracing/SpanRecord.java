@@ -0,0 +1,73 @@
+package io.github.maeves2.snowballnebula.tracing;
+
+/**
+ * One preallocated slot of the {@link Tracer} ring buffer, holding a copy
+ * of a finished {@link Trace}. Slots are reused, so all fields are mutable.
+ * A slot is owned by the producer which claimed its sequence until
+ * {@link #published} is set to that sequence, and by the exporter afterwards.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class SpanRecord {
+    /**
+     * Sequence of the last record written to this slot, {@code -1} if none.
+     */
+    volatile long published = -1;
+    /**
+     * Sequence claimed by the producer currently writing this slot.
+     */
+    long sequence;
+    long traceIdHigh;
+    long traceIdLow;
+    long spanId;
+    /**
+     * Whether the trace was exported because it was slow rather than sampled.
+     */
+    boolean slow;
+    String command;
+    long userId;
+    long guildId;
+    String outcome;
+    Throwable error;
+    long start;
+    long end;
+    final long[] phaseStart = new long[Trace.PHASES.length];
+    final long[] phaseEnd = new long[Trace.PHASES.length];
+    final String[] spanNames = new String[Trace.MAX_SPANS];
+    final long[] spanStart = new long[Trace.MAX_SPANS];
+    final long[] spanEnd = new long[Trace.MAX_SPANS];
+    int spanCount;
+
+    /**
+     * Copies a finished trace into this slot.
+     */
+    void copy(Trace trace, boolean slow) {
+        traceIdHigh = trace.traceIdHigh;
+        traceIdLow = trace.traceIdLow;
+        spanId = trace.spanId;
+        this.slow = slow;
+        command = trace.command;
+        userId = trace.userId;
+        guildId = trace.guildId;
+        outcome = trace.outcome;
+        error = trace.error;
+        start = trace.start;
+        end = trace.end;
+        System.arraycopy(trace.phaseStart, 0, phaseStart, 0, phaseStart.length);
+        System.arraycopy(trace.phaseEnd, 0, phaseEnd, 0, phaseEnd.length);
+        spanCount = trace.spanCount();
+        System.arraycopy(trace.spanNames, 0, spanNames, 0, spanCount);
+        System.arraycopy(trace.spanStart, 0, spanStart, 0, spanCount);
+        System.arraycopy(trace.spanEnd, 0, spanEnd, 0, spanCount);
+    }
+
+    /**
+     * Drops all references, so exported records don't keep objects alive.
+     */
+    void clear() {
+        command = null;
+        outcome = null;
+        error = null;
+        for (int i = 0; i < spanCount; i++) spanNames[i] = null;
+    }
+}
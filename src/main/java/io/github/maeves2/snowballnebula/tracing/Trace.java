@@ -0,0 +1,275 @@
+package io.github.maeves2.snowballnebula.tracing;
+
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trace of a single interaction, created by the {@link Tracer} once the
+ * command was resolved. The framework records the start and end of every
+ * {@link Phase} into it, and the trace is handed to the tracer when the
+ * command finished and its first reply was acknowledged.
+ * <p>
+ * Command methods and exception handlers can get the trace of their
+ * interaction using {@link #current()}, or {@link #of(SlashCommandEvent)}
+ * from any thread, to log its {@link #getTraceId() trace ID}, to pass its
+ * {@link #getTraceparent() traceparent} on to other services or to record
+ * their own work as child spans:
+ * <pre>{@code
+ * try (var span = Trace.current().span("fetch leaderboard")) {
+ *     leaderboard = database.fetch(event.getGuild().getIdLong());
+ * }
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class Trace {
+    /**
+     * Maximum number of child spans a command can record, further spans are
+     * not exported.
+     */
+    public static final int MAX_SPANS = 8;
+    static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private final Tracer tracer;
+    final long traceIdHigh;
+    final long traceIdLow;
+    final long spanId;
+    final boolean sampled;
+    final String command;
+    final long userId;
+    final long guildId;
+    final long start;
+    /**
+     * Start and end of every phase, {@code 0} if it did not happen.
+     */
+    final long[] phaseStart = new long[PHASES.length];
+    final long[] phaseEnd = new long[PHASES.length];
+    final String[] spanNames = new String[MAX_SPANS];
+    final long[] spanStart = new long[MAX_SPANS];
+    final long[] spanEnd = new long[MAX_SPANS];
+    private final AtomicInteger spanCount = new AtomicInteger();
+    /**
+     * Number of parts which did not finish yet: the dispatch and, once
+     * queued, the first reply. The trace ends when both finished.
+     */
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final AtomicInteger replies = new AtomicInteger();
+    volatile String outcome;
+    volatile Throwable error;
+    volatile long end;
+
+    Trace(Tracer tracer, String command, long userId, long guildId, long start, boolean sampled) {
+        var random = ThreadLocalRandom.current();
+        this.tracer = tracer;
+        this.traceIdHigh = random.nextLong();
+        this.traceIdLow = random.nextLong() | 1;
+        this.spanId = random.nextLong() | 1;
+        this.command = command;
+        this.userId = userId;
+        this.guildId = guildId;
+        this.start = start;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Returns the trace of the interaction whose command method or exception
+     * handler runs on the current thread.
+     * @return {@link Trace}, {@code null} if none or if tracing is disabled
+     */
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the trace of an interaction.
+     * @param event The event passed to the command method or exception handler
+     * @return {@link Trace}, {@code null} if the interaction is not traced
+     */
+    public static Trace of(SlashCommandEvent event) {
+        return event instanceof TracedSlashCommandEvent traced ? traced.getTrace() : null;
+    }
+
+    /**
+     * Makes a trace the {@link #current()} trace of this thread, destined
+     * for internal use.
+     * @param trace The trace, may be {@code null}
+     * @return The previous trace, to be passed to {@link #exit(Trace)}
+     */
+    public static Trace enter(Trace trace) {
+        var previous = CURRENT.get();
+        CURRENT.set(trace);
+        return previous;
+    }
+
+    /**
+     * Restores the trace which was current before {@link #enter(Trace)}.
+     * @param previous The trace returned by {@link #enter(Trace)}
+     */
+    public static void exit(Trace previous) {
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+
+    /**
+     * @return The trace ID as 32 lowercase hex digits
+     */
+    public String getTraceId() {
+        return hex(traceIdHigh) + hex(traceIdLow);
+    }
+
+    /**
+     * @return The ID of the span of the interaction as 16 lowercase hex
+     *         digits, the parent of all phases and child spans
+     */
+    public String getSpanId() {
+        return hex(spanId);
+    }
+
+    /**
+     * @return The W3C {@code traceparent} header continuing this trace
+     */
+    public String getTraceparent() {
+        return "00-" + getTraceId() + "-" + getSpanId() + (sampled ? "-01" : "-00");
+    }
+
+    /**
+     * @return Whether the trace was sampled when the interaction was
+     *         received. Traces which are not sampled are still exported if
+     *         they turn out to be slow.
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * @return The path of the command, for example {@code admin ban}
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * Starts a child span of the interaction, which ends when it is closed.
+     * Spans which are not closed before the trace ends are not exported.
+     * @param name The name of the span
+     * @return {@link Span}
+     */
+    public Span span(String name) {
+        var index = spanCount.getAndIncrement();
+        if (index < MAX_SPANS) {
+            spanNames[index] = Objects.requireNonNull(name);
+            spanStart[index] = System.nanoTime();
+        }
+        return new Span(index);
+    }
+
+    /**
+     * Records the start of a phase, unless it was started already.
+     * @param phase The phase
+     */
+    public void begin(Phase phase) {
+        var i = phase.ordinal();
+        if (phaseStart[i] == 0) phaseStart[i] = System.nanoTime();
+    }
+
+    /**
+     * Records the end of a phase, unless it was not started or ended already.
+     * @param phase The phase
+     */
+    public void end(Phase phase) {
+        var i = phase.ordinal();
+        if (phaseStart[i] != 0 && phaseEnd[i] == 0) phaseEnd[i] = System.nanoTime();
+    }
+
+    /**
+     * Records the exception thrown by the command method.
+     * @param error The exception
+     */
+    public void fail(Throwable error) {
+        this.error = error;
+    }
+
+    /**
+     * Ends the dispatch of the interaction. The trace ends once the first
+     * reply, if one was queued, was acknowledged as well.
+     * @param outcome How the dispatch ended, for example {@code executed}
+     *        or {@code denied}, exported as attribute
+     */
+    public void complete(String outcome) {
+        this.outcome = outcome;
+        release();
+    }
+
+    /**
+     * Wraps an event, so that its first reply is recorded as the
+     * {@link Phase#REPLY} phase of this trace and so that the trace can be
+     * found using {@link #of(SlashCommandEvent)}.
+     * @param event The event
+     * @return {@link TracedSlashCommandEvent}
+     */
+    public SlashCommandEvent wrap(SlashCommandEvent event) {
+        return new TracedSlashCommandEvent(event, this);
+    }
+
+    /**
+     * Starts the reply phase when the first reply is queued.
+     * @return Whether the reply is the first one, whose acknowledgement
+     *         has to be passed to {@link #replied()}
+     */
+    boolean replying() {
+        if (replies.getAndIncrement() != 0) return false;
+        for (int count = pending.get(); count > 0; count = pending.get()) {
+            if (pending.compareAndSet(count, count + 1)) {
+                begin(Phase.REPLY);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends the reply phase once the first reply was acknowledged or failed.
+     */
+    void replied() {
+        end(Phase.REPLY);
+        release();
+    }
+
+    private void release() {
+        if (pending.decrementAndGet() != 0) return;
+        end = System.nanoTime();
+        tracer.finish(this);
+    }
+
+    int spanCount() {
+        return Math.min(spanCount.get(), MAX_SPANS);
+    }
+
+    private static String hex(long value) {
+        var digits = Long.toHexString(value);
+        return "0".repeat(16 - digits.length()) + digits;
+    }
+
+    /**
+     * Child span recorded by the command, see {@link Trace#span(String)}.
+     */
+    public class Span implements AutoCloseable {
+        private final int index;
+
+        private Span(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Ends the span, only the first call counts.
+         */
+        @Override
+        public void close() {
+            if (index < MAX_SPANS && spanEnd[index] == 0) spanEnd[index] = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.maeves2.snowballnebula.tracing;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyAction;
+import net.dv8tion.jda.internal.interactions.CommandInteractionImpl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Slash command event of a traced interaction, passed to the command method
+ * instead of the original event. Every reply goes through
+ * {@link #deferReply()}, whose reply action is wrapped so that queueing the
+ * first reply starts the {@link Phase#REPLY} phase and its acknowledgement
+ * ends it. Replies are otherwise passed through unchanged.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class TracedSlashCommandEvent extends SlashCommandEvent {
+    private final SlashCommandEvent event;
+    private final Trace trace;
+
+    TracedSlashCommandEvent(SlashCommandEvent event, Trace trace) {
+        super(event.getJDA(), event.getResponseNumber(), (CommandInteractionImpl) event.getInteraction());
+        this.event = event;
+        this.trace = trace;
+    }
+
+    /**
+     * @return The wrapped event
+     */
+    public SlashCommandEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * @return The trace of the interaction
+     */
+    public Trace getTrace() {
+        return trace;
+    }
+
+    @Override
+    public ReplyAction deferReply() {
+        var action = event.deferReply();
+        return (ReplyAction) Proxy.newProxyInstance(ReplyAction.class.getClassLoader(), new Class<?>[]{ReplyAction.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "queue":
+                            if (!trace.replying()) break;
+                            queue(action, args);
+                            return null;
+                        case "submit":
+                            if (!trace.replying()) break;
+                            var future = (CompletableFuture<?>) invoke(action, method, args);
+                            future.whenComplete((value, e) -> trace.replied());
+                            return future;
+                        case "complete":
+                            if (!trace.replying()) break;
+                            try {
+                                return invoke(action, method, args);
+                            } finally {
+                                trace.replied();
+                            }
+                    }
+                    var result = invoke(action, method, args);
+                    return result == action ? proxy : result;
+                });
+    }
+
+    /**
+     * Queues the first reply through {@link ReplyAction#submit()}, ending the
+     * reply phase before the callbacks run.
+     */
+    @SuppressWarnings("unchecked")
+    private void queue(ReplyAction action, Object[] args) {
+        var success = args != null && args.length > 0 ? (Consumer<Object>) args[0] : null;
+        var failure = args != null && args.length > 1 ? (Consumer<? super Throwable>) args[1] : null;
+        action.submit().whenComplete((hook, e) -> {
+            trace.replied();
+            if (e == null) {
+                if (success != null) success.accept(hook);
+                return;
+            }
+            var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Consumer<? super Throwable> handler = failure != null ? failure : RestAction.getDefaultFailure();
+            handler.accept(cause);
+        });
+    }
+
+    private static Object invoke(ReplyAction action, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(action, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return event.getName();
+    }
+
+    @Override
+    public String getSubcommandName() {
+        return event.getSubcommandName();
+    }
+
+    @Override
+    public String getSubcommandGroup() {
+        return event.getSubcommandGroup();
+    }
+
+    @Override
+    public String getCommandPath() {
+        return event.getCommandPath();
+    }
+
+    @Override
+    public List<OptionMapping> getOptions() {
+        return event.getOptions();
+    }
+
+    @Override
+    public User getUser() {
+        return event.getUser();
+    }
+
+    @Override
+    public Member getMember() {
+        return event.getMember();
+    }
+
+    @Override
+    public Guild getGuild() {
+        return event.getGuild();
+    }
+
+    @Override
+    public boolean isAcknowledged() {
+        return event.isAcknowledged();
+    }
+
+    @Override
+    public InteractionHook getHook() {
+        return event.getHook();
+    }
+}
@@ -0,0 +1,450 @@
+package io.github.maeves2.snowballnebula.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Traces interactions and exports them to a local span file. Every traced
+ * interaction is one {@link Trace}, exported as a span with a child span for
+ * every {@link Phase} it went through and for every span the command
+ * recorded itself. Finished traces are copied into a preallocated ring
+ * buffer without blocking, if the buffer is full the trace is dropped and
+ * counted. A background thread writes them to the span file and rotates it
+ * once it reaches its maximum size.
+ * <p>
+ * The span file contains one OTLP/JSON {@code ExportTraceServiceRequest}
+ * per line, the format of the OpenTelemetry collector's file exporter, so it
+ * can be read by its {@code otlpjsonfile} receiver and forwarded to any
+ * tracing backend.
+ * <p>
+ * Traces are sampled in two ways: a fraction of all interactions is sampled
+ * when they are received, and interactions which took longer than the slow
+ * threshold are exported no matter whether they were sampled. Every
+ * interaction is therefore timed, but only exported traces are serialized.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * snowball.enableTracing(new Tracer(Path.of("spans.json"))
+ *         .setSampleRate(0.01)
+ *         .setSlowThreshold(500, TimeUnit.MILLISECONDS));
+ * }</pre>
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class Tracer implements AutoCloseable {
+    /**
+     * Default number of slots in the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /**
+     * Default fraction of interactions which are sampled when received.
+     */
+    public static final double DEFAULT_SAMPLE_RATE = 0.1;
+    /**
+     * Default duration after which a trace is exported even if it was not
+     * sampled.
+     */
+    public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 1000;
+    /**
+     * Default size at which the span file is rotated, in bytes.
+     */
+    public static final long DEFAULT_MAX_FILE_SIZE = 64L << 20;
+    /**
+     * Default number of rotated span files which are kept.
+     */
+    public static final int DEFAULT_MAX_FILES = 4;
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+    /**
+     * Maximum number of traces written as one line.
+     */
+    private static final int BATCH_SIZE = 256;
+    /**
+     * Time the exporter sleeps when the buffer is empty.
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    /**
+     * Minimum time between two warnings about dropped traces or write errors.
+     */
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int SPAN_KIND_SERVER = 2;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private final Path path;
+    private final SpanFile file;
+    private final SpanRecord[] slots;
+    private final int mask;
+    /**
+     * Next sequence to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Next sequence to be exported, only written by the exporter.
+     */
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder exported = new LongAdder();
+    /**
+     * Difference between the epoch time in nanoseconds and {@link System#nanoTime()}.
+     */
+    private final long epochOffset;
+    private volatile double sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD_MILLIS);
+    private volatile String serviceName = "snowballnebula";
+    private volatile boolean running = true;
+    private final Thread exporter;
+
+    /**
+     * Creates a tracer with the default capacity and rotation.
+     * @param file The span file, appended to if it exists
+     * @throws UncheckedIOException If the span file cannot be opened
+     */
+    public Tracer(Path file) {
+        this(file, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_SIZE, DEFAULT_MAX_FILES);
+    }
+
+    /**
+     * Creates a tracer and starts its exporter thread.
+     * @param file The span file, appended to if it exists
+     * @param capacity Number of slots, rounded up to a power of two
+     * @param maxFileSize Size in bytes at which the span file is rotated
+     * @param maxFiles Number of rotated span files which are kept, {@code 0}
+     *        to discard the span file when it is full
+     * @throws UncheckedIOException If the span file cannot be opened
+     */
+    public Tracer(Path file, int capacity, long maxFileSize, int maxFiles) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        if (maxFileSize < 1) throw new IllegalArgumentException("maxFileSize must be positive");
+        if (maxFiles < 0) throw new IllegalArgumentException("maxFiles must not be negative");
+        this.path = Objects.requireNonNull(file);
+        try {
+            this.file = new SpanFile(file, maxFileSize, maxFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new SpanRecord[size];
+        for (int i = 0; i < size; i++) slots[i] = new SpanRecord();
+        this.mask = size - 1;
+        var now = Instant.now();
+        this.epochOffset = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano() - System.nanoTime();
+        this.exporter = new Thread(this::export, "snowballnebula-tracing");
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    /**
+     * Sets the fraction of interactions which are sampled when received.
+     * @param sampleRate Between {@code 0} (none) and {@code 1} (all)
+     * @return {@link Tracer} for chaining convenience
+     */
+    public Tracer setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1)
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1");
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Sets the duration, from the reception of an interaction until its
+     * command finished and its first reply was acknowledged, after which its
+     * trace is exported even if it was not sampled.
+     * @param threshold The threshold, {@code 0} to only export sampled traces
+     * @param unit Unit of {@code threshold}
+     * @return {@link Tracer} for chaining convenience
+     */
+    public Tracer setSlowThreshold(long threshold, TimeUnit unit) {
+        if (threshold < 0) throw new IllegalArgumentException("The threshold must not be negative");
+        this.slowThresholdNanos = unit.toNanos(threshold);
+        return this;
+    }
+
+    /**
+     * @return The slow threshold in nanoseconds, {@code 0} if disabled
+     */
+    public long getSlowThresholdNanos() {
+        return slowThresholdNanos;
+    }
+
+    /**
+     * @param serviceName The {@code service.name} of the exported spans,
+     *        defaults to {@code snowballnebula}
+     * @return {@link Tracer} for chaining convenience
+     */
+    public Tracer setServiceName(String serviceName) {
+        this.serviceName = Objects.requireNonNull(serviceName);
+        return this;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    /**
+     * @return The span file
+     */
+    public Path getFile() {
+        return path;
+    }
+
+    /**
+     * @return The number of traces dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return The number of traces written to the span file
+     */
+    public long getExported() {
+        return exported.sum();
+    }
+
+    /**
+     * Starts the trace of an interaction whose command was resolved,
+     * destined for internal use. The lookup is recorded as the first phase.
+     * @param command The path of the command
+     * @param userId ID of the user who executed the command
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     * @param received {@link System#nanoTime()} when the event was received
+     * @return {@link Trace}, {@code null} if neither sampling nor the slow
+     *         threshold could export it
+     */
+    public Trace start(String command, long userId, long guildId, long received) {
+        var rate = sampleRate;
+        if (rate <= 0 && slowThresholdNanos == 0) return null;
+        var sampled = rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+        var trace = new Trace(this, command, userId, guildId, received, sampled);
+        var lookup = Phase.LOOKUP.ordinal();
+        trace.phaseStart[lookup] = received;
+        trace.phaseEnd[lookup] = System.nanoTime();
+        return trace;
+    }
+
+    /**
+     * Copies a finished trace into the buffer if it is sampled or slow.
+     */
+    void finish(Trace trace) {
+        var threshold = slowThresholdNanos;
+        var slow = threshold > 0 && trace.end - trace.start >= threshold;
+        if (!trace.sampled && !slow) return;
+        var record = claim();
+        if (record == null) return;
+        record.copy(trace, !trace.sampled);
+        record.published = record.sequence;
+    }
+
+    /**
+     * Stops the exporter after it wrote all finished traces, and closes the
+     * span file.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(exporter);
+        try {
+            exporter.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims the next slot, or returns {@code null} if the buffer is full.
+     */
+    private SpanRecord claim() {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                dropped.increment();
+                return null;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        var record = slots[(int) (sequence & mask)];
+        record.sequence = sequence;
+        return record;
+    }
+
+    private void export() {
+        var json = new StringBuilder(64 * 1024);
+        var unflushed = false;
+        var reported = 0L;
+        var lastReport = System.nanoTime() - REPORT_INTERVAL_NANOS;
+        while (true) {
+            json.setLength(0);
+            var count = 0;
+            for (var sequence = head; count < BATCH_SIZE; sequence = head) {
+                var record = slots[(int) (sequence & mask)];
+                if (record.published != sequence) break;
+                if (count == 0) begin(json);
+                else json.append(',');
+                append(json, record);
+                record.clear();
+                head = sequence + 1;
+                count++;
+            }
+            if (count > 0) {
+                json.append("]}]}]}");
+                try {
+                    file.write(json);
+                    exported.add(count);
+                    unflushed = true;
+                } catch (IOException e) {
+                    if (System.nanoTime() - lastReport >= REPORT_INTERVAL_NANOS) {
+                        logger.warn("Could not write {} traces to {}", count, path, e);
+                        lastReport = System.nanoTime();
+                    }
+                }
+                continue;
+            }
+            if (unflushed) {
+                try {
+                    file.flush();
+                } catch (IOException e) {
+                    logger.warn("Could not write traces to {}", path, e);
+                }
+                unflushed = false;
+            }
+            if (!running) break;
+            var total = dropped.sum();
+            if (total != reported && System.nanoTime() - lastReport >= REPORT_INTERVAL_NANOS) {
+                logger.warn("The trace buffer was full, {} traces were dropped", total - reported);
+                reported = total;
+                lastReport = System.nanoTime();
+            }
+            LockSupport.parkNanos(this, IDLE_NANOS);
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            logger.warn("Could not close {}", path, e);
+        }
+    }
+
+    /**
+     * Starts an {@code ExportTraceServiceRequest} with one resource and scope.
+     */
+    private void begin(StringBuilder json) {
+        json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        attribute(json, "service.name", serviceName);
+        json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"io.github.maeves2.snowballnebula\"},\"spans\":[");
+    }
+
+    /**
+     * Appends the span of the interaction and its child spans.
+     */
+    private void append(StringBuilder json, SpanRecord record) {
+        var random = ThreadLocalRandom.current();
+        span(json, record, record.spanId, 0, "/" + record.command, SPAN_KIND_SERVER, record.start, record.end);
+        json.append(",\"attributes\":[");
+        attribute(json, "snowballnebula.command", record.command);
+        json.append(',');
+        attribute(json, "discord.user.id", Long.toUnsignedString(record.userId));
+        if (record.guildId != 0) {
+            json.append(',');
+            attribute(json, "discord.guild.id", Long.toUnsignedString(record.guildId));
+        }
+        if (record.outcome != null) {
+            json.append(',');
+            attribute(json, "snowballnebula.outcome", record.outcome);
+        }
+        json.append(',');
+        attribute(json, "snowballnebula.sampling", record.slow ? "slow" : "head");
+        json.append(']');
+        if (record.error != null) {
+            var routing = record.phaseStart[Phase.EXCEPTION_ROUTING.ordinal()];
+            json.append(",\"events\":[{\"timeUnixNano\":\"").append(epochOffset + (routing != 0 ? routing : record.end))
+                    .append("\",\"name\":\"exception\",\"attributes\":[");
+            attribute(json, "exception.type", record.error.getClass().getName());
+            if (record.error.getMessage() != null) {
+                json.append(',');
+                attribute(json, "exception.message", record.error.getMessage());
+            }
+            json.append("]}],\"status\":{\"code\":").append(STATUS_CODE_ERROR).append('}');
+        }
+        json.append('}');
+        for (var phase : Trace.PHASES) {
+            var i = phase.ordinal();
+            if (record.phaseStart[i] == 0 || record.phaseEnd[i] == 0) continue;
+            json.append(',');
+            span(json, record, random.nextLong() | 1, record.spanId, phase.getSpanName(), SPAN_KIND_INTERNAL,
+                    record.phaseStart[i], record.phaseEnd[i]);
+            json.append('}');
+        }
+        for (int i = 0; i < record.spanCount; i++) {
+            if (record.spanEnd[i] == 0) continue;
+            json.append(',');
+            span(json, record, random.nextLong() | 1, record.spanId, record.spanNames[i], SPAN_KIND_INTERNAL,
+                    record.spanStart[i], record.spanEnd[i]);
+            json.append('}');
+        }
+    }
+
+    /**
+     * Appends the fields every span has, leaving the span object open.
+     */
+    private void span(StringBuilder json, SpanRecord record, long spanId, long parentId, String name, int kind,
+                      long start, long end) {
+        json.append("{\"traceId\":\"");
+        hex(json, record.traceIdHigh);
+        hex(json, record.traceIdLow);
+        json.append("\",\"spanId\":\"");
+        hex(json, spanId);
+        if (parentId != 0) {
+            json.append("\",\"parentSpanId\":\"");
+            hex(json, parentId);
+        }
+        json.append("\",\"name\":");
+        string(json, name);
+        json.append(",\"kind\":").append(kind)
+                .append(",\"startTimeUnixNano\":\"").append(epochOffset + start)
+                .append("\",\"endTimeUnixNano\":\"").append(epochOffset + end).append('"');
+    }
+
+    private static void attribute(StringBuilder json, String key, String value) {
+        json.append("{\"key\":");
+        string(json, key);
+        json.append(",\"value\":{\"stringValue\":");
+        string(json, value);
+        json.append("}}");
+    }
+
+    private static void hex(StringBuilder json, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) json.append(Character.forDigit((int) (value >>> shift) & 0xF, 16));
+    }
+
+    private static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        json.append('"');
+    }
+}
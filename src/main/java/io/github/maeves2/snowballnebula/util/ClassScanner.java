@@ -0,0 +1,322 @@
+package io.github.maeves2.snowballnebula.util;
+
+import io.github.maeves2.snowballnebula.commands.AutoRegister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+/**
+ * Finds classes annotated with {@link AutoRegister} in a package and its
+ * subpackages, destined for internal use. Exploded directories and jar files
+ * are supported, jars are read through a zip {@link java.nio.file.FileSystem}.
+ * Class files are checked for the annotation by reading their bytes, so only
+ * annotated classes are ever loaded, and they are loaded without being
+ * initialized.
+ * <p>
+ * If an index file is given, the annotated classes found in every jar are
+ * stored in it, keyed by the checksum of the jar. As long as the jar does not
+ * change, the next startup reads the class names from the index instead of
+ * scanning the jar. Directories are always scanned.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ClassScanner {
+    /**
+     * Descriptor of the annotation, as it appears in the constant pool.
+     */
+    private static final String DESCRIPTOR = "L" + AutoRegister.class.getName().replace('.', '/') + ";";
+    private static final Logger logger = LoggerFactory.getLogger(ClassScanner.class);
+
+    private final ClassLoader loader;
+    private final Path indexFile;
+    private final Properties index = new Properties();
+
+    /**
+     * Creates a scanner.
+     * @param loader The class loader used to find and load classes
+     * @param indexFile The index file, or {@code null} to always scan
+     */
+    public ClassScanner(ClassLoader loader, Path indexFile) {
+        this.loader = loader;
+        this.indexFile = indexFile;
+        if (indexFile != null && Files.exists(indexFile)) {
+            try (var reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                index.load(reader);
+            } catch (IOException e) {
+                logger.warn("Could not read class index {}, scanning everything", indexFile, e);
+            }
+        }
+    }
+
+    /**
+     * Finds all classes annotated with {@link AutoRegister} in a package and
+     * its subpackages.
+     * @param targetPackage The package to be searched
+     * @return {@link Set} of all annotated classes, not initialized
+     */
+    public Set<Class<?>> findAnnotated(String targetPackage) {
+        var path = targetPackage.replace('.', '/');
+        var roots = roots(path);
+        var names = roots.parallelStream()
+                .flatMap(root -> scan(root, path).stream())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        saveIndex();
+        var classes = new LinkedHashSet<Class<?>>();
+        for (var name : names) {
+            try {
+                classes.add(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.warn("Could not load {}", name, e);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Returns every directory or jar containing the package. Falls back to the
+     * class path if the class loader does not list directory entries, which
+     * is the case for most shaded jars.
+     */
+    private List<Root> roots(String path) {
+        var roots = new LinkedHashSet<Root>();
+        try {
+            var resources = loader.getResources(path);
+            while (resources.hasMoreElements()) {
+                var root = root(resources.nextElement(), path);
+                if (root != null) roots.add(root);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (roots.isEmpty()) {
+            for (var entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                if (entry.isEmpty()) continue;
+                var file = Path.of(entry);
+                if (Files.isDirectory(file)) roots.add(new Root(file, false));
+                else if (Files.isRegularFile(file)) roots.add(new Root(file, true));
+            }
+        }
+        return new ArrayList<>(roots);
+    }
+
+    private Root root(URL url, String path) throws IOException {
+        try {
+            return switch (url.getProtocol()) {
+                case "file" -> {
+                    // the URL points to the package directory, go up to the class path entry
+                    var base = Path.of(url.toURI());
+                    for (var i = path.split("/").length; i > 0; i--) base = base.getParent();
+                    yield new Root(base, false);
+                }
+                case "jar" -> {
+                    var connection = (JarURLConnection) url.openConnection();
+                    connection.setUseCaches(false);
+                    yield new Root(Path.of(connection.getJarFileURL().toURI()), true);
+                }
+                default -> {
+                    logger.warn("Cannot scan {}, unsupported protocol", url);
+                    yield null;
+                }
+            };
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            logger.warn("Cannot scan {}", url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the names of all annotated classes in one root.
+     */
+    private List<String> scan(Root root, String path) {
+        try {
+            if (!root.jar())
+                return scanTree(root.file().resolve(path), root.file());
+            var key = root.file().toAbsolutePath() + "!" + path;
+            var checksum = checksum(root.file());
+            var cached = index.getProperty(key);
+            if (cached != null && cached.startsWith(checksum + ";")) {
+                var list = cached.substring(checksum.length() + 1);
+                return list.isEmpty() ? List.of() : List.of(list.split(","));
+            }
+            try (var fs = FileSystems.newFileSystem(root.file(), (ClassLoader) null)) {
+                var dir = fs.getPath("/" + path);
+                var names = Files.isDirectory(dir) ? scanTree(dir, fs.getPath("/")) : List.<String>of();
+                synchronized (index) {
+                    index.setProperty(key, checksum + ";" + String.join(",", names));
+                }
+                return names;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not scan {}", root.file(), e);
+            return List.of();
+        }
+    }
+
+    private List<String> scanTree(Path dir, Path base) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (var files = Files.walk(dir)) {
+            return files.filter(e -> e.toString().endsWith(".class"))
+                    .filter(e -> !e.getFileName().toString().equals("module-info.class"))
+                    .collect(Collectors.toList())
+                    .parallelStream()
+                    .filter(ClassScanner::isAnnotated)
+                    .map(e -> {
+                        var relative = base.relativize(e).toString().replace(e.getFileSystem().getSeparator(), "/");
+                        return relative.substring(0, relative.length() - ".class".length()).replace('/', '.');
+                    })
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isAnnotated(Path file) {
+        try (var in = Files.newInputStream(file)) {
+            return isAnnotated(in);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a class file is annotated with {@link AutoRegister},
+     * without loading it.
+     * @param classFile The content of the class file
+     * @return Whether the class is annotated
+     * @throws IOException If the class file is malformed
+     */
+    public static boolean isAnnotated(InputStream classFile) throws IOException {
+        var in = new DataInputStream(classFile);
+        if (in.readInt() != 0xCAFEBABE) return false;
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        var count = in.readUnsignedShort();
+        var utf8 = new String[count];
+        var found = false;
+        for (int i = 1; i < count; i++) {
+            var tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> {
+                    utf8[i] = in.readUTF();
+                    found |= utf8[i].equals(DESCRIPTOR);
+                }
+                case 7, 8, 16, 19, 20 -> in.skipNBytes(2);
+                case 15 -> in.skipNBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipNBytes(4);
+                case 5, 6 -> {
+                    in.skipNBytes(8);
+                    i++;
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        // the descriptor is not even referenced, no need to look any further
+        if (!found) return false;
+        in.skipNBytes(6);
+        in.skipNBytes(2L * in.readUnsignedShort());
+        skipMembers(in);
+        skipMembers(in);
+        var attributes = in.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            var name = utf8[in.readUnsignedShort()];
+            var length = in.readInt();
+            if (!"RuntimeVisibleAnnotations".equals(name)) {
+                in.skipNBytes(length);
+                continue;
+            }
+            var annotations = in.readUnsignedShort();
+            for (int j = 0; j < annotations; j++) {
+                if (DESCRIPTOR.equals(utf8[in.readUnsignedShort()])) return true;
+                skipElementValuePairs(in);
+            }
+        }
+        return false;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        var members = in.readUnsignedShort();
+        for (int i = 0; i < members; i++) {
+            in.skipNBytes(6);
+            var attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                in.skipNBytes(2);
+                in.skipNBytes(in.readInt());
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        var pairs = in.readUnsignedShort();
+        for (int i = 0; i < pairs; i++) {
+            in.skipNBytes(2);
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        var tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e' -> in.skipNBytes(4);
+            case '@' -> {
+                in.skipNBytes(2);
+                skipElementValuePairs(in);
+            }
+            case '[' -> {
+                var values = in.readUnsignedShort();
+                for (int i = 0; i < values; i++) skipElementValue(in);
+            }
+            default -> in.skipNBytes(2);
+        }
+    }
+
+    private static String checksum(Path file) throws IOException {
+        var crc = new CRC32C();
+        var buffer = new byte[1 << 16];
+        try (var in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) crc.update(buffer, 0, read);
+        }
+        return Long.toHexString(crc.getValue()) + "-" + Files.size(file);
+    }
+
+    private void saveIndex() {
+        if (indexFile == null) return;
+        try {
+            var parent = indexFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            var temp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+            synchronized (index) {
+                try (var writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    index.store(writer, "SnowballNebula class index");
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write class index {}", indexFile, e);
+        }
+    }
+
+    /**
+     * A directory or jar file on the class path.
+     */
+    private record Root(Path file, boolean jar) {
+    }
+}
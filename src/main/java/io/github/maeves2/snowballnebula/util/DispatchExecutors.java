@@ -0,0 +1,106 @@
+package io.github.maeves2.snowballnebula.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used for asynchronous command dispatch, destined for
+ * internal use. Please note that all methods in this class are static.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class DispatchExecutors {
+    /**
+     * Number of tasks the fallback pool buffers before the JDA event thread
+     * has to run commands itself.
+     */
+    private static final int QUEUE_CAPACITY = 10_000;
+    /**
+     * Threads per core of the fallback pool. Commands mostly wait for
+     * Discord, databases or other services, so one thread per core would
+     * leave the CPU idle while every thread is blocked.
+     */
+    public static final int THREADS_PER_CORE = 8;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private DispatchExecutors() {
+        throw new UnsupportedOperationException("No instances for you.");
+    }
+
+    /**
+     * Returns the default executor for asynchronous command dispatch. On JDK 21
+     * and newer this starts a new virtual thread per command, on older JDKs
+     * it falls back to {@link #newBoundedPool(int)} with
+     * {@value #THREADS_PER_CORE} threads per core, sized for commands which
+     * block on I/O.
+     * @return {@link ExecutorService}
+     * @see #newDefaultExecutor(int)
+     */
+    public static ExecutorService newDefaultExecutor() {
+        return newDefaultExecutor(Runtime.getRuntime().availableProcessors() * THREADS_PER_CORE);
+    }
+
+    /**
+     * Returns the default executor for asynchronous command dispatch. On JDK 21
+     * and newer this starts a new virtual thread per command, on older JDKs
+     * it falls back to {@link #newBoundedPool(int)} with the given number of
+     * threads.
+     * @param fallbackThreads The number of threads of the fallback pool, for
+     *                        example the number of commands which may wait
+     *                        for a database at once
+     * @return {@link ExecutorService}
+     */
+    public static ExecutorService newDefaultExecutor(int fallbackThreads) {
+        if (fallbackThreads < 1) throw new IllegalArgumentException("fallbackThreads must be positive");
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return newBoundedPool(fallbackThreads);
+        }
+    }
+
+    /**
+     * Creates a pool of up to {@code threads} daemon threads with a bounded
+     * queue. Threads which were idle for a minute are stopped.
+     * <p>
+     * When all threads are busy and the queue is full, the pool is saturated
+     * and the submitting thread runs the command itself
+     * ({@link ThreadPoolExecutor.CallerRunsPolicy}). The submitting thread is
+     * the JDA event thread, so until that command returns, the shard does
+     * not handle any other event, including other interactions. This slows
+     * down intake instead of dropping interactions. To answer excess
+     * commands with a "busy" reply instead, enable admission control, see
+     * {@link io.github.maeves2.snowballnebula.SnowballNebula#enableAdmissionControl(int, int)}.
+     * @param threads The maximum number of threads
+     * @return {@link ExecutorService}
+     */
+    public static ExecutorService newBoundedPool(int threads) {
+        var pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), daemonFactory("SnowballNebula-Dispatch"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Creates a {@link ThreadFactory} for named daemon threads.
+     * @param prefix The prefix of the thread names
+     * @return {@link ThreadFactory}
+     */
+    public static ThreadFactory daemonFactory(String prefix) {
+        var counter = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,285 @@
+package io.github.maeves2.snowballnebula.util;
+
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteEvent;
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteInvoker;
+import io.github.maeves2.snowballnebula.commands.CommandInvoker;
+import io.github.maeves2.snowballnebula.commands.OptionBinders;
+import io.github.maeves2.snowballnebula.exception.HandlerInvoker;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Creates {@link CommandInvoker}s, {@link HandlerInvoker}s and
+ * {@link AutocompleteInvoker}s for annotated methods, destined for internal
+ * use. Three strategies are tried in order (autocomplete handlers skip the
+ * first one):
+ * <li>A class spun by {@link LambdaMetafactory}, which calls the method directly
+ * and can be inlined by the JIT</li>
+ * <li>A {@link MethodHandle}, used when the method is not accessible from this
+ * library or its class is not visible from our class loader</li>
+ * <li>{@link Method#invoke(Object, Object...)}, if everything else failed</li>
+ * Exceptions thrown by the target method are never wrapped.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class Invokers {
+    /**
+     * Lookup used for all generated invokers.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    /**
+     * Erased type of all command invokers backed by a method handle.
+     */
+    private static final MethodType COMMAND_TYPE =
+            MethodType.methodType(Object.class, Object.class, SlashCommandEvent.class);
+    /**
+     * Erased type of all exception handler invokers backed by a method handle.
+     */
+    private static final MethodType HANDLER_TYPE =
+            MethodType.methodType(void.class, Object.class, Throwable.class, SlashCommandEvent.class);
+
+    /**
+     * Erased type of all autocomplete invokers backed by a method handle.
+     */
+    private static final MethodType AUTOCOMPLETE_TYPE =
+            MethodType.methodType(Object.class, Object.class, AutocompleteEvent.class);
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private Invokers() {
+        throw new UnsupportedOperationException("No instances for you.");
+    }
+
+    /**
+     * Creates an invoker for a method annotated with
+     * {@link io.github.maeves2.snowballnebula.commands.SlashCommand}.
+     * @param method The command method
+     * @return {@link CommandInvoker}
+     */
+    public static CommandInvoker forCommand(Method method) {
+        try {
+            return generatedCommand(method);
+        } catch (Throwable ignored) {
+            // not accessible or not visible, try the next strategy
+        }
+        try {
+            return handleCommand(method);
+        } catch (Throwable ignored) {
+            // the method handle could not be adapted, use plain reflection
+        }
+        return reflectiveCommand(method);
+    }
+
+    /**
+     * Creates an invoker for a command method whose parameters are bound to
+     * the options of the command using {@link OptionBinders}. Methods which
+     * only take the event use {@link #forCommand(Method)}.
+     * @param method The command method
+     * @param options The options of the command
+     * @return {@link CommandInvoker}
+     * @throws IllegalArgumentException If a parameter cannot be bound
+     */
+    public static CommandInvoker forCommand(Method method, List<OptionData> options) {
+        var parameters = method.getParameterTypes();
+        if (parameters.length == 1 && OptionBinders.isEventParameter(parameters[0]))
+            return forCommand(method);
+        MethodHandle handle;
+        try {
+            method.trySetAccessible();
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + method, e);
+        }
+        if (Modifier.isStatic(method.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        var adapted = OptionBinders.bind(handle, method, options);
+        return (instance, event) -> (Object) adapted.invokeExact(instance, event);
+    }
+
+    /**
+     * Creates an invoker for a method annotated with
+     * {@link io.github.maeves2.snowballnebula.exception.ExceptionHandler}.
+     * @param method The handler method
+     * @return {@link HandlerInvoker}
+     */
+    public static HandlerInvoker forHandler(Method method) {
+        try {
+            return generatedHandler(method);
+        } catch (Throwable ignored) {
+            // not accessible or not visible, try the next strategy
+        }
+        try {
+            return handleHandler(method);
+        } catch (Throwable ignored) {
+            // the method handle could not be adapted, use plain reflection
+        }
+        return reflectiveHandler(method);
+    }
+
+    /**
+     * Creates an invoker for a method annotated with
+     * {@link io.github.maeves2.snowballnebula.autocomplete.Autocomplete}.
+     * @param method The handler method
+     * @return {@link AutocompleteInvoker}
+     */
+    public static AutocompleteInvoker forAutocomplete(Method method) {
+        try {
+            method.trySetAccessible();
+            var handle = LOOKUP.unreflect(method);
+            if (Modifier.isStatic(method.getModifiers()))
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            var adapted = handle.asType(AUTOCOMPLETE_TYPE);
+            return (instance, event) -> (Object) adapted.invokeExact(instance, event);
+        } catch (Throwable ignored) {
+            // the method handle could not be adapted, use plain reflection
+        }
+        return (instance, event) -> {
+            try {
+                return method.invoke(instance, event);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private static CommandInvoker generatedCommand(Method method) throws Throwable {
+        var target = directHandle(method);
+        var isStatic = Modifier.isStatic(method.getModifiers());
+        var isVoid = method.getReturnType() == void.class;
+        var returnType = isVoid ? void.class : Object.class;
+        if (isStatic && isVoid) {
+            var call = (StaticVoid) spin(StaticVoid.class, target,
+                    MethodType.methodType(void.class, SlashCommandEvent.class));
+            return (instance, event) -> {
+                call.call(event);
+                return null;
+            };
+        } else if (isStatic) {
+            var call = (StaticValue) spin(StaticValue.class, target,
+                    MethodType.methodType(Object.class, SlashCommandEvent.class));
+            return (instance, event) -> call.call(event);
+        } else if (isVoid) {
+            var call = (VirtualVoid) spin(VirtualVoid.class, target,
+                    MethodType.methodType(returnType, method.getDeclaringClass(), SlashCommandEvent.class));
+            return (instance, event) -> {
+                call.call(instance, event);
+                return null;
+            };
+        }
+        var call = (VirtualValue) spin(VirtualValue.class, target,
+                MethodType.methodType(returnType, method.getDeclaringClass(), SlashCommandEvent.class));
+        return call::call;
+    }
+
+    private static HandlerInvoker generatedHandler(Method method) throws Throwable {
+        var target = directHandle(method);
+        var exception = method.getParameterTypes()[0];
+        if (Modifier.isStatic(method.getModifiers())) {
+            var call = (StaticHandler) spin(StaticHandler.class, target,
+                    MethodType.methodType(void.class, exception, SlashCommandEvent.class));
+            return (instance, e, event) -> call.call(e, event);
+        }
+        var call = (VirtualHandler) spin(VirtualHandler.class, target,
+                MethodType.methodType(void.class, method.getDeclaringClass(), exception, SlashCommandEvent.class));
+        return call::call;
+    }
+
+    private static CommandInvoker handleCommand(Method method) throws IllegalAccessException {
+        method.trySetAccessible();
+        var handle = LOOKUP.unreflect(method);
+        if (Modifier.isStatic(method.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        var adapted = handle.asType(COMMAND_TYPE);
+        return (instance, event) -> (Object) adapted.invokeExact(instance, event);
+    }
+
+    private static HandlerInvoker handleHandler(Method method) throws IllegalAccessException {
+        method.trySetAccessible();
+        var handle = LOOKUP.unreflect(method);
+        if (Modifier.isStatic(method.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        var adapted = handle.asType(HANDLER_TYPE);
+        return (instance, e, event) -> adapted.invokeExact(instance, e, event);
+    }
+
+    private static CommandInvoker reflectiveCommand(Method method) {
+        method.trySetAccessible();
+        return (instance, event) -> {
+            try {
+                return method.invoke(instance, event);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private static HandlerInvoker reflectiveHandler(Method method) {
+        method.trySetAccessible();
+        return (instance, e, event) -> {
+            try {
+                method.invoke(instance, e, event);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        };
+    }
+
+    /**
+     * Returns a direct method handle for the method, but only if a class spun
+     * next to this one will be able to link against its declaring class.
+     */
+    private static MethodHandle directHandle(Method method) throws ReflectiveOperationException {
+        var declaring = method.getDeclaringClass();
+        if (Class.forName(declaring.getName(), false, Invokers.class.getClassLoader()) != declaring)
+            throw new ClassNotFoundException(declaring.getName() + " is not visible");
+        return LOOKUP.unreflect(method);
+    }
+
+    private static Object spin(Class<?> samType, MethodHandle target, MethodType instantiated) throws Throwable {
+        var sam = samType.getMethods()[0];
+        var erased = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+        var site = LambdaMetafactory.metafactory(LOOKUP, sam.getName(), MethodType.methodType(samType),
+                erased, target, instantiated);
+        return site.getTarget().invoke();
+    }
+
+    @FunctionalInterface
+    interface StaticVoid {
+        void call(SlashCommandEvent event) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface StaticValue {
+        Object call(SlashCommandEvent event) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface VirtualVoid {
+        void call(Object instance, SlashCommandEvent event) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface VirtualValue {
+        Object call(Object instance, SlashCommandEvent event) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface StaticHandler {
+        void call(Throwable exception, SlashCommandEvent event) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface VirtualHandler {
+        void call(Object instance, Throwable exception, SlashCommandEvent event) throws Throwable;
+    }
+}
@@ -1,16 +1,20 @@
 package io.github.maeves2.snowballnebula.util;
 
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteOptionData;
+import io.github.maeves2.snowballnebula.cache.CachePolicy;
+import io.github.maeves2.snowballnebula.cache.Cached;
 import io.github.maeves2.snowballnebula.commands.SlashCommand;
+import io.github.maeves2.snowballnebula.ratelimit.RateLimitRule;
+import io.github.maeves2.snowballnebula.reply.ReplyTemplate;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 
-import java.awt.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.Instant;
-import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,13 +37,21 @@ public class Utilities {
         throw new UnsupportedOperationException("No instances for you.");
     }
 
+    /**
+     * Formatter used by {@link Utilities#now()}, formatters are immutable and
+     * can be shared.
+     */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
     /**
      * Return the current time, formatted like this: {@code [HH:mm:ss]}.
      * @return {@link String} containing the formatted date
+     * @deprecated slf4j already timestamps every log line, the framework no
+     *             longer uses this method
      */
+    @Deprecated(since = "1.3.0")
     public static String now() {
-        var dtf = DateTimeFormatter.ofPattern("HH:mm:ss");
-        return "[" + dtf.format(LocalDateTime.now()) + "] ";
+        return "[" + TIME_FORMAT.format(LocalTime.now()) + "] ";
     }
 
      /**
@@ -51,31 +63,72 @@ public class Utilities {
     public static List<OptionData> asOptionData(SlashCommand.Option... options) {
         var ret = new ArrayList<OptionData>();
         for (var option : options)
-            ret.add(new OptionData(option.type(), option.name(),
-                    option.desc(), option.required()));
+            ret.add(option.autocomplete()
+                    ? new AutocompleteOptionData(option.type(), option.name(), option.desc(), option.required())
+                    : new OptionData(option.type(), option.name(), option.desc(), option.required()));
+        return ret;
+    }
+
+    /**
+     * Creates a list of {@link RateLimitRule} from one or more
+     * {@link io.github.maeves2.snowballnebula.commands.SlashCommand.RateLimit} annotations
+     * @param rateLimits The rate limits (varargs)
+     * @return {@link List}
+     */
+    public static List<RateLimitRule> asRateLimitRules(SlashCommand.RateLimit... rateLimits) {
+        var ret = new ArrayList<RateLimitRule>();
+        for (var rateLimit : rateLimits)
+            ret.add(new RateLimitRule(rateLimit.scope(), rateLimit.uses(),
+                    rateLimit.per(), rateLimit.unit()));
         return ret;
     }
 
+    /**
+     * Creates a {@link CachePolicy} from a {@link Cached} annotation
+     * @param cached The annotation, may be {@code null}
+     * @return {@link CachePolicy}, {@code null} if the annotation is {@code null}
+     */
+    public static CachePolicy asCachePolicy(Cached cached) {
+        if (cached == null) return null;
+        return new CachePolicy(cached.scope(), cached.ttl(), cached.unit(), cached.maxSize());
+    }
+
     /**
      * Creates a standard failure embed, used to express the occurrence of
      * an internal failure. It has the color {@code #FF212D} (red) and a
-     * timestamp, {@link Utilities#now()}.
+     * timestamp.
      * @param content Content of the embed
      * @return {@link MessageEmbed}
      */
     public static MessageEmbed failEmbed(String content) {
-        return new EmbedBuilder()
-                .setColor(Color.decode("#FF212D"))
-                .setAuthor("\u274c" + content)
-                .setTimestamp(Instant.now())
-                .build();
+        return failEmbed(content, true);
+    }
+
+    /**
+     * Creates a standard failure embed, optionally without timestamp. Embeds
+     * without timestamp can be built once and sent many times, replies sent
+     * often should rather be compiled into a {@link ReplyTemplate}.
+     * @param content Content of the embed
+     * @param timestamp Whether the embed has a timestamp
+     * @return {@link MessageEmbed}
+     * @since 1.3.0
+     */
+    public static MessageEmbed failEmbed(String content, boolean timestamp) {
+        var builder = new EmbedBuilder()
+                .setColor(ReplyTemplate.COLOR)
+                .setAuthor(ReplyTemplate.PREFIX + content);
+        if (timestamp) builder.setTimestamp(Instant.now());
+        return builder.build();
     }
 
     /**
      * Find all classes in a package and put them into a {@link Set}.
      * @param targetPackage The package to be searched
      * @return {@link Set} of all classes
+     * @deprecated Only works for directories on the system class loader and
+     *             initializes every class, use {@link ClassScanner} instead
      */
+    @Deprecated(since = "1.3.0")
     public static Set<Class<?>> getAllClassesFromPackage(String targetPackage) {
         var stweam = ClassLoader.getSystemClassLoader().getResourceAsStream(
                 targetPackage.replaceAll("[.]", "/"));
@@ -91,7 +144,9 @@ public class Utilities {
      * @param className The name of the searched class
      * @param packageName The package to be searched
      * @return {@link Class}
+     * @deprecated Use {@link ClassScanner} instead
      */
+    @Deprecated(since = "1.3.0")
     public static Class<?> getClassFromPackage(String className, String packageName) {
         try {
             return Class.forName(packageName + "."
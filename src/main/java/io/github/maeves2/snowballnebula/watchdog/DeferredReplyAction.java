@@ -0,0 +1,79 @@
+package io.github.maeves2.snowballnebula.watchdog;
+
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.interactions.InteractionHookImpl;
+import net.dv8tion.jda.internal.requests.RestActionImpl;
+import net.dv8tion.jda.internal.requests.Route;
+import net.dv8tion.jda.internal.requests.restaction.interactions.ReplyActionImpl;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Reply to an interaction the {@link ReplyWatchdog} already deferred,
+ * destined for internal use. It is built like any reply, but once the
+ * deferral succeeded it edits the original response through the hook
+ * instead of answering the interaction a second time. A reply without
+ * content, like {@code deferReply()}, completes with the deferral.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+class DeferredReplyAction extends ReplyActionImpl {
+    private final InteractionHookImpl deferredHook;
+    private final CompletableFuture<InteractionHook> deferral;
+
+    /**
+     * @param hook The hook of the interaction, never {@code null}
+     * @param deferral Completed with the hook once the deferral succeeded
+     */
+    DeferredReplyAction(InteractionHookImpl hook, CompletableFuture<InteractionHook> deferral) {
+        super(Objects.requireNonNull(hook, "hook"));
+        this.deferredHook = hook;
+        this.deferral = deferral;
+    }
+
+    /**
+     * @return The message of the reply, without the callback around it
+     */
+    @Override
+    protected DataObject toData() {
+        return super.toData().optObject("data").orElseGet(DataObject::empty);
+    }
+
+    @Override
+    public void queue(Consumer<? super InteractionHook> success, Consumer<? super Throwable> failure) {
+        submit(true).whenComplete((hook, e) -> {
+            if (e == null) {
+                if (success != null) success.accept(hook);
+                return;
+            }
+            var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Consumer<? super Throwable> handler = failure != null ? failure : RestAction.getDefaultFailure();
+            handler.accept(cause);
+        });
+    }
+
+    @Override
+    public CompletableFuture<InteractionHook> submit(boolean shouldQueue) {
+        if (toData().keys().isEmpty()) return deferral;
+        var interaction = deferredHook.getInteraction();
+        var route = Route.Interactions.EDIT_FOLLOWUP.compile(
+                interaction.getJDA().getSelfUser().getApplicationId(), interaction.getToken(), "@original");
+        var edit = new RestActionImpl<InteractionHook>(api, route, finalizeData(), (response, request) -> deferredHook);
+        return deferral.thenCompose(hook -> edit.submit(shouldQueue));
+    }
+
+    @Override
+    public InteractionHook complete(boolean shouldQueue) {
+        try {
+            return submit(shouldQueue).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.maeves2.snowballnebula.watchdog;
+
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defers the reply of command executions which did not reply within a
+ * threshold, so that the interaction does not fail after Discord's three
+ * second deadline. Every execution arms a timeout on a shared
+ * {@link TimerWheel}, which the first reply cancels, as does the command
+ * method returning without a reply unless the command replies
+ * asynchronously (see {@link WatchedSlashCommandEvent#disarm()}). If the timeout expires
+ * first, the watchdog calls {@code deferReply()}, and later replies of the
+ * command edit the deferred response (see {@link WatchedSlashCommandEvent}).
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ReplyWatchdog implements AutoCloseable {
+    /**
+     * Default threshold, leaving half a second for the deferral to reach Discord.
+     */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 2500;
+
+    private final TimerWheel wheel;
+    private final long thresholdNanos;
+
+    /**
+     * @param wheel The timer wheel, closed together with the watchdog
+     * @param threshold Time after which the reply is deferred, counted from the reception of the command
+     * @param unit Unit of {@code threshold}
+     */
+    public ReplyWatchdog(TimerWheel wheel, long threshold, TimeUnit unit) {
+        if (threshold <= 0) throw new IllegalArgumentException("The threshold must be positive");
+        this.wheel = wheel;
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    /**
+     * Arms the watchdog for an execution.
+     * @param event The event of the execution
+     * @param receivedAt {@link System#nanoTime()} when the command was received
+     * @param onDeferral Called on the timer thread if the reply was deferred, has to be short
+     * @return The event to pass to the command method
+     */
+    public WatchedSlashCommandEvent watch(SlashCommandEvent event, long receivedAt, Runnable onDeferral) {
+        var watched = new WatchedSlashCommandEvent(event);
+        var delay = Math.max(0, thresholdNanos - (System.nanoTime() - receivedAt));
+        watched.arm(wheel.schedule(() -> {
+            if (watched.fire()) onDeferral.run();
+        }, delay, TimeUnit.NANOSECONDS));
+        return watched;
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.maeves2.snowballnebula.watchdog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel running many short timeouts on a single thread, meant
+ * for timeouts which are usually cancelled before they expire. Scheduling and
+ * cancelling are lock-free and take constant time, no task is submitted to
+ * an executor per timeout.
+ * <p>
+ * The wheel is an array of buckets, one per tick. A timeout is put into the
+ * bucket of the tick it expires on, modulo the number of buckets, together
+ * with the number of rounds the wheel has to turn before. Every tick the
+ * worker thread runs the expired timeouts of one bucket and drops the
+ * cancelled ones, so timeouts expire up to one tick late. Tasks run on the
+ * worker thread and have to be short.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class TimerWheel implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    /**
+     * Scheduled timeouts not yet put into a bucket by the worker thread.
+     */
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.nanoTime();
+    private volatile Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * Creates a wheel with ticks of 10 milliseconds and 512 buckets, one
+     * round taking about five seconds.
+     */
+    public TimerWheel() {
+        this(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param tick Duration of a tick, the precision of the timeouts
+     * @param unit Unit of {@code tick}
+     * @param buckets Number of buckets, rounded up to a power of two
+     */
+    public TimerWheel(long tick, TimeUnit unit, int buckets) {
+        if (tick <= 0) throw new IllegalArgumentException("The tick must be positive");
+        if (buckets <= 0 || buckets > 1 << 20)
+            throw new IllegalArgumentException("The number of buckets must be between 1 and 2^20");
+        this.tickNanos = unit.toNanos(tick);
+        var size = buckets == 1 ? 1 : Integer.highestOneBit(buckets - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+    }
+
+    /**
+     * Schedules a task. The worker thread is started by the first call.
+     * @param task The task, run on the worker thread
+     * @param delay Delay after which the task runs, unless cancelled
+     * @param unit Unit of {@code delay}
+     * @return The {@link Timeout}, used to cancel it
+     * @throws IllegalStateException If the wheel was closed
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) throw new IllegalStateException("The timer wheel was closed");
+        if (worker == null) start();
+        var timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay) - startTime);
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    private synchronized void start() {
+        if (worker != null) return;
+        var thread = new Thread(this::run, "SnowballNebula-timer-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        worker = thread;
+    }
+
+    /**
+     * @return The number of timeouts which are neither expired nor dropped
+     * after being cancelled
+     */
+    public int size() {
+        var size = pending.size();
+        for (var bucket : wheel) size += bucket.size;
+        return size;
+    }
+
+    /**
+     * Stops the worker thread, timeouts which did not expire yet never will.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        var thread = worker;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!closed) {
+            var deadline = startTime + (tick + 1) * tickNanos;
+            var sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            transferPending(tick);
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * Puts the scheduled timeouts into their buckets.
+     */
+    private void transferPending(long tick) {
+        for (Timeout timeout; (timeout = pending.poll()) != null; ) {
+            if (timeout.state.get() == Timeout.CANCELLED) continue;
+            var expiresOn = timeout.deadline / tickNanos;
+            timeout.rounds = Math.max(0, (expiresOn - tick) / wheel.length);
+            wheel[(int) (Math.max(expiresOn, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        /**
+         * Deadline relative to the start of the wheel.
+         */
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // only accessed by the worker thread
+        private long rounds;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout. Its task is not run unless it is already running.
+         * @return Whether the timeout was cancelled, {@code false} if it had
+         * already expired or was cancelled before
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, only accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        private volatile int size;
+
+        private void add(Timeout timeout) {
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) head = timeout;
+            else tail.next = timeout;
+            tail = timeout;
+            size++;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous == null) head = timeout.next;
+            else timeout.previous.next = timeout.next;
+            if (timeout.next == null) tail = timeout.previous;
+            else timeout.next.previous = timeout.previous;
+            timeout.previous = null;
+            timeout.next = null;
+            size--;
+        }
+
+        /**
+         * Runs the timeouts expiring in this round and drops cancelled ones.
+         */
+        private void expire() {
+            for (var timeout = head; timeout != null; ) {
+                var next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                        try {
+                            timeout.task.run();
+                        } catch (Throwable e) {
+                            logger.error("A timer task failed", e);
+                        }
+                    }
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
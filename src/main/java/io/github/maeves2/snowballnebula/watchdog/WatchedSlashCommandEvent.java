@@ -0,0 +1,154 @@
+package io.github.maeves2.snowballnebula.watchdog;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyAction;
+import net.dv8tion.jda.internal.interactions.CommandInteractionImpl;
+import net.dv8tion.jda.internal.interactions.InteractionHookImpl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Slash command event watched by the {@link ReplyWatchdog}, passed to the
+ * command method instead of the original event. It shares the interaction
+ * and hook of the original event. Every reply goes through
+ * {@link #deferReply()}, which either disarms the watchdog or, if the
+ * watchdog already deferred the reply, returns a reply which edits the
+ * deferred response. Command methods can reply as usual either way.
+ * Events which are not backed by an interaction, like the stubs of the
+ * testing module, answer the replies after a deferral themselves.
+ * Once the command method returned without replying, the execution is
+ * {@link #disarm() disarmed} and no longer deferred.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class WatchedSlashCommandEvent extends SlashCommandEvent {
+    private static final int PENDING = 0;
+    private static final int REPLIED = 1;
+    private static final int DEFERRED = 2;
+    private static final int DISARMED = 3;
+
+    private final SlashCommandEvent event;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private final CompletableFuture<InteractionHook> deferral = new CompletableFuture<>();
+    private volatile TimerWheel.Timeout timeout;
+
+    WatchedSlashCommandEvent(SlashCommandEvent event) {
+        super(event.getJDA(), event.getResponseNumber(), (CommandInteractionImpl) event.getInteraction());
+        this.event = event;
+    }
+
+    void arm(TimerWheel.Timeout timeout) {
+        this.timeout = timeout;
+        if (state.get() != PENDING) timeout.cancel();
+    }
+
+    /**
+     * Defers the reply, unless the command replied already. Called by the
+     * timer of the watchdog.
+     * @return Whether the reply was deferred
+     */
+    boolean fire() {
+        if (event.isAcknowledged() || !state.compareAndSet(PENDING, DEFERRED)) return false;
+        event.deferReply().submit().whenComplete((hook, e) -> {
+            if (e == null) deferral.complete(hook);
+            else deferral.completeExceptionally(e);
+        });
+        return true;
+    }
+
+    /**
+     * Stops watching the execution, unless it replied or was deferred
+     * already. Its reply is passed through unchanged from now on.
+     * @return Whether the execution was still watched
+     */
+    public boolean disarm() {
+        if (!state.compareAndSet(PENDING, DISARMED)) return false;
+        var timeout = this.timeout;
+        if (timeout != null) timeout.cancel();
+        return true;
+    }
+
+    /**
+     * @return The original event
+     */
+    public SlashCommandEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * @return Whether the watchdog deferred the reply
+     */
+    public boolean isDeferredByWatchdog() {
+        return state.get() == DEFERRED;
+    }
+
+    @Override
+    public ReplyAction deferReply() {
+        if (state.compareAndSet(PENDING, REPLIED)) {
+            var timeout = this.timeout;
+            if (timeout != null) timeout.cancel();
+            return event.deferReply();
+        }
+        if (state.get() != DEFERRED) return event.deferReply();
+        var hook = event.getInteraction() == null ? null : event.getHook();
+        if (!(hook instanceof InteractionHookImpl deferredHook)) return event.deferReply();
+        return new DeferredReplyAction(deferredHook, deferral);
+    }
+
+    @Override
+    public String getName() {
+        return event.getName();
+    }
+
+    @Override
+    public String getSubcommandName() {
+        return event.getSubcommandName();
+    }
+
+    @Override
+    public String getSubcommandGroup() {
+        return event.getSubcommandGroup();
+    }
+
+    @Override
+    public String getCommandPath() {
+        return event.getCommandPath();
+    }
+
+    @Override
+    public List<OptionMapping> getOptions() {
+        return event.getOptions();
+    }
+
+    @Override
+    public User getUser() {
+        return event.getUser();
+    }
+
+    @Override
+    public Member getMember() {
+        return event.getMember();
+    }
+
+    @Override
+    public Guild getGuild() {
+        return event.getGuild();
+    }
+
+    @Override
+    public boolean isAcknowledged() {
+        return event.isAcknowledged();
+    }
+
+    @Override
+    public InteractionHook getHook() {
+        return event.getHook();
+    }
+}
@@ -1,23 +1,68 @@
 package io.github.maeves2;
 
+import io.github.maeves2.snowballnebula.admission.Priority;
+import io.github.maeves2.snowballnebula.autocomplete.Autocomplete;
+import io.github.maeves2.snowballnebula.autocomplete.AutocompleteEvent;
+import io.github.maeves2.snowballnebula.autocomplete.PrefixIndex;
+import io.github.maeves2.snowballnebula.cache.CacheScope;
+import io.github.maeves2.snowballnebula.cache.Cached;
 import io.github.maeves2.snowballnebula.commands.AutoRegister;
 import io.github.maeves2.snowballnebula.commands.SlashCommand;
 import io.github.maeves2.snowballnebula.exception.ExceptionHandler;
 import io.github.maeves2.snowballnebula.util.Utilities;
+import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 
+import java.util.List;
+
 @AutoRegister
 public class CommandTest {
+    private static final PrefixIndex COLORS = new PrefixIndex(List.of("Red", "Green", "Blue", "Black", "White"));
 
     @SlashCommand(name = "say", desc = "Make the bot say something", perm = Permission.UNKNOWN, options = {
             @SlashCommand.Option(type = OptionType.STRING, name = "text", desc = "Text to say", required = true),
             @SlashCommand.Option(type = OptionType.BOOLEAN, name = "embed", desc = "Make it an embed?")
     })
-    public static void say(SlashCommandEvent event) {
-        var text = event.getOption("idk").getAsString();
-        throw new RuntimeException();
+    public static void say(SlashCommandEvent event, String text, boolean embed) {
+        if (embed) event.replyEmbeds(new EmbedBuilder().setDescription(text).build()).queue();
+        else event.reply(text).queue();
+    }
+
+    @Cached(ttl = 60, scope = CacheScope.GUILD)
+    @SlashCommand(name = "serverinfo", desc = "Show information about the server", priority = Priority.HIGH, options = {})
+    public static MessageEmbed serverInfo(SlashCommandEvent event) {
+        var guild = event.getGuild();
+        return new EmbedBuilder()
+                .setTitle(guild.getName())
+                .addField("Members", Integer.toString(guild.getMemberCount()), true)
+                .addField("Roles", Integer.toString(guild.getRoles().size()), true)
+                .build();
+    }
+
+    @SlashCommand(name = "role", subcommand = "add", desc = "Give a member a role", commandDesc = "Manage roles",
+            perm = Permission.MANAGE_ROLES, aliases = "roles", options = {
+            @SlashCommand.Option(type = OptionType.USER, name = "member", desc = "Member", required = true),
+            @SlashCommand.Option(type = OptionType.ROLE, name = "role", desc = "Role to give", required = true)
+    })
+    public static void addRole(SlashCommandEvent event, Member member, Role role) {
+        event.getGuild().addRoleToMember(member, role).queue(done -> event.reply("Done!").queue());
+    }
+
+    @SlashCommand(name = "color", desc = "Show a color", options = {
+            @SlashCommand.Option(type = OptionType.STRING, name = "name", desc = "Color", required = true, autocomplete = true)
+    })
+    public static void color(SlashCommandEvent event, String name) {
+        event.reply("You picked " + name).queue();
+    }
+
+    @Autocomplete(command = "color", option = "name")
+    public static List<String> colors(AutocompleteEvent event) {
+        return COLORS.search(event.getValue(), AutocompleteEvent.MAX_CHOICES);
     }
 
     @ExceptionHandler(commands = "*", exception = RuntimeException.class)
@@ -0,0 +1,109 @@
+package io.github.maeves2.snowballnebula.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionQueueTest {
+    private final List<String> ran = new ArrayList<>();
+    private final List<String> shed = new ArrayList<>();
+
+    @Test
+    void queuedEntriesTakeOverTheSlotOfARejectedOne() {
+        var queue = new AtomicReference<AdmissionQueue>();
+        var rejected = new AtomicBoolean();
+        queue.set(new AdmissionQueue(task -> {
+            // entries submitted by other threads between the admission and the rejection
+            if (rejected.compareAndSet(false, true)) {
+                submit(queue.get(), Priority.NORMAL, "queued");
+                submit(queue.get(), Priority.HIGH, "urgent");
+                throw new RejectedExecutionException();
+            }
+            task.run();
+        }, 1, 10));
+
+        assertTrue(submit(queue.get(), Priority.LOW, "rejected"));
+        assertEquals(List.of("rejected"), shed);
+        assertEquals(List.of("urgent", "queued"), ran);
+        assertEquals(0, queue.get().getRunning());
+
+        submit(queue.get(), Priority.LOW, "later");
+        assertEquals(List.of("urgent", "queued", "later"), ran);
+    }
+
+    @Test
+    void aRejectingExecutorShedsTheQueue() {
+        var queue = new AtomicReference<AdmissionQueue>();
+        queue.set(new AdmissionQueue(task -> {
+            if (queue.get().getDepth() == 0 && shed.isEmpty()) {
+                submit(queue.get(), Priority.NORMAL, "b");
+                submit(queue.get(), Priority.LOW, "c");
+            }
+            throw new RejectedExecutionException();
+        }, 1, 10));
+
+        submit(queue.get(), Priority.HIGH, "a");
+        assertEquals(List.of("a", "b", "c"), shed);
+        assertEquals(List.of(), ran);
+        var stats = queue.get().stats();
+        assertEquals(0, stats.getRunning());
+        assertEquals(0, stats.getDepth());
+        assertEquals(3, stats.getShed());
+    }
+
+    @Test
+    void higherPrioritiesAreDrainedFirst() {
+        var tasks = new ArrayList<Runnable>();
+        var queue = new AdmissionQueue(tasks::add, 1, 10);
+        submit(queue, Priority.LOW, "running");
+        submit(queue, Priority.LOW, "low1");
+        submit(queue, Priority.NORMAL, "normal1");
+        submit(queue, Priority.HIGH, "high");
+        submit(queue, Priority.LOW, "low2");
+        submit(queue, Priority.NORMAL, "normal2");
+        assertEquals(1, tasks.size());
+        assertEquals(5, queue.getDepth());
+
+        tasks.get(0).run();
+        assertEquals(List.of("running", "high", "normal1", "normal2", "low1", "low2"), ran);
+        assertEquals(0, queue.getRunning());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    void fullQueuesShedTheOldestLowerPriorityEntry() {
+        var tasks = new ArrayList<Runnable>();
+        var queue = new AdmissionQueue(tasks::add, 1, 2);
+        submit(queue, Priority.NORMAL, "running");
+        submit(queue, Priority.LOW, "low");
+        submit(queue, Priority.NORMAL, "normal");
+
+        assertTrue(submit(queue, Priority.HIGH, "high1"));
+        assertEquals(List.of("low"), shed);
+        assertFalse(submit(queue, Priority.NORMAL, "normal2"));
+        assertFalse(submit(queue, Priority.LOW, "low2"));
+        assertEquals(List.of("low", "normal2", "low2"), shed);
+        assertTrue(submit(queue, Priority.HIGH, "high2"));
+        assertEquals(List.of("low", "normal2", "low2", "normal"), shed);
+        assertFalse(submit(queue, Priority.HIGH, "high3"));
+
+        tasks.get(0).run();
+        assertEquals(List.of("running", "high1", "high2"), ran);
+        var stats = queue.stats();
+        assertEquals(2, stats.getShedByPriority().get(Priority.LOW));
+        assertEquals(2, stats.getShedByPriority().get(Priority.NORMAL));
+        assertEquals(1, stats.getShedByPriority().get(Priority.HIGH));
+    }
+
+    private boolean submit(AdmissionQueue queue, Priority priority, String name) {
+        return queue.submit(priority, wait -> ran.add(name), () -> shed.add(name));
+    }
+}
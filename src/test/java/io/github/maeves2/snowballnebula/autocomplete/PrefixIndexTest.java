@@ -0,0 +1,135 @@
+package io.github.maeves2.snowballnebula.autocomplete;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixIndexTest {
+    @Test
+    void returnsHeaviestMatchesFirst() {
+        var index = new PrefixIndex();
+        index.putAll(Map.of("apple", 3L, "apricot", 7L, "avocado", 7L, "banana", 9L, "Apex", 1L, "ant", 0L));
+        assertEquals(List.of("apricot", "avocado", "apple", "Apex"), index.search("a", 4));
+        assertEquals(List.of("apricot", "apple", "Apex"), index.search("AP", 10));
+        assertEquals(List.of("banana"), index.search("", 1));
+        assertEquals(List.of(), index.search("c", 5));
+        assertEquals(List.of(), index.search("a", 0));
+    }
+
+    @Test
+    void equalWeightsAreAlphabetical() {
+        var index = new PrefixIndex(List.of("delta", "Charlie", "bravo", "alpha", "echo"));
+        assertEquals(List.of("alpha", "bravo", "Charlie"), index.search("", 3));
+        index.add("Alpha");
+        assertEquals(List.of("Alpha", "alpha"), index.search("alp", 5));
+    }
+
+    @Test
+    void updatesAreIncremental() {
+        var index = new PrefixIndex(List.of("red", "green", "blue"));
+        index.put("green", 5);
+        index.add("green");
+        assertEquals(List.of("green", "blue", "red"), index.search("", 3));
+        assertTrue(index.remove("green"));
+        assertFalse(index.remove("green"));
+        assertFalse(index.contains("green"));
+        index.putAll(Map.of("grey", 2L, "gold", 4L));
+        assertEquals(List.of("gold", "grey"), index.search("g", 5));
+        index.removeAll(List.of("gold", "red", "missing"));
+        assertEquals(List.of("grey", "blue"), index.search("", 5));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomUpdates() {
+        var random = new Random(42);
+        var index = new PrefixIndex();
+        var model = new HashMap<String, Long>();
+        for (int round = 0; round < 2_000; round++) {
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    var value = word(random);
+                    var weight = (long) random.nextInt(4);
+                    index.put(value, weight);
+                    model.put(value, weight);
+                }
+                case 1 -> {
+                    var batch = new HashMap<String, Long>();
+                    for (int i = random.nextInt(20); i > 0; i--) batch.put(word(random), (long) random.nextInt(4));
+                    index.putAll(batch);
+                    model.putAll(batch);
+                }
+                case 2 -> {
+                    var value = word(random);
+                    assertEquals(model.remove(value) != null, index.remove(value));
+                }
+                case 3 -> {
+                    var batch = new ArrayList<String>();
+                    for (int i = random.nextInt(10); i > 0; i--) batch.add(word(random));
+                    index.removeAll(batch);
+                    batch.forEach(model::remove);
+                }
+                default -> {
+                    var value = word(random);
+                    index.add(value);
+                    model.putIfAbsent(value, 0L);
+                }
+            }
+            var word = word(random);
+            var prefix = word.substring(0, random.nextInt(word.length() + 1));
+            var limit = 1 + random.nextInt(8);
+            assertEquals(expected(model, prefix, limit), index.search(prefix, limit), "round " + round);
+            assertEquals(model.size(), index.size());
+        }
+    }
+
+    @Test
+    void searchDoesNotAllocate() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var index = new PrefixIndex();
+        var values = new HashMap<String, Long>();
+        for (int i = 0; i < 10_000; i++) values.put("item" + i, (long) (i * 7919 % 1000));
+        index.putAll(values);
+        var prefixes = new String[] {"item", "item1", "item42", "x"};
+        var results = new String[25];
+        for (int i = 0; i < 20_000; i++) index.search(prefixes[i & 3], results);
+
+        var thread = Thread.currentThread().getId();
+        var before = threads.getThreadAllocatedBytes(thread);
+        var found = 0;
+        for (int i = 0; i < 20_000; i++) found += index.search(prefixes[i & 3], results);
+        var allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue(found > 0);
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    private static String word(Random random) {
+        var letters = new char[1 + random.nextInt(4)];
+        for (int i = 0; i < letters.length; i++) {
+            var letter = (char) ('a' + random.nextInt(3));
+            letters[i] = random.nextInt(4) == 0 ? Character.toUpperCase(letter) : letter;
+        }
+        return new String(letters);
+    }
+
+    private static List<String> expected(Map<String, Long> model, String prefix, int limit) {
+        return model.entrySet().stream()
+                .filter(e -> e.getKey().regionMatches(true, 0, prefix, 0, prefix.length()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(
+                                String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()))))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
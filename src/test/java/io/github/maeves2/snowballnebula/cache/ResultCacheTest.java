@@ -0,0 +1,129 @@
+package io.github.maeves2.snowballnebula.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultCacheTest {
+    @Test
+    void clockEvictsTheFirstUnreferencedResult() {
+        var cache = cache(60_000, 3);
+        for (var key : new String[] {"0\u0000a", "0\u0000b", "0\u0000c"}) load(cache, key, key);
+        assertEquals("0\u0000a", cache.getIfPresent("0\u0000a"));
+        load(cache, "0\u0000d", "d");
+
+        assertEquals("0\u0000a", cache.getIfPresent("0\u0000a"));
+        assertNull(cache.getIfPresent("0\u0000b"));
+        assertEquals("0\u0000c", cache.getIfPresent("0\u0000c"));
+        assertEquals("d", cache.getIfPresent("0\u0000d"));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(3, cache.stats().getSize());
+    }
+
+    @Test
+    void resultsExpireAfterTheirTtl() throws InterruptedException {
+        var cache = cache(50, 10);
+        var loads = new AtomicInteger();
+        cache.compute("0\u0000a", () -> "v" + loads.incrementAndGet());
+        assertEquals("v1", cache.getIfPresent("0\u0000a"));
+        assertEquals("v1", cache.compute("0\u0000a", () -> "v" + loads.incrementAndGet()).join());
+
+        Thread.sleep(80);
+        assertNull(cache.getIfPresent("0\u0000a"));
+        assertEquals("v2", cache.compute("0\u0000a", () -> "v" + loads.incrementAndGet()).join());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDuringAComputeDropsItsResult() throws Exception {
+        var cache = cache(60_000, 10);
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var result = CompletableFuture.supplyAsync(() -> cache.compute("7\u0000a", () -> {
+            loading.countDown();
+            release.await();
+            return "stale";
+        }).join());
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.invalidate(7);
+        release.countDown();
+
+        assertEquals("stale", result.get(5, TimeUnit.SECONDS));
+        assertNull(cache.getIfPresent("7\u0000a"));
+        assertEquals("fresh", cache.compute("7\u0000a", () -> "fresh").join());
+        assertEquals("fresh", cache.getIfPresent("7\u0000a"));
+
+        cache.invalidateAll();
+        assertNull(cache.getIfPresent("7\u0000a"));
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    void identicalExecutionsAreCoalesced() throws Exception {
+        var cache = cache(60_000, 10);
+        var loads = new AtomicInteger();
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var leader = CompletableFuture.supplyAsync(() -> cache.compute("0\u0000a", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "shared";
+        }).join());
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        var follower = cache.compute("0\u0000a", () -> "own" + loads.incrementAndGet());
+        assertFalse(follower.isDone());
+        release.countDown();
+
+        assertEquals("shared", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("shared", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getCoalesced());
+    }
+
+    @Test
+    void nullResultsAreNotShared() throws Exception {
+        var cache = cache(60_000, 10);
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var leader = CompletableFuture.supplyAsync(() -> cache.compute("0\u0000a", () -> {
+            loading.countDown();
+            release.await();
+            return null;
+        }).join());
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        var loads = new AtomicInteger();
+        var first = cache.compute("0\u0000a", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        var second = cache.compute("0\u0000a", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertFalse(first.isDone() || second.isDone());
+        release.countDown();
+
+        assertNull(leader.get(5, TimeUnit.SECONDS));
+        assertNull(first.get(5, TimeUnit.SECONDS));
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    private static ResultCache cache(long ttlMillis, int maxSize) {
+        return new ResultCache(new CachePolicy(CacheScope.USER, ttlMillis, TimeUnit.MILLISECONDS, maxSize));
+    }
+
+    private static void load(ResultCache cache, String key, Object value) {
+        assertEquals(value, cache.compute(key, () -> value).join());
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import io.github.maeves2.snowballnebula.autocomplete.RegisteredAutocomplete;
+import io.github.maeves2.snowballnebula.exception.RegisteredExceptionHandler;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandRegistryTest {
+    @Test
+    void snapshotsAreNeverModified() {
+        var ping = command("ping").build();
+        var first = CommandRegistry.EMPTY.with(List.of(ping), List.of(), false);
+        var second = first.with(List.of(command("pong").build()), List.of(), false);
+
+        assertEquals(0, CommandRegistry.EMPTY.getCommands().size());
+        assertEquals(List.of("ping"), paths(first));
+        assertEquals(List.of("ping", "pong"), paths(second));
+        assertNull(first.resolve("pong", null, null));
+        assertSame(ping, second.resolve("ping", null, null));
+        assertSame(first, first.with(List.of(), List.of(), false));
+        assertSame(second, second.withoutCommands(Set.of("missing")));
+        assertSame(second, second.withoutClasses(Set.of("missing.Commands")));
+        assertThrows(UnsupportedOperationException.class, () -> second.getCommands().clear());
+    }
+
+    @Test
+    void publishedSnapshotsAreConsistent() throws InterruptedException {
+        var published = new AtomicReference<>(CommandRegistry.EMPTY);
+        var done = new AtomicBoolean();
+        var errors = new ArrayList<String>();
+        var reader = new Thread(() -> {
+            while (!done.get()) {
+                var registry = published.get();
+                var size = registry.getCommands().size();
+                for (int i = 0; i < size; i++) {
+                    var command = registry.resolve("c" + i, null, null);
+                    if (command == null || !command.getName().equals("c" + i))
+                        synchronized (errors) {
+                            errors.add("c" + i + " missing from a snapshot of " + size + " commands");
+                        }
+                }
+                if (registry.getData().size() != size)
+                    synchronized (errors) {
+                        errors.add("data of " + registry.getData().size() + " commands in a snapshot of " + size);
+                    }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 300; i++) {
+            var command = command("c" + i).build();
+            published.updateAndGet(registry -> registry.with(List.of(command), List.of(), false));
+        }
+        done.set(true);
+        reader.join();
+        synchronized (errors) {
+            assertEquals(List.of(), errors.stream().limit(5).toList());
+        }
+        assertEquals(300, published.get().getCommands().size());
+    }
+
+    @Test
+    void duplicatePathsAreRejectedUnlessReplaced() {
+        var registry = CommandRegistry.EMPTY.with(List.of(command("ping").build()), List.of(), false);
+        var error = assertThrows(IllegalArgumentException.class,
+                () -> registry.with(List.of(command("ping").build()), List.of(), false));
+        assertTrue(error.getMessage().contains("/ping is declared twice"), error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> registry.with(
+                List.of(command("pong").build(), command("pong").build()), List.of(), true));
+
+        var replacement = command("ping").setDescription("New").build();
+        var replaced = registry.with(List.of(replacement), List.of(), true);
+        assertSame(replacement, replaced.get("ping"));
+        assertEquals("New", replaced.getData().get(0).getDescription());
+    }
+
+    @Test
+    void aliasesRouteToTheirCommand() {
+        var ban = command("ban").setAliases(List.of("b", "bonk")).build();
+        var kick = command("mod").setSubcommand("kick").setAliases(List.of("m")).build();
+        var registry = CommandRegistry.EMPTY.with(List.of(ban, kick), List.of(), false);
+
+        assertSame(ban, registry.resolve("b", null, null));
+        assertSame(ban, registry.resolve("bonk", null, null));
+        assertSame(kick, registry.resolve("m", null, "kick"));
+        assertNull(registry.resolve("m", null, null));
+        assertEquals("ban", registry.primaryName("bonk"));
+        assertEquals("mod", registry.primaryName("m"));
+        assertEquals("ping", registry.primaryName("ping"));
+        assertEquals(List.of("ban", "b", "bonk", "mod", "m"),
+                registry.getData().stream().map(CommandData::getName).toList());
+    }
+
+    @Test
+    void aliasConflictsAreRejected() {
+        var registry = CommandRegistry.EMPTY.with(List.of(command("ban").build()), List.of(), false);
+        var error = assertThrows(IllegalArgumentException.class, () -> registry.with(
+                List.of(command("kick").setAliases(List.of("ban")).build()), List.of(), false));
+        assertTrue(error.getMessage().contains("Alias ban of /kick is already taken"), error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> CommandRegistry.EMPTY.with(List.of(
+                command("kick").setAliases(List.of("k")).build(),
+                command("keep").setAliases(List.of("k")).build()), List.of(), false));
+        assertThrows(IllegalArgumentException.class, () -> CommandRegistry.EMPTY.with(List.of(
+                command("admin").build(), command("admin").setSubcommand("ban").build()), List.of(), false));
+    }
+
+    @Test
+    void withoutCommandsRemovesSubcommandsByName() {
+        var registry = CommandRegistry.EMPTY.with(List.of(
+                command("ping").build(),
+                command("admin").setSubcommand("ban").build(),
+                command("admin").setGroup("roles").setSubcommand("add").build(),
+                command("mod").setSubcommand("kick").build()), List.of(), false);
+
+        var withoutAdmin = registry.withoutCommands(Set.of("admin"));
+        assertEquals(List.of("ping", "mod kick"), paths(withoutAdmin));
+        assertNull(withoutAdmin.resolve("admin", null, "ban"));
+
+        var withoutAdd = registry.withoutCommands(Set.of("admin roles add", "ping"));
+        assertEquals(List.of("admin ban", "mod kick"), paths(withoutAdd));
+        assertEquals(4, registry.getCommands().size());
+    }
+
+    @Test
+    void withoutClassesRemovesEverythingTheyDeclared() throws NoSuchMethodException {
+        var method = CommandRegistryTest.class.getDeclaredMethod("paths", CommandRegistry.class);
+        var handler = new RegisteredExceptionHandler(new String[] {"*"}, Other.class, method,
+                (instance, exception, event) -> { }, Exception.class);
+        var completer = new RegisteredAutocomplete("ping", "text", Other.class, method, (instance, event) -> null);
+        var registry = CommandRegistry.EMPTY.with(List.of(
+                command("ping").setInstance(Other.class).build(),
+                command("pong").setInstance(new Kept()).build()), List.of(handler), List.of(completer), false);
+        assertSame(completer, registry.completer(registry.get("ping"), "text"));
+        assertSame(handler, registry.getRouter().resolve("pong", new IllegalStateException()));
+
+        var without = registry.withoutClasses(Set.of(Other.class.getName()));
+        assertEquals(List.of("pong"), paths(without));
+        assertEquals(List.of(), without.getHandlers());
+        assertEquals(List.of(), without.getCompleters());
+        assertNull(without.getRouter().resolve("pong", new IllegalStateException()));
+        assertEquals(List.of("ping"), paths(registry.withoutClasses(Set.of(Kept.class.getName()))));
+    }
+
+    private static RegisteredCommand.Builder command(String name) {
+        return RegisteredCommand.builder(name)
+                .setDescription("Description of " + name)
+                .setInvoker((instance, event) -> null);
+    }
+
+    private static List<String> paths(CommandRegistry registry) {
+        return registry.getCommands().stream().map(RegisteredCommand::getPath).toList();
+    }
+
+    static class Other {
+    }
+
+    static class Kept {
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.maeves2.snowballnebula.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingTableTest {
+    @Test
+    void resolvesEveryPathOfAFullTable() {
+        var commands = new ArrayList<RegisteredCommand>();
+        for (int i = 0; i < 100; i++) {
+            commands.add(command("c" + i, null, null));
+            commands.add(command("c" + i, null, "sub"));
+            commands.add(command("c" + i, "group", "sub"));
+        }
+        var table = new RoutingTable(commands.size());
+        for (var command : commands)
+            assertTrue(table.add(command.getName(), command.getGroup(), command.getSubcommand(), command));
+
+        for (var command : commands)
+            assertSame(command, table.resolve(command.getName(), command.getGroup(), command.getSubcommand()));
+        assertNull(table.resolve("c100", null, null));
+        assertNull(table.resolve("c1", "group", null));
+        assertNull(table.resolve("c1", "other", "sub"));
+        assertNull(table.resolve("c1", null, "other"));
+    }
+
+    @Test
+    void takenPathsAreNotReplaced() {
+        var first = command("ban", null, null);
+        var table = new RoutingTable(2);
+        assertTrue(table.add("ban", null, null, first));
+        assertFalse(table.add("ban", null, null, command("ban", null, null)));
+        assertTrue(table.add("ban", null, "user", command("ban", null, "user")));
+        assertSame(first, table.resolve("ban", null, null));
+    }
+
+    @Test
+    void emptyTablesResolveNothing() {
+        var table = new RoutingTable(0);
+        assertNull(table.resolve("ping", null, null));
+        assertTrue(table.add("ping", null, null, command("ping", null, null)));
+        assertNull(table.resolve("pong", null, null));
+    }
+
+    private static RegisteredCommand command(String name, String group, String subcommand) {
+        return RegisteredCommand.builder(name).setGroup(group).setSubcommand(subcommand)
+                .setDescription(name).setInvoker((instance, event) -> null).build();
+    }
+}
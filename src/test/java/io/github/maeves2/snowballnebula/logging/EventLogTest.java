@@ -0,0 +1,71 @@
+package io.github.maeves2.snowballnebula.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class EventLogTest {
+    /**
+     * Drained events, only written by the drainer and read once it stopped.
+     */
+    private final List<String> drained = new ArrayList<>();
+    private final AtomicReference<Thread> drainer = new AtomicReference<>();
+
+    @Test
+    void drainerParksUntilEventsArePublished() throws Exception {
+        var log = new EventLog(16, this::capture);
+        var expected = new ArrayList<String>();
+        try {
+            for (int round = 0; round < 200; round++) {
+                if (round > 0) awaitIdle(log);
+                for (int i = 0; i < 8; i++) {
+                    log.message("round " + round);
+                    expected.add("MESSAGE round " + round);
+                }
+            }
+            awaitIdle(log);
+            assertEquals(0, log.getDropped());
+        } finally {
+            log.close();
+        }
+        assertFalse(drainer.get().isAlive());
+        assertEquals(expected, drained);
+    }
+
+    @Test
+    void unsampledExecutionsAreNotDrained() {
+        var log = new EventLog(16, this::capture);
+        log.setSampleRate(0);
+        log.execution("ping", 1, 2, 3);
+        log.denial("ban", 1, 2, "BAN_MEMBERS");
+        log.registration("ping", "Commands");
+        log.close();
+        assertEquals(List.of("DENIAL BAN_MEMBERS", "REGISTRATION Commands"), drained);
+    }
+
+    private void capture(LogRecord record) {
+        drainer.compareAndSet(null, Thread.currentThread());
+        drained.add(record.type + " " + record.detail);
+    }
+
+    /**
+     * Waits until the drainer drained every event and parked without a timeout.
+     */
+    private void awaitIdle(EventLog log) throws InterruptedException {
+        var deadline = System.nanoTime() + 5_000_000_000L;
+        while (log.pending() != 0 || drainer.get() == null || drainer.get().getState() != Thread.State.WAITING) {
+            if (System.nanoTime() > deadline) {
+                assertNotNull(drainer.get(), "nothing was drained");
+                throw new AssertionError(log.pending() + " pending events, the drainer is "
+                        + drainer.get().getState());
+            }
+            Thread.sleep(1);
+        }
+    }
+}
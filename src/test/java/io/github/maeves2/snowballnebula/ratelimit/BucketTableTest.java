@@ -0,0 +1,70 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BucketTableTest {
+    private static final long KEY = 902497478270672916L;
+    private static final long COPIED = 1_000_000;
+    private static final int THREADS = 4;
+
+    @Test
+    void insertedValueIsVisibleBeforeKey() throws Exception {
+        var pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 5_000; round++) {
+                var table = new BucketTable(64, 1);
+                var start = new CountDownLatch(1);
+                var futures = new ArrayList<Future<?>>();
+                for (int i = 0; i < THREADS; i++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        var slot = table.findOrInsert(KEY, COPIED);
+                        while (true) {
+                            var value = table.get(slot);
+                            if (table.compareAndSet(slot, value, value + 1)) return null;
+                        }
+                    }));
+                }
+                start.countDown();
+                for (var future : futures) future.get();
+                assertEquals(COPIED + THREADS, table.get(table.find(KEY)), "round " + round);
+                assertEquals(1, table.size());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentInsertsOfDistinctKeysAreFound() throws Exception {
+        var table = new BucketTable(1024, 1);
+        var pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < THREADS; i++) {
+                var offset = i;
+                futures.add(pool.submit(() -> {
+                    for (long key = 1 + offset; key <= 400; key += THREADS) table.findOrInsert(key, key);
+                    return null;
+                }));
+            }
+            for (var future : futures) future.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        for (long key = 1; key <= 400; key++) {
+            var slot = table.find(key);
+            assertTrue(slot >= 0, "key " + key);
+            assertEquals(key, table.get(slot));
+        }
+        assertEquals(400, table.size());
+    }
+}
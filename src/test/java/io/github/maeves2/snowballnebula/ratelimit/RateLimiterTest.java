@@ -0,0 +1,85 @@
+package io.github.maeves2.snowballnebula.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+    private static final RateLimitRule ONCE_PER_HOUR = new RateLimitRule(RateLimitScope.USER, 1, 1, TimeUnit.HOURS);
+
+    @Test
+    void allowsBurstThenRejects() {
+        var limiter = new RateLimiter(new RateLimitRule(RateLimitScope.USER, 3, 1, TimeUnit.HOURS), 1024);
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.tryAcquire(42));
+        var wait = limiter.tryAcquire(42);
+        assertTrue(wait > TimeUnit.MINUTES.toNanos(19) && wait <= TimeUnit.MINUTES.toNanos(20), "wait " + wait);
+        assertEquals(0, limiter.tryAcquire(43));
+    }
+
+    @Test
+    void releaseGivesTokenBack() {
+        var limiter = new RateLimiter(ONCE_PER_HOUR, 1024);
+        assertEquals(0, limiter.tryAcquire(42));
+        limiter.release(42);
+        assertEquals(0, limiter.tryAcquire(42));
+        assertTrue(limiter.tryAcquire(42) > 0);
+    }
+
+    @Test
+    void keepsBucketsWhileGrowing() {
+        var limiter = new RateLimiter(ONCE_PER_HOUR, 1 << 12);
+        for (long key = 1; key <= 2_000; key++) assertEquals(0, limiter.tryAcquire(key), "key " + key);
+        for (long key = 1; key <= 2_000; key++) assertTrue(limiter.tryAcquire(key) > 0, "key " + key);
+        assertEquals(0, limiter.getOverflows());
+    }
+
+    @Test
+    void rejectsWhenFull() {
+        var limiter = new RateLimiter(ONCE_PER_HOUR, RateLimiter.MIN_CAPACITY);
+        var allowed = 0;
+        for (long key = 1; key <= 1_000; key++) if (limiter.tryAcquire(key) == 0) allowed++;
+        assertTrue(allowed <= RateLimiter.MIN_CAPACITY, "allowed " + allowed);
+        assertEquals(1_000 - allowed, limiter.getOverflows());
+        for (long key = 1; key <= 1_000; key++) assertTrue(limiter.tryAcquire(key) > 0, "key " + key);
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedLimit() throws Exception {
+        var keys = 5_000;
+        var threads = 8;
+        var limiter = new RateLimiter(ONCE_PER_HOUR, 1 << 10);
+        var allowed = new AtomicIntegerArray(keys + 1);
+        var pool = Executors.newFixedThreadPool(threads);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < threads; i++) {
+                var offset = i;
+                futures.add(pool.submit(() -> {
+                    for (int round = 0; round < 3; round++)
+                        for (int n = 0; n < keys; n++) {
+                            var key = 1 + (n + offset * 613) % keys;
+                            if (limiter.tryAcquire(key) == 0) allowed.incrementAndGet(key);
+                        }
+                    return null;
+                }));
+            }
+            for (var future : futures) future.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        var total = 0;
+        for (int key = 1; key <= keys; key++) {
+            assertTrue(allowed.get(key) <= 1, "key " + key + " was allowed " + allowed.get(key) + " times");
+            total += allowed.get(key);
+        }
+        assertTrue(limiter.getOverflows() > 0);
+        assertTrue(total <= 2 * (1 << 10), "allowed " + total);
+    }
+}
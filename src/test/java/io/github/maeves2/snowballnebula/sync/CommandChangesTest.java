@@ -0,0 +1,54 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandChangesTest {
+    @Test
+    void identicalCommandSetsHaveNoChanges() {
+        var changes = CommandChanges.between(List.of(ping(), ban("Ban a member")), List.of(ban("Ban a member"), ping()));
+        assertTrue(changes.isEmpty());
+        assertTrue(CommandChanges.between(List.of(), List.of()).isEmpty());
+    }
+
+    @Test
+    void addedAndChangedCommandsAreUpserted() {
+        var changes = CommandChanges.between(List.of(ping(), ban("Ban a member")),
+                List.of(ping(), ban("Ban someone"), new CommandData("kick", "Kick a member")));
+        assertEquals(List.of("ban", "kick"), names(changes));
+        assertEquals(Set.of(), changes.getRemovals());
+        assertFalse(changes.isEmpty());
+
+        var option = CommandChanges.between(List.of(ban("Ban a member")),
+                List.of(ban("Ban a member").addOption(OptionType.STRING, "reason", "Reason")));
+        assertEquals(List.of("ban"), names(option));
+    }
+
+    @Test
+    void removedCommandsAreDeletedByName() {
+        var changes = CommandChanges.between(List.of(ping(), new CommandData("zap", "Zap"), ban("Ban a member")),
+                List.of(ping()));
+        assertEquals(List.of(), changes.getUpserts());
+        assertEquals(Set.of("ban", "zap"), changes.getRemovals());
+    }
+
+    private static CommandData ping() {
+        return new CommandData("ping", "Ping the bot");
+    }
+
+    private static CommandData ban(String description) {
+        return new CommandData("ban", description).addOption(OptionType.USER, "member", "Member", true);
+    }
+
+    private static List<String> names(CommandChanges changes) {
+        return changes.getUpserts().stream().map(CommandData::getName).toList();
+    }
+}
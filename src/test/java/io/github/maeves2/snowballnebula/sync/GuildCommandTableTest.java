@@ -0,0 +1,148 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuildCommandTableTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void toggledCommandsSurviveReopening() {
+        var file = directory.resolve("commands.bin");
+        try (var table = GuildCommandTable.open(file)) {
+            assertTrue(table.setEnabled(1, "ban", false));
+            assertFalse(table.setEnabled(1, "ban", false));
+            assertFalse(table.setEnabled(2, "ban", true));
+            assertTrue(table.setEnabled(2, "kick", false));
+        }
+        try (var table = GuildCommandTable.open(file)) {
+            assertFalse(table.isEnabled(1, "ban"));
+            assertTrue(table.isEnabled(1, "kick"));
+            assertTrue(table.isEnabled(2, "ban"));
+            assertFalse(table.isEnabled(2, "kick"));
+            assertTrue(table.isEnabled(3, "ban"));
+            assertTrue(table.isEnabled(0, "ban"));
+            assertEquals(2, table.getGuildCount());
+        }
+    }
+
+    @Test
+    void resetRestoresTheDefault() {
+        var file = directory.resolve("commands.bin");
+        try (var table = GuildCommandTable.open(file)) {
+            table.setEnabledByDefault("premium", false);
+            assertTrue(table.setEnabled(1, "premium", true));
+            assertTrue(table.setEnabled(1, "ban", false));
+            assertTrue(table.isEnabled(1, "premium"));
+
+            assertTrue(table.reset(1, "premium"));
+            assertFalse(table.isEnabled(1, "premium"));
+            assertFalse(table.reset(1, "premium"));
+            assertFalse(table.reset(2, "ban"));
+            assertFalse(table.reset(1, "unknown"));
+        }
+        try (var table = GuildCommandTable.open(file)) {
+            assertTrue(table.isEnabled(1, "premium"));
+            table.setEnabledByDefault("premium", false);
+            assertFalse(table.isEnabled(1, "premium"));
+            assertFalse(table.isEnabled(1, "ban"));
+            table.setEnabledByDefault("premium", true);
+            assertTrue(table.isEnabled(1, "premium"));
+        }
+    }
+
+    @Test
+    void tablesGrowPastHalfTheirCapacity() throws IOException {
+        var file = directory.resolve("commands.bin");
+        var guilds = 3_000;
+        long initialSize;
+        try (var table = GuildCommandTable.open(file)) {
+            initialSize = Files.size(file);
+            for (long guild = 1; guild <= guilds; guild++) {
+                table.setEnabled(guild * 4194304L, "ban", guild % 2 == 0);
+                if (guild % 3 == 0) table.setEnabled(guild * 4194304L, "kick", false);
+                if (guild == 400) assertEquals(initialSize, Files.size(file));
+            }
+            assertEquals(guilds, table.getGuildCount());
+            assertTrue(Files.size(file) > initialSize);
+            assertFalse(Files.exists(directory.resolve("commands.bin.tmp")));
+            assertState(table, guilds);
+        }
+        try (var table = GuildCommandTable.open(file)) {
+            assertEquals(guilds, table.getGuildCount());
+            assertState(table, guilds);
+        }
+    }
+
+    @Test
+    void atMostMaxCommandsCanBeToggled() {
+        var file = directory.resolve("commands.bin");
+        try (var table = GuildCommandTable.open(file)) {
+            for (int i = 0; i < GuildCommandTable.MAX_COMMANDS; i++) table.setEnabled(1, "command" + i, i % 2 == 0);
+            assertThrows(IllegalStateException.class, () -> table.setEnabled(1, "one-too-many", false));
+            assertTrue(table.setEnabled(2, "command127", false));
+        }
+        try (var table = GuildCommandTable.open(file)) {
+            for (int i = 0; i < GuildCommandTable.MAX_COMMANDS; i++)
+                assertEquals(i % 2 == 0, table.isEnabled(1, "command" + i), "command" + i);
+            assertFalse(table.isEnabled(2, "command127"));
+            assertThrows(IllegalStateException.class, () -> table.setEnabled(1, "one-too-many", false));
+        }
+    }
+
+    @Test
+    void namesAreLimitedTo63Bytes() {
+        try (var table = GuildCommandTable.open(directory.resolve("commands.bin"))) {
+            var longest = "x".repeat(63);
+            assertTrue(table.setEnabled(1, longest, false));
+            assertThrows(IllegalArgumentException.class, () -> table.setEnabled(1, "x".repeat(64), false));
+            // 32 two byte characters
+            assertThrows(IllegalArgumentException.class, () -> table.setEnabled(1, "\u00e9".repeat(32), false));
+            assertTrue(table.setEnabled(1, "\u00e9".repeat(31), false));
+            assertThrows(IllegalArgumentException.class, () -> table.setEnabled(0, "ban", false));
+        }
+        try (var table = GuildCommandTable.open(directory.resolve("commands.bin"))) {
+            assertFalse(table.isEnabled(1, "x".repeat(63)));
+            assertFalse(table.isEnabled(1, "\u00e9".repeat(31)));
+        }
+    }
+
+    @Test
+    void filterDropsDisabledCommandsAndTheirAliases() {
+        try (var table = GuildCommandTable.open(directory.resolve("commands.bin"))) {
+            var commands = List.of(new CommandData("ban", "Ban"), new CommandData("kick", "Kick"),
+                    new CommandData("bans", "Ban alias"));
+            assertSame(commands, table.filter(1, commands));
+            table.setEnabled(1, "ban", false);
+            var filtered = table.filter(1, commands, name -> name.equals("bans") ? "ban" : name);
+            assertEquals(List.of("kick"), filtered.stream().map(CommandData::getName).toList());
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        var file = Files.write(directory.resolve("other.bin"), new byte[256]);
+        assertThrows(UncheckedIOException.class, () -> GuildCommandTable.open(file));
+    }
+
+    private static void assertState(GuildCommandTable table, int guilds) {
+        for (long guild = 1; guild <= guilds; guild++) {
+            assertEquals(guild % 2 == 0, table.isEnabled(guild * 4194304L, "ban"), "guild " + guild);
+            assertEquals(guild % 3 != 0, table.isEnabled(guild * 4194304L, "kick"), "guild " + guild);
+        }
+    }
+}
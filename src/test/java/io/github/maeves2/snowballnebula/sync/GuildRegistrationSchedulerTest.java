@@ -0,0 +1,183 @@
+package io.github.maeves2.snowballnebula.sync;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.exceptions.RateLimitedException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuildRegistrationSchedulerTest {
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retryableFailuresAreRetriedWithBackoff() throws Exception {
+        var failures = List.<Throwable>of(
+                error(ErrorResponse.CHANNEL_WRITE_RATE_LIMIT, 429),
+                error(ErrorResponse.SERVER_ERROR, 503),
+                new IOException("connection reset"),
+                new RateLimitedException("guilds/1/commands", 30));
+        var attempts = new ArrayList<Long>();
+        var report = scheduler().setMaxAttempts(5).schedule(List.of(guild(1, 1)), guild -> {
+            attempts.add(System.nanoTime());
+            var attempt = attempts.size();
+            return attempt <= failures.size()
+                    ? CompletableFuture.failedFuture(failures.get(attempt - 1))
+                    : CompletableFuture.completedFuture(null);
+        }).get(10, TimeUnit.SECONDS);
+
+        var result = report.getResults().get(0);
+        assertEquals(GuildResult.Status.SUCCESS, result.getStatus());
+        assertEquals(5, result.getAttempts());
+        assertNull(result.getError());
+        // the backoff starts at 10ms and doubles, the rate limit asks for at least 30ms
+        var minimum = new long[] {10, 20, 40, 80};
+        for (int i = 0; i < minimum.length; i++) {
+            var waited = TimeUnit.NANOSECONDS.toMillis(attempts.get(i + 1) - attempts.get(i));
+            assertTrue(waited >= minimum[i], "retry " + (i + 1) + " after " + waited + "ms");
+        }
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() throws Exception {
+        var attempts = new AtomicInteger();
+        var report = scheduler().schedule(List.of(guild(1, 1), guild(2, 1)), guild -> {
+            attempts.incrementAndGet();
+            if (guild.getIdLong() == 1) throw new IllegalStateException("broken");
+            return CompletableFuture.failedFuture(error(ErrorResponse.MISSING_ACCESS, 403));
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, attempts.get());
+        assertEquals(2, report.count(GuildResult.Status.FAILED));
+        for (var result : report.getResults()) assertEquals(1, result.getAttempts());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        var attempts = new AtomicInteger();
+        var report = scheduler().setMaxAttempts(3).schedule(List.of(guild(1, 1)), guild -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("timeout"));
+        }).get(10, TimeUnit.SECONDS);
+
+        var result = report.getResults().get(0);
+        assertEquals(3, attempts.get());
+        assertEquals(GuildResult.Status.FAILED, result.getStatus());
+        assertEquals(3, result.getAttempts());
+        assertInstanceOf(IOException.class, result.getError());
+    }
+
+    @Test
+    void inFlightBoundIsNeverExceeded() throws Exception {
+        var random = new Random(7);
+        var guilds = new ArrayList<Guild>();
+        var delays = new ConcurrentHashMap<Long, Long>();
+        for (int i = 0; i < 300; i++) {
+            guilds.add(guild(i, i));
+            delays.put((long) i, (long) random.nextInt(3));
+        }
+        var inFlight = new AtomicInteger();
+        var peak = new AtomicInteger();
+        var attempts = new ConcurrentHashMap<Long, AtomicInteger>();
+        var report = scheduler().setMaxInFlight(6).schedule(guilds, guild -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            var attempt = attempts.computeIfAbsent(guild.getIdLong(), id -> new AtomicInteger()).incrementAndGet();
+            var future = new CompletableFuture<Void>();
+            executor.schedule(() -> {
+                inFlight.decrementAndGet();
+                if (guild.getIdLong() % 5 == 0 && attempt == 1) future.completeExceptionally(new IOException());
+                else future.complete(null);
+            }, delays.get(guild.getIdLong()), TimeUnit.MILLISECONDS);
+            return future;
+        }).get(30, TimeUnit.SECONDS);
+
+        assertEquals(300, report.count(GuildResult.Status.SUCCESS));
+        assertTrue(peak.get() <= 6, "peak " + peak.get());
+        assertEquals(6, peak.get());
+    }
+
+    @Test
+    void guildsArePushedInPriorityOrder() throws Exception {
+        var guilds = List.of(guild(1, 50), guild(2, 5000), guild(3, 10), guild(4, 700));
+        var pushed = new ArrayList<Long>();
+        GuildPush push = guild -> {
+            pushed.add(guild.getIdLong());
+            return CompletableFuture.completedFuture(null);
+        };
+        scheduler().setMaxInFlight(1).schedule(guilds, push).get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(2L, 4L, 1L, 3L), pushed);
+
+        pushed.clear();
+        scheduler().setMaxInFlight(1).setPriority(Comparator.comparingLong(Guild::getIdLong).reversed())
+                .schedule(guilds, push).get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(4L, 3L, 2L, 1L), pushed);
+    }
+
+    @Test
+    void manyGuildsCompletingInlineDoNotOverflowTheStack() throws Exception {
+        var guilds = new ArrayList<Guild>();
+        for (int i = 0; i < 20_000; i++) guilds.add(guild(i, i % 100));
+        var report = new AtomicReference<RegistrationReport>();
+        var failure = new AtomicReference<Throwable>();
+        // a small stack makes a recursive drain fail long before 20 000 guilds
+        var thread = new Thread(null, () -> {
+            try {
+                report.set(scheduler().schedule(guilds, guild -> guild.getIdLong() % 3 == 0
+                        ? null : CompletableFuture.completedFuture(null)).join());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "scheduler-test", 128 * 1024);
+        thread.start();
+        thread.join();
+
+        assertNull(failure.get());
+        assertEquals(20_000, report.get().getResults().size());
+        assertEquals(6667, report.get().count(GuildResult.Status.SKIPPED));
+        assertEquals(13_333, report.get().count(GuildResult.Status.SUCCESS));
+    }
+
+    private GuildRegistrationScheduler scheduler() {
+        return new GuildRegistrationScheduler(executor).setBackoff(Duration.ofMillis(10));
+    }
+
+    private static ErrorResponseException error(ErrorResponse type, int code) {
+        return ErrorResponseException.create(type, new Response(null, code, "stub", 0, Set.of()));
+    }
+
+    private static Guild guild(long id, int members) {
+        var answers = Map.<String, Object>of("getIdLong", id, "getId", Long.toString(id), "getMemberCount", members,
+                "toString", "Guild:" + id, "hashCode", Long.hashCode(id));
+        return (Guild) Proxy.newProxyInstance(Guild.class.getClassLoader(), new Class<?>[] {Guild.class},
+                (proxy, method, args) -> method.getName().equals("equals")
+                        ? proxy == args[0] : answers.get(method.getName()));
+    }
+}
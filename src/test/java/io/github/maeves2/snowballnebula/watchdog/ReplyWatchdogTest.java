@@ -0,0 +1,155 @@
+package io.github.maeves2.snowballnebula.watchdog;
+
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.Interaction;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyAction;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.SelfUserImpl;
+import net.dv8tion.jda.internal.interactions.InteractionHookImpl;
+import net.dv8tion.jda.internal.interactions.InteractionImpl;
+import net.dv8tion.jda.internal.requests.restaction.interactions.ReplyActionImpl;
+import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
+import net.dv8tion.jda.internal.utils.config.MetaConfig;
+import net.dv8tion.jda.internal.utils.config.SessionConfig;
+import net.dv8tion.jda.internal.utils.config.ThreadingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplyWatchdogTest {
+    private final ScheduledExecutorService pool = Executors.newSingleThreadScheduledExecutor();
+    private final ReplyWatchdog watchdog = new ReplyWatchdog(new TimerWheel(1, TimeUnit.MILLISECONDS, 8),
+            10, TimeUnit.MILLISECONDS);
+
+    @AfterEach
+    void close() {
+        watchdog.close();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void repliesAfterADeferralEditTheDeferredResponse() throws InterruptedException {
+        var event = new StubEvent(hook());
+        var deferred = new CountDownLatch(1);
+        var watched = watchdog.watch(event, System.nanoTime(), deferred::countDown);
+        event.interaction = event.hook.getInteraction();
+
+        assertTrue(deferred.await(5, TimeUnit.SECONDS));
+        assertTrue(watched.isDeferredByWatchdog());
+        assertEquals(1, event.deferrals.get());
+        assertInstanceOf(DeferredReplyAction.class, watched.deferReply());
+        assertInstanceOf(DeferredReplyAction.class, watched.reply("done"));
+        assertSame(event.hook, watched.deferReply().submit().join());
+        assertFalse(watched.disarm());
+        assertEquals(1, event.deferrals.get());
+    }
+
+    @Test
+    void disarmedExecutionsAreNotDeferred() throws InterruptedException {
+        var event = new StubEvent(hook());
+        var deferrals = new AtomicInteger();
+        var watched = watchdog.watch(event, System.nanoTime(), deferrals::incrementAndGet);
+        event.interaction = event.hook.getInteraction();
+        assertTrue(watched.disarm());
+        assertFalse(watched.disarm());
+
+        Thread.sleep(50);
+        assertEquals(0, deferrals.get());
+        assertFalse(watched.isDeferredByWatchdog());
+        assertFalse(watched.deferReply() instanceof DeferredReplyAction);
+        assertEquals(1, event.deferrals.get());
+    }
+
+    @Test
+    void repliesBeforeTheThresholdCancelTheWatchdog() throws InterruptedException {
+        var event = new StubEvent(hook());
+        var deferrals = new AtomicInteger();
+        var watched = watchdog.watch(event, System.nanoTime(), deferrals::incrementAndGet);
+        watched.reply("fast").queue();
+
+        Thread.sleep(50);
+        assertEquals(0, deferrals.get());
+        assertFalse(watched.isDeferredByWatchdog());
+        assertFalse(watched.disarm());
+        assertEquals(1, event.deferrals.get());
+    }
+
+    /**
+     * Builds a hook of an interaction which is not backed by a gateway
+     * session, it is only used to build replies.
+     */
+    private InteractionHook hook() {
+        var threading = ThreadingConfig.getDefault();
+        threading.setGatewayPool(pool, false);
+        var jda = new JDAImpl(new AuthorizationConfig("token"), SessionConfig.getDefault(), threading,
+                MetaConfig.getDefault());
+        jda.setSelfUser(new SelfUserImpl(1, jda));
+        var user = (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] {User.class},
+                (proxy, method, args) -> method.getName().equals("getJDA") ? jda : null);
+        return new InteractionImpl(2, 2, "token", null, null, user, null).getHook();
+    }
+
+    /**
+     * Event whose replies complete at once without a request. Its interaction
+     * is only set once it is watched, the watched event would otherwise
+     * expect a slash command interaction.
+     */
+    private static final class StubEvent extends SlashCommandEvent {
+        private final InteractionHook hook;
+        private final AtomicInteger deferrals = new AtomicInteger();
+        private volatile Interaction interaction;
+
+        private StubEvent(InteractionHook hook) {
+            super(hook.getJDA(), 0, null);
+            this.hook = hook;
+        }
+
+        @Override
+        public Interaction getInteraction() {
+            return interaction;
+        }
+
+        @Override
+        public InteractionHook getHook() {
+            return hook;
+        }
+
+        @Override
+        public boolean isAcknowledged() {
+            return deferrals.get() > 0;
+        }
+
+        @Override
+        public ReplyAction deferReply() {
+            deferrals.incrementAndGet();
+            return new ReplyActionImpl((InteractionHookImpl) hook) {
+                @Override
+                public CompletableFuture<InteractionHook> submit(boolean shouldQueue) {
+                    return CompletableFuture.completedFuture(hook);
+                }
+
+                @Override
+                public void queue(Consumer<? super InteractionHook> success,
+                                  Consumer<? super Throwable> failure) {
+                    if (success != null) success.accept(hook);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.maeves2.snowballnebula.watchdog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+    /**
+     * One round of this wheel takes 8 milliseconds.
+     */
+    private final TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    void close() {
+        wheel.close();
+    }
+
+    @Test
+    void timeoutsNeverExpireEarly() throws InterruptedException {
+        var random = new Random(3);
+        var count = 500;
+        var due = new long[count];
+        var fired = new AtomicLongArray(count);
+        var done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            var index = i;
+            var delay = random.nextInt(40_000);
+            due[i] = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(delay);
+            wheel.schedule(() -> {
+                fired.set(index, System.nanoTime());
+                done.countDown();
+            }, delay, TimeUnit.MICROSECONDS);
+            if (i % 50 == 0) Thread.sleep(1);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++)
+            assertTrue(fired.get(i) >= due[i], "timeout " + i + " fired " + (due[i] - fired.get(i)) + "ns early");
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timeoutsSeveralRoundsAheadWaitForTheirRound() throws InterruptedException {
+        var done = new CountDownLatch(1);
+        var start = System.nanoTime();
+        var timeout = wheel.schedule(done::countDown, 30, TimeUnit.MILLISECONDS);
+        var near = new CountDownLatch(1);
+        wheel.schedule(near::countDown, 2, TimeUnit.MILLISECONDS);
+
+        assertTrue(near.await(5, TimeUnit.SECONDS));
+        assertFalse(timeout.isExpired());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void cancelRacingExpiryRunsEveryTaskAtMostOnce() throws InterruptedException {
+        var count = 5_000;
+        var runs = new AtomicIntegerArray(count);
+        var timeouts = new ArrayList<TimerWheel.Timeout>();
+        for (int i = 0; i < count; i++) {
+            var index = i;
+            timeouts.add(wheel.schedule(() -> runs.incrementAndGet(index),
+                    i % 2 == 0 ? i % 20 : 60_000, TimeUnit.MILLISECONDS));
+        }
+        var cancelled = new boolean[count];
+        // cancels while the wheel is expiring the same timeouts
+        Thread.sleep(10);
+        var canceller = new Thread(() -> {
+            for (int i = 0; i < count; i++) cancelled[i] = timeouts.get(i).cancel();
+        });
+        canceller.start();
+        canceller.join();
+        // tasks run one after another, every other task is done once this one ran
+        var last = new CountDownLatch(1);
+        wheel.schedule(last::countDown, 30, TimeUnit.MILLISECONDS);
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+
+        var expired = 0;
+        for (int i = 0; i < count; i++) {
+            var timeout = timeouts.get(i);
+            assertNotEquals(cancelled[i], timeout.isExpired(), "timeout " + i);
+            assertEquals(cancelled[i], timeout.isCancelled(), "timeout " + i);
+            assertEquals(timeout.isExpired() ? 1 : 0, runs.get(i), "timeout " + i);
+            if (timeout.isExpired()) expired++;
+        }
+        assertTrue(expired > 0 && expired < count, expired + " of " + count + " timeouts expired");
+    }
+}
@@ -0,0 +1,254 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary log of {@link RecordedInteraction}s. Please note that all
+ * methods in this class are static, logs are written using a {@link Writer}.
+ * <p>
+ * A log starts with the magic number {@code SNIL} and a version byte,
+ * followed by the interactions until the end of the file. Numbers are
+ * written as unsigned variable-length integers, seven bits per byte, and
+ * offsets as the difference to the previous interaction. Command, group,
+ * subcommand and option names are interned: the first occurrence is written
+ * once and later ones only refer to it, so an interaction without options
+ * usually takes around 20 bytes. A string is written as a tag: {@code 0} is
+ * {@code null}, {@code 1} is followed by a string which is not interned,
+ * {@code 2 + i} refers to interned string {@code i}, and if {@code i} is the
+ * next free index, the string follows and is interned. Strings themselves
+ * are written as their length in bytes followed by their UTF-8 bytes.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class InteractionLog {
+    /**
+     * {@code SNIL} in ASCII.
+     */
+    private static final int MAGIC = 0x534E494C;
+    private static final int VERSION = 1;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private InteractionLog() {
+        throw new UnsupportedOperationException("No instances for you.");
+    }
+
+    /**
+     * Opens a log for writing, replacing an existing file.
+     * @param file The file
+     * @return {@link Writer}
+     * @throws IOException If the file cannot be written
+     */
+    public static Writer open(Path file) throws IOException {
+        return new Writer(Files.newOutputStream(file));
+    }
+
+    /**
+     * Writes interactions to a new log.
+     * @param file The file, replaced if it exists
+     * @param interactions The interactions, ordered by offset
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Path file, Collection<RecordedInteraction> interactions) throws IOException {
+        try (var writer = open(file)) {
+            for (var interaction : interactions) writer.append(interaction);
+        }
+    }
+
+    /**
+     * Reads all interactions of a log.
+     * @param file The file
+     * @return The interactions, in the order they were written
+     * @throws IOException If the file cannot be read or is no interaction log
+     */
+    public static List<RecordedInteraction> read(Path file) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads all interactions of a log.
+     * @param stream The stream, not closed by this method
+     * @return The interactions, in the order they were written
+     * @throws IOException If the stream cannot be read or is no interaction log
+     */
+    public static List<RecordedInteraction> read(InputStream stream) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) throw new IOException("Not an interaction log");
+        var version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported interaction log version " + version);
+        var strings = new ArrayList<String>();
+        var interactions = new ArrayList<RecordedInteraction>();
+        var offset = 0L;
+        while (true) {
+            int first = in.read();
+            if (first < 0) break;
+            try {
+                offset += readVarLong(in, first);
+                var name = readString(in, strings);
+                var group = readString(in, strings);
+                var subcommand = readString(in, strings);
+                var userId = readVarLong(in, in.readUnsignedByte());
+                var guildId = readVarLong(in, in.readUnsignedByte());
+                var permissions = readVarLong(in, in.readUnsignedByte());
+                var count = (int) readVarLong(in, in.readUnsignedByte());
+                var options = new ArrayList<RecordedInteraction.Option>(count);
+                for (int i = 0; i < count; i++) {
+                    var optionName = readString(in, strings);
+                    var type = OptionType.fromKey((int) readVarLong(in, in.readUnsignedByte()));
+                    options.add(new RecordedInteraction.Option(optionName, type, readString(in, strings)));
+                }
+                interactions.add(new RecordedInteraction(offset, name, group, subcommand, userId, guildId,
+                        permissions, options));
+            } catch (EOFException e) {
+                throw new IOException("Truncated interaction log after " + interactions.size() + " interactions", e);
+            }
+        }
+        return interactions;
+    }
+
+    private static long readVarLong(DataInputStream in, int first) throws IOException {
+        var value = (long) (first & 0x7F);
+        var shift = 7;
+        for (int b = first; (b & 0x80) != 0; shift += 7) {
+            if (shift > 63) throw new IOException("Malformed number in interaction log");
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        var tag = readVarLong(in, in.readUnsignedByte());
+        if (tag == 0) return null;
+        if (tag == 1) return readLiteral(in);
+        var index = tag - 2;
+        if (index < strings.size()) return strings.get((int) index);
+        if (index > strings.size()) throw new IOException("Malformed string reference in interaction log");
+        var value = readLiteral(in);
+        strings.add(value);
+        return value;
+    }
+
+    private static String readLiteral(DataInputStream in) throws IOException {
+        var bytes = new byte[(int) readVarLong(in, in.readUnsignedByte())];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends interactions to a log. Appending is synchronized, so a writer
+     * can be shared by several threads.
+     */
+    public static class Writer implements AutoCloseable {
+        /**
+         * Maximum number of interned strings, later names are written in full.
+         */
+        private static final int MAX_INTERNED = 1 << 16;
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private long offset;
+        private long count;
+
+        private Writer(OutputStream stream) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        /**
+         * Appends an interaction. Interactions have to be appended in the
+         * order of their offsets, an earlier offset is written as the
+         * offset of the previous interaction.
+         * @param interaction The interaction
+         * @throws IOException If the interaction cannot be written
+         */
+        public synchronized void append(RecordedInteraction interaction) throws IOException {
+            var delta = Math.max(0, interaction.getOffsetNanos() - offset);
+            offset += delta;
+            writeVarLong(delta);
+            writeString(interaction.getName(), true);
+            writeString(interaction.getGroup(), true);
+            writeString(interaction.getSubcommand(), true);
+            writeVarLong(interaction.getUserId());
+            writeVarLong(interaction.getGuildId());
+            writeVarLong(interaction.getPermissions());
+            writeVarLong(interaction.getOptions().size());
+            for (var option : interaction.getOptions()) {
+                writeString(option.getName(), true);
+                writeVarLong(option.getType().getKey());
+                writeString(option.getValue(), false);
+            }
+            count++;
+        }
+
+        /**
+         * @return The number of appended interactions
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * Writes buffered interactions to the file.
+         * @throws IOException If they cannot be written
+         */
+        public synchronized void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private void writeString(String value, boolean intern) throws IOException {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            var index = intern ? strings.get(value) : null;
+            if (index != null) {
+                writeVarLong(index + 2L);
+                return;
+            }
+            if (intern && strings.size() < MAX_INTERNED) {
+                writeVarLong(strings.size() + 2L);
+                strings.put(value, strings.size());
+            } else {
+                writeVarLong(1);
+            }
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
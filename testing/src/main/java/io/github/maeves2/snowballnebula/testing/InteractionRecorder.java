@@ -0,0 +1,71 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Records the slash commands received by a live bot into an
+ * {@link InteractionLog}, to be replayed by a {@link Replayer} later. Add it
+ * as event listener next to the {@code SnowballNebula} instance and close
+ * it when done. Synthetic interactions can be added using
+ * {@link #record(RecordedInteraction)}.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class InteractionRecorder extends ListenerAdapter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(InteractionRecorder.class);
+
+    private final InteractionLog.Writer writer;
+    private final long start = System.nanoTime();
+    private volatile boolean closed;
+
+    /**
+     * @param file The file of the log, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public InteractionRecorder(Path file) throws IOException {
+        this.writer = InteractionLog.open(file);
+    }
+
+    /**
+     * Code to execute when a slash command is used. Overridden from the
+     * {@link ListenerAdapter} class.
+     */
+    @Override
+    public void onSlashCommand(@NotNull SlashCommandEvent event) {
+        if (closed) return;
+        try {
+            writer.append(RecordedInteraction.of(event, System.nanoTime() - start));
+        } catch (IOException e) {
+            logger.error("Could not record an interaction", e);
+        }
+    }
+
+    /**
+     * Appends an interaction, for example a synthetic one.
+     * @param interaction The interaction
+     * @throws IOException If the interaction cannot be written
+     */
+    public void record(RecordedInteraction interaction) throws IOException {
+        writer.append(interaction);
+    }
+
+    /**
+     * @return The number of recorded interactions
+     */
+    public long getCount() {
+        return writer.getCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        writer.close();
+    }
+}
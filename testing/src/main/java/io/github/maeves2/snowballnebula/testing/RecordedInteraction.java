@@ -0,0 +1,300 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A slash command interaction as stored in an {@link InteractionLog}: the
+ * command, who executed it where, and the values of its options. Options
+ * referring to entities, like users or roles, are stored by ID and cannot be
+ * resolved when the interaction is replayed.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class RecordedInteraction {
+    private final long offsetNanos;
+    private final String name;
+    private final String group;
+    private final String subcommand;
+    private final long userId;
+    private final long guildId;
+    private final long permissions;
+    private final List<Option> options;
+
+    /**
+     * @param offsetNanos Time since the start of the recording
+     * @param name Name of the command
+     * @param group Name of the subcommand group, {@code null} if none
+     * @param subcommand Name of the subcommand, {@code null} if none
+     * @param userId ID of the user
+     * @param guildId ID of the guild, {@code 0} in direct messages
+     * @param permissions Raw permissions of the member
+     * @param options The options
+     */
+    public RecordedInteraction(long offsetNanos, String name, String group, String subcommand, long userId,
+                               long guildId, long permissions, List<Option> options) {
+        this.offsetNanos = offsetNanos;
+        this.name = Objects.requireNonNull(name);
+        this.group = group;
+        this.subcommand = subcommand;
+        this.userId = userId;
+        this.guildId = guildId;
+        this.permissions = permissions;
+        this.options = List.copyOf(options);
+    }
+
+    /**
+     * Records a live event.
+     * @param event The event
+     * @param offsetNanos Time since the start of the recording
+     * @return {@link RecordedInteraction}
+     */
+    public static RecordedInteraction of(SlashCommandEvent event, long offsetNanos) {
+        var options = new ArrayList<Option>(event.getOptions().size());
+        for (var option : event.getOptions())
+            options.add(new Option(option.getName(), option.getType(), option.getAsString()));
+        var member = event.getMember();
+        var guild = event.getGuild();
+        return new RecordedInteraction(offsetNanos, event.getName(), event.getSubcommandGroup(),
+                event.getSubcommandName(), event.getUser().getIdLong(), guild == null ? 0 : guild.getIdLong(),
+                member == null ? Permission.ALL_PERMISSIONS : Permission.getRaw(member.getPermissions()), options);
+    }
+
+    /**
+     * Creates a builder for a synthetic interaction.
+     * @param name The name of the command
+     * @return {@link Builder}
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * Creates an event replaying this interaction. The member has the
+     * recorded permissions in every channel.
+     * @param jda The JDA instance of the event
+     * @param user The user, its ID should be {@link #getUserId()}
+     * @param guild The guild, {@code null} in direct messages
+     * @param onReply Called whenever a reply is sent, {@code null} if none
+     * @return {@link StubSlashCommandEvent}
+     */
+    public StubSlashCommandEvent toEvent(JDA jda, User user, Guild guild, Consumer<StubSlashCommandEvent> onReply) {
+        var mappings = new ArrayList<OptionMapping>(options.size());
+        for (var option : options) mappings.add(option.toMapping());
+        Member member = Stubs.member(user, guild, permissions);
+        return new StubSlashCommandEvent(jda, name, group, subcommand, mappings, user, member, guild, onReply);
+    }
+
+    /**
+     * @return Time since the start of the recording
+     */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The name of the subcommand group, {@code null} if none
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return The name of the subcommand, {@code null} if none
+     */
+    public String getSubcommand() {
+        return subcommand;
+    }
+
+    /**
+     * @return The path of the command, for example {@code admin ban}
+     */
+    public String getPath() {
+        return name + (group == null ? "" : " " + group) + (subcommand == null ? "" : " " + subcommand);
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return The ID of the guild, {@code 0} in direct messages
+     */
+    public long getGuildId() {
+        return guildId;
+    }
+
+    /**
+     * @return The raw permissions of the member
+     */
+    public long getPermissions() {
+        return permissions;
+    }
+
+    public List<Option> getOptions() {
+        return options;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecordedInteraction that)) return false;
+        return offsetNanos == that.offsetNanos && userId == that.userId && guildId == that.guildId
+                && permissions == that.permissions && name.equals(that.name) && Objects.equals(group, that.group)
+                && Objects.equals(subcommand, that.subcommand) && options.equals(that.options);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offsetNanos, name, group, subcommand, userId, guildId, permissions, options);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordedInteraction{command=" + getPath() + ", offset=" + offsetNanos + "ns, user=" + userId
+                + ", guild=" + guildId + ", options=" + options + "}";
+    }
+
+    /**
+     * The value of an option.
+     */
+    public static final class Option {
+        private final String name;
+        private final OptionType type;
+        private final String value;
+
+        /**
+         * @param name The name of the option
+         * @param type The type of the option
+         * @param value The value, as returned by {@link OptionMapping#getAsString()}
+         */
+        public Option(String name, OptionType type, String value) {
+            this.name = Objects.requireNonNull(name);
+            this.type = Objects.requireNonNull(type);
+            this.value = Objects.requireNonNull(value);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OptionType getType() {
+            return type;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        private OptionMapping toMapping() {
+            var data = DataObject.empty().put("name", name).put("type", type.getKey());
+            switch (type) {
+                case INTEGER -> data.put("value", Long.parseLong(value));
+                case NUMBER -> data.put("value", Double.parseDouble(value));
+                case BOOLEAN -> data.put("value", Boolean.parseBoolean(value));
+                default -> data.put("value", value);
+            }
+            return new OptionMapping(data, new TLongObjectHashMap<>());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Option that && name.equals(that.name) && type == that.type && value.equals(that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, type, value);
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + value;
+        }
+    }
+
+    /**
+     * Builder for synthetic interactions. The user, guild and permissions
+     * default to {@code 1}, no guild and all permissions.
+     */
+    public static class Builder {
+        private final String name;
+        private long offsetNanos;
+        private String group;
+        private String subcommand;
+        private long userId = 1;
+        private long guildId;
+        private long permissions = Permission.ALL_PERMISSIONS;
+        private final List<Option> options = new ArrayList<>();
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        public Builder setOffsetNanos(long offsetNanos) {
+            this.offsetNanos = offsetNanos;
+            return this;
+        }
+
+        public Builder setGroup(String group) {
+            this.group = group;
+            return this;
+        }
+
+        public Builder setSubcommand(String subcommand) {
+            this.subcommand = subcommand;
+            return this;
+        }
+
+        public Builder setUserId(long userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public Builder setGuildId(long guildId) {
+            this.guildId = guildId;
+            return this;
+        }
+
+        public Builder setPermissions(long permissions) {
+            this.permissions = permissions;
+            return this;
+        }
+
+        /**
+         * Adds an option.
+         * @param name The name of the option
+         * @param type The type of the option
+         * @param value The value, as returned by {@link OptionMapping#getAsString()}
+         * @return {@link Builder} for chaining convenience
+         */
+        public Builder addOption(String name, OptionType type, String value) {
+            options.add(new Option(name, type, value));
+            return this;
+        }
+
+        /**
+         * @return The interaction
+         */
+        public RecordedInteraction build() {
+            return new RecordedInteraction(offsetNanos, name, group, subcommand, userId, guildId, permissions, options);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import io.github.maeves2.snowballnebula.metrics.HistogramSnapshot;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of a replay. The latency of an interaction is the
+ * time from when it was due, according to the replay rate, until its first
+ * reply, so a bot falling behind the rate shows up as latency as well.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class ReplayReport {
+    private final long interactions;
+    private final long replied;
+    private final long failed;
+    private final long elapsedNanos;
+    private final HistogramSnapshot latency;
+    private final Map<String, HistogramSnapshot> latencyByCommand;
+
+    public ReplayReport(long interactions, long replied, long failed, long elapsedNanos, HistogramSnapshot latency,
+                        Map<String, HistogramSnapshot> latencyByCommand) {
+        this.interactions = interactions;
+        this.replied = replied;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.latencyByCommand = Map.copyOf(latencyByCommand);
+    }
+
+    /**
+     * @return The number of replayed interactions
+     */
+    public long getInteractions() {
+        return interactions;
+    }
+
+    /**
+     * @return The number of interactions which got a reply before the replay ended
+     */
+    public long getReplied() {
+        return replied;
+    }
+
+    /**
+     * @return The number of interactions without a reply
+     */
+    public long getUnanswered() {
+        return interactions - replied;
+    }
+
+    /**
+     * @return The number of interactions whose dispatch threw an exception
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return The time from the first dispatch until the last reply, or
+     * until the replay gave up waiting for replies
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return Replied interactions per second
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : replied * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return The latencies of all replied interactions
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return The latencies by command path
+     */
+    public Map<String, HistogramSnapshot> getLatencyByCommand() {
+        return latencyByCommand;
+    }
+
+    /**
+     * @return A human-readable report, one line per command
+     */
+    public String format() {
+        var builder = new StringBuilder()
+                .append(String.format("%d interactions in %d ms, %.1f/s, %d unanswered, %d failed%n",
+                        interactions, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(),
+                        getUnanswered(), failed))
+                .append(String.format("%-24s %10s %10s %10s %10s%n", "command", "count", "mean us", "p50 us", "p99 us"));
+        row(builder, "all", latency);
+        latencyByCommand.entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> row(builder, "/" + entry.getKey(), entry.getValue()));
+        return builder.toString();
+    }
+
+    private static void row(StringBuilder builder, String name, HistogramSnapshot histogram) {
+        builder.append(String.format("%-24s %10d %10d %10d %10d%n", name, histogram.getCount(),
+                micros(histogram.getMeanNanos()), micros(histogram.getPercentileNanos(50)),
+                micros(histogram.getPercentileNanos(99))));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayReport{interactions=" + interactions + ", replied=" + replied + ", failed=" + failed
+                + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+                + ", throughput=" + String.format("%.1f", getThroughput()) + "/s, latency=" + latency + "}";
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.metrics.HistogramSnapshot;
+import io.github.maeves2.snowballnebula.metrics.LatencyHistogram;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays {@link RecordedInteraction}s against a {@link SnowballNebula}
+ * instance, without a Discord connection, and reports throughput and reply
+ * latency. Interactions are dispatched one after another on the calling
+ * thread, like JDA dispatches the events of one shard, either flat out, at
+ * a fixed rate or following the recorded timing.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * var snowball = new SnowballNebula(Stubs.jda()).enableAsyncDispatch().register(Commands.class);
+ * var report = new Replayer(snowball).setRate(500).replay(InteractionLog.read(Path.of("interactions.log")));
+ * System.out.print(report.format());
+ * }</pre>
+ * The latency of an interaction counts from when it was due rather than from
+ * when it was dispatched, so interactions delayed by a slow dispatch are not
+ * reported as fast. Without asynchronous dispatch, an interaction which was
+ * not answered once its dispatch returned is counted as unanswered right
+ * away, unless its command replies asynchronously; other interactions are
+ * waited for until the reply timeout.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class Replayer {
+    private final SnowballNebula snowball;
+    private final JDA jda = Stubs.jda();
+    private double rate;
+    private double speed;
+    private long replyTimeoutNanos = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Creates a replayer dispatching flat out.
+     * @param snowball The instance the interactions are dispatched to, usually
+     *        created with {@link Stubs#jda()}
+     */
+    public Replayer(SnowballNebula snowball) {
+        this.snowball = Objects.requireNonNull(snowball);
+    }
+
+    /**
+     * Dispatch the interactions at a fixed rate, ignoring their recorded
+     * timing.
+     * @param perSecond Interactions per second, {@code 0} to dispatch flat out
+     * @return {@link Replayer} for chaining convenience
+     */
+    public Replayer setRate(double perSecond) {
+        if (perSecond < 0) throw new IllegalArgumentException("The rate must not be negative");
+        this.rate = perSecond;
+        this.speed = 0;
+        return this;
+    }
+
+    /**
+     * Dispatch the interactions following their recorded timing.
+     * @param speed Speed relative to the recording, for example {@code 2} to
+     *        replay an hour of interactions in half an hour
+     * @return {@link Replayer} for chaining convenience
+     */
+    public Replayer setRecordedTiming(double speed) {
+        if (speed <= 0) throw new IllegalArgumentException("The speed must be positive");
+        this.speed = speed;
+        this.rate = 0;
+        return this;
+    }
+
+    /**
+     * @param timeout How long to wait for outstanding replies after the last
+     *        interaction was dispatched, defaults to ten seconds
+     * @param unit Unit of {@code timeout}
+     * @return {@link Replayer} for chaining convenience
+     */
+    public Replayer setReplyTimeout(long timeout, TimeUnit unit) {
+        this.replyTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Replays interactions and waits for their replies.
+     * @param interactions The interactions, ordered by offset
+     * @return {@link ReplayReport}
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public ReplayReport replay(List<RecordedInteraction> interactions) throws InterruptedException {
+        var users = new HashMap<Long, User>();
+        var guilds = new HashMap<Long, Guild>();
+        var histograms = new HashMap<String, LatencyHistogram>();
+        var latency = new LatencyHistogram();
+        var outstanding = new CountDownLatch(interactions.size());
+        var replied = new LongAdder();
+        var failed = 0L;
+        var lastReply = new AtomicLong();
+        var interval = rate > 0 ? (long) (1e9 / rate) : 0;
+        var inline = !snowball.isAsyncDispatch();
+        var start = System.nanoTime();
+        var firstOffset = interactions.isEmpty() ? 0 : interactions.get(0).getOffsetNanos();
+        for (int i = 0; i < interactions.size(); i++) {
+            var interaction = interactions.get(i);
+            long due;
+            if (interval > 0) due = start + i * interval;
+            else if (speed > 0) due = start + (long) ((interaction.getOffsetNanos() - firstOffset) / speed);
+            else due = System.nanoTime();
+            for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+
+            var histogram = histograms.computeIfAbsent(interaction.getPath(), e -> new LatencyHistogram());
+            var user = users.computeIfAbsent(interaction.getUserId(), Stubs::user);
+            var guild = interaction.getGuildId() == 0 ? null
+                    : guilds.computeIfAbsent(interaction.getGuildId(), Stubs::guild);
+            var done = new AtomicBoolean();
+            var event = interaction.toEvent(jda, user, guild, e -> {
+                if (!done.compareAndSet(false, true)) return;
+                var now = System.nanoTime();
+                latency.record(now - due);
+                histogram.record(now - due);
+                replied.increment();
+                lastReply.accumulateAndGet(now, Math::max);
+                outstanding.countDown();
+            });
+            try {
+                snowball.onSlashCommand(event);
+                // inline dispatches are over once they returned, unless they reply asynchronously
+                if (inline && !repliesLater(interaction) && done.compareAndSet(false, true)) outstanding.countDown();
+            } catch (Throwable e) {
+                failed++;
+                if (done.compareAndSet(false, true)) outstanding.countDown();
+            }
+        }
+        var complete = outstanding.await(replyTimeoutNanos, TimeUnit.NANOSECONDS);
+        var end = complete && lastReply.get() != 0 ? lastReply.get() : System.nanoTime();
+        var byCommand = new HashMap<String, HistogramSnapshot>();
+        histograms.forEach((path, histogram) -> byCommand.put(path, histogram.snapshot()));
+        return new ReplayReport(interactions.size(), replied.sum(), failed, Math.max(0, end - start),
+                latency.snapshot(), byCommand);
+    }
+
+    private boolean repliesLater(RecordedInteraction interaction) {
+        var command = snowball.getRegisteredCommand(interaction.getPath());
+        return command != null && command.isAsyncReply();
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyAction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Slash command event which is not backed by an interaction. Every reply of
+ * the command goes through {@link #deferReply()}, which returns a reply
+ * action that does nothing except marking the event as acknowledged and
+ * notifying the reply listener when it is queued, submitted or completed.
+ * Methods which JDA answers from the interaction, like
+ * {@link #getCommandPath()}, are answered by the stub itself.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class StubSlashCommandEvent extends SlashCommandEvent {
+    private final String name;
+    private final String group;
+    private final String subcommand;
+    private final List<OptionMapping> options;
+    private final User user;
+    private final Member member;
+    private final Guild guild;
+    private final Consumer<StubSlashCommandEvent> onReply;
+    private final ReplyAction reply;
+    private volatile boolean acknowledged;
+
+    /**
+     * Creates an event of a top-level command without options, guild and
+     * reply listener.
+     * @param name The name of the command
+     * @param user The user executing the command
+     * @param member The member executing the command
+     */
+    public StubSlashCommandEvent(String name, User user, Member member) {
+        this(null, name, null, null, List.of(), user, member, null, null);
+    }
+
+    /**
+     * @param jda The JDA instance returned by {@link #getJDA()}, may be {@code null}
+     * @param name The name of the command
+     * @param group The name of the subcommand group, {@code null} if none
+     * @param subcommand The name of the subcommand, {@code null} if none
+     * @param options The options of the command
+     * @param user The user executing the command
+     * @param member The member executing the command
+     * @param guild The guild the command is executed in, {@code null} in direct messages
+     * @param onReply Called on the replying thread whenever a reply is sent, {@code null} if none
+     */
+    public StubSlashCommandEvent(JDA jda, String name, String group, String subcommand, List<OptionMapping> options,
+                                 User user, Member member, Guild guild, Consumer<StubSlashCommandEvent> onReply) {
+        super(jda, 0, null);
+        this.name = name;
+        this.group = group;
+        this.subcommand = subcommand;
+        this.options = List.copyOf(options);
+        this.user = user;
+        this.member = member;
+        this.guild = guild;
+        this.onReply = onReply;
+        Stubs.Answer send = args -> {
+            replied();
+            return null;
+        };
+        Stubs.Answer submit = args -> {
+            replied();
+            return CompletableFuture.completedFuture(null);
+        };
+        this.reply = Stubs.stub(ReplyAction.class, Map.of("queue", send, "complete", send, "submit", submit));
+    }
+
+    private void replied() {
+        acknowledged = true;
+        if (onReply != null) onReply.accept(this);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getSubcommandGroup() {
+        return group;
+    }
+
+    @Override
+    public String getSubcommandName() {
+        return subcommand;
+    }
+
+    @Override
+    public String getCommandPath() {
+        var path = new StringBuilder(name);
+        if (group != null) path.append('/').append(group);
+        if (subcommand != null) path.append('/').append(subcommand);
+        return path.toString();
+    }
+
+    @Override
+    public List<OptionMapping> getOptions() {
+        return options;
+    }
+
+    @Override
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public Member getMember() {
+        return member;
+    }
+
+    @Override
+    public Guild getGuild() {
+        return guild;
+    }
+
+    /**
+     * @return Whether a reply was sent
+     */
+    @Override
+    public boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    @Override
+    public ReplyAction deferReply() {
+        return reply;
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.entities.User;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local stand-ins for JDA objects, backed by dynamic proxies, so that a
+ * {@link io.github.maeves2.snowballnebula.SnowballNebula} instance can be
+ * driven without a Discord connection. Every method returns a fixed answer,
+ * methods returning the proxied interface return the proxy itself so REST
+ * actions can be chained and queued without doing anything.
+ * Please note that all methods in this class are static.
+ * @since 1.3.0
+ * @author MaeveS2
+ */
+public class Stubs {
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private Stubs() {
+        throw new UnsupportedOperationException("No instances for you.");
+    }
+
+    /**
+     * @return A JDA instance whose self user is distinct from every stubbed user
+     */
+    public static JDA jda() {
+        var self = stub(SelfUser.class, Map.of("getName", "SnowballNebula", "getAsTag", "SnowballNebula#0000"));
+        return stub(JDA.class, Map.of("getSelfUser", self, "getGuilds", List.of(), "getStatus", JDA.Status.CONNECTED));
+    }
+
+    /**
+     * @return A user with ID {@code 1}
+     */
+    public static User user() {
+        return user(1);
+    }
+
+    /**
+     * @param id The ID of the user
+     * @return A user
+     */
+    public static User user(long id) {
+        var name = "User" + id;
+        return stub(User.class, Map.of("getIdLong", id, "getId", Long.toUnsignedString(id),
+                "getName", name, "getAsTag", name + "#0001", "getAsMention", "<@" + Long.toUnsignedString(id) + ">"));
+    }
+
+    /**
+     * @param id The ID of the guild
+     * @return A guild
+     */
+    public static Guild guild(long id) {
+        return stub(Guild.class, Map.of("getIdLong", id, "getId", Long.toUnsignedString(id), "getName", "Guild" + id));
+    }
+
+    /**
+     * @param allowed The answer to every permission check
+     * @return A member of no guild
+     */
+    public static Member member(boolean allowed) {
+        return stub(Member.class, Map.of("hasPermission", allowed));
+    }
+
+    /**
+     * @param user The user of the member
+     * @param guild The guild of the member, {@code null} if none
+     * @param permissions The raw permissions of the member, see {@link Permission#getRaw(Collection)}
+     * @return A member answering permission checks using {@code permissions}
+     */
+    public static Member member(User user, Guild guild, long permissions) {
+        var granted = Permission.getPermissions(permissions);
+        Answer hasPermission = args -> {
+            var last = args[args.length - 1];
+            var checked = last instanceof Permission[] array ? List.of(array) : (Collection<?>) last;
+            for (var permission : checked)
+                if (permission != Permission.UNKNOWN && !granted.contains(permission)
+                        && !granted.contains(Permission.ADMINISTRATOR)) return false;
+            return true;
+        };
+        var answers = new HashMap<String, Object>();
+        answers.put("getUser", user);
+        answers.put("getIdLong", user.getIdLong());
+        answers.put("getId", user.getId());
+        answers.put("getEffectiveName", user.getName());
+        answers.put("getPermissions", granted);
+        answers.put("hasPermission", hasPermission);
+        if (guild != null) answers.put("getGuild", guild);
+        return stub(Member.class, answers);
+    }
+
+    /**
+     * Computes the answer of a stubbed method from its arguments.
+     */
+    interface Answer {
+        Object answer(Object[] args);
+    }
+
+    /**
+     * Creates a proxy answering the given methods with fixed values, or
+     * using an {@link Answer}. Other methods return the proxy, {@code false},
+     * zero or {@code null}, depending on their return type.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "Stub";
+            }
+            var answer = answers.get(method.getName());
+            if (answer instanceof Answer computed) return computed.answer(args == null ? new Object[0] : args);
+            if (answer != null) return answer;
+            var returnType = method.getReturnType();
+            if (returnType.isInstance(proxy)) return proxy;
+            if (returnType == boolean.class) return false;
+            if (returnType == long.class) return 0L;
+            if (returnType == int.class) return 0;
+            if (returnType == double.class) return 0.0;
+            return null;
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.SlashCommand;
+import io.github.maeves2.snowballnebula.exception.ExceptionHandler;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OptionBindingTest {
+    private SnowballNebula snowball;
+
+    @BeforeEach
+    void register() {
+        snowball = new SnowballNebula(Stubs.jda()).register(Commands.class);
+        Commands.bound.clear();
+        Commands.errors.clear();
+    }
+
+    @Test
+    void intOptionsOutOfRangeAreRejected() {
+        execute("count", OptionType.INTEGER, "2147483647");
+        execute("count", OptionType.INTEGER, "-2147483648");
+        execute("count", OptionType.INTEGER, "2147483648");
+        execute("boxed", OptionType.INTEGER, "-4294967296");
+        assertEquals(List.<Object>of(Integer.MAX_VALUE, Integer.MIN_VALUE), Commands.bound);
+        assertEquals(List.of("Option value is out of range: 2147483648",
+                "Option value is out of range: -4294967296"), Commands.errors);
+    }
+
+    @Test
+    void enumOptionsAreBoundByName() {
+        execute("color", OptionType.STRING, "green");
+        execute("color", OptionType.STRING, "RED");
+        execute("color", OptionType.STRING, "purple");
+        assertEquals(List.<Object>of(Color.GREEN, Color.RED), Commands.bound);
+        assertEquals(List.of("No Color named purple"), Commands.errors);
+    }
+
+    private void execute(String command, OptionType type, String value) {
+        var interaction = RecordedInteraction.builder(command).setUserId(3).addOption("value", type, value).build();
+        snowball.onSlashCommand(interaction.toEvent(Stubs.jda(), Stubs.user(3), null, null));
+    }
+
+    public enum Color {
+        RED, GREEN
+    }
+
+    public static class Commands {
+        static final List<Object> bound = new ArrayList<>();
+        static final List<String> errors = new ArrayList<>();
+
+        @SlashCommand(name = "count", options =
+                @SlashCommand.Option(type = OptionType.INTEGER, name = "value", desc = "The value"))
+        public static void count(SlashCommandEvent event, int value) {
+            bound.add(value);
+        }
+
+        @SlashCommand(name = "boxed", options =
+                @SlashCommand.Option(type = OptionType.INTEGER, name = "value", desc = "The value"))
+        public static void boxed(SlashCommandEvent event, Integer value) {
+            bound.add(value);
+        }
+
+        @SlashCommand(name = "color", options =
+                @SlashCommand.Option(type = OptionType.STRING, name = "value", desc = "The value"))
+        public static void color(SlashCommandEvent event, Color value) {
+            bound.add(value);
+        }
+
+        @ExceptionHandler(exception = IllegalArgumentException.class)
+        public static void invalid(IllegalArgumentException e, SlashCommandEvent event) {
+            errors.add(e.getMessage());
+        }
+    }
+}
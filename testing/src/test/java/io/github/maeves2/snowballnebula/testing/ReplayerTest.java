@@ -0,0 +1,102 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import io.github.maeves2.snowballnebula.SnowballNebula;
+import io.github.maeves2.snowballnebula.commands.SlashCommand;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void repliesAreCounted() throws InterruptedException {
+        var snowball = new SnowballNebula(Stubs.jda()).register(Commands.class);
+        var interactions = List.of(interaction("ping"), interaction("ping"), interaction("silent"));
+        var report = new Replayer(snowball).replay(interactions);
+        assertEquals(3, report.getInteractions());
+        assertEquals(2, report.getReplied());
+        assertEquals(1, report.getUnanswered());
+        assertEquals(0, report.getFailed());
+    }
+
+    @Test
+    void inlineDispatchesDoNotWaitForTheReplyTimeout() throws InterruptedException {
+        var snowball = new SnowballNebula(Stubs.jda()).register(Commands.class);
+        var interactions = List.of(interaction("silent"), interaction("later"), interaction("ping"));
+        var report = new Replayer(snowball).replay(interactions);
+        assertEquals(2, report.getReplied());
+        assertEquals(1, report.getUnanswered());
+        // the asynchronous reply is still waited for, the silent command is not
+        assertTrue(report.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(20), report.toString());
+        assertTrue(report.getElapsedNanos() < TimeUnit.SECONDS.toNanos(5), report.toString());
+    }
+
+    @Test
+    void unknownCommandsAreNotAnswered() throws InterruptedException {
+        var snowball = new SnowballNebula(Stubs.jda()).enableLogging().register(Commands.class);
+        var unknown = RecordedInteraction.builder("admin").setGroup("mod").setSubcommand("ban").build();
+        var report = new Replayer(snowball).replay(List.of(unknown));
+        snowball.disableLogging();
+        assertEquals(0, report.getFailed());
+        assertEquals(1, report.getUnanswered());
+    }
+
+    @Test
+    void watchdogDefersStubbedReplies() {
+        var snowball = new SnowballNebula(Stubs.jda()).register(Commands.class)
+                .enableReplyWatchdog(20, TimeUnit.MILLISECONDS)
+                .enableTracing(directory.resolve("spans.bin"));
+        try {
+            var replies = new AtomicInteger();
+            Commands.replied.set(0);
+            var user = Stubs.user(3);
+            snowball.onSlashCommand(new StubSlashCommandEvent(Stubs.jda(), "slow", null, null, List.of(), user,
+                    Stubs.member(user, null, 0), null, e -> replies.incrementAndGet()));
+            assertEquals(1, Commands.replied.get());
+            assertEquals(2, replies.get());
+        } finally {
+            snowball.disableTracing().disableReplyWatchdog();
+        }
+    }
+
+    private static RecordedInteraction interaction(String name) {
+        return RecordedInteraction.builder(name).setUserId(3).build();
+    }
+
+    public static class Commands {
+        static final AtomicInteger replied = new AtomicInteger();
+
+        @SlashCommand(name = "ping", options = {})
+        public static void ping(SlashCommandEvent event) {
+            event.reply("pong").queue();
+        }
+
+        @SlashCommand(name = "silent", options = {})
+        public static void silent(SlashCommandEvent event) {
+        }
+
+        @SlashCommand(name = "later", options = {}, asyncReply = true)
+        public static void later(SlashCommandEvent event) {
+            CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)
+                    .execute(() -> event.reply("later").queue());
+        }
+
+        @SlashCommand(name = "slow", options = {})
+        public static void slow(SlashCommandEvent event) throws InterruptedException {
+            Thread.sleep(100);
+            event.reply("done").complete();
+            replied.incrementAndGet();
+        }
+    }
+}
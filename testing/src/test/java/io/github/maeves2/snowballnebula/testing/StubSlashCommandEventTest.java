@@ -0,0 +1,42 @@
+package io.github.maeves2.snowballnebula.testing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StubSlashCommandEventTest {
+    @Test
+    void answersTheCommandPathWithoutInteraction() {
+        var user = Stubs.user(7);
+        assertEquals("ping", new StubSlashCommandEvent("ping", user, Stubs.member(true)).getCommandPath());
+        assertEquals("admin/ban", event("admin", null, "ban", null).getCommandPath());
+        assertEquals("admin/mod/ban", event("admin", "mod", "ban", null).getCommandPath());
+        assertNull(event("admin", "mod", "ban", null).getInteraction());
+    }
+
+    @Test
+    void repliesNotifyTheListener() {
+        var replies = new AtomicInteger();
+        var event = event("ping", null, null, e -> replies.incrementAndGet());
+        assertFalse(event.isAcknowledged());
+        event.reply("pong").queue();
+        event.replyEmbeds(List.of()).complete();
+        event.deferReply().submit().join();
+        assertTrue(event.isAcknowledged());
+        assertEquals(3, replies.get());
+    }
+
+    private static StubSlashCommandEvent event(String name, String group, String subcommand,
+                                               Consumer<StubSlashCommandEvent> onReply) {
+        var user = Stubs.user(7);
+        return new StubSlashCommandEvent(Stubs.jda(), name, group, subcommand, List.of(), user,
+                Stubs.member(user, null, 0), null, onReply);
+    }
+}